@@ -2,22 +2,44 @@ package application;
 import javafx.application.Application;
 import javafx.stage.Stage;
 import modele.Modele;
+import simulation.MoteurTraction;
+import util.Horloge;
+import util.HorlogeReelle;
 import vues.*;
 
 public class Main extends Application {
 	
+	private Horloge horloge;
 	private Modele modele;
 	private IVue vue;
+	private MoteurTraction moteur;
 	
 	public Main () {
-		modele = new Modele(0, 10);
-		vue = new VueClient(modele);
+		horloge = new HorlogeReelle();
+		modele = new Modele(0, 10, horloge);
 	}
 
 	@Override
 	public void start(Stage primaryStage) throws Exception {
+		/* Avec l'option --latences, la vue mesure le délai entre chaque notification ou appui et l'image qui l'affiche */
+		if (getParameters().getRaw().contains("--latences"))
+			MesureLatences.activer();
+		vue = new VueClient(modele);
+
+		/* Avec l'option --manuel, le passage des niveaux se fait via le bouton "Niveau atteint" */
+		if (!getParameters().getRaw().contains("--manuel")) {
+			moteur = new MoteurTraction(modele, horloge);
+			moteur.demarrer();
+		}
 		vue.afficher(primaryStage);
 	}
+
+	@Override
+	public void stop() {
+		MesureLatences mesure = MesureLatences.getInstance();
+		if (mesure != null)
+			mesure.afficherRapport();
+	}
 	
 	public static void main(String[] args) {
 		launch(args);
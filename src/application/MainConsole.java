@@ -0,0 +1,217 @@
+package application;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.Arrays;
+
+import modele.Modele;
+import reseau.NoeudCabine;
+import reseau.PrimaireReplication;
+import reseau.PublicateurEtat;
+import reseau.SecoursReplication;
+import simulation.MoteurTraction;
+import util.Horloge;
+import util.HorlogeReelle;
+
+/**
+ * 	<p>
+ * 		Lanceur sans interface graphique du système de contrôle-commande.
+ * 	</p>
+ * 	<p>
+ * 		Il ne dépend pas de JavaFX: les signaux sont lus sur l'entrée standard, une commande par ligne,
+ * 		et les transitions du système sont affichées sur la sortie standard.
+ * 	</p>
+ * 	<pre>
+ * 		java application.MainConsole [--premier=0] [--dernier=10] [--manuel] [--publier=PORT] [--repliquer=PORT]
+ * 		java application.MainConsole --secours=PORT [--manuel] [--publier=PORT]
+ * 		java application.MainConsole --noeud=PORT --pairs=PORT,PORT... [--premier=0] [--dernier=10] [--manuel]
+ * 	</pre>
+ * 	<p>
+ * 		Avec <code>--publier</code>, l'état du système est publié sur le port local indiqué pour les écrans
+ * 		de supervision ({@link reseau.ClientEtat}).
+ * 	</p>
+ * 	<p>
+ * 		Avec <code>--repliquer</code>, l'état du système est répliqué vers un second processus lancé avec
+ * 		<code>--secours</code> sur le même port. Le secours suit le principal sans agir, puis reprend le contrôle
+ * 		et lit les commandes lorsque le principal ne répond plus ({@link SecoursReplication}).
+ * 	</p>
+ * 	<p>
+ * 		Avec <code>--noeud</code>, le système est une cabine d'une batterie sans répartiteur central: un processus par cabine,
+ * 		chacun avec son port et les ports des autres. Un appel de palier saisi dans n'importe quelle console est attribué
+ * 		à la cabine qui arrive le plus tôt ({@link NoeudCabine}).
+ * 	</p>
+ */
+public class MainConsole implements PropertyChangeListener {
+
+	private static final String AIDE =
+			"Commandes:\n"
+			+ "  d N  demande du niveau N (bouton intérieur)\n"
+			+ "  m N  appel pour monter depuis le niveau N\n"
+			+ "  b N  appel pour descendre depuis le niveau N\n"
+			+ "  n    niveau atteint (mode --manuel)\n"
+			+ "  f    fermer les portes\n"
+			+ "  p    passage détecté entre les portes\n"
+			+ "  u    arrêt d'urgence\n"
+			+ "  e    état du système\n"
+			+ "  q    quitter";
+
+	private Modele modele;
+	private NoeudCabine noeud;
+
+	public MainConsole(Modele modele) {
+		this(modele, null);
+	}
+
+	/**
+	 * @param noeud Nœud de la cabine dans une batterie sans répartiteur central, qui reçoit les appels de palier,
+	 * <code>null</code> pour une cabine seule.
+	 */
+	public MainConsole(Modele modele, NoeudCabine noeud) {
+		this.modele = modele;
+		this.noeud = noeud;
+		modele.ajouterEcouteur(this);
+	}
+
+	@Override
+	public void propertyChange(PropertyChangeEvent event) {
+		if (event.getPropertyName().equals("etatCourant"))
+			System.out.println("transition : " + event.getOldValue() + " -> " + event.getNewValue());
+	}
+
+	/**
+	 * Exécute une commande saisie par l'utilisateur.
+	 * 
+	 * @return <code>false</code> si l'utilisateur demande à quitter.
+	 */
+	public boolean executer(String ligne) {
+		String[] mots = ligne.trim().split("\\s+");
+
+		try {
+			switch (mots[0]) {
+				case "d":
+					modele.demandeNiveau(Integer.parseInt(mots[1]));
+					break;
+				case "m":
+					if (noeud != null)
+						noeud.monterNiveau(Integer.parseInt(mots[1]));
+					else
+						modele.monterNiveau(Integer.parseInt(mots[1]));
+					break;
+				case "b":
+					if (noeud != null)
+						noeud.descendreNiveau(Integer.parseInt(mots[1]));
+					else
+						modele.descendreNiveau(Integer.parseInt(mots[1]));
+					break;
+				case "n":
+					modele.niveauAtteint();
+					break;
+				case "f":
+					modele.fermerPortes();
+					break;
+				case "p":
+					modele.detectionPassage();
+					break;
+				case "u":
+					modele.arretUrgence();
+					break;
+				case "e":
+					System.out.println(modele);
+					break;
+				case "q":
+					return false;
+				case "":
+					break;
+				default:
+					System.out.println(AIDE);
+					break;
+			}
+		}
+		catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+			System.err.println("Erreur : commande invalide \"" + ligne.trim() + "\".");
+		}
+
+		return true;
+	}
+
+	public static void main(String[] args) throws IOException {
+		int premierNiveau = 0, dernierNiveau = 10;
+		boolean manuel = false;
+		int portPublication = -1, portReplication = -1, portSecours = -1, portNoeud = -1;
+		int[] pairs = new int[0];
+
+		for (String arg : args) {
+			if (arg.startsWith("--premier="))
+				premierNiveau = Integer.parseInt(arg.substring("--premier=".length()));
+			else if (arg.startsWith("--dernier="))
+				dernierNiveau = Integer.parseInt(arg.substring("--dernier=".length()));
+			else if (arg.equals("--manuel"))
+				manuel = true;
+			else if (arg.startsWith("--publier="))
+				portPublication = Integer.parseInt(arg.substring("--publier=".length()));
+			else if (arg.startsWith("--repliquer="))
+				portReplication = Integer.parseInt(arg.substring("--repliquer=".length()));
+			else if (arg.startsWith("--secours="))
+				portSecours = Integer.parseInt(arg.substring("--secours=".length()));
+			else if (arg.startsWith("--noeud="))
+				portNoeud = Integer.parseInt(arg.substring("--noeud=".length()));
+			else if (arg.startsWith("--pairs="))
+				pairs = Arrays.stream(arg.substring("--pairs=".length()).split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+		}
+
+		Horloge horloge = new HorlogeReelle();
+		Modele modele;
+		MainConsole console;
+
+		if (portSecours >= 0) {
+			SecoursReplication secours = new SecoursReplication(portSecours, horloge);
+			modele = secours.getModele();
+			console = new MainConsole(modele);
+			secours.demarrer();
+			System.out.println("Secours du principal du port " + portSecours);
+
+			try {
+				secours.attendreReprise();
+			} catch (InterruptedException e) {
+				return;
+			}
+			System.out.println("Reprise du contrôle-commande : " + modele);
+		}
+		else if (portNoeud >= 0) {
+			modele = new Modele(premierNiveau, dernierNiveau, horloge);
+			NoeudCabine noeud = new NoeudCabine(modele, horloge, portNoeud, pairs);
+			console = new MainConsole(modele, noeud);
+			noeud.demarrer();
+			System.out.println("Nœud " + noeud.getIdentifiant() + " de la batterie " + Arrays.toString(pairs));
+		}
+		else {
+			modele = new Modele(premierNiveau, dernierNiveau, horloge);
+			console = new MainConsole(modele);
+		}
+
+		if (!manuel)
+			new MoteurTraction(modele, horloge).demarrer();
+
+		if (portPublication >= 0) {
+			PublicateurEtat publicateur = new PublicateurEtat(modele, portPublication);
+			publicateur.demarrer();
+			System.out.println("État publié sur le port " + publicateur.getPort());
+		}
+
+		if (portReplication >= 0) {
+			PrimaireReplication replication = new PrimaireReplication(modele, portReplication);
+			replication.demarrer();
+			System.out.println("État répliqué sur le port " + replication.getPort());
+		}
+
+		System.out.println(AIDE);
+
+		BufferedReader entree = new BufferedReader(new InputStreamReader(System.in));
+		String ligne;
+		while ((ligne = entree.readLine()) != null && console.executer(ligne))
+			;
+	}
+}
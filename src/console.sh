@@ -0,0 +1,5 @@
+#!/bin/bash
+# Coeur du système seul, sans JavaFX ni affichage
+javac -encoding UTF-8 $(find ./modele ./util ./simulation ./reseau | grep .java) application/MainConsole.java
+
+java application.MainConsole "$@"
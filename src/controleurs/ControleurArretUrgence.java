@@ -1,7 +1,9 @@
 package controleurs;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
+import javafx.scene.control.Button;
 import modele.IModele;
+import vues.MesureLatences;
 
 public class ControleurArretUrgence implements EventHandler<ActionEvent> {
 	
@@ -13,6 +15,9 @@ public class ControleurArretUrgence implements EventHandler<ActionEvent> {
 	
 	@Override
 	public void handle(ActionEvent event) {
+		MesureLatences mesure = MesureLatences.getInstance();
+		if (mesure != null && event.getSource() instanceof Button)
+			mesure.appui((Button) event.getSource());
 		System.out.println("Signal ARRET_URGENCE envoyé.");
 		modele.arretUrgence();
 	}
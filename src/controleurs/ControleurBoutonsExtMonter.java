@@ -3,7 +3,8 @@ import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.scene.control.Button;
 import modele.IModele;
-import util.Bouton;
+import vues.Bouton;
+import vues.MesureLatences;
 
 public class ControleurBoutonsExtMonter implements EventHandler<ActionEvent> {
 
@@ -19,6 +20,9 @@ public class ControleurBoutonsExtMonter implements EventHandler<ActionEvent> {
 		
 		if (source instanceof Bouton) {
 			Bouton btn = (Bouton)source;
+			MesureLatences mesure = MesureLatences.getInstance();
+			if (mesure != null)
+				mesure.appui(btn);
 			System.out.println("Signal MONTER_DEPUIS_NIVEAU_" + btn.getNiveau() + " envoyé.");
 			modele.monterNiveau(btn.getNiveau());
 		}
@@ -0,0 +1,20 @@
+package controleurs;
+import javafx.event.ActionEvent;
+import javafx.event.EventHandler;
+import modele.IModele;
+
+public class ControleurFermerPortes implements EventHandler<ActionEvent> {
+	
+	private IModele modele;
+	
+	public ControleurFermerPortes(IModele modele) {
+		this.modele = modele;
+	}
+	
+	@Override
+	public void handle(ActionEvent event) {
+		System.out.println("Signal FERMER_PORTES envoyé.");
+		modele.fermerPortes();
+	}
+	
+}
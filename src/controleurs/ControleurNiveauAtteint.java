@@ -2,7 +2,7 @@ package controleurs;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import modele.IModele;
-import util.Bouton;
+import vues.Bouton;
 import util.Etat;
 
 public class ControleurNiveauAtteint implements EventHandler<ActionEvent> {
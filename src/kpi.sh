@@ -0,0 +1,4 @@
+#!/bin/bash
+javac -encoding UTF-8 $(find ./modele ./util ./simulation | grep .java)
+
+java simulation.SuiteKPI ../scenarios "$@"
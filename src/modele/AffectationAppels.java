@@ -0,0 +1,296 @@
+package modele;
+
+import java.util.Arrays;
+
+import util.SignauxCompacts;
+
+/**
+ * 	<p>
+ * 		Affectation optimale des appels extérieurs aux cabines d'une batterie, par séparation et évaluation (branch and bound).
+ * 	</p>
+ * 	<p>
+ * 		Le coût d'une affectation est la somme des délais de prise en charge des appels, chaque cabine servant
+ * 		ses appels et ses demandes de niveau selon la stratégie collective ({@link ModeleLeger#delaisPriseEnCharge(long)}).
+ * 		Ce coût n'est pas la somme de coûts indépendants: un appel affecté à une cabine retarde les autres appels de cette cabine,
+ * 		ce que l'affectation gloutonne à la cabine la plus proche ignore.
+ * 	</p>
+ * 	<p>
+ * 		La recherche est « anytime »: la première solution explorée est l'affectation gloutonne séquentielle,
+ * 		puis chaque solution meilleure la remplace. Lorsque le budget de temps est épuisé, la meilleure solution trouvée est retournée.
+ * 		L'échéance est aussi vérifiée pendant le calcul des délais de chaque appel seul et pendant la descente gloutonne:
+ * 		s'ils ne tiennent pas dans le budget, les appels restants vont à la cabine la plus proche (par leur délai seul s'il
+ * 		est déjà calculé, sinon par la distance). Hors préemption du thread, le budget n'est dépassé que de la durée
+ * 		d'un nœud de la recherche, quelques microsecondes.
+ * 		Les appels sont explorés par regret décroissant (écart entre leurs deux meilleures cabines) et les branches
+ * 		sont coupées grâce à une estimation optimiste: chaque appel restant au délai qu'il aurait seul dans sa meilleure cabine.
+ * 	</p>
+ * 
+ * @see Batterie
+ */
+public class AffectationAppels {
+
+	/**
+	 * Budget de temps par défaut d'une décision, en nanosecondes.
+	 */
+	public static final long BUDGET = 5_000_000;
+
+	private long budget;
+
+	/* Problème en cours de résolution */
+	private ModeleLeger[] cabines;
+	private long[] attentesDepart;
+	private int[] rangs;
+	private boolean[] montees;
+	private int[] ordre;
+	private long[][] seul;
+	private long[] estimationsRestantes;
+
+	private int[] courante, meilleure;
+	private long meilleurCout;
+	private long echeance;
+	private boolean interrompue;
+	private long nombreNoeuds;
+
+	public AffectationAppels() {
+		this(BUDGET);
+	}
+
+	/**
+	 * @param budget Durée maximale d'une décision, en nanosecondes.
+	 */
+	public AffectationAppels(long budget) {
+		this.budget = budget;
+	}
+
+	/**
+	 * @return Le nombre d'affectations partielles explorées lors de la dernière décision.
+	 */
+	public long getNombreNoeuds() {
+		return nombreNoeuds;
+	}
+
+	/**
+	 * @return <code>true</code> si la dernière décision a exploré tout l'arbre de recherche avant la fin du budget.
+	 */
+	public boolean estOptimale() {
+		return !interrompue;
+	}
+
+	/**
+	 * @return Le coût de la dernière affectation retournée, en millisecondes d'attente cumulées.
+	 * Calculé à la demande si l'affectation est celle de repli, retournée sans avoir été évaluée.
+	 */
+	public long getCout() {
+		if (meilleurCout == Long.MAX_VALUE && meilleure != null)
+			meilleurCout = evaluer(cabines, attentesDepart, rangs, montees, meilleure);
+		return meilleurCout;
+	}
+
+	/**
+	 * 	Affecte les appels extérieurs aux cabines.
+	 * 
+	 * @param cabines État de chaque cabine (position, sens, mouvement et demandes de niveau), sans appel extérieur.
+	 * @param attentesDepart Temps restant avant que chaque cabine puisse repartir, en millisecondes.
+	 * @param rangs Rang du niveau de chaque appel.
+	 * @param montees Sens de chaque appel, <code>true</code> pour monter.
+	 * @return Pour chaque appel, l'indice de la cabine à laquelle il est affecté.
+	 */
+	public int[] affecter(ModeleLeger[] cabines, long[] attentesDepart, int[] rangs, boolean[] montees) {
+		this.cabines = cabines;
+		this.attentesDepart = attentesDepart;
+		this.rangs = rangs;
+		this.montees = montees;
+		echeance = System.nanoTime() + budget;
+		interrompue = false;
+		nombreNoeuds = 0;
+		meilleure = null;
+		meilleurCout = Long.MAX_VALUE;
+
+		int n = rangs.length;
+		courante = new int[n];
+		if (n == 0)
+			return new int[0];
+
+		// Délai de chaque appel s'il était seul dans chaque cabine
+		seul = new long[n][];
+		long[] regrets = new long[n];
+		for (int i = 0; i < n; i++) {
+			if (System.nanoTime() > echeance)
+				return repli(i);
+
+			seul[i] = new long[cabines.length];
+			long premier = Long.MAX_VALUE, second = Long.MAX_VALUE;
+			for (int c = 0; c < cabines.length; c++) {
+				seul[i][c] = cout(avecAppel(cabines[c], i), c);
+				if (seul[i][c] < premier) {
+					second = premier;
+					premier = seul[i][c];
+				}
+				else if (seul[i][c] < second) {
+					second = seul[i][c];
+				}
+			}
+			regrets[i] = second == Long.MAX_VALUE ? 0 : second - premier;
+		}
+
+		ordre = trierParRegret(regrets);
+		estimationsRestantes = new long[n + 1];
+		for (int k = n - 1; k >= 0; k--)
+			estimationsRestantes[k] = estimationsRestantes[k + 1] + Arrays.stream(seul[ordre[k]]).min().getAsLong();
+
+		explorer(0, cabines.clone(), new long[cabines.length], 0);
+
+		return meilleure;
+	}
+
+	/**
+	 * 	Affectation gloutonne: chaque appel est affecté à la cabine qui le prendrait en charge le plus tôt s'il était seul.
+	 * 	Sert de référence pour mesurer le gain de {@link #affecter(ModeleLeger[], long[], int[], boolean[]) affecter}.
+	 */
+	public int[] affecterAuPlusProche(ModeleLeger[] cabines, long[] attentesDepart, int[] rangs, boolean[] montees) {
+		this.rangs = rangs;
+		this.montees = montees;
+		this.attentesDepart = attentesDepart;
+
+		int[] affectation = new int[rangs.length];
+		for (int i = 0; i < rangs.length; i++) {
+			long meilleurDelai = Long.MAX_VALUE;
+			for (int c = 0; c < cabines.length; c++) {
+				long delai = cout(avecAppel(cabines[c], i), c);
+				if (delai < meilleurDelai) {
+					meilleurDelai = delai;
+					affectation[i] = c;
+				}
+			}
+		}
+		return affectation;
+	}
+
+	/**
+	 * @return Le coût total de <code>affectation</code>, en millisecondes d'attente cumulées.
+	 */
+	public long evaluer(ModeleLeger[] cabines, long[] attentesDepart, int[] rangs, boolean[] montees, int[] affectation) {
+		this.rangs = rangs;
+		this.montees = montees;
+		this.attentesDepart = attentesDepart;
+
+		ModeleLeger[] etats = cabines.clone();
+		for (int i = 0; i < affectation.length; i++)
+			etats[affectation[i]] = avecAppel(etats[affectation[i]], i);
+
+		long total = 0;
+		for (int c = 0; c < etats.length; c++)
+			total += cout(etats[c], c);
+		return total;
+	}
+
+	private void explorer(int profondeur, ModeleLeger[] etats, long[] couts, long coutPartiel) {
+		nombreNoeuds++;
+
+		if (profondeur == ordre.length) {
+			if (coutPartiel < meilleurCout) {
+				meilleurCout = coutPartiel;
+				meilleure = courante.clone();
+			}
+			return;
+		}
+
+		if (System.nanoTime() > echeance) {
+			// Première descente (gloutonne) inachevée: les appels restants vont à la cabine la plus proche
+			if (meilleure == null) {
+				for (int k = profondeur; k < ordre.length; k++)
+					courante[ordre[k]] = plusProche(ordre[k]);
+				meilleure = courante.clone();
+			}
+			interrompue = true;
+			return;
+		}
+
+		int appel = ordre[profondeur];
+		ModeleLeger[] enfants = new ModeleLeger[etats.length];
+		long[] nouveauxCouts = new long[etats.length];
+		Integer[] candidates = new Integer[etats.length];
+
+		for (int c = 0; c < etats.length; c++) {
+			enfants[c] = avecAppel(etats[c], appel);
+			nouveauxCouts[c] = cout(enfants[c], c);
+			candidates[c] = c;
+		}
+		Arrays.sort(candidates, (a, b) -> Long.compare(nouveauxCouts[a] - couts[a], nouveauxCouts[b] - couts[b]));
+
+		for (int c : candidates) {
+			long cout = coutPartiel - couts[c] + nouveauxCouts[c];
+			// Les cabines sont triées par coût croissant: les suivantes ne peuvent pas faire mieux
+			if (cout + estimationsRestantes[profondeur + 1] >= meilleurCout)
+				break;
+
+			ModeleLeger etat = etats[c];
+			long ancienCout = couts[c];
+			etats[c] = enfants[c];
+			couts[c] = nouveauxCouts[c];
+			courante[appel] = c;
+
+			explorer(profondeur + 1, etats, couts, cout);
+
+			etats[c] = etat;
+			couts[c] = ancienCout;
+			if (interrompue)
+				return;
+		}
+	}
+
+	/**
+	 * 	Affectation de repli lorsque le budget est épuisé avant la fin du calcul des délais seuls:
+	 * 	les <code>calcules</code> premiers appels vont à leur meilleure cabine, les autres à la plus proche en distance.
+	 * 	Son coût n'est calculé que si {@link #getCout() getCout} est appelée.
+	 */
+	private int[] repli(int calcules) {
+		interrompue = true;
+		for (int i = 0; i < rangs.length; i++)
+			courante[i] = i < calcules ? plusProche(i) : plusProcheEnDistance(i);
+		meilleure = courante;
+		return meilleure;
+	}
+
+	/**
+	 * @return La cabine qui prendrait l'appel en charge le plus tôt s'il était seul.
+	 */
+	private int plusProche(int appel) {
+		int meilleureCabine = 0;
+		for (int c = 1; c < cabines.length; c++)
+			if (seul[appel][c] < seul[appel][meilleureCabine])
+				meilleureCabine = c;
+		return meilleureCabine;
+	}
+
+	private int plusProcheEnDistance(int appel) {
+		int niveau = cabines[0].getZonage().getNiveau(rangs[appel]);
+		int meilleureCabine = 0;
+		for (int c = 1; c < cabines.length; c++)
+			if (Math.abs(cabines[c].getNiveau() - niveau) < Math.abs(cabines[meilleureCabine].getNiveau() - niveau))
+				meilleureCabine = c;
+		return meilleureCabine;
+	}
+
+	private ModeleLeger avecAppel(ModeleLeger cabine, int appel) {
+		ModeleLeger copie = cabine.bifurquer();
+		copie.getSignaux().set(montees[appel] ? SignauxCompacts.MONTER : SignauxCompacts.DESCENDRE, rangs[appel], true);
+		return copie;
+	}
+
+	private long cout(ModeleLeger cabine, int indice) {
+		return cabine.bifurquer().delaisPriseEnCharge(attentesDepart[indice]);
+	}
+
+	private static int[] trierParRegret(long[] regrets) {
+		Integer[] indices = new Integer[regrets.length];
+		for (int i = 0; i < indices.length; i++)
+			indices[i] = i;
+		Arrays.sort(indices, (a, b) -> Long.compare(regrets[b], regrets[a]));
+
+		int[] ordre = new int[indices.length];
+		for (int i = 0; i < ordre.length; i++)
+			ordre[i] = indices[i];
+		return ordre;
+	}
+}
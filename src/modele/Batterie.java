@@ -0,0 +1,246 @@
+package modele;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import util.Etat;
+import util.Histogramme;
+import util.Horloge;
+import util.Sens;
+import util.SignauxCompacts;
+import util.Zonage;
+
+/**
+ * 	<p>
+ * 		Batterie de cabines desservant les mêmes niveaux, avec des boutons d'appel communs sur les paliers.
+ * 	</p>
+ * 	<p>
+ * 		Chaque appel extérieur reçu par la batterie déclenche une nouvelle {@link AffectationAppels affectation}
+ * 		de tous les appels encore en attente: un appel peut ainsi passer d'une cabine à une autre tant qu'il n'est pas servi.
+ * 		L'appel est transmis à sa cabine comme le serait l'appui sur un bouton de palier, et retiré de son ancienne cabine
+ * 		s'il change d'affectation. Les demandes de niveau restent envoyées directement à chaque cabine.
+ * 	</p>
+ * 	<p>
+ * 		Une cabine en arrêt d'urgence ne reçoit plus d'appels. Ceux qu'elle avait, effacés par l'arrêt d'urgence,
+ * 		sont aussitôt affectés de nouveau aux autres cabines, et tous les appels en attente le sont encore à la levée de l'arrêt.
+ * 		Ces affectations passent par une tâche de l'horloge: la notification de l'arrêt d'urgence peut venir d'un thread
+ * 		qui tient le verrou de la cabine.
+ * 	</p>
+ */
+public class Batterie {
+
+	private final List<Modele> cabines;
+	private final Horloge horloge;
+	private final Zonage zonage;
+	private final AffectationAppels affectation;
+
+	/**
+	 * 	<p>
+	 * 		Appels en attente, associés à l'indice de leur cabine. La clé d'un appel est <code>2 * rang</code>
+	 * 		pour monter et <code>2 * rang + 1</code> pour descendre.
+	 * 		Les cabines retirent les appels qu'elles servent depuis leurs propres threads.
+	 * 	</p>
+	 */
+	private final Map<Integer, Integer> affectations = new ConcurrentHashMap<>();
+
+	/**
+	 * 	<p>
+	 * 		Durées des décisions d'affectation, en nanosecondes.
+	 * 	</p>
+	 */
+	private final Histogramme dureesDecision = new Histogramme();
+
+	public Batterie(List<Modele> cabines, Horloge horloge) {
+		this(cabines, horloge, AffectationAppels.BUDGET);
+	}
+
+	/**
+	 * @param cabines Cabines de la batterie, qui doivent desservir les mêmes niveaux.
+	 * @param horloge Horloge des cabines.
+	 * @param budget Durée maximale d'une décision d'affectation, en nanosecondes.
+	 */
+	public Batterie(List<Modele> cabines, Horloge horloge, long budget) {
+		if (cabines.isEmpty())
+			throw new IllegalArgumentException("Une batterie contient au moins une cabine.");
+
+		this.cabines = new ArrayList<>(cabines);
+		this.horloge = horloge;
+		zonage = cabines.get(0).getZonage();
+		affectation = new AffectationAppels(budget);
+
+		for (int c = 0; c < cabines.size(); c++) {
+			if (!Arrays.equals(cabines.get(c).getNiveauxDesservis(), zonage.getNiveauxDesservis()))
+				throw new IllegalArgumentException("Les cabines d'une batterie doivent desservir les mêmes niveaux.");
+			cabines.get(c).ajouterEcouteur(new SuiviCabine(c));
+		}
+	}
+
+	public List<Modele> getCabines() {
+		return Collections.unmodifiableList(cabines);
+	}
+
+	public Histogramme getDureesDecision() {
+		return dureesDecision;
+	}
+
+	/**
+	 * @return L'indice de la cabine à laquelle est affecté l'appel, -1 si aucun appel n'est en attente.
+	 */
+	public int getCabineAffectee(int niveau, Sens sens) {
+		int rang = zonage.rang(niveau);
+		if (rang < 0)
+			return -1;
+
+		Integer cabine = affectations.get(cle(rang, sens == Sens.MONTER));
+		return cabine == null ? -1 : cabine;
+	}
+
+	/**
+	 * Appui sur le bouton pour monter du palier <code>niveau</code>.
+	 */
+	public void monterNiveau(int niveau) {
+		appel(niveau, true);
+	}
+
+	/**
+	 * Appui sur le bouton pour descendre du palier <code>niveau</code>.
+	 */
+	public void descendreNiveau(int niveau) {
+		appel(niveau, false);
+	}
+
+	private synchronized void appel(int niveau, boolean montee) {
+		int rang = zonage.rang(niveau);
+
+		if (rang < 0 || (montee && rang == zonage.getNombreNiveauxDesservis() - 1) || (!montee && rang == 0)) {
+			System.err.println("Erreur : Il n'y a pas de bouton pour " + (montee ? "monter" : "descendre") + " au niveau " + niveau + ".");
+			return;
+		}
+
+		affectations.putIfAbsent(cle(rang, montee), -1);
+		reaffecter();
+	}
+
+	/**
+	 * Affecte de nouveau les appels en attente après l'arrêt d'urgence d'une cabine ou sa levée.
+	 */
+	private synchronized void reaffecterEnAttente() {
+		if (!affectations.isEmpty())
+			reaffecter();
+	}
+
+	/**
+	 * Affecte de nouveau tous les appels en attente et transmet les changements aux cabines.
+	 */
+	private void reaffecter() {
+		long debut = System.nanoTime();
+
+		List<Integer> disponibles = new ArrayList<>();
+		for (int c = 0; c < cabines.size(); c++)
+			if (cabines.get(c).getEtatCourant() != Etat.ARRET_URGENCE)
+				disponibles.add(c);
+		if (disponibles.isEmpty())
+			return;
+
+		ModeleLeger[] etats = new ModeleLeger[disponibles.size()];
+		long[] attentesDepart = new long[disponibles.size()];
+		for (int i = 0; i < etats.length; i++) {
+			Modele cabine = cabines.get(disponibles.get(i));
+			etats[i] = etatSansAppels(cabine);
+			attentesDepart[i] = cabine.getTempsRestantPause();
+		}
+
+		List<Integer> cles = new ArrayList<>(affectations.keySet());
+		int[] rangs = new int[cles.size()];
+		boolean[] montees = new boolean[cles.size()];
+		for (int i = 0; i < rangs.length; i++) {
+			rangs[i] = cles.get(i) / 2;
+			montees[i] = cles.get(i) % 2 == 0;
+		}
+
+		int[] resultat = affectation.affecter(etats, attentesDepart, rangs, montees);
+
+		for (int i = 0; i < resultat.length; i++) {
+			int cabine = disponibles.get(resultat[i]);
+			Integer ancienne = affectations.replace(cles.get(i), cabine);
+			int niveau = zonage.getNiveau(rangs[i]);
+			Sens sens = montees[i] ? Sens.MONTER : Sens.DESCENDRE;
+
+			if (ancienne == null) {
+				// servi entre-temps
+				affectations.remove(cles.get(i), cabine);
+				continue;
+			}
+			if (ancienne != cabine && ancienne >= 0)
+				cabines.get(ancienne).retirerAppel(niveau, sens);
+			if (ancienne != cabine) {
+				if (montees[i])
+					cabines.get(cabine).monterNiveau(niveau);
+				else
+					cabines.get(cabine).descendreNiveau(niveau);
+			}
+		}
+
+		dureesDecision.enregistrer(System.nanoTime() - debut);
+	}
+
+	/**
+	 * Copie l'état de la cabine en ne gardant que ses demandes de niveau: ses appels extérieurs sont à réaffecter.
+	 */
+	private ModeleLeger etatSansAppels(Modele cabine) {
+		Instantane instantane = cabine.capturerInstantane();
+		SignauxCompacts demandes = new SignauxCompacts(zonage.getNombreNiveauxDesservis());
+		for (int i = 0; i < demandes.getNombreMots(); i++)
+			demandes.setMot(SignauxCompacts.DEMANDE, i, instantane.getSignaux().getMot(SignauxCompacts.DEMANDE, i));
+
+		Etat etat = instantane.getEtat();
+		boolean enMouvement = etat == Etat.MONTER || etat == Etat.DESCENDRE || etat == Etat.ARRET_PRO_NIV;
+
+		return new ModeleLeger(zonage, instantane.getNiveauCourant(), instantane.getSens(), enMouvement, demandes);
+	}
+
+	private static int cle(int rang, boolean montee) {
+		return 2 * rang + (montee ? 0 : 1);
+	}
+
+	/**
+	 * Retire de la batterie les appels servis par une cabine, et libère ceux d'une cabine en arrêt d'urgence.
+	 */
+	private class SuiviCabine implements PropertyChangeListener {
+		private final int indice;
+
+		private SuiviCabine(int indice) {
+			this.indice = indice;
+		}
+
+		@Override
+		public void propertyChange(PropertyChangeEvent event) {
+			String nom = event.getPropertyName();
+
+			if (nom.equals("etatCourant")) {
+				if (event.getNewValue() == Etat.ARRET_URGENCE) {
+					// Appels effacés sans notification individuelle: ils attendent une autre cabine
+					affectations.replaceAll((cle, cabine) -> cabine == indice ? -1 : cabine);
+					horloge.planifier(Batterie.this::reaffecterEnAttente, 0);
+				}
+				else if (event.getOldValue() == Etat.ARRET_URGENCE)
+					horloge.planifier(Batterie.this::reaffecterEnAttente, 0);
+				return;
+			}
+
+			boolean montee = nom.startsWith("monterNiveau");
+
+			if ((montee || nom.startsWith("descendreNiveau")) && !(boolean) event.getNewValue()) {
+				int niveau = Integer.parseInt(nom.substring(montee ? "monterNiveau".length() : "descendreNiveau".length()));
+				// Sans effet si l'appel a été confié à une autre cabine
+				affectations.remove(cle(zonage.rang(niveau), montee), indice);
+			}
+		}
+	}
+}
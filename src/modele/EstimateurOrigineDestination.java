@@ -0,0 +1,228 @@
+package modele;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.Arrays;
+
+import util.Etat;
+import util.Horloge;
+import util.Sens;
+import util.SignauxCompacts;
+
+/**
+ * 	<p>
+ * 		Estimateur en continu de la matrice origine-destination d'une cabine, d'après les signaux qu'elle reçoit.
+ * 	</p>
+ * 	<p>
+ * 		Pendant un arrêt, chaque nouvelle demande de niveau est attribuée au niveau de l'arrêt: c'est un passager monté
+ * 		à ce niveau qui indique sa destination. Les appels extérieurs donnent le taux d'arrivée des passagers à chaque palier.
+ * 		Les observations anciennes s'effacent exponentiellement, avec la demi-vie donnée à la création: l'estimation suit
+ * 		l'évolution du trafic au cours de la journée (pointe du matin, du midi, du soir).
+ * 	</p>
+ * 	<p>
+ * 		La mémoire est fixe, un réel par couple de niveaux desservis. Pour éviter de faire décroître toute la matrice
+ * 		à chaque observation, les poids sont rangés à l'échelle d'un instant de référence commun: une observation à l'instant
+ * 		<code>t</code> ajoute <code>exp((t - reference) / tau)</code> et une valeur lue est multipliée par
+ * 		<code>exp(-(maintenant - reference) / tau)</code>. Toutes les questions sont ainsi traitées en temps constant,
+ * 		y compris le niveau le plus appelé et la destination la plus probable depuis un niveau, tenus à jour à chaque
+ * 		observation puisque la décroissance ne change pas l'ordre des poids.
+ * 	</p>
+ */
+public class EstimateurOrigineDestination implements PropertyChangeListener {
+	/** Au-delà de cet exposant, les poids sont ramenés à un nouvel instant de référence pour ne pas déborder. */
+	private static final double EXPOSANT_MAX = 50;
+
+	private final IModele modele;
+	private final Horloge horloge;
+	private final int[] niveauxDesservis;
+	private final int n;
+	/** Constante de temps de la décroissance, en millisecondes. */
+	private final double tau;
+
+	private long reference;
+
+	/** Trajets observés, indexés par rangs d'origine et de destination. */
+	private final double[][] trajets;
+	/** Trajets observés depuis chaque origine. */
+	private final double[] departs;
+	/** Rang de la destination la plus fréquente depuis chaque origine, -1 si aucun trajet n'est observé. */
+	private final int[] destinationFrequente;
+
+	private final double[] appelsMonter, appelsDescendre;
+	/** Rang du niveau le plus appelé, -1 si aucun appel n'est observé. */
+	private int niveauFrequent = -1;
+
+	/** Rang du niveau de l'arrêt en cours, -1 si la cabine n'est pas à l'arrêt. */
+	private int origine = -1;
+
+	/**
+	 * 	Crée l'estimateur et l'abonne aux signaux de la cabine.
+	 *
+	 * @param demiVie Durée au bout de laquelle le poids d'une observation est divisé par deux, en millisecondes.
+	 */
+	public EstimateurOrigineDestination(IModele modele, Horloge horloge, long demiVie) {
+		if (demiVie <= 0)
+			throw new IllegalArgumentException("La demi-vie doit être strictement positive.");
+
+		this.modele = modele;
+		this.horloge = horloge;
+		niveauxDesservis = modele.getNiveauxDesservis();
+		n = niveauxDesservis.length;
+		tau = demiVie / Math.log(2);
+		reference = horloge.getTempsCourant();
+
+		trajets = new double[n][n];
+		departs = new double[n];
+		destinationFrequente = new int[n];
+		Arrays.fill(destinationFrequente, -1);
+		appelsMonter = new double[n];
+		appelsDescendre = new double[n];
+
+		modele.ajouterEcouteur(this);
+	}
+
+	@Override
+	public void propertyChange(PropertyChangeEvent event) {
+		String nomProp = event.getPropertyName();
+
+		if (nomProp.equals("etatCourant")) {
+			synchronized (this) {
+				origine = event.getNewValue() == Etat.ARRET ? rang(modele.getNiveauCourant()) : -1;
+			}
+		}
+		else if (nomProp.equals("signaux")) {
+			SignauxCompacts avant = (SignauxCompacts) event.getOldValue();
+			SignauxCompacts apres = (SignauxCompacts) event.getNewValue();
+
+			for (int rang = 0; rang < n; rang++) {
+				if (apres.get(SignauxCompacts.DEMANDE, rang) && !avant.get(SignauxCompacts.DEMANDE, rang))
+					observerDemande(rang);
+				if (apres.get(SignauxCompacts.MONTER, rang) && !avant.get(SignauxCompacts.MONTER, rang))
+					observerAppel(rang, appelsMonter);
+				if (apres.get(SignauxCompacts.DESCENDRE, rang) && !avant.get(SignauxCompacts.DESCENDRE, rang))
+					observerAppel(rang, appelsDescendre);
+			}
+		}
+		else if (nomProp.contains("Niveau") && Boolean.TRUE.equals(event.getNewValue())) {
+			String[] signal = nomProp.split("Niveau");
+			int rang = rang(Integer.parseInt(signal[1]));
+			if (rang < 0)
+				return;
+
+			switch (signal[0]) {
+				case "demande":
+					observerDemande(rang);
+					break;
+				case "monter":
+					observerAppel(rang, appelsMonter);
+					break;
+				case "descendre":
+					observerAppel(rang, appelsDescendre);
+					break;
+			}
+		}
+	}
+
+	private synchronized void observerDemande(int destination) {
+		if (origine < 0 || origine == destination)
+			return;
+
+		double poids = poids();
+		trajets[origine][destination] += poids;
+		departs[origine] += poids;
+
+		int frequente = destinationFrequente[origine];
+		if (frequente < 0 || trajets[origine][destination] > trajets[origine][frequente])
+			destinationFrequente[origine] = destination;
+	}
+
+	private synchronized void observerAppel(int rang, double[] appels) {
+		appels[rang] += poids();
+
+		if (niveauFrequent < 0 || appelsMonter[rang] + appelsDescendre[rang] > appelsMonter[niveauFrequent] + appelsDescendre[niveauFrequent])
+			niveauFrequent = rang;
+	}
+
+	/**
+	 * @return Le poids d'une observation faite maintenant, à l'échelle de l'instant de référence.
+	 */
+	private double poids() {
+		long maintenant = horloge.getTempsCourant();
+		if ((maintenant - reference) / tau > EXPOSANT_MAX)
+			changerReference(maintenant);
+
+		return Math.exp((maintenant - reference) / tau);
+	}
+
+	private void changerReference(long maintenant) {
+		double facteur = Math.exp(-(maintenant - reference) / tau);
+
+		for (int o = 0; o < n; o++) {
+			for (int d = 0; d < n; d++)
+				trajets[o][d] *= facteur;
+			departs[o] *= facteur;
+			appelsMonter[o] *= facteur;
+			appelsDescendre[o] *= facteur;
+		}
+		reference = maintenant;
+	}
+
+	/**
+	 * @return Le facteur qui ramène un poids à l'instant courant.
+	 */
+	private double decroissance() {
+		return Math.exp(-(horloge.getTempsCourant() - reference) / tau);
+	}
+
+	private int rang(int niveau) {
+		int rang = Arrays.binarySearch(niveauxDesservis, niveau);
+		return rang < 0 ? -1 : rang;
+	}
+
+	/**
+	 * @return Le nombre de trajets observés de <code>origine</code> à <code>destination</code>, chacun pondéré par son ancienneté.
+	 */
+	public synchronized double getTrajets(int origine, int destination) {
+		int o = rang(origine), d = rang(destination);
+		return o < 0 || d < 0 ? 0 : trajets[o][d] * decroissance();
+	}
+
+	/**
+	 * @return La probabilité qu'un passager monté au niveau <code>origine</code> aille au niveau <code>destination</code>,
+	 * 0 si aucun trajet n'a été observé depuis <code>origine</code>.
+	 */
+	public synchronized double getProbabilite(int origine, int destination) {
+		int o = rang(origine), d = rang(destination);
+		// La décroissance est la même pour le numérateur et le dénominateur
+		return o < 0 || d < 0 || departs[o] == 0 ? 0 : trajets[o][d] / departs[o];
+	}
+
+	/**
+	 * @return La destination la plus fréquente des passagers montés au niveau <code>origine</code>,
+	 * <code>origine</code> si aucun trajet n'a été observé.
+	 */
+	public synchronized int getDestinationProbable(int origine) {
+		int o = rang(origine);
+		return o < 0 || destinationFrequente[o] < 0 ? origine : niveauxDesservis[destinationFrequente[o]];
+	}
+
+	/**
+	 * @return Le taux d'arrivée des appels pour aller dans le sens <code>sens</code> au niveau <code>niveau</code>,
+	 * en appels par minute.
+	 */
+	public synchronized double getTauxAppels(int niveau, Sens sens) {
+		int rang = rang(niveau);
+		if (rang < 0)
+			return 0;
+
+		double poids = sens == Sens.MONTER ? appelsMonter[rang] : appelsDescendre[rang];
+		return poids * decroissance() / tau * 60_000;
+	}
+
+	/**
+	 * @return Le niveau qui reçoit le plus d'appels extérieurs, le premier niveau desservi si aucun appel n'a été observé.
+	 */
+	public synchronized int getNiveauLePlusAppele() {
+		return niveauxDesservis[Math.max(0, niveauFrequent)];
+	}
+}
@@ -0,0 +1,301 @@
+package modele;
+
+import util.Etat;
+import util.Sens;
+
+/**
+ * 	<p>
+ * 		Moteur de simulation d'un grand nombre de cabines indépendantes, pour les études à l'échelle d'une ville.
+ * 	</p>
+ * 	<p>
+ * 		Au lieu d'un {@link Modele} par cabine, l'état de toutes les cabines est rangé dans des tableaux de types primitifs
+ * 		(une case par cabine) et leurs signaux dans trois masques de bits d'un <code>long</code>, un bit par rang de niveau:
+ * 		une flotte d'un million de cabines tient dans une quarantaine de mégaoctets. Chaque appel à
+ * 		{@link #avancer(int, int) avancer} fait progresser une plage de cabines d'un pas de temps avec une seule boucle
+ * 		sur des tableaux contigus, où les décisions se réduisent à des opérations sur les masques.
+ * 	</p>
+ * 	<p>
+ * 		Les décisions sont celles de {@link StrategieCollective} et de {@link Modele#temporisation() temporisation}:
+ * 		arrêt aux demandes de niveau et aux appels dans le sens de progression, à l'appel opposé le plus éloigné en bout de course,
+ * 		changement de sens à la fin de la pause si seul un appel opposé attend au niveau courant.
+ * 		Comme {@link Modele}, une cabine à l'arrêt sert sans se déplacer les signaux de son propre niveau.
+ * 		Le temps est discret: franchir un niveau prend un pas, une pause {@link #getPasArret() pasArret} pas.
+ * 	</p>
+ * 	<p>
+ * 		Les cabines d'une plage ne dépendent pas des autres: des plages disjointes peuvent avancer sur des threads différents.
+ * 	</p>
+ */
+public class FlotteCabines {
+
+	/**
+	 * Nombre maximal de niveaux desservis: un bit par niveau dans un <code>long</code>.
+	 */
+	public static final int NOMBRE_MAX_NIVEAUX = 64;
+
+	private static final byte ATTENTE = 0, MOUVEMENT = 1, ARRET = 2;
+
+	private final int nombreCabines, nombreNiveaux, pasArret;
+
+	private final int[] rang;
+	private final byte[] etat;
+	/** +1 pour monter, -1 pour descendre. */
+	private final byte[] sens;
+	private final int[] resteArret;
+
+	private final long[] demandes, montees, descentes;
+
+	/**
+	 * État du générateur pseudo-aléatoire (xorshift) de chaque cabine, qui tire la destination des passagers montés.
+	 * Un générateur par cabine rend le résultat indépendant du découpage en plages.
+	 */
+	private final long[] aleatoire;
+
+	/**
+	 * Nombre d'appels extérieurs servis par cabine.
+	 */
+	private final int[] appelsServis;
+
+	/**
+	 * @param nombreCabines Nombre de cabines de la flotte, toutes au rang 0, à l'arrêt et sens montée.
+	 * @param nombreNiveaux Nombre de niveaux desservis par chaque cabine, au plus {@link #NOMBRE_MAX_NIVEAUX}.
+	 * @param pasArret Durée d'une pause, en pas.
+	 * @param graine Graine du tirage des destinations.
+	 */
+	public FlotteCabines(int nombreCabines, int nombreNiveaux, int pasArret, long graine) {
+		if (nombreNiveaux < 2 || nombreNiveaux > NOMBRE_MAX_NIVEAUX)
+			throw new IllegalArgumentException("Une cabine de la flotte dessert de 2 à " + NOMBRE_MAX_NIVEAUX + " niveaux.");
+		if (pasArret < 1)
+			throw new IllegalArgumentException("Une pause dure au moins un pas.");
+
+		this.nombreCabines = nombreCabines;
+		this.nombreNiveaux = nombreNiveaux;
+		this.pasArret = pasArret;
+
+		rang = new int[nombreCabines];
+		etat = new byte[nombreCabines];
+		sens = new byte[nombreCabines];
+		resteArret = new int[nombreCabines];
+		demandes = new long[nombreCabines];
+		montees = new long[nombreCabines];
+		descentes = new long[nombreCabines];
+		aleatoire = new long[nombreCabines];
+		appelsServis = new int[nombreCabines];
+
+		for (int c = 0; c < nombreCabines; c++) {
+			sens[c] = 1;
+			// SplitMix64 de l'indice: états distincts et jamais nuls
+			long z = graine + (c + 1) * 0x9E3779B97F4A7C15L;
+			z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+			z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+			aleatoire[c] = (z ^ (z >>> 31)) | 1;
+		}
+	}
+
+	public int getNombreCabines() {
+		return nombreCabines;
+	}
+
+	public int getNombreNiveaux() {
+		return nombreNiveaux;
+	}
+
+	public int getPasArret() {
+		return pasArret;
+	}
+
+	public int getRang(int cabine) {
+		return rang[cabine];
+	}
+
+	public Sens getSens(int cabine) {
+		return sens[cabine] > 0 ? Sens.MONTER : Sens.DESCENDRE;
+	}
+
+	/**
+	 * @return L'état de la cabine, réduit à <b>ATTENTE_SIGNAL</b>, <b>MONTER</b>, <b>DESCENDRE</b> ou <b>ARRET</b>.
+	 */
+	public Etat getEtat(int cabine) {
+		switch (etat[cabine]) {
+			case MOUVEMENT:
+				return sens[cabine] > 0 ? Etat.MONTER : Etat.DESCENDRE;
+			case ARRET:
+				return Etat.ARRET;
+			default:
+				return Etat.ATTENTE_SIGNAL;
+		}
+	}
+
+	public long getAppelsServis() {
+		long total = 0;
+		for (int servis : appelsServis)
+			total += servis;
+		return total;
+	}
+
+	/**
+	 * @return Le nombre de signaux en attente dans toute la flotte.
+	 */
+	public long getSignauxEnAttente() {
+		long total = 0;
+		for (int c = 0; c < nombreCabines; c++)
+			total += Long.bitCount(demandes[c]) + Long.bitCount(montees[c]) + Long.bitCount(descentes[c]);
+		return total;
+	}
+
+	public void demandeNiveau(int cabine, int rang) {
+		demandes[cabine] |= 1L << rang;
+	}
+
+	public void monterNiveau(int cabine, int rang) {
+		if (rang >= nombreNiveaux - 1)
+			throw new IllegalArgumentException("Il n'y a pas de bouton pour monter au rang " + rang + ".");
+		montees[cabine] |= 1L << rang;
+	}
+
+	public void descendreNiveau(int cabine, int rang) {
+		if (rang <= 0)
+			throw new IllegalArgumentException("Il n'y a pas de bouton pour descendre au rang " + rang + ".");
+		descentes[cabine] |= 1L << rang;
+	}
+
+	/**
+	 * Fait avancer d'un pas toutes les cabines.
+	 */
+	public void avancer() {
+		avancer(0, nombreCabines);
+	}
+
+	/**
+	 * Fait avancer d'un pas les cabines d'indice compris entre <code>debut</code> inclus et <code>fin</code> exclu.
+	 */
+	public void avancer(int debut, int fin) {
+		final int[] rang = this.rang, resteArret = this.resteArret, appelsServis = this.appelsServis;
+		final byte[] etat = this.etat, sens = this.sens;
+		final long[] demandes = this.demandes, montees = this.montees, descentes = this.descentes, aleatoire = this.aleatoire;
+		final int pasArret = this.pasArret, nombreNiveaux = this.nombreNiveaux;
+
+		for (int c = debut; c < fin; c++) {
+			int r = rang[c];
+			int s = sens[c];
+			long d = demandes[c], m = montees[c], e = descentes[c];
+			long tous = d | m | e;
+			byte et = etat[c];
+
+			if (et == MOUVEMENT) {
+				// Franchit un niveau, puis décide de l'arrêt comme doitArreter l'aurait fait avant de l'atteindre
+				r += s;
+				long bit = 1L << r;
+				long auDela = s > 0 ? tous & (-2L << r) : tous & (bit - 1);
+				long dansLeSens = s > 0 ? m : e, oppose = s > 0 ? e : m;
+				boolean arret = ((d | dansLeSens) & bit) != 0 || ((oppose & bit) != 0 && auDela == 0);
+
+				if (arret) {
+					// Passagers servis dans le sens de progression, comme supprimerSignaux
+					long servi = dansLeSens & bit;
+					d &= ~bit;
+					dansLeSens &= ~bit;
+					if (servi != 0) {
+						appelsServis[c]++;
+						d |= destination(aleatoire, c, r, s, nombreNiveaux);
+					}
+					if (s > 0)
+						m = dansLeSens;
+					else
+						e = dansLeSens;
+					et = ARRET;
+					resteArret[c] = pasArret;
+				}
+			}
+			else if (et == ARRET) {
+				if (--resteArret[c] == 0) {
+					long bit = 1L << r;
+					long auDela = s > 0 ? tous & (-2L << r) : tous & (bit - 1);
+					long oppose = s > 0 ? e : m;
+
+					if (auDela == 0 && (oppose & bit) != 0) {
+						// Changement de sens et seconde pause, comme temporisation
+						s = -s;
+						if (s > 0)
+							m &= ~bit;
+						else
+							e &= ~bit;
+						appelsServis[c]++;
+						d |= destination(aleatoire, c, r, s, nombreNiveaux);
+						resteArret[c] = pasArret;
+					}
+					else {
+						et = ATTENTE;
+					}
+				}
+			}
+
+			if (et == ATTENTE) {
+				long bit = 1L << r;
+				long dansLeSens = s > 0 ? m : e, oppose = s > 0 ? e : m;
+
+				if ((dansLeSens & bit) == 0 && (oppose & bit) != 0) {
+					// Seul un appel opposé attend au niveau de la cabine: changement de sens, comme servirNiveauCourant
+					s = -s;
+					long echange = dansLeSens;
+					dansLeSens = oppose;
+					oppose = echange;
+				}
+
+				if (((d | dansLeSens) & bit) != 0) {
+					// Signal au niveau de la cabine à l'arrêt: pause sans déplacement, comme servirNiveauCourant
+					long servi = dansLeSens & bit;
+					d &= ~bit;
+					dansLeSens &= ~bit;
+					if (servi != 0) {
+						appelsServis[c]++;
+						d |= destination(aleatoire, c, r, s, nombreNiveaux);
+					}
+					if (s > 0) {
+						m = dansLeSens;
+						e = oppose;
+					}
+					else {
+						e = dansLeSens;
+						m = oppose;
+					}
+					et = ARRET;
+					resteArret[c] = pasArret;
+				}
+				else {
+					// calculDeplacement: d'abord le sens de progression, sinon l'autre
+					tous = d | m | e;
+					boolean auDessus = (tous & (-2L << r)) != 0, enDessous = (tous & (bit - 1)) != 0;
+					int depart = s > 0 ? (auDessus ? 1 : enDessous ? -1 : 0) : (enDessous ? -1 : auDessus ? 1 : 0);
+					if (depart != 0) {
+						s = depart;
+						et = MOUVEMENT;
+					}
+				}
+			}
+
+			rang[c] = r;
+			sens[c] = (byte) s;
+			etat[c] = et;
+			demandes[c] = d;
+			montees[c] = m;
+			descentes[c] = e;
+		}
+	}
+
+	/**
+	 * @return Le bit de la destination tirée au hasard d'un passager monté au rang <code>r</code> dans le sens <code>s</code>.
+	 */
+	private static long destination(long[] aleatoire, int c, int r, int s, int nombreNiveaux) {
+		long x = aleatoire[c];
+		x ^= x << 13;
+		x ^= x >>> 7;
+		x ^= x << 17;
+		aleatoire[c] = x;
+
+		int ecart = s > 0 ? nombreNiveaux - 1 - r : r;
+		if (ecart == 0)
+			return 0;
+		int tirage = (int) Long.remainderUnsigned(x, ecart);
+		return 1L << (s > 0 ? r + 1 + tirage : tirage);
+	}
+}
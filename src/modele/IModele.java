@@ -3,6 +3,9 @@ package modele;
 import java.beans.PropertyChangeListener;
 
 import util.Etat;
+import util.LotSignaux;
+import util.PolitiqueDebordement;
+import util.Sens;
 
 public interface IModele {
 	public void arretUrgence();
@@ -15,19 +18,43 @@ public interface IModele {
 	
 	public void monterNiveau(int niveau);
 	
+	public void soumettreSignaux(LotSignaux lot);
+	
+	public void chargeCabine(int charge);
+	
+	public void detectionPassage();
+	
+	public void fermerPortes();
+	
 	public Etat getEtatCourant();
 	
 	public int getPremierNiveau();
 	
 	public int getDernierNiveau();
 	
+	public int[] getNiveauxDesservis();
+	
+	public boolean estDesservi(int niveau);
+	
 	public void ajouterEcouteur(PropertyChangeListener listener);
 	
+	public void ajouterEcouteurAsynchrone(PropertyChangeListener listener, int capacite, PolitiqueDebordement politique);
+	
 	public void supprimerEcouteur(PropertyChangeListener listener);
 
 	public void temporisation();
 
 	public int getNiveauCourant();
 
+	public int getNombrePonts();
+
+	public Sens getSens();
+
 	int getDureePause();
+
+	public int getCharge();
+
+	public PlanArrets getPlanArrets();
+
+	public long getEta(int niveau, Sens sens);
 }
@@ -0,0 +1,30 @@
+package modele;
+
+/**
+ * 	<p>
+ * 		Politique de choix de la durée de pause (portes ouvertes) de la cabine à un niveau.
+ * 	</p>
+ * 	<p>
+ * 		Les durées sont exprimées en millisecondes et comprennent l'ouverture et la fermeture des portes.
+ * 	</p>
+ * 
+ * 	@see Modele#setPolitiquePause(IPolitiquePause)
+ */
+public interface IPolitiquePause {
+	/**
+	 * @param appelPalier <code>true</code> si des personnes attendent au palier (appel extérieur),
+	 * 		<code>false</code> si l'arrêt ne sert qu'à faire descendre des passagers (demande de niveau).
+	 * @return La durée de la pause au début de l'arrêt.
+	 */
+	public int dureePause(boolean appelPalier);
+
+	/**
+	 * @return La durée minimale restant à la pause après qu'un passage a été détecté entre les portes.
+	 */
+	public int prolongationPassage();
+
+	/**
+	 * @return La durée maximale restant à la pause après un appui sur le bouton de fermeture des portes.
+	 */
+	public int dureeFermeture();
+}
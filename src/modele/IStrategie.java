@@ -0,0 +1,26 @@
+package modele;
+
+import util.Mouvement;
+
+/**
+ * 	<p>
+ * 		Stratégie de desserte de la cabine: elle décide des arrêts et des départs du système de contrôle-commande.
+ * 	</p>
+ * 
+ * 	@see Modele#setStrategie(IStrategie)
+ */
+public interface IStrategie {
+	/**
+	 * 	Détermine si l'ascenseur doit s'arrêter au prochain niveau dans son sens de progression.
+	 * 
+	 * 	@return <code>true</code> si l'ascenseur doit s'arrêter, <code>false</code> sinon.
+	 */
+	public boolean doitArreter(Modele modele);
+
+	/**
+	 * 	Calcule le nouveau déplacement de l'ascenseur lorsqu'il est à l'arrêt.
+	 * 
+	 * 	@return <code>MONTER</code>, <code>DESCENDRE</code> ou <code>AUCUN</code>.
+	 */
+	public Mouvement calculDeplacement(Modele modele);
+}
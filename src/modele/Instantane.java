@@ -0,0 +1,75 @@
+package modele;
+
+import util.Etat;
+import util.Sens;
+import util.SignauxCompacts;
+
+/**
+ * 	<p>
+ * 		Copie de l'état d'un système de contrôle-commande à un instant donné: état, sens, niveau, charge et signaux.
+ * 	</p>
+ * 	<p>
+ * 		Un instantané n'est plus modifié une fois créé, il peut donc être transmis d'un thread à l'autre.
+ * 	</p>
+ * 
+ * @see Modele#capturerInstantane()
+ */
+public class Instantane {
+
+	private final int niveauCourant;
+	private final Etat etat;
+	private final Sens sens;
+	private final int charge;
+	private final SignauxCompacts signaux;
+
+	public Instantane(int niveauCourant, Etat etat, Sens sens, int charge, SignauxCompacts signaux) {
+		this.niveauCourant = niveauCourant;
+		this.etat = etat;
+		this.sens = sens;
+		this.charge = charge;
+		this.signaux = signaux;
+	}
+
+	public int getNiveauCourant() {
+		return niveauCourant;
+	}
+
+	public Etat getEtat() {
+		return etat;
+	}
+
+	public Sens getSens() {
+		return sens;
+	}
+
+	public int getCharge() {
+		return charge;
+	}
+
+	/**
+	 * @return Les signaux, indexés par rang de niveau desservi. Ils ne doivent pas être modifiés.
+	 */
+	public SignauxCompacts getSignaux() {
+		return signaux;
+	}
+
+	@Override
+	public boolean equals(Object objet) {
+		if (!(objet instanceof Instantane))
+			return false;
+
+		Instantane autre = (Instantane) objet;
+		return niveauCourant == autre.niveauCourant && etat == autre.etat && sens == autre.sens
+				&& charge == autre.charge && signaux.equals(autre.signaux);
+	}
+
+	@Override
+	public int hashCode() {
+		return ((niveauCourant * 31 + etat.hashCode()) * 31 + sens.hashCode()) * 31 + signaux.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return "SYSTEME: {etat: " + etat + " sens: " + sens + " niveau: " + niveauCourant + " charge: " + charge + "}";
+	}
+}
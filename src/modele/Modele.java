@@ -2,13 +2,27 @@ package modele;
 
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
-import java.util.Timer;
+import java.util.Map;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
+import util.EcouteurAsynchrone;
 import util.Etat;
+import util.EvenementChangementSens;
+import util.EvenementDecision;
+import util.EvenementPause;
+import util.EvenementTransition;
 import util.GestionnaireArret;
+import util.Histogramme;
+import util.Horloge;
+import util.HorlogeReelle;
+import util.LotSignaux;
 import util.Mouvement;
+import util.PolitiqueDebordement;
 import util.Sens;
 import util.Signaux;
+import util.Zonage;
 
 /**
  * 	<p>
@@ -87,7 +101,20 @@ public class Modele implements IModele {
      */
 	private final int PREMIER_NIVEAU, DERNIER_NIVEAU;
 
-	private final int DUREE_PAUSE = 6_000;
+	/**
+	 * Pourcentage de la charge nominale au-delà duquel la cabine est considérée pleine.
+	 * 
+	 * @see #estPleineCharge()
+	 */
+	private final int SEUIL_PLEINE_CHARGE = 80;
+
+	/**
+	 * Nombre maximal de réouvertures des portes pendant un même arrêt, pour un signal reçu au niveau courant.
+	 * 
+	 * @see #servirNiveauCourant()
+	 */
+	private final int REOUVERTURES_MAX = 1;
+
 	/**
 	 * 	<p>
 	 * 		Etat courant du système de contrôle-commande.
@@ -114,16 +141,109 @@ public class Modele implements IModele {
 	 * 	</p>
 	 */
 	private volatile int niveauCourant;
+	/**
+	 * 	<p>
+	 * 		Charge de la cabine en kilogrammes, transmise par le signal de pesée {@link #chargeCabine(int) chargeCabine}.
+	 * 	</p>
+	 */
+	private volatile int charge;
+	/**
+	 * 	<p>
+	 * 		Charge nominale de la cabine en kilogrammes.
+	 * 	</p>
+	 */
+	private int chargeNominale = 630;
+	/**
+	 * 	<p>
+	 * 		<code>true</code> si une cabine pleine passe les appels extérieurs, voir {@link #setContournementPleineCharge(boolean) setContournementPleineCharge}.
+	 * 	</p>
+	 */
+	private volatile boolean contournementPleineCharge = true;
 	/**
 	 * 	<p>
 	 * 		Objet facilitant l'enregistrement et la suppression de signaux.
 	 *	</p>
 	 */
 	private Signaux signaux;
-	
-	private Timer timer;
+	/**
+	 * 	<p>
+	 * 		Niveaux desservis par la cabine. Les signaux ne sont mémorisés et parcourus que pour ces niveaux,
+	 * 		les autres niveaux de la gaine étant traversés sans arrêt.
+	 *	</p>
+	 */
+	private Zonage zonage;
+	/**
+	 * 	<p>
+	 * 		Horloge utilisée pour les temporisations (pause à un niveau, changement de sens).
+	 *	</p>
+	 */
+	private Horloge horloge;
+	/**
+	 * 	<p>
+	 * 		Tâche de fin de pause en attente, <code>null</code> si l'ascenseur n'est pas en pause.
+	 *	</p>
+	 */
+	private volatile TimerTask tachePause;
+	/**
+	 * 	<p>
+	 * 		Politique de choix de la durée des pauses, remplaçable depuis un autre thread (par un {@link ReconnaisseurTrafic}).
+	 *	</p>
+	 */
+	private volatile IPolitiquePause politiquePause;
+	/**
+	 * 	<p>
+	 * 		Durée de la dernière pause choisie et instant de fin de la pause en cours, selon l'horloge.
+	 *	</p>
+	 */
+	private volatile int dureePause;
+	private volatile long finPause;
+	/**
+	 * 	<p>
+	 * 		Nombre de réouvertures des portes depuis le début de l'arrêt en cours.
+	 *	</p>
+	 */
+	private int reouvertures;
+	/**
+	 * 	<p>
+	 * 		Événement JDK Flight Recorder de la pause en cours, <code>null</code> si ces événements ne sont pas enregistrés.
+	 *	</p>
+	 */
+	private volatile EvenementPause evenementPause;
 
-	// TODO: Implémenter le changement de stratégie (private IStrategie strat;)
+	/**
+	 * 	<p>
+	 * 		Stratégie de desserte décidant des arrêts et des départs, remplaçable depuis un autre thread (par un {@link ReconnaisseurTrafic}).
+	 *	</p>
+	 */
+	private volatile IStrategie strategie;
+	/**
+	 * 	<p>
+	 * 		Attente maximale d'un appel extérieur, en millisecondes, 0 pour ne pas limiter l'attente.
+	 * 		Au-delà, l'appel le plus ancien passe avant la stratégie de desserte, voir {@link #setAttenteMaximale(long) setAttenteMaximale}.
+	 *	</p>
+	 */
+	private volatile long attenteMaximale;
+	/**
+	 * 	<p>
+	 * 		Niveau de stationnement de la cabine inoccupée et délai d'inactivité avant d'y retourner, en millisecondes.
+	 * 		Un délai nul désactive le stationnement, voir {@link #setNiveauParking(int, long) setNiveauParking}.
+	 *	</p>
+	 */
+	private volatile int niveauParking;
+	private volatile long delaiParking;
+	/**
+	 * 	<p>
+	 * 		Instant, selon l'horloge, auquel l'ascenseur s'est mis en attente de signal pour la dernière fois.
+	 *	</p>
+	 */
+	private volatile long debutAttente;
+	/**
+	 * 	<p>
+	 * 		Plan des prochains arrêts et heures d'arrivée estimées, recalculé à chaque signal traité et remplacé d'un bloc,
+	 * 		pour être lu sans verrou.
+	 *	</p>
+	 */
+	private volatile PlanArrets planArrets;
 
 	/**
 	 * 	<p>
@@ -133,6 +253,44 @@ public class Modele implements IModele {
 	 * 	</p>
 	 */
 	private PropertyChangeSupport changeSupport;
+	/**
+	 * 	<p>
+	 * 		Écouteurs inscrits via {@link #ajouterEcouteurAsynchrone(PropertyChangeListener, int, PolitiqueDebordement) ajouterEcouteurAsynchrone},
+	 * 		associés à l'objet qui leur délivre les notifications, pour pouvoir les désinscrire.
+	 * 	</p>
+	 */
+	private Map<PropertyChangeListener, EcouteurAsynchrone> ecouteursAsynchrones = new ConcurrentHashMap<>();
+
+	/**
+	 * 	<p>
+	 * 		Verrou du contrôle-commande: les signaux et les fins de pause sont traités un par un,
+	 * 		quel que soit le thread qui les transmet (interface, horloge, moteur de traction).
+	 * 		Seul l'arrêt d'urgence peut passer outre, voir {@link #arretUrgence() arretUrgence}.
+	 *	</p>
+	 */
+	private final ReentrantLock verrou = new ReentrantLock();
+	/**
+	 * 	<p>
+	 * 		Vrai de la réception d'un arrêt d'urgence jusqu'à sa levée.
+	 * 		Aucun autre état ne peut alors être pris, même par un traitement commencé avant l'arrêt d'urgence.
+	 *	</p>
+	 */
+	private volatile boolean urgence;
+	/**
+	 * 	<p>
+	 * 		Moniteur de l'écriture de l'état courant. Un traitement relit {@link #urgence urgence} sous ce moniteur
+	 * 		avant d'écrire sa transition, et l'arrêt d'urgence lève {@link #urgence urgence} et écrit <b>ARRET_URGENCE</b>
+	 * 		sous ce même moniteur, sans attendre le verrou. Le moniteur ne couvre que la vérification et l'écriture:
+	 * 		les écouteurs sont notifiés hors du moniteur, et n'y retardent jamais l'arrêt d'urgence.
+	 *	</p>
+	 */
+	private final Object publication = new Object();
+	/**
+	 * 	<p>
+	 * 		Délais entre la réception d'un arrêt d'urgence et le passage à l'état <b>ARRET_URGENCE</b>.
+	 *	</p>
+	 */
+	private final Histogramme latencesUrgence = new Histogramme();
 
 	/**
 	 * 	<p>
@@ -154,14 +312,49 @@ public class Modele implements IModele {
 	 * @see changeSupport
 	 */
 	public Modele(int premierNiveau, int dernierNiveau) {
-		PREMIER_NIVEAU = premierNiveau;
-		DERNIER_NIVEAU = dernierNiveau;
-		niveauCourant = PREMIER_NIVEAU;
+		this(premierNiveau, dernierNiveau, new HorlogeReelle());
+	}
+	
+	/**
+	 * 	<p>
+	 * 		Constructeur d'un système de contrôle-commande dont les temporisations sont cadencées par <code>horloge</code>.
+	 * 		Une {@link util.HorlogeVirtuelle HorlogeVirtuelle} permet de simuler le système sans attendre.
+	 * 	</p>
+	 * 
+	 * @param premierNiveau Premier niveau de l'ascenseur à commander.
+	 * @param dernierNiveau Dernier niveau de l'ascenseur à commander.
+	 * @param horloge Horloge utilisée pour les temporisations.
+	 * 
+	 * @see #Modele(int, int)
+	 */
+	public Modele(int premierNiveau, int dernierNiveau, Horloge horloge) {
+		this(new Zonage(premierNiveau, dernierNiveau), horloge);
+	}
+	
+	/**
+	 * 	<p>
+	 * 		Constructeur d'un système de contrôle-commande d'une cabine qui ne dessert qu'une partie des niveaux de sa gaine.
+	 * 		La cabine se trouve initialement au plus bas des niveaux desservis.
+	 * 	</p>
+	 * 
+	 * @param zonage Niveaux de la gaine et niveaux desservis par la cabine.
+	 * @param horloge Horloge utilisée pour les temporisations.
+	 * 
+	 * @see Zonage
+	 */
+	public Modele(Zonage zonage, Horloge horloge) {
+		PREMIER_NIVEAU = zonage.getPremierNiveau();
+		DERNIER_NIVEAU = zonage.getDernierNiveau();
+		this.zonage = zonage;
+		niveauCourant = zonage.getNiveau(0);
 		sens = Sens.MONTER;
 		changeSupport = new PropertyChangeSupport(this);
-		signaux = new Signaux(PREMIER_NIVEAU, DERNIER_NIVEAU, changeSupport);
+		this.horloge = horloge;
+		signaux = new Signaux(zonage, changeSupport, horloge);
 		etatCourant = Etat.ATTENTE_SIGNAL;
-		timer = new Timer();
+		politiquePause = new PolitiquePauseAdaptative();
+		strategie = new StrategieCollective();
+		majPlanArrets();
 	}
 	
 	/**
@@ -184,19 +377,314 @@ public class Modele implements IModele {
 		 return DERNIER_NIVEAU;
 	}
 	
+	@Override
+	public int[] getNiveauxDesservis() {
+		 return zonage.getNiveauxDesservis();
+	}
+	
+	@Override
+	public boolean estDesservi(int niveau) {
+		 return zonage.estDesservi(niveau);
+	}
+	
+	public Zonage getZonage() {
+		 return zonage;
+	}
+	
+	public Signaux getSignaux() {
+		 return signaux;
+	}
+	
+	public IStrategie getStrategie() {
+		 return strategie;
+	}
+	
+	/**
+	 * Modifie la stratégie de desserte. Elle s'applique à partir de la prochaine décision.
+	 */
+	public void setStrategie(IStrategie strategie) {
+		 this.strategie = strategie;
+	}
+	
+	public long getAttenteMaximale() {
+		 return attenteMaximale;
+	}
+	
+	/**
+	 * 	<p>
+	 * 		Limite l'attente des appels extérieurs. Lorsque l'appel le plus ancien attend depuis plus de
+	 * 		<code>attenteMaximale</code> millisecondes, la cabine ne s'arrête plus qu'aux demandes de niveau
+	 * 		et à cet appel, fait demi-tour dès qu'elle n'a plus de passager à déposer dans son sens de progression
+	 * 		et le sert quel que soit son sens.
+	 * 	</p>
+	 * 
+	 * @param attenteMaximale Attente maximale en millisecondes, 0 pour laisser la stratégie seule décider.
+	 */
+	public void setAttenteMaximale(long attenteMaximale) {
+		 this.attenteMaximale = attenteMaximale;
+	}
+	
+	public int getNiveauParking() {
+		 return niveauParking;
+	}
+	
+	public long getDelaiParking() {
+		 return delaiParking;
+	}
+	
+	/**
+	 * 	<p>
+	 * 		Renvoie la cabine au niveau <code>niveau</code> lorsqu'elle reste <code>delai</code> millisecondes
+	 * 		en attente de signal ailleurs, par exemple au rez-de-chaussée avant la pointe du matin.
+	 * 		Le retour se fait par une demande de niveau, visible comme celle d'un passager.
+	 * 	</p>
+	 * 
+	 * @param niveau Niveau de stationnement, qui doit être desservi.
+	 * @param delai Délai d'inactivité en millisecondes, 0 pour ne pas stationner.
+	 */
+	public void setNiveauParking(int niveau, long delai) {
+		if (delai > 0 && !estDesservi(niveau))
+			throw new IllegalArgumentException("Le niveau de stationnement " + niveau + " n'est pas desservi.");
+
+		niveauParking = niveau;
+		delaiParking = delai;
+	}
+	
 	@Override
 	public int getNiveauCourant() {
 		 return niveauCourant;
 	}
+
+	@Override
+	public int getNombrePonts() {
+		return 1;
+	}
+	
+	@Override
+	public Sens getSens() {
+		 return sens;
+	}
 	
+	/**
+	 * @return La durée de la dernière pause choisie, en millisecondes.
+	 */
 	@Override
 	public int getDureePause() {
-		 return DUREE_PAUSE;
+		 return dureePause;
+	}
+	
+	/**
+	 * @return Le temps restant avant la fin de la pause en cours, 0 si l'ascenseur n'est pas en pause.
+	 */
+	public long getTempsRestantPause() {
+		 return tachePause == null ? 0 : Math.max(0, finPause - horloge.getTempsCourant());
+	}
+	
+	public IPolitiquePause getPolitiquePause() {
+		 return politiquePause;
+	}
+	
+	/**
+	 * @return Les délais de réaction aux arrêts d'urgence reçus, en nanosecondes.
+	 */
+	public Histogramme getLatencesUrgence() {
+		 return latencesUrgence;
+	}
+	
+	/**
+	 * Modifie la politique de choix de la durée des pauses. Elle s'applique à partir de la prochaine pause.
+	 */
+	public void setPolitiquePause(IPolitiquePause politiquePause) {
+		 this.politiquePause = politiquePause;
+	}
+	
+	@Override
+	public int getCharge() {
+		 return charge;
+	}
+	
+	public int getChargeNominale() {
+		 return chargeNominale;
+	}
+	
+	/**
+	 * Modifie la charge nominale de la cabine, utilisée pour détecter la pleine charge.
+	 * 
+	 * @param chargeNominale Charge nominale en kilogrammes.
+	 */
+	public void setChargeNominale(int chargeNominale) {
+		 this.chargeNominale = chargeNominale;
+	}
+	
+	public boolean estContournementPleineChargeActif() {
+		 return contournementPleineCharge;
+	}
+	
+	/**
+	 * Active ou désactive le contournement des appels extérieurs par une cabine pleine.
+	 * Désactivé, la cabine pleine s'arrête aux appels comme les autres, et les passagers qui ne peuvent pas monter
+	 * appellent de nouveau la cabine.
+	 * 
+	 * @param contournementPleineCharge <code>true</code> (par défaut) pour qu'une cabine pleine passe les appels extérieurs.
+	 */
+	public void setContournementPleineCharge(boolean contournementPleineCharge) {
+		 this.contournementPleineCharge = contournementPleineCharge;
+	}
+	
+	/**
+	 * 	Détermine si la charge de la cabine dépasse le seuil de pleine charge.
+	 * 	Une cabine pleine ne s'arrête plus aux appels extérieurs, seulement aux demandes de niveau,
+	 * 	sauf si le {@link #setContournementPleineCharge(boolean) contournement} est désactivé.
+	 * 
+	 * 	@return <code>true</code> si la cabine est pleine, <code>false</code> sinon.
+	 * 
+	 * 	@see #doitArreter()
+	 */
+	public boolean estPleineCharge() {
+		return charge * 100 >= chargeNominale * SEUIL_PLEINE_CHARGE;
+	}
+	
+	/**
+	 * @return Le plan des prochains arrêts de la cabine, à jour du dernier signal traité.
+	 */
+	@Override
+	public PlanArrets getPlanArrets() {
+		return planArrets;
+	}
+
+	/**
+	 * 	<p>
+	 * 		Estime, en temps constant, le temps restant avant que la cabine puisse prendre au niveau <code>niveau</code>
+	 * 		un passager allant dans le sens <code>sens</code>, d'après le {@link #getPlanArrets() plan des arrêts}.
+	 * 	</p>
+	 * 
+	 * @return Le temps restant en millisecondes, <code>Long.MAX_VALUE</code> si la cabine ne peut pas venir.
+	 */
+	@Override
+	public long getEta(int niveau, Sens sens) {
+		long eta = planArrets.getEta(niveau, sens);
+		return eta == Long.MAX_VALUE ? eta : Math.max(0, eta - horloge.getTempsCourant());
+	}
+
+	/**
+	 * Recalcule le plan des arrêts. Appelée à la fin de chaque traitement de signal, verrou tenu.
+	 * Les signaux qu'un traitement a enregistrés après leur suppression par un arrêt d'urgence
+	 * arrivé sans le verrou sont supprimés à leur tour.
+	 */
+	private void majPlanArrets() {
+		if (urgence || etatCourant == Etat.ARRET_URGENCE) {
+			if (urgence)
+				signaux.supprimerTousLesSignaux();
+			planArrets = PlanArrets.vide(zonage);
+			return;
+		}
+
+		boolean enMouvement = etatCourant == Etat.MONTER || etatCourant == Etat.DESCENDRE || etatCourant == Etat.ARRET_PRO_NIV;
+		planArrets = PlanArrets.calculer(zonage, signaux.capturer(), niveauCourant, sens, enMouvement,
+				getTempsRestantPause(), horloge.getTempsCourant());
+	}
+
+	/**
+	 * 	<p>
+	 * 		Capture l'état courant du système et ses signaux.
+	 * 		La capture attend la fin du traitement de signal en cours, elle est donc cohérente.
+	 * 	</p>
+	 * 
+	 * @return Un instantané du système.
+	 */
+	public Instantane capturerInstantane() {
+		verrou.lock();
+		try {
+			return new Instantane(niveauCourant, etatCourant, sens, charge, signaux.capturer());
+		} finally {
+			verrou.unlock();
+		}
+	}
+
+	/**
+	 * 	<p>
+	 * 		Recopie l'état d'un autre système de contrôle-commande dans ce système, réplique passive d'un système de secours.
+	 * 		Les écouteurs sont notifiés des propriétés modifiées, mais aucune décision n'est prise et la fin de pause
+	 * 		n'est pas planifiée: seule son échéance est retenue, pour {@link #reprendreControle() reprendreControle}.
+	 * 	</p>
+	 * 	<p>
+	 * 		Une réplique ne doit recevoir aucun signal avant d'avoir repris le contrôle.
+	 * 	</p>
+	 * 
+	 * @param tempsRestantPause Temps restant avant la fin de la pause en cours du système copié, en millisecondes.
+	 * 
+	 * @see reseau.SecoursReplication
+	 */
+	public void restaurerEtat(Instantane instantane, long tempsRestantPause) {
+		verrou.lock();
+		try {
+			annulerPause();
+
+			int ancienNiveau = niveauCourant;
+			niveauCourant = instantane.getNiveauCourant();
+			changeSupport.firePropertyChange("niveauCourant", ancienNiveau, niveauCourant);
+
+			if (sens != instantane.getSens())
+				changerSens(instantane.getSens());
+
+			// Pas de chargeCabine: la réplique passive ne doit ni servir de signal ni planifier de pause
+			int ancienneCharge = charge;
+			charge = instantane.getCharge();
+			changeSupport.firePropertyChange("charge", ancienneCharge, charge);
+			signaux.restaurer(instantane.getSignaux());
+
+			urgence = instantane.getEtat() == Etat.ARRET_URGENCE;
+			Etat ancienEtat = etatCourant;
+			etatCourant = instantane.getEtat();
+			changeSupport.firePropertyChange("etatCourant", ancienEtat, etatCourant);
+
+			finPause = horloge.getTempsCourant() + Math.max(0, tempsRestantPause);
+		} finally {
+			majPlanArrets();
+			verrou.unlock();
+		}
+	}
+
+	/**
+	 * 	<p>
+	 * 		Reprend le contrôle-commande à partir de l'état recopié par {@link #restaurerEtat(Instantane, long) restaurerEtat},
+	 * 		lorsque le système principal ne répond plus:
+	 * 	</p>
+	 * 	<ul>
+	 * 		<li>à l'arrêt, la pause est replanifiée pour le temps qui lui restait;</li>
+	 * 		<li>en attente de signal, les signaux recopiés sont servis comme s'ils venaient d'être reçus;</li>
+	 * 		<li>en mouvement ou en arrêt d'urgence, l'état est conservé: le moteur poursuit la commande en cours.</li>
+	 * 	</ul>
+	 */
+	public void reprendreControle() {
+		verrou.lock();
+		try {
+			switch (etatCourant) {
+				case ARRET:
+					demarrerPause((int) Math.max(0, finPause - horloge.getTempsCourant()));
+					break;
+				case ATTENTE_SIGNAL:
+					servirNiveauCourant();
+					if (etatCourant == Etat.ATTENTE_SIGNAL)
+						gererDeplacement();
+					if ((etatCourant == Etat.MONTER || etatCourant == Etat.DESCENDRE) && doitArreter())
+						changerEtatCourant(Etat.ARRET_PRO_NIV);
+					if (etatCourant == Etat.ATTENTE_SIGNAL)
+						planifierStationnement();
+					break;
+				default:
+					break;
+			}
+		} finally {
+			majPlanArrets();
+			verrou.unlock();
+		}
 	}
 	
 	/**
 	 * Change l'état courant en notifiant les observateurs du système.
 	 * Les observateurs sont notifiés d'un changement d'une propriété nommée <code>"etatCourant"</code>.
+	 * Pendant un arrêt d'urgence, seul l'état <b>ARRET_URGENCE</b> peut être pris.
 	 * 
 	 * @param nouvelEtat La nouvelle valeur de l'état courant du système, sous forme d'entier.
 	 * 
@@ -204,16 +692,36 @@ public class Modele implements IModele {
 	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/beans/PropertyChangeListener.html">PropertyChangeListener</a>
 	 */
 	public void changerEtatCourant(Etat nouvelEtat) {
-		Etat ancienEtat = etatCourant;
-		etatCourant = nouvelEtat;
+		Etat ancienEtat;
+		synchronized (publication) {
+			if (urgence && nouvelEtat != Etat.ARRET_URGENCE)
+				return;
+
+			ancienEtat = etatCourant;
+			etatCourant = nouvelEtat;
+		}
+		EvenementTransition.enregistrer(ancienEtat, nouvelEtat, niveauCourant, sens);
 		
 		// if (nouvelEtat != ARRET)
 			changeSupport.firePropertyChange("etatCourant", ancienEtat, nouvelEtat);
+
+		// Un arrêt d'urgence écrit pendant cette notification a pu être notifié avant elle: il est renotifié en dernier
+		if (urgence && nouvelEtat != Etat.ARRET_URGENCE)
+			changeSupport.firePropertyChange("etatCourant", nouvelEtat, Etat.ARRET_URGENCE);
 	}
 	
 	public void changerSens(Sens nouveauSens) {
+		changerSens(nouveauSens, false);
+	}
+	
+	/**
+	 * @param temporisation <code>true</code> pour un demi-tour décidé à la fin d'une pause.
+	 */
+	private void changerSens(Sens nouveauSens, boolean temporisation) {
 		Sens ancienSens = sens;
 		sens = nouveauSens;
+		if (ancienSens != nouveauSens)
+			EvenementChangementSens.enregistrer(ancienSens, nouveauSens, niveauCourant, temporisation);
 		
 		// if (nouvelEtat != ARRET)
 			changeSupport.firePropertyChange("sens", ancienSens, nouveauSens);
@@ -231,6 +739,35 @@ public class Modele implements IModele {
 		changeSupport.addPropertyChangeListener(listener);
 	}
 	
+	/**
+	 * 	<p>
+	 * 		Permet d'ajouter un observateur notifié depuis son propre thread plutôt que depuis celui qui a transmis le signal.
+	 * 	</p>
+	 * 	<p>
+	 * 		Les notifications sont déposées dans une file de <code>capacite</code> places propre à l'écouteur:
+	 * 		un écouteur lent ne ralentit donc ni le contrôle-commande ni les autres écouteurs, sauf avec la politique
+	 * 		{@link PolitiqueDebordement#BLOQUER BLOQUER}, qui le retarde au plus
+	 * 		{@link EcouteurAsynchrone#DELAI_MAX_BLOCAGE DELAI_MAX_BLOCAGE} millisecondes par notification. L'écouteur se désinscrit via {@link #supprimerEcouteur(PropertyChangeListener) supprimerEcouteur}.
+	 * 	</p>
+	 * 
+	 * @param listener Un écouteur du système.
+	 * @param capacite Nombre maximal de notifications en attente de livraison.
+	 * @param politique Comportement lorsque la file est pleine.
+	 * 
+	 * @see EcouteurAsynchrone
+	 */
+	@Override
+	public void ajouterEcouteurAsynchrone(PropertyChangeListener listener, int capacite, PolitiqueDebordement politique) {
+		EcouteurAsynchrone asynchrone = new EcouteurAsynchrone(listener, capacite, politique);
+		EcouteurAsynchrone precedent = ecouteursAsynchrones.put(listener, asynchrone);
+
+		if (precedent != null) {
+			changeSupport.removePropertyChangeListener(precedent);
+			precedent.fermer();
+		}
+		changeSupport.addPropertyChangeListener(asynchrone);
+	}
+	
 	/**
      * Permet de retirer un objet de type <code>PropertyChangeListener</code> de la liste des observateurs
      * du système. Délègue la suppression à l'objet {@link #changeSupport changeSupport}.
@@ -240,7 +777,15 @@ public class Modele implements IModele {
      * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/beans/PropertyChangeListener.html">PropertyChangeListener</a> 
      */
 	public void supprimerEcouteur(PropertyChangeListener listener) {
-		changeSupport.removePropertyChangeListener(listener);
+		EcouteurAsynchrone asynchrone = ecouteursAsynchrones.remove(listener);
+
+		if (asynchrone != null) {
+			changeSupport.removePropertyChangeListener(asynchrone);
+			asynchrone.fermer();
+		}
+		else {
+			changeSupport.removePropertyChangeListener(listener);
+		}
 	}
 
 	/*														*/
@@ -254,14 +799,49 @@ public class Modele implements IModele {
 	 * 	<p>
 	 * 		Ce signal permet de passer en mode arrêt d'urgence ou de le quitter seulement après un certain délais.
 	 * 	</p>
+	 * 	<p>
+	 * 		Il est prioritaire sur tous les autres: l'état <b>ARRET_URGENCE</b> est pris et notifié aussitôt,
+	 * 		sans attendre le verrou du contrôle-commande ni la notification d'une autre transition. Le traitement en cours
+	 * 		ne peut plus en sortir: il relit l'état d'urgence avant d'écrire chacune de ses transitions,
+	 * 		voir {@link #publication publication}. Le verrou n'est pris qu'ensuite, pour annuler la pause
+	 * 		et supprimer les signaux.
+	 * 		Le délai de réaction est enregistré dans {@link #getLatencesUrgence() getLatencesUrgence}.
+	 * 	</p>
 	 */
 	@Override
 	public void arretUrgence() {
-		if (etatCourant != Etat.ARRET_URGENCE) {
-			changerEtatCourant(Etat.ARRET_URGENCE);
-			signaux.supprimerTousLesSignaux();
-		} else {
-			changerEtatCourant(Etat.ATTENTE_SIGNAL);
+		if (urgence) {
+			verrou.lock();
+			try {
+				urgence = false;
+				changerEtatCourant(Etat.ATTENTE_SIGNAL);
+			} finally {
+				majPlanArrets();
+				verrou.unlock();
+			}
+			return;
+		}
+
+		long debut = System.nanoTime();
+		Etat ancienEtat;
+		synchronized (publication) {
+			urgence = true;
+			ancienEtat = etatCourant;
+			etatCourant = Etat.ARRET_URGENCE;
+		}
+		latencesUrgence.enregistrer(System.nanoTime() - debut);
+		changeSupport.firePropertyChange("etatCourant", ancienEtat, Etat.ARRET_URGENCE);
+
+		// L'état est pris: le verrou peut être attendu, une pause planifiée entre-temps est annulée avec les signaux
+		verrou.lock();
+		try {
+			if (urgence) {
+				annulerPause();
+				signaux.supprimerTousLesSignaux();
+			}
+		} finally {
+			majPlanArrets();
+			verrou.unlock();
 		}
 	}
 
@@ -272,64 +852,272 @@ public class Modele implements IModele {
 	 * 	<p>
 	 * 		Ce signal permet au système de savoir lorsque la cabine de l'ascenseur dépasse ou s'arrête à un niveau quelconque.
 	 * 	</p>
+	 * 	<p>
+	 * 		Un signal reçu alors que la cabine n'est pas en mouvement, ou qui la ferait sortir de la gaine,
+	 * 		provient d'un capteur défaillant: il est ignoré.
+	 * 	</p>
 	 */
 	@Override
 	public void niveauAtteint() {
-		majNiveauCourant();
-
-		switch (etatCourant) {
-			case ARRET_PRO_NIV:
-				changerEtatCourant(Etat.ARRET);
-				// Supprime les signaux dans le sens de progression de l'ascenseur
-				signaux.supprimerSignaux(niveauCourant, sens);
-				System.out.println("nom du thread1: " + Thread.currentThread().getName());
-				timer.schedule(new GestionnaireArret(this), DUREE_PAUSE);
-				break;
-			case MONTER:
-			case DESCENDRE:
-				if (doitArreter())
-					changerEtatCourant(Etat.ARRET_PRO_NIV);
-				break;
-			default:
-				break;
+		verrou.lock();
+		try {
+			if (etatCourant != Etat.MONTER && etatCourant != Etat.DESCENDRE && etatCourant != Etat.ARRET_PRO_NIV) {
+				System.err.println("Erreur : Niveau atteint alors que la cabine est à l'arrêt (" + etatCourant + ").");
+				return;
+			}
+			int niveauSuivant = sens == Sens.MONTER ? niveauCourant + 1 : niveauCourant - 1;
+			if (niveauSuivant < PREMIER_NIVEAU || niveauSuivant > DERNIER_NIVEAU) {
+				System.err.println("Erreur : Le niveau " + niveauSuivant + " est hors de la gaine.");
+				return;
+			}
+
+			majNiveauCourant();
+
+			switch (etatCourant) {
+				case ARRET_PRO_NIV:
+					boolean appelPalier = signaux.monterNiveau(niveauCourant) || signaux.descendreNiveau(niveauCourant);
+					// L'appel prioritaire est servi même dans le sens opposé
+					if (appelPrioritaire() && signaux.niveauAppelLePlusAncien() == niveauCourant)
+						changerSens(signaux.sensAppelLePlusAncien());
+					// Supprime les signaux dans le sens de progression de l'ascenseur
+					// avant d'annoncer l'arrêt, pour que les passagers puissent de nouveau appeler la cabine
+					signaux.supprimerSignaux(niveauCourant, sens);
+					changerEtatCourant(Etat.ARRET);
+					reouvertures = 0;
+					demarrerPause(politiquePause.dureePause(appelPalier));
+					break;
+				case MONTER:
+				case DESCENDRE:
+					if (doitArreter())
+						changerEtatCourant(Etat.ARRET_PRO_NIV);
+					break;
+				default:
+					break;
+			}
+		} finally {
+			majPlanArrets();
+			verrou.unlock();
 		}
 	}
 	
+	/**
+	 * 	<p>
+	 * 		Méthode appelée par l'horloge à la fin d'une pause à un niveau.
+	 * 	</p>
+	 * 	<p>
+	 * 		Si personne n'attend dans le sens de progression mais qu'une personne attend au niveau courant
+	 * 		pour repartir dans l'autre sens, l'ascenseur change de sens et planifie une seconde pause
+	 * 		au lieu de bloquer le thread de l'horloge.
+	 * 	</p>
+	 * 	<p>
+	 * 		Une fin de pause périmée, dont la tâche s'exécutait déjà lorsque la pause a été replanifiée
+	 * 		ou annulée par un arrêt d'urgence, est ignorée.
+	 * 	</p>
+	 */
+	@Override
 	public void temporisation() {
-		boolean recommencer = true;
-		System.out.println("nom du thread2: " + Thread.currentThread().getName());
-		System.err.println("Fin de premiere tempo");
-		
-		while (recommencer) {
-			if(sens == Sens.MONTER) {
-				//TODO: peut etre prendre verrou du modele pour acceder/modifier les signaux
-				if (!requeteAuDessus(niveauCourant) && signaux.descendreNiveau(niveauCourant)) {
-					System.err.println("Changement de sens");
-					signaux.setDescendreNiveau(niveauCourant, false);
-					changerSens(Sens.DESCENDRE);
-					try {Thread.sleep(10000);} catch (InterruptedException e) {e.printStackTrace();}
-					System.err.println("Fin de seconde tempo");
-				}
-				else
-					recommencer = false;
+		verrou.lock();
+		try {
+			if (etatCourant != Etat.ARRET || horloge.getTempsCourant() < finPause)
+				return;
+
+			tachePause = null;
+			EvenementPause.terminer(evenementPause, false);
+			evenementPause = null;
+			
+			if (sens == Sens.MONTER && !requeteAuDessus(niveauCourant) && signaux.descendreNiveau(niveauCourant)) {
+				signaux.setDescendreNiveau(niveauCourant, false);
+				changerSens(Sens.DESCENDRE, true);
+				demarrerPause(politiquePause.dureePause(true));
+				return;
 			}
-			else if(sens == Sens.DESCENDRE)
-				if (!requeteEnDessous(niveauCourant) && signaux.monterNiveau(niveauCourant)) {
-					System.err.println("Changement de sens");
-					signaux.setMonterNiveau(niveauCourant, false);
-					changerSens(Sens.MONTER);
-					try {Thread.sleep(10000);} catch (InterruptedException e) {e.printStackTrace();}
-					System.err.println("Fin de seconde tempo");
-				}
-				else
-					recommencer = false;
+			if (sens == Sens.DESCENDRE && !requeteEnDessous(niveauCourant) && signaux.monterNiveau(niveauCourant)) {
+				signaux.setMonterNiveau(niveauCourant, false);
+				changerSens(Sens.MONTER, true);
+				demarrerPause(politiquePause.dureePause(true));
+				return;
+			}
+
+			gererDeplacement();
+			if (etatCourant == Etat.ARRET) {
+				changerEtatCourant(Etat.ATTENTE_SIGNAL);
+				// Un appel enregistré ici pendant que la cabine était pleine rouvre les portes
+				servirNiveauCourant();
+				if (etatCourant == Etat.ATTENTE_SIGNAL)
+					planifierStationnement();
+			}
+			else if (doitArreter())
+				changerEtatCourant(Etat.ARRET_PRO_NIV);
+		} finally {
+			majPlanArrets();
+			verrou.unlock();
 		}
+	}
+	
+	/**
+	 * 	<p>
+	 * 		(Re)planifie la fin de la pause dans <code>duree</code> millisecondes.
+	 * 	</p>
+	 * 	<p>
+	 * 		Les observateurs sont notifiés d'un changement d'une propriété nommée <code>"dureePause"</code>
+	 * 		dont la nouvelle valeur est la durée restante de la pause, afin que l'animation des portes la suive.
+	 * 	</p>
+	 */
+	private void demarrerPause(int duree) {
+		annulerPause();
+		if (urgence)
+			return;
 
-		gererDeplacement();
-		if (etatCourant == Etat.ARRET)
-			changerEtatCourant(Etat.ATTENTE_SIGNAL);
-		else if (doitArreter())
-			changerEtatCourant(Etat.ARRET_PRO_NIV);
+		dureePause = duree;
+		finPause = horloge.getTempsCourant() + duree;
+		evenementPause = EvenementPause.commencer(niveauCourant, duree);
+		tachePause = horloge.planifier(new GestionnaireArret(this), duree);
+
+		changeSupport.firePropertyChange("dureePause", null, duree);
+	}
+	
+	/**
+	 * 	<p>
+	 * 		Sert sans nouveau trajet les signaux enregistrés au niveau courant, lorsque la cabine y est arrêtée ou en attente,
+	 * 		et les efface aussitôt. En attente de signal, les portes se rouvrent pour une nouvelle pause.
+	 * 	</p>
+	 * 	<p>
+	 * 		Pendant un arrêt, les portes encore ouvertes ne sont pas maintenues plus longtemps: le passager monte pendant
+	 * 		la pause restante. Pendant la fermeture des portes (les {@link IPolitiquePause#dureeFermeture() dureeFermeture}
+	 * 		dernières millisecondes de la pause), elles se rouvrent pour une pause complète, au plus
+	 * 		{@link #REOUVERTURES_MAX REOUVERTURES_MAX} fois par arrêt: au-delà, comme pour une cabine pleine,
+	 * 		les signaux restent enregistrés pour un prochain passage.
+	 * 	</p>
+	 * 	<p>
+	 * 		En attente de signal, la cabine prend le sens d'un appel opposé s'il est seul à attendre au niveau.
+	 * 		Pendant un arrêt, un appel opposé reste enregistré: la {@link #temporisation() fin de la pause} décide
+	 * 		du changement de sens.
+	 * 	</p>
+	 */
+	private void servirNiveauCourant() {
+		if ((etatCourant != Etat.ARRET && etatCourant != Etat.ATTENTE_SIGNAL) || estPleineCharge())
+			return;
+
+		Sens oppose = sens == Sens.MONTER ? Sens.DESCENDRE : Sens.MONTER;
+		if (etatCourant == Etat.ATTENTE_SIGNAL && !appelAuNiveauCourant(sens) && appelAuNiveauCourant(oppose))
+			changerSens(oppose);
+
+		boolean appelPalier = appelAuNiveauCourant(sens);
+		if (!appelPalier && !signaux.demandeNiveau(niveauCourant))
+			return;
+
+		int duree = politiquePause.dureePause(appelPalier);
+
+		if (etatCourant == Etat.ATTENTE_SIGNAL) {
+			signaux.supprimerSignaux(niveauCourant, sens);
+			changerEtatCourant(Etat.ARRET);
+			reouvertures = 0;
+			demarrerPause(duree);
+			return;
+		}
+
+		long restant = getTempsRestantPause();
+		if (restant > politiquePause.dureeFermeture()) {
+			// Portes ouvertes: la pause est replanifiée à l'identique, pour que le passager monte
+			signaux.supprimerSignaux(niveauCourant, sens);
+			demarrerPause((int) restant);
+		}
+		else if (reouvertures < REOUVERTURES_MAX) {
+			signaux.supprimerSignaux(niveauCourant, sens);
+			reouvertures++;
+			demarrerPause((int) Math.max(restant, duree));
+		}
+	}
+
+	private boolean appelAuNiveauCourant(Sens sensAppel) {
+		return sensAppel == Sens.MONTER ? signaux.monterNiveau(niveauCourant) : signaux.descendreNiveau(niveauCourant);
+	}
+
+	/**
+	 * 	<p>
+	 * 		Planifie le retour au niveau de stationnement, si l'ascenseur est toujours en attente de signal
+	 * 		à la fin du délai. Un retour planifié avant une attente plus récente est ignoré.
+	 * 	</p>
+	 */
+	private void planifierStationnement() {
+		long delai = delaiParking;
+		if (delai <= 0 || niveauCourant == niveauParking)
+			return;
+
+		debutAttente = horloge.getTempsCourant();
+		horloge.planifier(() -> {
+			verrou.lock();
+			try {
+				if (etatCourant == Etat.ATTENTE_SIGNAL && horloge.getTempsCourant() - debutAttente >= delai
+						&& delaiParking > 0 && niveauCourant != niveauParking)
+					demandeNiveau(niveauParking);
+			} finally {
+				verrou.unlock();
+			}
+		}, delai);
+	}
+	
+	/**
+	 * Annule la fin de pause planifiée, s'il y en a une.
+	 */
+	private void annulerPause() {
+		TimerTask tache = tachePause;
+		if (tache != null) {
+			tache.cancel();
+			EvenementPause.terminer(evenementPause, true);
+		}
+		tachePause = null;
+		evenementPause = null;
+	}
+	
+	/**	<p>
+	 * 		Méthode appelée lorsque l'on souhaite simuler la reception d'un signal de type
+	 * 		"passage détecté".
+	 * 	</p>
+	 * 	<p>
+	 * 		Ce signal est envoyé par la cellule des portes lorsqu'une personne entre ou sort de la cabine.
+	 * 		Il prolonge la pause en cours pour laisser le temps aux suivants.
+	 * 	</p>
+	 */
+	@Override
+	public void detectionPassage() {
+		verrou.lock();
+		try {
+			if (etatCourant != Etat.ARRET || tachePause == null)
+				return;
+
+			long restant = getTempsRestantPause();
+			if (restant < politiquePause.prolongationPassage())
+				demarrerPause(politiquePause.prolongationPassage());
+		} finally {
+			majPlanArrets();
+			verrou.unlock();
+		}
+	}
+
+	/**	<p>
+	 * 		Méthode appelée lorsque l'on souhaite simuler la reception d'un signal de type
+	 * 		"fermer les portes".
+	 * 	</p>
+	 * 	<p>
+	 * 		Ce signal correspond à l'appui sur le bouton de fermeture des portes à l'intérieur de la cabine.
+	 * 		Il écourte la pause en cours.
+	 * 	</p>
+	 */
+	@Override
+	public void fermerPortes() {
+		verrou.lock();
+		try {
+			if (etatCourant != Etat.ARRET || tachePause == null)
+				return;
+
+			long restant = getTempsRestantPause();
+			if (restant > politiquePause.dureeFermeture())
+				demarrerPause(politiquePause.dureeFermeture());
+		} finally {
+			majPlanArrets();
+			verrou.unlock();
+		}
 	}
 	
 	/**	<p>
@@ -345,15 +1133,25 @@ public class Modele implements IModele {
 	 */
 	@Override
 	public void demandeNiveau(int niveau) {
-		//TODO: gérer les signaux à l'étage courant
-		if (etatCourant != Etat.ARRET_URGENCE)
-			signaux.setDemandeNiveau(niveau, true);
+		if (!signalValide(niveau))
+			return;
+		
+		verrou.lock();
+		try {
+			if (etatCourant != Etat.ARRET_URGENCE)
+				signaux.setDemandeNiveau(niveau, true);
+			if (niveau == niveauCourant)
+				servirNiveauCourant();
 
-		if (etatCourant == Etat.ATTENTE_SIGNAL)
-			gererDeplacement();
-		if (etatCourant == Etat.MONTER || etatCourant == Etat.DESCENDRE)
-			if (doitArreter())
-				changerEtatCourant(Etat.ARRET_PRO_NIV);
+			if (etatCourant == Etat.ATTENTE_SIGNAL)
+				gererDeplacement();
+			if (etatCourant == Etat.MONTER || etatCourant == Etat.DESCENDRE)
+				if (doitArreter())
+					changerEtatCourant(Etat.ARRET_PRO_NIV);
+		} finally {
+			majPlanArrets();
+			verrou.unlock();
+		}
 	}
 
 	/**	<p>
@@ -369,15 +1167,25 @@ public class Modele implements IModele {
 	 */
 	@Override
 	public void descendreNiveau(int niveau) {
-		//TODO: gérer les signaux à l'étage courant
-		if (etatCourant != Etat.ARRET_URGENCE)
-			signaux.setDescendreNiveau(niveau, true);
+		if (!signalValide(niveau))
+			return;
+		
+		verrou.lock();
+		try {
+			if (etatCourant != Etat.ARRET_URGENCE)
+				signaux.setDescendreNiveau(niveau, true);
+			if (niveau == niveauCourant)
+				servirNiveauCourant();
 
-		if (etatCourant == Etat.ATTENTE_SIGNAL)
-			gererDeplacement();
-		if (etatCourant == Etat.MONTER || etatCourant == Etat.DESCENDRE)
-			if (doitArreter())
-				changerEtatCourant(Etat.ARRET_PRO_NIV);
+			if (etatCourant == Etat.ATTENTE_SIGNAL)
+				gererDeplacement();
+			if (etatCourant == Etat.MONTER || etatCourant == Etat.DESCENDRE)
+				if (doitArreter())
+					changerEtatCourant(Etat.ARRET_PRO_NIV);
+		} finally {
+			majPlanArrets();
+			verrou.unlock();
+		}
 	}
 
 	/**	<p>
@@ -393,19 +1201,139 @@ public class Modele implements IModele {
 	 */
 	@Override
 	public void monterNiveau(int niveau) {
-		//TODO: gérer les signaux à l'étage courant
-		if (etatCourant != Etat.ARRET_URGENCE)
-			signaux.setMonterNiveau(niveau, true);
+		if (!signalValide(niveau))
+			return;
+		
+		verrou.lock();
+		try {
+			if (etatCourant != Etat.ARRET_URGENCE)
+				signaux.setMonterNiveau(niveau, true);
+			if (niveau == niveauCourant)
+				servirNiveauCourant();
 
-		if (etatCourant == Etat.ATTENTE_SIGNAL)
-			gererDeplacement();
-		if (etatCourant == Etat.MONTER || etatCourant == Etat.DESCENDRE)
-			if (doitArreter())
+			if (etatCourant == Etat.ATTENTE_SIGNAL)
+				gererDeplacement();
+			if (etatCourant == Etat.MONTER || etatCourant == Etat.DESCENDRE)
+				if (doitArreter())
+					changerEtatCourant(Etat.ARRET_PRO_NIV);
+		} finally {
+			majPlanArrets();
+			verrou.unlock();
+		}
+	}
+
+	/**	<p>
+	 * 		Enregistre d'un coup tous les signaux d'un lot (trame d'un bus de boutons, rejeu d'une trace, paquet réseau).
+	 * 	</p>
+	 * 	<p>
+	 * 		Contrairement à une suite d'appels à {@link #demandeNiveau(int) demandeNiveau}, {@link #monterNiveau(int) monterNiveau}
+	 * 		et {@link #descendreNiveau(int) descendreNiveau}, la décision de déplacement et d'arrêt n'est prise qu'une fois,
+	 * 		une fois tous les signaux enregistrés, et les écouteurs ne reçoivent qu'une notification <code>"signaux"</code>.
+	 * 		Les signaux à un niveau non desservi sont signalés et ignorés.
+	 * 	</p>
+	 * 
+	 * 	@param lot Les signaux reçus.
+	 * 
+	 * 	@see Signaux#enregistrer(LotSignaux)
+	 */
+	@Override
+	public void soumettreSignaux(LotSignaux lot) {
+		for (int i = 0; i < lot.getTaille(); i++)
+			signalValide(lot.getNiveau(i));
+
+		verrou.lock();
+		try {
+			if (etatCourant == Etat.ARRET_URGENCE || signaux.enregistrer(lot) == 0)
+				return;
+			servirNiveauCourant();
+
+			if (etatCourant == Etat.ATTENTE_SIGNAL)
+				gererDeplacement();
+			if (etatCourant == Etat.MONTER || etatCourant == Etat.DESCENDRE)
+				if (doitArreter())
+					changerEtatCourant(Etat.ARRET_PRO_NIV);
+		} finally {
+			majPlanArrets();
+			verrou.unlock();
+		}
+	}
+
+	/**	<p>
+	 * 		Retire un appel extérieur enregistré par cette cabine, lorsqu'un répartiteur le confie à une autre cabine.
+	 * 	</p>
+	 * 	<p>
+	 * 		Si plus rien n'attend la cabine dans son sens de progression, elle s'arrête au prochain niveau.
+	 * 	</p>
+	 * 
+	 * 	@param niveau Le niveau de l'appel.
+	 * 	@param sensAppel Le sens de l'appel.
+	 * 
+	 * 	@see Batterie
+	 */
+	public void retirerAppel(int niveau, Sens sensAppel) {
+		if (!signalValide(niveau))
+			return;
+
+		verrou.lock();
+		try {
+			if (sensAppel == Sens.MONTER && signaux.monterNiveau(niveau))
+				signaux.setMonterNiveau(niveau, false);
+			else if (sensAppel == Sens.DESCENDRE && signaux.descendreNiveau(niveau))
+				signaux.setDescendreNiveau(niveau, false);
+
+			if ((etatCourant == Etat.MONTER && !requeteAuDessus(niveauCourant))
+					|| (etatCourant == Etat.DESCENDRE && !requeteEnDessous(niveauCourant)))
 				changerEtatCourant(Etat.ARRET_PRO_NIV);
+		} finally {
+			majPlanArrets();
+			verrou.unlock();
+		}
+	}
+
+	/**	<p>
+	 * 		Méthode appelée lorsque l'on souhaite simuler la reception d'un signal de type
+	 * 		"pesée de la cabine".
+	 * 	</p>
+	 * 	<p>
+	 * 		Ce signal est envoyé par le dispositif de pesée après chaque échange de passagers.
+	 * 		Il contient la charge mesurée dans la cabine.
+	 * 		Les appels au niveau courant laissés par une cabine pleine en attente sont servis dès qu'elle ne l'est plus.
+	 * 	</p>
+	 * 
+	 * 	@param charge La charge de la cabine en kilogrammes.
+	 */
+	@Override
+	public void chargeCabine(int charge) {
+		verrou.lock();
+		try {
+			boolean etaitPleine = estPleineCharge();
+			int ancienneCharge = this.charge;
+			this.charge = charge;
+
+			changeSupport.firePropertyChange("charge", ancienneCharge, charge);
+
+			if (etaitPleine && !estPleineCharge() && etatCourant == Etat.ATTENTE_SIGNAL) {
+				servirNiveauCourant();
+				majPlanArrets();
+			}
+		} finally {
+			verrou.unlock();
+		}
 	}
 
 	/******************************************************************/
 
+	/**
+	 * Vérifie qu'un signal reçu concerne un niveau desservi par la cabine.
+	 */
+	private boolean signalValide(int niveau) {
+		if (zonage.estDesservi(niveau))
+			return true;
+
+		System.err.println("Erreur : Le niveau " + niveau + " n'est pas desservi par cette cabine.");
+		return false;
+	}
+
 	/**
 	 * Met à jour le niveau courant de l'ascenseur.
 	 * Cette méthode est automatiquement appelée lors de la réception du signal "niveau atteint".
@@ -437,15 +1365,8 @@ public class Modele implements IModele {
 	 *	@see #niveauCourant
 	 */
 	public boolean requeteEnDessous(int niveau) {
-		for (int i = PREMIER_NIVEAU; i < niveau; i++)
-			if (signaux.demandeNiveau(i) || signaux.monterNiveau(i))
-				return true;
-		// Attention au bouton pour descendre qui n'existe pas au premier niveau
-		for (int i = PREMIER_NIVEAU + 1; i < niveau; i++)
-			if (signaux.descendreNiveau(i))
-				return true;
-
-		return false;
+		// Seuls les niveaux desservis sont parcourus
+		return signaux.requeteEnDessous(niveau);
 	}
 	
 	/**
@@ -458,49 +1379,68 @@ public class Modele implements IModele {
 	 *	@see #niveauCourant
 	 */
 	public boolean requeteAuDessus(int niveau) {
-		for (int i = niveau + 1; i <= DERNIER_NIVEAU; i++)
-			if (signaux.demandeNiveau(i) || signaux.descendreNiveau(i))
-				return true;
-		// Attention au bouton pour monter qui n'existe pas au dernier niveau
-		for (int i = niveau + 1; i < DERNIER_NIVEAU; i++)
-			if (signaux.monterNiveau(i))
-				return true;
-
-		return false;
+		// Seuls les niveaux desservis sont parcourus
+		return signaux.requeteAuDessus(niveau);
 	}
 
 	/**
 	 * 	Détermine si l'ascenseur doit s'arrêter au prochain niveau.
-	 *  La stratégie adoptée ici est de favoriser les requêtes utilisateurs situées dans le sens de progression de l'ascenseur.
+	 *  La décision est déléguée à la stratégie courante, sauf lorsque la cabine est pleine (et que le contournement
+	 *  est actif): seules les demandes de niveau provoquent alors un arrêt, ou lorsqu'un appel a dépassé l'attente maximale.
+	 *  L'ascenseur s'arrête toujours au dernier niveau desservi dans son sens.
 	 *  
 	 * 	@return <code>true</code> si l'ascenseur doit s'arrêter, <code>false</code> sinon.
 	 *
 	 *  @see #sens
 	 *	@see #requeteAuDessus(int)
 	 *	@see #requeteEnDessous(int)
+	 *	@see #estPleineCharge()
+	 *	@see #setContournementPleineCharge(boolean)
+	 *	@see #setAttenteMaximale(long)
+	 *	@see IStrategie#doitArreter(Modele)
 	 */
 	public boolean doitArreter() {
-		if (sens == Sens.MONTER) {
-			if (signaux.demandeNiveau(niveauCourant + 1)
-			|| (signaux.descendreNiveau(niveauCourant + 1) && !requeteAuDessus(niveauCourant + 1))) {
-				return true;
-			}
-			if (niveauCourant + 1 != DERNIER_NIVEAU)
-				if (signaux.monterNiveau(niveauCourant + 1))
-					return true;
-		}
-		else {
-			if (signaux.demandeNiveau(niveauCourant - 1)
-			|| (signaux.monterNiveau(niveauCourant - 1) && !requeteEnDessous(niveauCourant - 1))) {
+		EvenementDecision evenement = EvenementDecision.commencer("doitArreter", strategie, niveauCourant, sens);
+		return EvenementDecision.terminer(evenement, decisionArret());
+	}
+
+	private boolean decisionArret() {
+		int niveauSuivant = sens == Sens.MONTER ? niveauCourant + 1 : niveauCourant - 1;
+
+		// Quelles que soient la charge et la stratégie, la cabine ne va jamais au-delà du dernier niveau desservi
+		boolean extremite = sens == Sens.MONTER
+				? zonage.rangAuDessus(niveauSuivant) == zonage.getNombreNiveauxDesservis()
+				: zonage.rangEnDessous(niveauSuivant) == 0;
+		if (extremite)
+			return true;
+
+		if (contournementPleineCharge && estPleineCharge())
+			return signaux.demandeNiveau(niveauSuivant);
+		
+		if (appelPrioritaire()) {
+			int niveauAppel = signaux.niveauAppelLePlusAncien();
+			if (niveauSuivant == niveauAppel || signaux.demandeNiveau(niveauSuivant))
 				return true;
-			}
-			if (niveauCourant - 1 != PREMIER_NIVEAU)
-				if (signaux.descendreNiveau(niveauCourant - 1))
-					return true;
+
+			// Demi-tour au prochain niveau desservi si l'appel est derrière la cabine et qu'aucun passager ne descend plus loin
+			boolean derriere = sens == Sens.MONTER ? niveauAppel < niveauSuivant : niveauAppel > niveauSuivant;
+			boolean demandesDevant = sens == Sens.MONTER ? signaux.demandeAuDessus(niveauSuivant) : signaux.demandeEnDessous(niveauSuivant);
+			return derriere && !demandesDevant && zonage.estDesservi(niveauSuivant);
 		}
 
-		return false;
+		return strategie.doitArreter(this);
+	}
+
+	/**
+	 * 	Détermine si l'appel extérieur le plus ancien attend depuis plus de l'attente maximale.
+	 * 
+	 * 	@see #setAttenteMaximale(long)
+	 */
+	private boolean appelPrioritaire() {
+		long maximum = attenteMaximale;
+		return maximum > 0 && horloge.getTempsCourant() - signaux.dateAppelLePlusAncien() >= maximum;
 	}
+
 	
 	/**
 	 * 	Gère le passage de l'état courant du système aux valeurs DESCENDRE, MONTER en calculant
@@ -524,32 +1464,32 @@ public class Modele implements IModele {
 
 	/**
 	 * 	Calcule le nouveau déplacement de l'ascenseur en fonction du sens de progression et des requêtes
-	 * 	utilisateur existantes.
+	 * 	utilisateur existantes. Le calcul est délégué à la stratégie courante, sauf lorsqu'un appel a dépassé l'attente maximale.
 	 * 	
 	 *  @return <code>MONTER</code> si l'ascenseur doit monter, <code>DESCENDRE</code> si l'ascenseur doit descendre, <code>AUCUN</code> si il ne doit pas se déplacer.
 	 *
 	 *  @see #sens
 	 *	@see #requeteAuDessus(int)
 	 *	@see #requeteEnDessous(int)
+	 *	@see IStrategie#calculDeplacement(Modele)
 	 */
 	public Mouvement calculDeplacement() {
+		EvenementDecision evenement = EvenementDecision.commencer("calculDeplacement", strategie, niveauCourant, sens);
+		return EvenementDecision.terminer(evenement, decisionDeplacement());
+	}
 
-		if (sens == Sens.MONTER) {
-			if (requeteAuDessus(niveauCourant))
-				return Mouvement.MONTER;
-			else if (requeteEnDessous(niveauCourant))
-				return Mouvement.DESCENDRE;
-		}
-		else {
-			if (requeteEnDessous(niveauCourant))
-				return Mouvement.DESCENDRE;
-			else if (requeteAuDessus(niveauCourant))
-				return Mouvement.MONTER;
+	private Mouvement decisionDeplacement() {
+		if (appelPrioritaire() && signaux.niveauAppelLePlusAncien() != niveauCourant) {
+			// Les passagers en cabine sont d'abord déposés dans le sens de progression
+			if (sens == Sens.MONTER ? signaux.demandeAuDessus(niveauCourant) : signaux.demandeEnDessous(niveauCourant))
+				return sens == Sens.MONTER ? Mouvement.MONTER : Mouvement.DESCENDRE;
+			return signaux.niveauAppelLePlusAncien() > niveauCourant ? Mouvement.MONTER : Mouvement.DESCENDRE;
 		}
-		
-		return Mouvement.AUCUN;
+
+		return strategie.calculDeplacement(this);
 	}
 
+
 	/**
 	 * 	Réécriture de la méthode <code>toString()</code> provenant de la classe <code>Object</code>.
 	 * 
@@ -0,0 +1,436 @@
+package modele;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import util.EcouteurAsynchrone;
+import util.Etat;
+import util.Horloge;
+import util.LotSignaux;
+import util.PolitiqueDebordement;
+import util.Sens;
+import util.SignauxCompacts;
+import util.Zonage;
+
+/**
+ * 	<p>
+ * 		Cabine à double pont: deux cabines superposées, solidaires, qui desservent en même temps deux niveaux voisins.
+ * 		Le pont inférieur dessert les niveaux de même parité que le premier niveau, le pont supérieur les autres:
+ * 		la cabine s'arrête à des <em>positions</em>, la position <code>p</code> plaçant le pont inférieur au niveau
+ * 		<code>premierNiveau + 2p</code> et le pont supérieur au niveau suivant.
+ * 	</p>
+ * 	<p>
+ * 		Le contrôle-commande est celui d'un {@link Modele} dont les niveaux sont les positions (voir
+ * 		{@link #getModelePositions() getModelePositions}): stratégies, pauses, verrou, arrêt d'urgence et stationnement
+ * 		s'appliquent tels quels. Cette classe traduit les signaux de niveau en signaux de position et coordonne les deux ponts:
+ * 	</p>
+ * 	<ul>
+ * 		<li>les demandes de niveau de chaque pont sont suivies séparément, une demande vers un niveau pair ou impair
+ * 		ne pouvant venir que du pont correspondant;</li>
+ * 		<li>la cabine s'arrête à une position dès qu'un des deux ponts y a une demande ou qu'un des deux paliers y appelle
+ * 		dans le sens de progression, et les portes des deux ponts s'ouvrent à chaque arrêt;</li>
+ * 		<li>l'arrêt efface les signaux des deux niveaux de la position.</li>
+ * 	</ul>
+ * 	<p>
+ * 		Les écouteurs reçoivent les notifications du modèle des positions, les niveaux y étant ceux du pont inférieur,
+ * 		et les notifications des signaux de chaque niveau.
+ * 	</p>
+ */
+public class ModeleDoublePont implements IModele, PropertyChangeListener {
+	public static final int PONT_INFERIEUR = 0, PONT_SUPERIEUR = 1;
+
+	private final int premierNiveau, dernierNiveau;
+	private final int[] niveauxDesservis;
+	private final Modele positions;
+
+	/** Signaux de chaque niveau, indexés par <code>niveau - premierNiveau</code>. Protégés par le moniteur de cet objet. */
+	private final SignauxCompacts signaux;
+
+	private final PropertyChangeSupport changeSupport = new PropertyChangeSupport(this);
+	private final Map<PropertyChangeListener, EcouteurAsynchrone> ecouteursAsynchrones = new ConcurrentHashMap<>();
+
+	/**
+	 * 	Crée une cabine à double pont arrêtée au premier niveau. La charge nominale est celle de deux cabines.
+	 */
+	public ModeleDoublePont(int premierNiveau, int dernierNiveau, Horloge horloge) {
+		if (dernierNiveau - premierNiveau < 3)
+			throw new IllegalArgumentException("Une cabine à double pont dessert au moins deux positions de deux niveaux.");
+
+		this.premierNiveau = premierNiveau;
+		this.dernierNiveau = dernierNiveau;
+		niveauxDesservis = new int[dernierNiveau - premierNiveau + 1];
+		for (int i = 0; i < niveauxDesservis.length; i++)
+			niveauxDesservis[i] = premierNiveau + i;
+
+		positions = new Modele(new Zonage(0, (niveauxDesservis.length - 1) / 2), horloge);
+		positions.setChargeNominale(2 * positions.getChargeNominale());
+		signaux = new SignauxCompacts(niveauxDesservis.length);
+
+		positions.ajouterEcouteur(this);
+	}
+
+	/**
+	 * @return Le modèle dont les niveaux sont les positions de la cabine, à piloter par le moteur
+	 * (avec deux hauteurs de niveau entre deux positions) et à régler (stratégie, pauses, stationnement en positions).
+	 */
+	public Modele getModelePositions() {
+		return positions;
+	}
+
+	/**
+	 * @return La position de la cabine lorsque le pont inférieur ou supérieur est au niveau <code>niveau</code>.
+	 */
+	public int position(int niveau) {
+		return (niveau - premierNiveau) / 2;
+	}
+
+	/**
+	 * @return Le pont qui dessert le niveau <code>niveau</code>.
+	 */
+	public int pont(int niveau) {
+		return (niveau - premierNiveau) % 2;
+	}
+
+	/**
+	 * @return Le niveau du pont <code>pont</code> à la position <code>position</code>, qui peut dépasser le dernier niveau.
+	 */
+	public int niveau(int position, int pont) {
+		return premierNiveau + 2 * position + pont;
+	}
+
+	/**
+	 * @return Le niveau où se trouve le pont <code>pont</code>.
+	 */
+	public int getNiveauPont(int pont) {
+		return niveau(positions.getNiveauCourant(), pont);
+	}
+
+	/**
+	 * @return <code>true</code> si une demande de niveau du pont qui dessert <code>niveau</code> est enregistrée.
+	 */
+	public synchronized boolean demandeNiveauEnregistree(int niveau) {
+		return estDesservi(niveau) && signaux.get(SignauxCompacts.DEMANDE, niveau - premierNiveau);
+	}
+
+	/*														*/
+	/* signaux													*/
+	/* 														*/
+
+	@Override
+	public void arretUrgence() {
+		positions.arretUrgence();
+	}
+
+	@Override
+	public void niveauAtteint() {
+		positions.niveauAtteint();
+	}
+
+	@Override
+	public void demandeNiveau(int niveau) {
+		if (!signalValide(niveau))
+			return;
+
+		poser(SignauxCompacts.DEMANDE, niveau, "demandeNiveau");
+		positions.demandeNiveau(position(niveau));
+		verifierUrgence();
+	}
+
+	@Override
+	public void monterNiveau(int niveau) {
+		if (!signalValide(niveau))
+			return;
+		if (position(niveau) == positions.getDernierNiveau()) {
+			System.err.println("Erreur : Il n'y a pas de position au dessus du niveau " + niveau + ".");
+			return;
+		}
+
+		poser(SignauxCompacts.MONTER, niveau, "monterNiveau");
+		positions.monterNiveau(position(niveau));
+		verifierUrgence();
+	}
+
+	@Override
+	public void descendreNiveau(int niveau) {
+		if (!signalValide(niveau))
+			return;
+		if (position(niveau) == 0) {
+			System.err.println("Erreur : Il n'y a pas de position en dessous du niveau " + niveau + ".");
+			return;
+		}
+
+		poser(SignauxCompacts.DESCENDRE, niveau, "descendreNiveau");
+		positions.descendreNiveau(position(niveau));
+		verifierUrgence();
+	}
+
+	/**
+	 * 	Traduit le lot en signaux de position, soumis d'un seul appel au modèle des positions.
+	 * 	Les écouteurs reçoivent une seule notification <code>"signaux"</code>, aux niveaux.
+	 */
+	@Override
+	public void soumettreSignaux(LotSignaux lot) {
+		LotSignaux lotPositions = new LotSignaux(lot.getTaille());
+		SignauxCompacts avant, apres;
+
+		synchronized (this) {
+			avant = new SignauxCompacts(signaux);
+			// Pendant un arrêt d'urgence, le lot est ignoré comme par le modèle des positions
+			int taille = enUrgence() ? 0 : lot.getTaille();
+			for (int i = 0; i < taille; i++) {
+				int niveau = lot.getNiveau(i), type = lot.getType(i), position = position(niveau);
+				if (!estDesservi(niveau)
+						|| (type == SignauxCompacts.MONTER && position == positions.getDernierNiveau())
+						|| (type == SignauxCompacts.DESCENDRE && position == 0))
+					continue;
+
+				signaux.set(type, niveau - premierNiveau, true);
+				lotPositions.ajouter(type, position);
+			}
+			apres = new SignauxCompacts(signaux);
+		}
+
+		changeSupport.firePropertyChange("signaux", avant, apres);
+		positions.soumettreSignaux(lotPositions);
+		verifierUrgence();
+	}
+
+	@Override
+	public void chargeCabine(int charge) {
+		positions.chargeCabine(charge);
+	}
+
+	@Override
+	public void detectionPassage() {
+		positions.detectionPassage();
+	}
+
+	@Override
+	public void fermerPortes() {
+		positions.fermerPortes();
+	}
+
+	@Override
+	public void temporisation() {
+		positions.temporisation();
+	}
+
+	private boolean signalValide(int niveau) {
+		if (estDesservi(niveau))
+			return true;
+
+		System.err.println("Erreur : Le niveau " + niveau + " n'est pas desservi par cette cabine.");
+		return false;
+	}
+
+	/**
+	 * @return <code>true</code> pendant un arrêt d'urgence, où le modèle des positions ignore les signaux.
+	 */
+	private boolean enUrgence() {
+		return positions.getEtatCourant() == Etat.ARRET_URGENCE;
+	}
+
+	/**
+	 * Enregistre un signal au niveau <code>niveau</code> et le notifie s'il est nouveau, sauf pendant un arrêt d'urgence.
+	 */
+	private void poser(int type, int niveau, String nom) {
+		boolean ancienneValeur;
+		synchronized (this) {
+			if (enUrgence())
+				return;
+			ancienneValeur = signaux.get(type, niveau - premierNiveau);
+			signaux.set(type, niveau - premierNiveau, true);
+		}
+		changeSupport.firePropertyChange(nom + niveau, ancienneValeur, true);
+	}
+
+	/**
+	 * 	Efface les signaux posés pendant la transmission d'un signal au modèle des positions, si un arrêt d'urgence
+	 * 	est arrivé entre-temps: le modèle des positions les a ignorés et ne les effacera pas.
+	 */
+	private void verifierUrgence() {
+		if (enUrgence())
+			effacerTout();
+	}
+
+	/**
+	 * Efface tous les signaux, notifiés par une seule notification <code>"signaux"</code>.
+	 */
+	private void effacerTout() {
+		SignauxCompacts avant;
+		synchronized (this) {
+			avant = new SignauxCompacts(signaux);
+			for (int tableau = SignauxCompacts.DEMANDE; tableau <= SignauxCompacts.DESCENDRE; tableau++)
+				for (int mot = 0; mot < signaux.getNombreMots(); mot++)
+					signaux.setMot(tableau, mot, 0);
+		}
+		changeSupport.firePropertyChange("signaux", avant, new SignauxCompacts(signaux.getNombreRangs()));
+	}
+
+	/**
+	 * Efface les signaux de type <code>type</code> aux deux niveaux de la position <code>position</code>.
+	 */
+	private void effacer(int type, int position, String nom) {
+		for (int pont = PONT_INFERIEUR; pont <= PONT_SUPERIEUR; pont++) {
+			int niveau = niveau(position, pont);
+			if (!estDesservi(niveau))
+				continue;
+
+			boolean ancienneValeur;
+			synchronized (this) {
+				ancienneValeur = signaux.get(type, niveau - premierNiveau);
+				signaux.set(type, niveau - premierNiveau, false);
+			}
+			changeSupport.firePropertyChange(nom + niveau, ancienneValeur, false);
+		}
+	}
+
+	/**
+	 * 	Relaie les notifications du modèle des positions: les niveaux sont ramenés à ceux du pont inférieur,
+	 * 	et un signal effacé à une position l'est aux deux niveaux de la position.
+	 */
+	@Override
+	public void propertyChange(PropertyChangeEvent event) {
+		String nomProp = event.getPropertyName();
+
+		if (nomProp.equals("niveauCourant")) {
+			changeSupport.firePropertyChange(nomProp, niveau((int) event.getOldValue(), PONT_INFERIEUR),
+					niveau((int) event.getNewValue(), PONT_INFERIEUR));
+		}
+		else if (nomProp.equals("signaux")) {
+			// Déjà notifié aux niveaux par soumettreSignaux
+		}
+		else if (nomProp.contains("Niveau")) {
+			if (Boolean.TRUE.equals(event.getNewValue()))
+				return;
+
+			String[] signal = nomProp.split("Niveau");
+			int position = Integer.parseInt(signal[1]);
+			switch (signal[0]) {
+				case "demande":
+					effacer(SignauxCompacts.DEMANDE, position, "demandeNiveau");
+					break;
+				case "monter":
+					effacer(SignauxCompacts.MONTER, position, "monterNiveau");
+					break;
+				case "descendre":
+					effacer(SignauxCompacts.DESCENDRE, position, "descendreNiveau");
+					break;
+			}
+		}
+		else {
+			changeSupport.firePropertyChange(nomProp, event.getOldValue(), event.getNewValue());
+
+			// L'arrêt d'urgence efface tous les signaux sans notification individuelle
+			if (nomProp.equals("etatCourant") && event.getNewValue() == Etat.ARRET_URGENCE)
+				effacerTout();
+		}
+	}
+
+	/*														*/
+	/* état														*/
+	/* 														*/
+
+	@Override
+	public Etat getEtatCourant() {
+		return positions.getEtatCourant();
+	}
+
+	@Override
+	public int getPremierNiveau() {
+		return premierNiveau;
+	}
+
+	@Override
+	public int getDernierNiveau() {
+		return dernierNiveau;
+	}
+
+	@Override
+	public int[] getNiveauxDesservis() {
+		return niveauxDesservis.clone();
+	}
+
+	@Override
+	public boolean estDesservi(int niveau) {
+		return niveau >= premierNiveau && niveau <= dernierNiveau;
+	}
+
+	/**
+	 * @return Le niveau du pont inférieur.
+	 */
+	@Override
+	public int getNiveauCourant() {
+		return getNiveauPont(PONT_INFERIEUR);
+	}
+
+	@Override
+	public int getNombrePonts() {
+		return 2;
+	}
+
+	@Override
+	public Sens getSens() {
+		return positions.getSens();
+	}
+
+	@Override
+	public int getDureePause() {
+		return positions.getDureePause();
+	}
+
+	@Override
+	public int getCharge() {
+		return positions.getCharge();
+	}
+
+	/**
+	 * @return Le plan des arrêts du modèle des positions: ses niveaux sont des positions.
+	 */
+	@Override
+	public PlanArrets getPlanArrets() {
+		return positions.getPlanArrets();
+	}
+
+	@Override
+	public long getEta(int niveau, Sens sens) {
+		return estDesservi(niveau) ? positions.getEta(position(niveau), sens) : Long.MAX_VALUE;
+	}
+
+	/*														*/
+	/* écouteurs												*/
+	/* 														*/
+
+	@Override
+	public void ajouterEcouteur(PropertyChangeListener listener) {
+		changeSupport.addPropertyChangeListener(listener);
+	}
+
+	@Override
+	public void ajouterEcouteurAsynchrone(PropertyChangeListener listener, int capacite, PolitiqueDebordement politique) {
+		EcouteurAsynchrone asynchrone = new EcouteurAsynchrone(listener, capacite, politique);
+		EcouteurAsynchrone precedent = ecouteursAsynchrones.put(listener, asynchrone);
+
+		if (precedent != null) {
+			changeSupport.removePropertyChangeListener(precedent);
+			precedent.fermer();
+		}
+		changeSupport.addPropertyChangeListener(asynchrone);
+	}
+
+	@Override
+	public void supprimerEcouteur(PropertyChangeListener listener) {
+		EcouteurAsynchrone asynchrone = ecouteursAsynchrones.remove(listener);
+
+		if (asynchrone != null) {
+			changeSupport.removePropertyChangeListener(asynchrone);
+			asynchrone.fermer();
+		}
+		else {
+			changeSupport.removePropertyChangeListener(listener);
+		}
+	}
+}
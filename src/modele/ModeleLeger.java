@@ -0,0 +1,351 @@
+package modele;
+
+import java.util.Random;
+
+import util.Mouvement;
+import util.Sens;
+import util.SignauxCompacts;
+import util.Zonage;
+
+/**
+ * 	<p>
+ * 		Copie simplifiée d'un système de contrôle-commande, destinée à simuler son avenir proche
+ * 		pour comparer des décisions candidates.
+ * 	</p>
+ * 	<p>
+ * 		Elle ne contient que des types primitifs et des {@link SignauxCompacts signaux compacts}
+ * 		partagés en copie sur écriture: {@link #bifurquer() bifurquer} coûte quelques affectations,
+ * 		quel que soit le nombre de niveaux. Le temps y avance par déplacements d'un niveau de
+ * 		{@link #DUREE_NIVEAU DUREE_NIVEAU} millisecondes et par arrêts de {@link #DUREE_ARRET DUREE_ARRET} millisecondes,
+ * 		et la cabine suit la stratégie collective une fois la décision candidate appliquée.
+ * 	</p>
+ * 	<p>
+ * 		Le coût d'une simulation est la somme des temps d'attente des signaux enregistrés pendant l'horizon simulé,
+ * 		calculée comme l'intégrale du nombre de signaux en attente (loi de Little). Les demandes de niveau, passagers
+ * 		déjà en cabine, y sont pondérées par {@link #POIDS_DEMANDE POIDS_DEMANDE} par rapport aux appels extérieurs.
+ * 	</p>
+ * 
+ * @see StrategieAnticipation
+ */
+public class ModeleLeger {
+
+	/**
+	 * Durée d'un déplacement d'un niveau et durée d'un arrêt (décélération, pause et accélération), en millisecondes.
+	 */
+	public static final long DUREE_NIVEAU = 2_000, DUREE_ARRET = 8_000;
+
+	/**
+	 * Poids d'une demande de niveau (passager en cabine) dans le coût, un appel extérieur (passager sur le palier) comptant pour 1.
+	 */
+	public static final double POIDS_DEMANDE = 2;
+
+	private final Zonage zonage;
+	private int niveau;
+	private Sens sens;
+	private boolean enMouvement;
+	private SignauxCompacts signaux;
+
+	private long temps, prochainAppel;
+	private double cout;
+	/* Intégrale du nombre d'appels extérieurs en attente, c'est-à-dire la somme de leurs délais de prise en charge */
+	private long coutAppels;
+
+	/**
+	 * Copie l'état courant de <code>modele</code>. Doit être appelé pendant une décision du modèle.
+	 */
+	public ModeleLeger(Modele modele) {
+		zonage = modele.getZonage();
+		niveau = modele.getNiveauCourant();
+		sens = modele.getSens();
+		signaux = modele.getSignaux().capturer();
+	}
+
+	/**
+	 * @param zonage Niveaux de la gaine et niveaux desservis.
+	 * @param niveau Niveau courant de la cabine.
+	 * @param sens Sens de progression de la cabine.
+	 * @param enMouvement <code>true</code> si la cabine se dirige vers le niveau suivant dans son sens de progression.
+	 * @param signaux Signaux enregistrés, indexés par rang de niveau desservi.
+	 */
+	public ModeleLeger(Zonage zonage, int niveau, Sens sens, boolean enMouvement, SignauxCompacts signaux) {
+		this.zonage = zonage;
+		this.niveau = niveau;
+		this.sens = sens;
+		this.enMouvement = enMouvement;
+		this.signaux = signaux;
+	}
+
+	private ModeleLeger(ModeleLeger autre) {
+		zonage = autre.zonage;
+		niveau = autre.niveau;
+		sens = autre.sens;
+		enMouvement = autre.enMouvement;
+		signaux = autre.signaux.partager();
+		temps = autre.temps;
+		prochainAppel = autre.prochainAppel;
+		cout = autre.cout;
+		coutAppels = autre.coutAppels;
+	}
+
+	/**
+	 * @return Une copie indépendante, obtenue en temps constant.
+	 */
+	public ModeleLeger bifurquer() {
+		return new ModeleLeger(this);
+	}
+
+	public Zonage getZonage() {
+		return zonage;
+	}
+
+	public int getNiveau() {
+		return niveau;
+	}
+
+	public Sens getSens() {
+		return sens;
+	}
+
+	public SignauxCompacts getSignaux() {
+		return signaux;
+	}
+
+	/**
+	 * 	Simule le départ de la cabine à l'arrêt dans la direction <code>depart</code>, puis son fonctionnement
+	 * 	selon la stratégie collective pendant <code>horizon</code> millisecondes.
+	 * 
+	 * @param appelsParSeconde Taux d'arrivée des appels extérieurs futurs, tirés uniformément parmi les niveaux desservis.
+	 * @return La somme des temps d'attente des signaux pendant l'horizon, en secondes.
+	 */
+	public double simulerDepart(Mouvement depart, long horizon, Random aleatoire, double appelsParSeconde) {
+		commencer(aleatoire, appelsParSeconde);
+
+		if (depart != Mouvement.AUCUN) {
+			sens = depart == Mouvement.MONTER ? Sens.MONTER : Sens.DESCENDRE;
+			enMouvement = true;
+		}
+		return continuer(horizon, aleatoire, appelsParSeconde);
+	}
+
+	/**
+	 * 	Simule l'arrivée de la cabine en mouvement au prochain niveau, en s'y arrêtant ou non selon <code>arreter</code>,
+	 * 	puis son fonctionnement selon la stratégie collective pendant <code>horizon</code> millisecondes.
+	 * 
+	 * @return La somme des temps d'attente des signaux pendant l'horizon, en secondes.
+	 */
+	public double simulerPassage(boolean arreter, long horizon, Random aleatoire, double appelsParSeconde) {
+		commencer(aleatoire, appelsParSeconde);
+
+		enMouvement = true;
+		franchirNiveau(arreter, aleatoire, appelsParSeconde);
+		return continuer(horizon, aleatoire, appelsParSeconde);
+	}
+
+	/**
+	 * 	<p>
+	 * 		Simule la cabine, sans appel futur ni destination des passagers montés, jusqu'à ce que tous ses appels
+	 * 		extérieurs soient servis. Utilisé pour estimer le coût d'une affectation d'appels à la cabine.
+	 * 	</p>
+	 * 
+	 * @param attenteDepart Temps restant avant que la cabine puisse repartir (fin de la pause en cours), en millisecondes.
+	 * @return La somme des délais de prise en charge des appels extérieurs, en millisecondes.
+	 */
+	public long delaisPriseEnCharge(long attenteDepart) {
+		commencer(null, 0);
+		avancer(attenteDepart, null, 0);
+
+		// Deux étapes par niveau au plus (franchissement avec arrêt, puis départ): quatre parcours complets de la gaine,
+		// en s'arrêtant à chaque niveau, plus que les trois qui suffisent à servir tous les appels
+		int pasMax = 8 * (zonage.getDernierNiveau() - zonage.getPremierNiveau() + 2);
+		for (int pas = 0; appelsExterieurs() > 0 && pas < pasMax; pas++)
+			if (!etape(Long.MAX_VALUE, null, 0))
+				break;
+
+		return coutAppels;
+	}
+
+	private void commencer(Random aleatoire, double appelsParSeconde) {
+		temps = 0;
+		cout = 0;
+		coutAppels = 0;
+		prochainAppel = tirerIntervalle(aleatoire, appelsParSeconde);
+	}
+
+	private double continuer(long horizon, Random aleatoire, double appelsParSeconde) {
+		while (temps < horizon)
+			etape(horizon, aleatoire, appelsParSeconde);
+		return cout / 1000;
+	}
+
+	/**
+	 * Fait franchir un niveau à la cabine, la fait servir le niveau où elle attend ou la fait partir.
+	 * 
+	 * @return <code>false</code> si la cabine n'a rien à faire et qu'aucun appel futur n'est simulé.
+	 */
+	private boolean etape(long horizon, Random aleatoire, double appelsParSeconde) {
+		if (enMouvement) {
+			franchirNiveau(doitArreter(), aleatoire, appelsParSeconde);
+			return true;
+		}
+
+		int rang = zonage.rang(niveau);
+		if (rang >= 0 && signalAuRang(rang) && servir(rang, aleatoire)) {
+			// Appel au niveau où la cabine attend: les portes se rouvrent
+			avancer(DUREE_ARRET, aleatoire, appelsParSeconde);
+			return true;
+		}
+
+		Mouvement depart = calculDeplacement();
+		if (depart == Mouvement.AUCUN) {
+			if (aleatoire == null)
+				return false;
+			avancer(Math.max(1, Math.min(prochainAppel, horizon) - temps), aleatoire, appelsParSeconde);
+		}
+		else {
+			sens = depart == Mouvement.MONTER ? Sens.MONTER : Sens.DESCENDRE;
+			enMouvement = true;
+		}
+		return true;
+	}
+
+	private void franchirNiveau(boolean arreter, Random aleatoire, double appelsParSeconde) {
+		avancer(DUREE_NIVEAU, aleatoire, appelsParSeconde);
+		niveau += sens == Sens.MONTER ? 1 : -1;
+
+		if (arreter || niveau == zonage.getPremierNiveau() || niveau == zonage.getDernierNiveau()) {
+			int rang = zonage.rang(niveau);
+			if (rang >= 0)
+				servir(rang, aleatoire);
+			avancer(DUREE_ARRET, aleatoire, appelsParSeconde);
+			enMouvement = false;
+		}
+	}
+
+	/**
+	 * Même règle que {@link StrategieCollective#doitArreter(Modele)}, appliquée au niveau suivant.
+	 */
+	public boolean doitArreter() {
+		int suivant = niveau + (sens == Sens.MONTER ? 1 : -1);
+		int rang = zonage.rang(suivant);
+		if (rang < 0)
+			return false;
+
+		if (signaux.get(SignauxCompacts.DEMANDE, rang))
+			return true;
+		if (sens == Sens.MONTER)
+			return signaux.get(SignauxCompacts.MONTER, rang)
+					|| (signaux.get(SignauxCompacts.DESCENDRE, rang) && !signaux.signalAPartirDe(rang + 1));
+		return signaux.get(SignauxCompacts.DESCENDRE, rang)
+				|| (signaux.get(SignauxCompacts.MONTER, rang) && !signaux.signalAvant(rang));
+	}
+
+	/**
+	 * Même règle que {@link StrategieCollective#calculDeplacement(Modele)}.
+	 */
+	public Mouvement calculDeplacement() {
+		boolean auDessus = signaux.signalAPartirDe(zonage.rangAuDessus(niveau));
+		boolean enDessous = signaux.signalAvant(zonage.rangEnDessous(niveau));
+
+		if (sens == Sens.MONTER) {
+			if (auDessus)
+				return Mouvement.MONTER;
+			else if (enDessous)
+				return Mouvement.DESCENDRE;
+		}
+		else {
+			if (enDessous)
+				return Mouvement.DESCENDRE;
+			else if (auDessus)
+				return Mouvement.MONTER;
+		}
+
+		return Mouvement.AUCUN;
+	}
+
+	private boolean signalAuRang(int rang) {
+		return signaux.get(SignauxCompacts.DEMANDE, rang) || signaux.get(SignauxCompacts.MONTER, rang)
+				|| signaux.get(SignauxCompacts.DESCENDRE, rang);
+	}
+
+	/**
+	 * 	Arrêt au rang <code>rang</code>: supprime la demande de niveau et les appels servis dans le sens de progression
+	 * 	(ou dans le sens opposé si la cabine n'a plus rien à faire au-delà), et tire la destination des passagers montés
+	 * 	si <code>aleatoire</code> n'est pas <code>null</code>.
+	 * 
+	 * @return <code>true</code> si un signal a été servi.
+	 */
+	private boolean servir(int rang, Random aleatoire) {
+		int nombreRangs = signaux.getNombreRangs();
+		boolean montee = sens == Sens.MONTER;
+		boolean servi = signaux.get(SignauxCompacts.DEMANDE, rang);
+
+		signaux.set(SignauxCompacts.DEMANDE, rang, false);
+
+		// La cabine change de sens si rien ne l'attend au-delà et que l'appel est dans l'autre sens
+		if (montee && !signaux.get(SignauxCompacts.MONTER, rang) && !signaux.signalAPartirDe(rang + 1))
+			montee = !signaux.get(SignauxCompacts.DESCENDRE, rang);
+		else if (!montee && !signaux.get(SignauxCompacts.DESCENDRE, rang) && !signaux.signalAvant(rang))
+			montee = signaux.get(SignauxCompacts.MONTER, rang);
+
+		if (montee && signaux.get(SignauxCompacts.MONTER, rang)) {
+			signaux.set(SignauxCompacts.MONTER, rang, false);
+			if (aleatoire != null)
+				signaux.set(SignauxCompacts.DEMANDE, rang + 1 + aleatoire.nextInt(nombreRangs - rang - 1), true);
+			sens = Sens.MONTER;
+			servi = true;
+		}
+		else if (!montee && signaux.get(SignauxCompacts.DESCENDRE, rang)) {
+			signaux.set(SignauxCompacts.DESCENDRE, rang, false);
+			if (aleatoire != null)
+				signaux.set(SignauxCompacts.DEMANDE, aleatoire.nextInt(rang), true);
+			sens = Sens.DESCENDRE;
+			servi = true;
+		}
+		return servi;
+	}
+
+	/**
+	 * Fait avancer le temps en accumulant l'attente des signaux et en enregistrant les appels futurs tirés au hasard.
+	 */
+	private void avancer(long duree, Random aleatoire, double appelsParSeconde) {
+		long fin = temps + duree;
+
+		while (prochainAppel <= fin) {
+			cout += attente() * (prochainAppel - temps);
+			coutAppels += appelsExterieurs() * (prochainAppel - temps);
+			temps = prochainAppel;
+			tirerAppel(aleatoire);
+			prochainAppel = temps + tirerIntervalle(aleatoire, appelsParSeconde);
+		}
+
+		cout += attente() * (fin - temps);
+		coutAppels += appelsExterieurs() * (fin - temps);
+		temps = fin;
+	}
+
+	/**
+	 * @return Le nombre pondéré de signaux en attente: un par appel extérieur, {@link #POIDS_DEMANDE POIDS_DEMANDE} par demande de niveau.
+	 */
+	private double attente() {
+		return signaux.nombre(SignauxCompacts.MONTER) + signaux.nombre(SignauxCompacts.DESCENDRE)
+				+ POIDS_DEMANDE * signaux.nombre(SignauxCompacts.DEMANDE);
+	}
+
+	private long appelsExterieurs() {
+		return signaux.nombre(SignauxCompacts.MONTER) + signaux.nombre(SignauxCompacts.DESCENDRE);
+	}
+
+	private void tirerAppel(Random aleatoire) {
+		int nombreRangs = signaux.getNombreRangs();
+		int rang = aleatoire.nextInt(nombreRangs);
+		boolean monter = rang == 0 || (rang < nombreRangs - 1 && aleatoire.nextBoolean());
+
+		signaux.set(monter ? SignauxCompacts.MONTER : SignauxCompacts.DESCENDRE, rang, true);
+	}
+
+	private static long tirerIntervalle(Random aleatoire, double appelsParSeconde) {
+		if (appelsParSeconde <= 0)
+			return Long.MAX_VALUE / 2;
+		return 1 + (long) (-Math.log(1 - aleatoire.nextDouble()) * 1000 / appelsParSeconde);
+	}
+}
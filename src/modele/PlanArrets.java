@@ -0,0 +1,300 @@
+package modele;
+
+import java.util.Arrays;
+
+import util.Sens;
+import util.SignauxCompacts;
+import util.Zonage;
+
+/**
+ * 	<p>
+ * 		Plan des prochains arrêts d'une cabine et heures d'arrivée estimées à chaque niveau, dans chaque sens.
+ * 	</p>
+ * 	<p>
+ * 		Le plan suit les règles de la {@link StrategieCollective stratégie collective} et de
+ * 		{@link Modele#temporisation() temporisation}: le balayage en cours (demandes de niveau et appels dans le sens de progression,
+ * 		appel opposé au bout de la course), puis le balayage de retour (appels opposés et demandes restantes), puis les appels
+ * 		dans le sens de progression laissés derrière la cabine. Un niveau demande {@link ModeleLeger#DUREE_NIVEAU DUREE_NIVEAU}
+ * 		à franchir et un arrêt {@link ModeleLeger#DUREE_ARRET DUREE_ARRET}.
+ * 	</p>
+ * 	<p>
+ * 		L'heure d'arrivée estimée d'un niveau dans un sens est l'instant où la cabine pourrait y prendre un passager
+ * 		allant dans ce sens s'il appelait maintenant. Elle est calculée pour tous les niveaux à chaque changement
+ * 		des signaux ou de la position (en temps linéaire dans le nombre de niveaux), puis lue en temps constant.
+ * 		Les heures sont absolues, selon l'horloge du modèle: un plan reste valable tant que rien ne change.
+ * 	</p>
+ * 	<p>
+ * 		Un plan n'est plus modifié une fois créé, il peut donc être lu depuis n'importe quel thread.
+ * 	</p>
+ *
+ * @see Modele#getPlanArrets()
+ */
+public class PlanArrets {
+
+	private final Zonage zonage;
+	private final int[] niveauxArrets;
+	private final Sens[] sensArrets;
+	private final int nombreArrets;
+
+	/** Heures d'arrivée estimées par rang, <code>Long.MAX_VALUE</code> si la cabine ne peut pas venir. */
+	private final long[] etaMonter, etaDescendre;
+
+	private PlanArrets(Zonage zonage, int[] niveauxArrets, Sens[] sensArrets, int nombreArrets, long[] etaMonter, long[] etaDescendre) {
+		this.zonage = zonage;
+		this.niveauxArrets = niveauxArrets;
+		this.sensArrets = sensArrets;
+		this.nombreArrets = nombreArrets;
+		this.etaMonter = etaMonter;
+		this.etaDescendre = etaDescendre;
+	}
+
+	/**
+	 * @return Un plan sans arrêt, où la cabine ne peut venir à aucun niveau (arrêt d'urgence).
+	 */
+	public static PlanArrets vide(Zonage zonage) {
+		long[] jamais = new long[zonage.getNombreNiveauxDesservis()];
+		Arrays.fill(jamais, Long.MAX_VALUE);
+		return new PlanArrets(zonage, new int[0], new Sens[0], 0, jamais, jamais);
+	}
+
+	public int getNombreArrets() {
+		return nombreArrets;
+	}
+
+	/**
+	 * @return Le niveau du <code>i</code>-ème prochain arrêt.
+	 */
+	public int getNiveau(int i) {
+		return niveauxArrets[i];
+	}
+
+	/**
+	 * @return Le sens dans lequel la cabine repart du <code>i</code>-ème prochain arrêt.
+	 */
+	public Sens getSens(int i) {
+		return sensArrets[i];
+	}
+
+	/**
+	 * @return L'heure d'arrivée estimée de la cabine au niveau <code>niveau</code> pour un passager allant dans le sens <code>sens</code>,
+	 * selon l'horloge du modèle, <code>Long.MAX_VALUE</code> si le niveau n'est pas desservi ou si la cabine ne peut pas venir.
+	 */
+	public long getEta(int niveau, Sens sens) {
+		int rang = zonage.rang(niveau);
+		if (rang < 0)
+			return Long.MAX_VALUE;
+
+		return sens == Sens.MONTER ? etaMonter[rang] : etaDescendre[rang];
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder texte = new StringBuilder("[");
+		for (int i = 0; i < nombreArrets; i++)
+			texte.append(i == 0 ? "" : ", ").append(niveauxArrets[i]).append(sensArrets[i] == Sens.MONTER ? '+' : '-');
+		return texte.append(']').toString();
+	}
+
+	/**
+	 * 	Calcule le plan d'une cabine.
+	 *
+	 * @param niveau Niveau courant de la cabine.
+	 * @param sens Sens de progression.
+	 * @param enMouvement <code>true</code> si la cabine a quitté le niveau courant (elle ne peut plus s'y arrêter).
+	 * @param attenteDepart Temps restant avant que la cabine puisse repartir, en millisecondes.
+	 * @param maintenant Instant courant selon l'horloge du modèle.
+	 */
+	public static PlanArrets calculer(Zonage zonage, SignauxCompacts signaux, int niveau, Sens sens, boolean enMouvement,
+			long attenteDepart, long maintenant) {
+		return new Calcul(zonage, signaux, niveau, sens, enMouvement).executer(attenteDepart, maintenant);
+	}
+
+	/**
+	 * 	Calcul d'un plan. Les rangs sont parcourus dans le sens de progression: l'indice <code>k</code> désigne le rang
+	 * 	<code>k</code> à la montée et le rang <code>n - 1 - k</code> à la descente, un appel "en avant" est dans le sens
+	 * 	de progression et un appel "en arrière" dans le sens opposé.
+	 */
+	private static class Calcul {
+		private final Zonage zonage;
+		private final Sens sens, oppose;
+		private final int n, niveau;
+		private final boolean monte;
+		private final int[] niveaux;
+		private final boolean[] demande, avant, arriere;
+
+		/** Premier indice strictement devant la cabine. */
+		private final int debut;
+		/** Vrai si la cabine est arrêtée à l'indice <code>debut - 1</code>. */
+		private final boolean aQuai;
+
+		private final long[] etaAvant, etaArriere;
+		private final int[] niveauxArrets;
+		private final Sens[] sensArrets;
+		private int nombreArrets;
+
+		private Calcul(Zonage zonage, SignauxCompacts signaux, int niveau, Sens sens, boolean enMouvement) {
+			this.zonage = zonage;
+			this.niveau = niveau;
+			this.sens = sens;
+			monte = sens == Sens.MONTER;
+			oppose = monte ? Sens.DESCENDRE : Sens.MONTER;
+			n = zonage.getNombreNiveauxDesservis();
+
+			niveaux = new int[n];
+			demande = new boolean[n];
+			avant = new boolean[n];
+			arriere = new boolean[n];
+			int typeAvant = monte ? SignauxCompacts.MONTER : SignauxCompacts.DESCENDRE;
+			int typeArriere = monte ? SignauxCompacts.DESCENDRE : SignauxCompacts.MONTER;
+
+			int premierDevant = n;
+			for (int k = n - 1; k >= 0; k--) {
+				int rang = rang(k);
+				niveaux[k] = zonage.getNiveau(rang);
+				demande[k] = signaux.get(SignauxCompacts.DEMANDE, rang);
+				avant[k] = signaux.get(typeAvant, rang);
+				arriere[k] = signaux.get(typeArriere, rang);
+				if (monte ? niveaux[k] > niveau : niveaux[k] < niveau)
+					premierDevant = k;
+			}
+
+			aQuai = !enMouvement && zonage.estDesservi(niveau);
+			debut = premierDevant;
+
+			etaAvant = new long[n];
+			etaArriere = new long[n];
+			Arrays.fill(etaAvant, Long.MAX_VALUE);
+			Arrays.fill(etaArriere, Long.MAX_VALUE);
+			// Au plus deux arrêts par niveau (arrêt puis demi-tour)
+			niveauxArrets = new int[2 * n];
+			sensArrets = new Sens[2 * n];
+		}
+
+		private int rang(int k) {
+			return monte ? k : n - 1 - k;
+		}
+
+		private long trajet(int depuis, int vers) {
+			return ModeleLeger.DUREE_NIVEAU * Math.abs(vers - depuis);
+		}
+
+		private void ajouterArret(int k, Sens sensDepart) {
+			niveauxArrets[nombreArrets] = niveaux[k];
+			sensArrets[nombreArrets++] = sensDepart;
+		}
+
+		private PlanArrets executer(long attenteDepart, long maintenant) {
+			// Dernier signal devant la cabine: bout du balayage en cours
+			int dernier = -1;
+			for (int k = debut; k < n; k++)
+				if (demande[k] || avant[k] || arriere[k])
+					dernier = k;
+
+			// Balayage en cours
+			long t = attenteDepart, finBalayage = attenteDepart;
+			int precedent = niveau;
+			if (aQuai)
+				etaAvant[debut - 1] = 0;
+
+			for (int k = debut; k < n; k++) {
+				t += trajet(precedent, niveaux[k]);
+				precedent = niveaux[k];
+				etaAvant[k] = t;
+				// Au-delà du dernier signal, la cabine irait jusqu'au niveau appelé et y ferait demi-tour
+				if (k >= dernier)
+					etaArriere[k] = t;
+
+				if (k > dernier)
+					continue;
+
+				boolean demiTour = k == dernier && arriere[k];
+				if (demande[k] || avant[k]) {
+					ajouterArret(k, sens);
+					t += ModeleLeger.DUREE_ARRET;
+				}
+				if (demiTour)
+					ajouterArret(k, oppose);
+				if (k == dernier)
+					// Un nouvel appel plus loin repousserait le demi-tour: les niveaux suivants n'attendent pas cet arrêt
+					finBalayage = t + (demiTour ? ModeleLeger.DUREE_ARRET : 0);
+			}
+
+			// Point de demi-tour: le dernier signal, sinon la position de la cabine (ou le prochain niveau si elle roule)
+			int pivot;
+			if (dernier >= 0) {
+				pivot = dernier;
+			}
+			else if (aQuai) {
+				pivot = debut - 1;
+				etaArriere[pivot] = attenteDepart;
+			}
+			else {
+				pivot = Math.min(debut, n - 1);
+				finBalayage = attenteDepart + trajet(niveau, niveaux[pivot]) + ModeleLeger.DUREE_ARRET;
+			}
+
+			// Balayage de retour: appels opposés, demandes derrière la cabine et, au bout, l'appel dans le sens de progression
+			int dernierRetour = -1;
+			for (int k = pivot - 1; k >= 0; k--)
+				if (arriere[k] || (k < debut && (demande[k] || avant[k])))
+					dernierRetour = k;
+
+			t = finBalayage;
+			precedent = niveaux[pivot];
+			long finRetour = finBalayage;
+
+			for (int k = pivot - 1; k >= 0; k--) {
+				t += trajet(precedent, niveaux[k]);
+				precedent = niveaux[k];
+				etaArriere[k] = t;
+				if (k < debut && (dernierRetour < 0 || k <= dernierRetour) && etaAvant[k] == Long.MAX_VALUE)
+					etaAvant[k] = t;
+
+				if (k < dernierRetour)
+					continue;
+
+				boolean demiTour = k == dernierRetour && avant[k] && k < debut;
+				if (arriere[k] || (k < debut && demande[k])) {
+					ajouterArret(k, oppose);
+					t += ModeleLeger.DUREE_ARRET;
+				}
+				if (demiTour)
+					ajouterArret(k, sens);
+				if (k == dernierRetour)
+					finRetour = t + (demiTour ? ModeleLeger.DUREE_ARRET : 0);
+			}
+
+			// Troisième balayage: appels dans le sens de progression restés derrière la cabine
+			if (dernierRetour >= 0) {
+				t = finRetour;
+				precedent = niveaux[dernierRetour];
+				for (int k = dernierRetour + 1; k < debut - (aQuai ? 1 : 0); k++) {
+					t += trajet(precedent, niveaux[k]);
+					precedent = niveaux[k];
+					if (etaAvant[k] == Long.MAX_VALUE)
+						etaAvant[k] = t;
+					if (avant[k]) {
+						ajouterArret(k, sens);
+						t += ModeleLeger.DUREE_ARRET;
+					}
+				}
+			}
+
+			// Retour aux rangs et aux heures absolues
+			long[] etaMonter = new long[n], etaDescendre = new long[n];
+			for (int k = 0; k < n; k++) {
+				int rang = rang(k);
+				long eAvant = etaAvant[k] == Long.MAX_VALUE ? Long.MAX_VALUE : maintenant + etaAvant[k];
+				long eArriere = etaArriere[k] == Long.MAX_VALUE ? Long.MAX_VALUE : maintenant + etaArriere[k];
+				etaMonter[rang] = monte ? eAvant : eArriere;
+				etaDescendre[rang] = monte ? eArriere : eAvant;
+			}
+			// Pas de bouton pour monter au dernier niveau ni pour descendre au premier
+			etaMonter[n - 1] = Long.MAX_VALUE;
+			etaDescendre[0] = Long.MAX_VALUE;
+
+			return new PlanArrets(zonage, Arrays.copyOf(niveauxArrets, nombreArrets),
+					Arrays.copyOf(sensArrets, nombreArrets), nombreArrets, etaMonter, etaDescendre);
+		}
+	}
+}
@@ -0,0 +1,46 @@
+package modele;
+
+/**
+ * 	<p>
+ * 		Politique de pause adaptée à l'activité au niveau:
+ * 	</p>
+ * 	<ul>
+ * 		<li>un arrêt pour une simple demande de niveau est plus court qu'un arrêt pour un appel au palier,</li>
+ * 		<li>chaque passage détecté entre les portes garantit un délai minimal avant la fermeture,</li>
+ * 		<li>le bouton de fermeture des portes réduit la pause restante.</li>
+ * 	</ul>
+ */
+public class PolitiquePauseAdaptative implements IPolitiquePause {
+
+	private final int DUREE_DEMANDE_NIVEAU, DUREE_APPEL_PALIER, PROLONGATION_PASSAGE, DUREE_FERMETURE;
+
+	/**
+	 * Construit la politique avec des durées usuelles: 4 s pour une demande de niveau, 6 s pour un appel au palier,
+	 * 2,5 s après le dernier passage et 2 s après l'appui sur le bouton de fermeture des portes.
+	 */
+	public PolitiquePauseAdaptative() {
+		this(4_000, 6_000, 2_500, 2_000);
+	}
+
+	public PolitiquePauseAdaptative(int dureeDemandeNiveau, int dureeAppelPalier, int prolongationPassage, int dureeFermeture) {
+		DUREE_DEMANDE_NIVEAU = dureeDemandeNiveau;
+		DUREE_APPEL_PALIER = dureeAppelPalier;
+		PROLONGATION_PASSAGE = prolongationPassage;
+		DUREE_FERMETURE = dureeFermeture;
+	}
+
+	@Override
+	public int dureePause(boolean appelPalier) {
+		return appelPalier ? DUREE_APPEL_PALIER : DUREE_DEMANDE_NIVEAU;
+	}
+
+	@Override
+	public int prolongationPassage() {
+		return PROLONGATION_PASSAGE;
+	}
+
+	@Override
+	public int dureeFermeture() {
+		return DUREE_FERMETURE;
+	}
+}
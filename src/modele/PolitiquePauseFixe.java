@@ -0,0 +1,29 @@
+package modele;
+
+/**
+ * Politique de pause historique: la même durée à chaque arrêt, sans tenir compte des passages
+ * ni du bouton de fermeture des portes.
+ */
+public class PolitiquePauseFixe implements IPolitiquePause {
+
+	private final int DUREE_PAUSE;
+
+	public PolitiquePauseFixe(int dureePause) {
+		DUREE_PAUSE = dureePause;
+	}
+
+	@Override
+	public int dureePause(boolean appelPalier) {
+		return DUREE_PAUSE;
+	}
+
+	@Override
+	public int prolongationPassage() {
+		return 0;
+	}
+
+	@Override
+	public int dureeFermeture() {
+		return DUREE_PAUSE;
+	}
+}
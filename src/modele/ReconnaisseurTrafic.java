@@ -0,0 +1,312 @@
+package modele;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TimerTask;
+
+import util.Horloge;
+import util.ModeTrafic;
+import util.SignauxCompacts;
+
+/**
+ * 	<p>
+ * 		Reconnaissance de la situation de trafic d'une cabine d'après ses signaux, et changement automatique de réglages.
+ * 	</p>
+ * 	<p>
+ * 		Les signaux sont comptés sur une fenêtre glissante de {@link #NOMBRE_SEAUX} intervalles de {@link #DUREE_SEAU} ms:
+ * 		appels pour monter depuis le niveau principal ou depuis un étage, appels pour descendre, demandes vers le niveau
+ * 		principal ou vers un étage. À la fin de chaque intervalle, la part des appels partant du niveau principal
+ * 		et celle des demandes qui y vont désignent un {@link ModeTrafic mode}:
+ * 	</p>
+ * 	<ul>
+ * 		<li>peu de signaux: repos,</li>
+ * 		<li>départs du niveau principal majoritaires, peu d'arrivées: pointe montante,</li>
+ * 		<li>arrivées au niveau principal majoritaires, peu de départs: pointe descendante,</li>
+ * 		<li>départs et arrivées du niveau principal nombreux dans les deux sens: trafic dans les deux sens,</li>
+ * 		<li>sinon, trafic entre étages.</li>
+ * 	</ul>
+ * 	<p>
+ * 		Deux mécanismes d'hystérésis évitent les basculements incessants à la frontière de deux modes: les seuils pour
+ * 		rester dans le mode courant sont plus bas que ceux pour y entrer, et un nouveau mode doit être reconnu
+ * 		{@link #CONFIRMATIONS} fois de suite avant d'être adopté. Les réglages du mode adopté (stratégie, politique de pause,
+ * 		stationnement) sont alors appliqués au modèle et les écouteurs notifiés d'un changement de la propriété
+ * 		<code>"modeTrafic"</code>.
+ * 	</p>
+ * 	<p>
+ * 		Par défaut, un changement de mode ne touche pas à la stratégie du modèle: seules la politique de pause et le stationnement
+ * 		changent. La seule autre stratégie, {@link StrategieAnticipation}, ne fait pas mieux que la {@link StrategieCollective}
+ * 		dans aucun des scénarios mesurés. {@link #setReglage(ModeTrafic, IStrategie, IPolitiquePause, int, long) setReglage}
+ * 		permet d'en imposer une dans un mode.
+ * 	</p>
+ */
+public class ReconnaisseurTrafic implements PropertyChangeListener {
+	/** Durée d'un intervalle de la fenêtre glissante, en millisecondes. */
+	public static final long DUREE_SEAU = 30_000;
+	/** Nombre d'intervalles de la fenêtre glissante: cinq minutes de signaux. */
+	public static final int NOMBRE_SEAUX = 10;
+	/** Nombre d'évaluations successives qui doivent reconnaître un nouveau mode avant qu'il soit adopté. */
+	public static final int CONFIRMATIONS = 2;
+
+	/** Nombre de signaux sur la fenêtre en dessous duquel le trafic est au repos, pour y entrer et pour y rester. */
+	private static final int SEUIL_REPOS_ENTREE = 3, SEUIL_REPOS_SORTIE = 5;
+	/** Part des départs (ou des arrivées) du niveau principal pour entrer dans une pointe, et pour y rester. */
+	private static final double SEUIL_POINTE_ENTREE = 0.6, SEUIL_POINTE_SORTIE = 0.45;
+	/** Part maximale des arrivées (ou des départs) du niveau principal dans une pointe de départs (ou d'arrivées). */
+	private static final double SEUIL_CONTRE_POINTE = 0.25;
+	/** Somme des parts des départs et des arrivées du niveau principal pour entrer dans le trafic dans les deux sens, et pour y rester. */
+	private static final double SEUIL_DEUX_SENS_ENTREE = 0.4, SEUIL_DEUX_SENS_SORTIE = 0.3;
+
+	private static final int MONTEE_PRINCIPAL = 0, MONTEE_ETAGE = 1, DESCENTE_ETAGE = 2, DEMANDE_PRINCIPAL = 3, DEMANDE_ETAGE = 4;
+
+	/**
+	 * Réglages appliqués au modèle dans un mode. Une stratégie <code>null</code> garde celle du modèle.
+	 */
+	private static class Reglage {
+		private final IStrategie strategie;
+		private final IPolitiquePause politiquePause;
+		private final int niveauParking;
+		private final long delaiParking;
+
+		private Reglage(IStrategie strategie, IPolitiquePause politiquePause, int niveauParking, long delaiParking) {
+			this.strategie = strategie;
+			this.politiquePause = politiquePause;
+			this.niveauParking = niveauParking;
+			this.delaiParking = delaiParking;
+		}
+	}
+
+	private final Modele modele;
+	private final Horloge horloge;
+	private final int niveauPrincipal;
+	private final int[] niveauxDesservis;
+	private final Map<ModeTrafic, Reglage> reglages = new EnumMap<>(ModeTrafic.class);
+	private final PropertyChangeSupport changeSupport = new PropertyChangeSupport(this);
+
+	private final int[][] seaux = new int[NOMBRE_SEAUX][5];
+	/** Numéro de l'intervalle courant depuis l'origine de l'horloge. */
+	private long seauCourant;
+
+	private ModeTrafic modeCourant = ModeTrafic.REPOS;
+	private ModeTrafic candidat = ModeTrafic.REPOS;
+	private int confirmations;
+	private int nombreChangements;
+
+	private TimerTask tacheEvaluation;
+
+	/**
+	 * 	Crée le reconnaisseur avec des réglages par défaut pour chaque mode, applique ceux du repos
+	 * 	et l'abonne aux signaux de la cabine.
+	 *
+	 * @param niveauPrincipal Niveau d'accès de l'immeuble (rez-de-chaussée, hall), qui doit être desservi.
+	 */
+	public ReconnaisseurTrafic(Modele modele, Horloge horloge, int niveauPrincipal) {
+		if (!modele.estDesservi(niveauPrincipal))
+			throw new IllegalArgumentException("Le niveau principal " + niveauPrincipal + " n'est pas desservi.");
+
+		this.modele = modele;
+		this.horloge = horloge;
+		this.niveauPrincipal = niveauPrincipal;
+		niveauxDesservis = modele.getNiveauxDesservis();
+		seauCourant = horloge.getTempsCourant() / DUREE_SEAU;
+
+		// Pointe montante: retour rapide au niveau principal, d'où partent les passagers.
+		// Pointe descendante: la cabine attend en haut de l'immeuble et repart plus vite des paliers.
+		// Entre étages: pas de stationnement, la cabine attend là où elle a déposé le dernier passager.
+		int haut = niveauxDesservis[2 * (niveauxDesservis.length - 1) / 3];
+		int milieu = niveauxDesservis[(niveauxDesservis.length - 1) / 2];
+		setReglage(ModeTrafic.POINTE_MONTANTE, null, new PolitiquePauseAdaptative(4_000, 6_000, 2_500, 2_000),
+				niveauPrincipal, 5_000);
+		setReglage(ModeTrafic.POINTE_DESCENDANTE, null, new PolitiquePauseAdaptative(4_000, 5_000, 2_500, 2_000),
+				haut, 10_000);
+		setReglage(ModeTrafic.DEUX_SENS, null, new PolitiquePauseAdaptative(), niveauPrincipal, 15_000);
+		setReglage(ModeTrafic.INTERETAGE, null, new PolitiquePauseAdaptative(), milieu, 0);
+		// Le repos est le mode initial: ses réglages s'appliquent aussitôt
+		setReglage(ModeTrafic.REPOS, null, new PolitiquePauseAdaptative(), niveauPrincipal, 30_000);
+
+		modele.ajouterEcouteur(this);
+	}
+
+	/**
+	 * Modifie les réglages appliqués au modèle lorsque le trafic passe dans le mode <code>mode</code>.
+	 * Les réglages du mode courant s'appliquent immédiatement.
+	 *
+	 * @param strategie Stratégie de desserte du mode, <code>null</code> pour garder celle du modèle.
+	 * @param delaiParking Délai d'inactivité avant le retour au niveau de stationnement, en millisecondes, 0 pour ne pas stationner.
+	 */
+	public synchronized void setReglage(ModeTrafic mode, IStrategie strategie, IPolitiquePause politiquePause,
+			int niveauParking, long delaiParking) {
+		if (delaiParking > 0 && !modele.estDesservi(niveauParking))
+			throw new IllegalArgumentException("Le niveau de stationnement " + niveauParking + " n'est pas desservi.");
+
+		reglages.put(mode, new Reglage(strategie, politiquePause, niveauParking, delaiParking));
+		if (mode == modeCourant)
+			appliquer(mode);
+	}
+
+	/**
+	 * Lance l'évaluation périodique du trafic, à la fin de chaque intervalle de la fenêtre glissante.
+	 */
+	public void demarrer() {
+		tacheEvaluation = horloge.planifierPeriodique(this::evaluer, DUREE_SEAU);
+	}
+
+	public void arreter() {
+		TimerTask tache = tacheEvaluation;
+		if (tache != null)
+			tache.cancel();
+		tacheEvaluation = null;
+	}
+
+	public synchronized ModeTrafic getModeCourant() {
+		return modeCourant;
+	}
+
+	/**
+	 * @return Le nombre de changements de mode depuis la création.
+	 */
+	public synchronized int getNombreChangements() {
+		return nombreChangements;
+	}
+
+	public void ajouterEcouteur(PropertyChangeListener listener) {
+		changeSupport.addPropertyChangeListener(listener);
+	}
+
+	public void supprimerEcouteur(PropertyChangeListener listener) {
+		changeSupport.removePropertyChangeListener(listener);
+	}
+
+	@Override
+	public void propertyChange(PropertyChangeEvent event) {
+		String nomProp = event.getPropertyName();
+
+		if (nomProp.equals("signaux")) {
+			SignauxCompacts avant = (SignauxCompacts) event.getOldValue();
+			SignauxCompacts apres = (SignauxCompacts) event.getNewValue();
+
+			for (int rang = 0; rang < niveauxDesservis.length; rang++)
+				for (int type = SignauxCompacts.DEMANDE; type <= SignauxCompacts.DESCENDRE; type++)
+					if (apres.get(type, rang) && !avant.get(type, rang))
+						compter(type, niveauxDesservis[rang]);
+		}
+		else if (nomProp.contains("Niveau") && Boolean.TRUE.equals(event.getNewValue())) {
+			String[] signal = nomProp.split("Niveau");
+			int niveau = Integer.parseInt(signal[1]);
+
+			switch (signal[0]) {
+				case "demande":
+					compter(SignauxCompacts.DEMANDE, niveau);
+					break;
+				case "monter":
+					compter(SignauxCompacts.MONTER, niveau);
+					break;
+				case "descendre":
+					compter(SignauxCompacts.DESCENDRE, niveau);
+					break;
+			}
+		}
+	}
+
+	private synchronized void compter(int type, int niveau) {
+		avancer(horloge.getTempsCourant());
+		boolean principal = niveau == niveauPrincipal;
+
+		int compteur;
+		switch (type) {
+			case SignauxCompacts.DEMANDE:
+				compteur = principal ? DEMANDE_PRINCIPAL : DEMANDE_ETAGE;
+				break;
+			case SignauxCompacts.MONTER:
+				compteur = principal ? MONTEE_PRINCIPAL : MONTEE_ETAGE;
+				break;
+			default:
+				compteur = DESCENTE_ETAGE;
+				break;
+		}
+		seaux[(int) (seauCourant % NOMBRE_SEAUX)][compteur]++;
+	}
+
+	/**
+	 * Fait glisser la fenêtre jusqu'à l'instant <code>temps</code>, en vidant les intervalles sortis de la fenêtre.
+	 */
+	private void avancer(long temps) {
+		long seau = temps / DUREE_SEAU;
+		for (long s = Math.max(seauCourant + 1, seau - NOMBRE_SEAUX + 1); s <= seau; s++)
+			Arrays.fill(seaux[(int) (s % NOMBRE_SEAUX)], 0);
+		seauCourant = Math.max(seauCourant, seau);
+	}
+
+	/**
+	 * Reconnaît le mode de trafic sur la fenêtre glissante et l'adopte s'il est confirmé.
+	 */
+	public void evaluer() {
+		ModeTrafic ancienMode, nouveauMode;
+
+		synchronized (this) {
+			avancer(horloge.getTempsCourant());
+
+			int[] totaux = new int[5];
+			for (int[] seau : seaux)
+				for (int i = 0; i < totaux.length; i++)
+					totaux[i] += seau[i];
+
+			ModeTrafic reconnu = reconnaitre(totaux);
+			if (reconnu == modeCourant) {
+				candidat = reconnu;
+				confirmations = 0;
+				return;
+			}
+
+			confirmations = reconnu == candidat ? confirmations + 1 : 1;
+			candidat = reconnu;
+			if (confirmations < CONFIRMATIONS)
+				return;
+
+			ancienMode = modeCourant;
+			nouveauMode = reconnu;
+			modeCourant = reconnu;
+			confirmations = 0;
+			nombreChangements++;
+			appliquer(nouveauMode);
+		}
+
+		changeSupport.firePropertyChange("modeTrafic", ancienMode, nouveauMode);
+	}
+
+	private ModeTrafic reconnaitre(int[] totaux) {
+		int appels = totaux[MONTEE_PRINCIPAL] + totaux[MONTEE_ETAGE] + totaux[DESCENTE_ETAGE];
+		int demandes = totaux[DEMANDE_PRINCIPAL] + totaux[DEMANDE_ETAGE];
+
+		if (appels + demandes < (modeCourant == ModeTrafic.REPOS ? SEUIL_REPOS_SORTIE : SEUIL_REPOS_ENTREE))
+			return ModeTrafic.REPOS;
+
+		double departs = appels == 0 ? 0 : (double) totaux[MONTEE_PRINCIPAL] / appels;
+		double arrivees = demandes == 0 ? 0 : (double) totaux[DEMANDE_PRINCIPAL] / demandes;
+
+		if (departs >= seuil(ModeTrafic.POINTE_MONTANTE) && arrivees < SEUIL_CONTRE_POINTE)
+			return ModeTrafic.POINTE_MONTANTE;
+		if (arrivees >= seuil(ModeTrafic.POINTE_DESCENDANTE) && departs < SEUIL_CONTRE_POINTE)
+			return ModeTrafic.POINTE_DESCENDANTE;
+		if (departs + arrivees >= (modeCourant == ModeTrafic.DEUX_SENS ? SEUIL_DEUX_SENS_SORTIE : SEUIL_DEUX_SENS_ENTREE))
+			return ModeTrafic.DEUX_SENS;
+
+		return ModeTrafic.INTERETAGE;
+	}
+
+	private double seuil(ModeTrafic pointe) {
+		return modeCourant == pointe ? SEUIL_POINTE_SORTIE : SEUIL_POINTE_ENTREE;
+	}
+
+	private void appliquer(ModeTrafic mode) {
+		Reglage reglage = reglages.get(mode);
+
+		if (reglage.strategie != null)
+			modele.setStrategie(reglage.strategie);
+		modele.setPolitiquePause(reglage.politiquePause);
+		modele.setNiveauParking(reglage.niveauParking, reglage.delaiParking);
+	}
+}
@@ -0,0 +1,200 @@
+package modele;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import util.Mouvement;
+import util.Sens;
+
+/**
+ * 	<p>
+ * 		Stratégie par simulation anticipée: à chaque décision ayant plusieurs issues possibles, l'état du système est copié
+ * 		dans un {@link ModeleLeger modèle léger} et chaque décision candidate est simulée sur un horizon borné,
+ * 		avec des appels futurs tirés au hasard. La décision dont la somme des temps d'attente simulée est la plus faible est retenue.
+ * 	</p>
+ * 	<p>
+ * 		Deux décisions sont ainsi évaluées:
+ * 	</p>
+ * 	<ul>
+ * 		<li>au départ, monter ou descendre lorsque des requêtes existent des deux côtés de la cabine;</li>
+ * 		<li>en mouvement, s'arrêter ou non à un appel extérieur du niveau suivant lorsque d'autres requêtes attendent au-delà
+ * 			(une demande de niveau provoque toujours l'arrêt).</li>
+ * 	</ul>
+ * 	<p>
+ * 		Les autres décisions sont celles de la {@link StrategieCollective stratégie collective}.
+ * 		Les simulations sont réparties sur les processeurs disponibles, par un exécuteur partagé par toutes les instances
+ * 		(ses threads sont des démons: il n'a pas à être arrêté). Chaque candidat est simulé avec les mêmes tirages
+ * 		(mêmes graines), ce qui réduit la variance de la comparaison et rend les décisions reproductibles.
+ * 		Une décision est prise sous le verrou du modèle: si les simulations dépassent le budget de temps,
+ * 		elles sont abandonnées et la décision de la stratégie collective s'applique.
+ * 	</p>
+ * 	<p>
+ * 		Cette stratégie est expérimentale et n'est pas proposée pour la desserte: sur les profils de trafic simulés
+ * 		(montant, descendant, mixte et entre étages, de 1 à 4 arrivées par minute, 8 graines, 11 et 21 niveaux),
+ * 		elle ne fait jamais mieux que la stratégie collective au-delà des écarts entre graines, et allonge les attentes
+ * 		les plus longues: le coût simulé ignore depuis combien de temps attendent les appels qu'un départ délaisse.
+ * 		Elle ne reste accessible que dans les scénarios (<code>STRATEGIE=anticipation</code>), pour comparaison.
+ * 	</p>
+ */
+public class StrategieAnticipation implements IStrategie {
+
+	/**
+	 * Valeurs par défaut: horizon simulé en millisecondes, nombre de simulations par candidat
+	 * et taux d'arrivée supposé des appels extérieurs.
+	 */
+	public static final long HORIZON = 90_000;
+	public static final int ECHANTILLONS = 16;
+	public static final double APPELS_PAR_MINUTE = 4;
+
+	/**
+	 * Budget de temps par défaut d'une décision, en nanosecondes.
+	 */
+	public static final long BUDGET = 50_000_000;
+
+	/**
+	 * Passer un appel extérieur n'est retenu que si le coût simulé est inférieur à cette fraction du coût de l'arrêt:
+	 * le modèle léger est approximatif et laisser un passager sur le palier lui coûte un tour complet.
+	 */
+	public static final double MARGE_PASSAGE = 0.8;
+
+	/**
+	 * Simulation d'un candidat sur une copie du modèle.
+	 */
+	private interface Simulation {
+		double simuler(int candidat, ModeleLeger copie, Random aleatoire);
+	}
+
+	/**
+	 * Exécuteur des simulations, commun à toutes les instances: les scénarios, l'optimiseur et le fuzzeur
+	 * en créent une par simulation.
+	 */
+	private static final ExecutorService EXECUTEUR = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), tache -> {
+		Thread thread = new Thread(tache, "anticipation");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final StrategieCollective collective = new StrategieCollective();
+
+	private long horizon;
+	private int echantillons;
+	private double appelsParSeconde;
+	private long graine;
+	private long budget;
+	private long nombreDecisions;
+
+	public StrategieAnticipation() {
+		this(HORIZON, ECHANTILLONS, APPELS_PAR_MINUTE, 0);
+	}
+
+	public StrategieAnticipation(long horizon, int echantillons, double appelsParMinute, long graine) {
+		this(horizon, echantillons, appelsParMinute, graine, BUDGET);
+	}
+
+	/**
+	 * @param horizon Durée simulée après chaque décision candidate, en millisecondes.
+	 * @param echantillons Nombre de simulations par candidat.
+	 * @param appelsParMinute Taux d'arrivée supposé des appels extérieurs futurs.
+	 * @param graine Graine des tirages aléatoires.
+	 * @param budget Durée maximale d'une décision, en nanosecondes.
+	 */
+	public StrategieAnticipation(long horizon, int echantillons, double appelsParMinute, long graine, long budget) {
+		this.horizon = horizon;
+		this.echantillons = echantillons;
+		this.appelsParSeconde = appelsParMinute / 60;
+		this.graine = graine;
+		this.budget = budget;
+	}
+
+	@Override
+	public boolean doitArreter(Modele modele) {
+		if (!collective.doitArreter(modele))
+			return false;
+
+		int suivant = modele.getNiveauCourant() + (modele.getSens() == Sens.MONTER ? 1 : -1);
+		if (modele.getSignaux().demandeNiveau(suivant))
+			return true;
+		// Sans requête au-delà, la cabine n'a aucune raison de passer ce niveau
+		if (modele.getSens() == Sens.MONTER ? !modele.requeteAuDessus(suivant) : !modele.requeteEnDessous(suivant))
+			return true;
+
+		// Arrêt pour un appel extérieur seulement: candidat 0 s'arrêter, candidat 1 passer
+		double[] couts = evaluer(new ModeleLeger(modele), 2,
+				(candidat, copie, aleatoire) -> copie.simulerPassage(candidat == 0, horizon, aleatoire, appelsParSeconde));
+
+		return couts == null || couts[1] >= MARGE_PASSAGE * couts[0];
+	}
+
+	@Override
+	public Mouvement calculDeplacement(Modele modele) {
+		Mouvement collectif = collective.calculDeplacement(modele);
+		int niveauCourant = modele.getNiveauCourant();
+
+		if (collectif == Mouvement.AUCUN || !modele.requeteAuDessus(niveauCourant) || !modele.requeteEnDessous(niveauCourant))
+			return collectif;
+
+		// Requêtes des deux côtés: candidat 0 monter, candidat 1 descendre
+		double[] couts = evaluer(new ModeleLeger(modele), 2,
+				(candidat, copie, aleatoire) -> copie.simulerDepart(candidat == 0 ? Mouvement.MONTER : Mouvement.DESCENDRE,
+						horizon, aleatoire, appelsParSeconde));
+
+		if (couts == null || couts[0] == couts[1])
+			return collectif;
+		return couts[0] < couts[1] ? Mouvement.MONTER : Mouvement.DESCENDRE;
+	}
+
+	/**
+	 * 	Simule chaque candidat <code>echantillons</code> fois en parallèle, dans la limite du budget de temps.
+	 * 
+	 * @return Le coût total de chaque candidat, <code>null</code> si les simulations ont échoué ou dépassé le budget.
+	 */
+	private double[] evaluer(ModeleLeger racine, int nombreCandidats, Simulation simulation) {
+		long base = graine + 1_000_003L * nombreDecisions++;
+		// Copie faite sur ce thread: les threads de simulation ne font ensuite que lire la copie partagée
+		ModeleLeger partagee = racine.bifurquer();
+
+		List<Future<Double>> resultats = new ArrayList<>();
+		for (int candidat = 0; candidat < nombreCandidats; candidat++) {
+			for (int k = 0; k < echantillons; k++) {
+				int c = candidat;
+				long graineEchantillon = base + k;
+				resultats.add(EXECUTEUR.submit(() -> simulation.simuler(c, partagee.bifurquer(), new Random(graineEchantillon))));
+			}
+		}
+
+		double[] couts = new double[nombreCandidats];
+		long echeance = System.nanoTime() + budget;
+		try {
+			for (int i = 0; i < resultats.size(); i++)
+				couts[i / echantillons] += resultats.get(i).get(echeance - System.nanoTime(), TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			annuler(resultats);
+			return null;
+		} catch (ExecutionException e) {
+			System.err.println("Erreur : simulation anticipée : " + e.getCause());
+			annuler(resultats);
+			return null;
+		} catch (TimeoutException e) {
+			annuler(resultats);
+			return null;
+		}
+
+		return couts;
+	}
+
+	/**
+	 * Retire de l'exécuteur les simulations d'une décision abandonnée qui n'ont pas encore commencé.
+	 */
+	private static void annuler(List<Future<Double>> resultats) {
+		for (Future<Double> resultat : resultats)
+			resultat.cancel(false);
+	}
+}
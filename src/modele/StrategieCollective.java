@@ -0,0 +1,65 @@
+package modele;
+
+import util.Mouvement;
+import util.Sens;
+import util.Signaux;
+
+/**
+ * 	<p>
+ * 		Stratégie collective sélective: l'ascenseur favorise les requêtes utilisateurs situées dans son sens de progression
+ * 		et ne change de sens qu'une fois toutes ces requêtes satisfaites.
+ * 	</p>
+ * 	<p>
+ * 		Il s'arrête aux demandes de niveau, aux appels extérieurs dans son sens de progression et,
+ * 		au bout de sa course, à l'appel extérieur dans le sens opposé le plus éloigné.
+ * 	</p>
+ */
+public class StrategieCollective implements IStrategie {
+
+	@Override
+	public boolean doitArreter(Modele modele) {
+		Signaux signaux = modele.getSignaux();
+		int niveauCourant = modele.getNiveauCourant();
+
+		if (modele.getSens() == Sens.MONTER) {
+			if (signaux.demandeNiveau(niveauCourant + 1)
+			|| (signaux.descendreNiveau(niveauCourant + 1) && !modele.requeteAuDessus(niveauCourant + 1))) {
+				return true;
+			}
+			// Pas de bouton pour monter au dernier niveau desservi, ni aucun signal aux niveaux non desservis
+			if (signaux.monterNiveau(niveauCourant + 1))
+				return true;
+		}
+		else {
+			if (signaux.demandeNiveau(niveauCourant - 1)
+			|| (signaux.monterNiveau(niveauCourant - 1) && !modele.requeteEnDessous(niveauCourant - 1))) {
+				return true;
+			}
+			// Pas de bouton pour descendre au premier niveau desservi, ni aucun signal aux niveaux non desservis
+			if (signaux.descendreNiveau(niveauCourant - 1))
+				return true;
+		}
+
+		return false;
+	}
+
+	@Override
+	public Mouvement calculDeplacement(Modele modele) {
+		int niveauCourant = modele.getNiveauCourant();
+
+		if (modele.getSens() == Sens.MONTER) {
+			if (modele.requeteAuDessus(niveauCourant))
+				return Mouvement.MONTER;
+			else if (modele.requeteEnDessous(niveauCourant))
+				return Mouvement.DESCENDRE;
+		}
+		else {
+			if (modele.requeteEnDessous(niveauCourant))
+				return Mouvement.DESCENDRE;
+			else if (modele.requeteAuDessus(niveauCourant))
+				return Mouvement.MONTER;
+		}
+		
+		return Mouvement.AUCUN;
+	}
+}
@@ -0,0 +1,127 @@
+package reseau;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+
+import modele.Instantane;
+import util.SignauxCompacts;
+
+/**
+ * 	<p>
+ * 		Écran de supervision distant: reçoit le flux d'état d'un {@link PublicateurEtat} et reconstitue l'état courant.
+ * 	</p>
+ * 	<pre>
+ * 		java reseau.ClientEtat PORT
+ * 	</pre>
+ */
+public class ClientEtat implements Closeable {
+
+	private Socket socket;
+	private DataInputStream entree;
+	private OutputStream acquittements;
+	private int[] niveauxDesservis;
+
+	/* Lus par l'affichage depuis un autre thread que celui de lecture */
+	private volatile Instantane instantane;
+	private volatile long version = -1;
+	private volatile long nombreTrames, nombreVersionsFusionnees;
+
+	/**
+	 * Se connecte au publicateur écoutant sur <code>port</code> et lit l'entête du flux.
+	 */
+	public ClientEtat(int port) throws IOException {
+		socket = new Socket(InetAddress.getLoopbackAddress(), port);
+		entree = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+		acquittements = socket.getOutputStream();
+		niveauxDesservis = ProtocoleEtat.lireEntete(entree);
+	}
+
+	public int[] getNiveauxDesservis() {
+		return niveauxDesservis;
+	}
+
+	/**
+	 * @return Le dernier état reçu, <code>null</code> avant le premier instantané.
+	 */
+	public Instantane getInstantane() {
+		return instantane;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public long getNombreTrames() {
+		return nombreTrames;
+	}
+
+	/**
+	 * @return Le nombre d'états que le publicateur n'a pas envoyés parce qu'un état plus récent les a remplacés.
+	 */
+	public long getNombreVersionsFusionnees() {
+		return nombreVersionsFusionnees;
+	}
+
+	/**
+	 * Attend la prochaine trame, l'applique puis l'acquitte.
+	 * 
+	 * @return Le nouvel état.
+	 */
+	public Instantane lire() throws IOException {
+		long[] versionLue = new long[1];
+		instantane = ProtocoleEtat.lireTrame(entree, instantane, niveauxDesservis.length, versionLue);
+
+		if (version >= 0 && versionLue[0] > version + 1)
+			nombreVersionsFusionnees += versionLue[0] - version - 1;
+		version = versionLue[0];
+		nombreTrames++;
+
+		acquittements.write(1);
+		acquittements.flush();
+
+		return instantane;
+	}
+
+	@Override
+	public void close() throws IOException {
+		socket.close();
+	}
+
+	/**
+	 * Affiche l'état reçu et les signaux enregistrés à chaque trame.
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.err.println("Usage : java reseau.ClientEtat PORT");
+			System.exit(2);
+		}
+
+		try (ClientEtat client = new ClientEtat(Integer.parseInt(args[0]))) {
+			while (true) {
+				Instantane etat = client.lire();
+				StringBuilder appels = new StringBuilder();
+				int[] niveaux = client.getNiveauxDesservis();
+
+				for (int rang = 0; rang < niveaux.length; rang++) {
+					SignauxCompacts signaux = etat.getSignaux();
+					if (signaux.get(SignauxCompacts.DEMANDE, rang))
+						appels.append(" d").append(niveaux[rang]);
+					if (signaux.get(SignauxCompacts.MONTER, rang))
+						appels.append(" m").append(niveaux[rang]);
+					if (signaux.get(SignauxCompacts.DESCENDRE, rang))
+						appels.append(" b").append(niveaux[rang]);
+				}
+
+				System.out.println("v" + client.getVersion() + " " + etat + " signaux:" + appels);
+			}
+		}
+		catch (IOException e) {
+			System.err.println("Connexion au publicateur fermée : " + e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,460 @@
+package reseau;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimerTask;
+
+import modele.Modele;
+import reseau.ProtocoleEnchere.Message;
+import util.Etat;
+import util.Horloge;
+import util.Sens;
+import util.Zonage;
+
+/**
+ * 	<p>
+ * 		Contrôleur d'une cabine dans une batterie sans répartiteur central: chaque cabine a son propre {@link Modele}
+ * 		et son nœud, dans son propre processus, et les nœuds se mettent d'accord entre eux sur la cabine qui sert
+ * 		chaque appel de palier, par datagrammes sur le réseau local ({@link ProtocoleEnchere}).
+ * 	</p>
+ * 	<p>
+ * 		Un appel de palier peut être reçu par n'importe quel nœud, qui le diffuse. Chaque nœud ouvre alors une enchère:
+ * 		il diffuse son offre, le temps d'arrivée estimé de sa cabine à l'appel ({@link Modele#getEta(int, Sens) getEta}),
+ * 		puis après {@link #FENETRE_ENCHERE FENETRE_ENCHERE} millisecondes désigne le gagnant parmi les offres reçues:
+ * 		l'offre la plus courte, puis le plus petit identifiant. Tous les nœuds ayant reçu les mêmes offres désignent
+ * 		le même gagnant, qui seul enregistre l'appel dans sa cabine et diffuse son attribution.
+ * 	</p>
+ * 	<p>
+ * 		Si des messages perdus font que deux nœuds réclament le même appel, chacun reçoit l'attribution de l'autre:
+ * 		celui dont l'offre est moins bonne, selon le même ordre, retire l'appel de sa cabine. Un appel n'est pas réaffecté
+ * 		ensuite, sauf si sa cabine passe en arrêt d'urgence ou si son nœud se tait pendant {@link #DELAI_PANNE DELAI_PANNE}
+ * 		millisecondes (chaque nœud diffuse un battement toutes les {@link #PERIODE_BATTEMENT PERIODE_BATTEMENT} millisecondes):
+ * 		l'appel est alors remis aux enchères entre les nœuds restants. Aucun nœud n'est indispensable, et une cabine
+ * 		de plus n'est qu'un nœud de plus.
+ * 	</p>
+ * 	<p>
+ * 		Les demandes de niveau restent envoyées directement au modèle de la cabine.
+ * 	</p>
+ *
+ * @see modele.Batterie Batterie, répartiteur central
+ */
+public class NoeudCabine implements PropertyChangeListener {
+
+	/**
+	 * Durée de collecte des offres d'une enchère, en millisecondes.
+	 */
+	public static final long FENETRE_ENCHERE = 50;
+
+	/**
+	 * Période des battements, en millisecondes.
+	 */
+	public static final long PERIODE_BATTEMENT = 200;
+
+	/**
+	 * Durée de silence au-delà de laquelle un nœud est considéré en panne, en millisecondes.
+	 * C'est aussi le délai avant de remettre aux enchères un appel qu'aucune cabine ne pouvait prendre.
+	 */
+	public static final long DELAI_PANNE = 1000;
+
+	/**
+	 * Précision des offres, en millisecondes: deux cabines aussi proches de l'appel sont à égalité,
+	 * au lieu d'être départagées par l'instant où chacune a calculé son offre.
+	 */
+	public static final long PRECISION_OFFRE = 250;
+
+	private final Modele modele;
+	private final Zonage zonage;
+	private final Horloge horloge;
+	private final DatagramSocket socket;
+	private final int identifiant;
+	private final int[] pairs;
+
+	/* Protégés par le moniteur de cet objet */
+	private final Map<Integer, Enchere> encheres = new HashMap<>();
+	private final Map<Integer, Long> derniersMessages = new HashMap<>();
+
+	private TimerTask battement;
+	private volatile long nombreAttributions, nombreConflits;
+
+	/**
+	 * Enchère d'un appel, puis son attribution.
+	 */
+	private static class Enchere {
+		private final Map<Integer, Long> offres = new HashMap<>();
+		private final long ouverture;
+		private int proprietaire = -1;
+		private long offreProprietaire;
+
+		private Enchere(long ouverture) {
+			this.ouverture = ouverture;
+		}
+	}
+
+	/**
+	 * @param port Port local du nœud, qui sert aussi d'identifiant, 0 pour un port libre quelconque.
+	 * @param pairs Ports des autres nœuds de la batterie.
+	 */
+	public NoeudCabine(Modele modele, Horloge horloge, int port, int[] pairs) throws SocketException {
+		this.modele = modele;
+		this.horloge = horloge;
+		zonage = modele.getZonage();
+		socket = new DatagramSocket(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+		identifiant = socket.getLocalPort();
+		this.pairs = Arrays.stream(pairs).filter(pair -> pair != identifiant).toArray();
+	}
+
+	public int getIdentifiant() {
+		return identifiant;
+	}
+
+	/**
+	 * @return Le nombre d'enchères remportées par ce nœud.
+	 */
+	public long getNombreAttributions() {
+		return nombreAttributions;
+	}
+
+	/**
+	 * @return Le nombre d'appels cédés à un autre nœud qui les réclamait aussi.
+	 */
+	public long getNombreConflits() {
+		return nombreConflits;
+	}
+
+	/**
+	 * @return L'identifiant du nœud dont la cabine sert l'appel, -1 si l'appel n'est pas attribué.
+	 */
+	public synchronized int getProprietaire(int niveau, Sens sens) {
+		int rang = zonage.rang(niveau);
+		Enchere enchere = rang < 0 ? null : encheres.get(cle(rang, sens == Sens.MONTER));
+		return enchere == null ? -1 : enchere.proprietaire;
+	}
+
+	/**
+	 * Commence à recevoir les messages des autres nœuds et à suivre la cabine.
+	 */
+	public void demarrer() {
+		modele.ajouterEcouteur(this);
+
+		Thread reception = new Thread(this::recevoir, "noeud-" + identifiant);
+		reception.setDaemon(true);
+		reception.start();
+
+		battement = horloge.planifierPeriodique(this::surveiller, PERIODE_BATTEMENT);
+	}
+
+	/**
+	 * Quitte la batterie: les autres nœuds remettront aux enchères les appels de cette cabine.
+	 */
+	public void arreter() {
+		modele.supprimerEcouteur(this);
+		if (battement != null)
+			battement.cancel();
+		socket.close();
+	}
+
+	/**
+	 * Appui sur le bouton pour monter du palier <code>niveau</code>.
+	 */
+	public void monterNiveau(int niveau) {
+		appel(niveau, true);
+	}
+
+	/**
+	 * Appui sur le bouton pour descendre du palier <code>niveau</code>.
+	 */
+	public void descendreNiveau(int niveau) {
+		appel(niveau, false);
+	}
+
+	private void appel(int niveau, boolean montee) {
+		int rang = zonage.rang(niveau);
+
+		if (rang < 0 || (montee && rang == zonage.getNombreNiveauxDesservis() - 1) || (!montee && rang == 0)) {
+			System.err.println("Erreur : Il n'y a pas de bouton pour " + (montee ? "monter" : "descendre") + " au niveau " + niveau + ".");
+			return;
+		}
+
+		int cle = cle(rang, montee);
+		diffuser(ProtocoleEnchere.APPEL, cle, 0);
+		ouvrir(cle);
+	}
+
+	/*														*/
+	/* enchères													*/
+	/* 														*/
+
+	/**
+	 * Ouvre l'enchère d'un appel, si elle n'est pas déjà ouverte ou l'appel attribué, et diffuse l'offre de ce nœud.
+	 */
+	private synchronized void ouvrir(int cle) {
+		if (encheres.containsKey(cle))
+			return;
+
+		Enchere enchere = new Enchere(horloge.getTempsCourant());
+		encheres.put(cle, enchere);
+
+		long offre = offre(cle);
+		enchere.offres.put(identifiant, offre);
+		diffuser(ProtocoleEnchere.OFFRE, cle, offre);
+		horloge.planifier(() -> decider(cle, enchere), FENETRE_ENCHERE);
+	}
+
+	/**
+	 * @return Le temps d'arrivée estimé de la cabine à l'appel, <code>Long.MAX_VALUE</code> si elle ne peut pas venir.
+	 */
+	private long offre(int cle) {
+		if (modele.getEtatCourant() == Etat.ARRET_URGENCE)
+			return Long.MAX_VALUE;
+
+		long eta = modele.getEta(zonage.getNiveau(cle / 2), cle % 2 == 0 ? Sens.MONTER : Sens.DESCENDRE);
+		return eta == Long.MAX_VALUE ? eta : (eta + PRECISION_OFFRE / 2) / PRECISION_OFFRE * PRECISION_OFFRE;
+	}
+
+	/**
+	 * Désigne le gagnant de l'enchère à la fin de la collecte des offres. Le gagnant enregistre l'appel.
+	 */
+	private void decider(int cle, Enchere enchere) {
+		synchronized (this) {
+			// Enchère rouverte ou appel déjà attribué entre-temps
+			if (encheres.get(cle) != enchere || enchere.proprietaire >= 0)
+				return;
+
+			int gagnant = -1;
+			long meilleureOffre = Long.MAX_VALUE;
+			for (Map.Entry<Integer, Long> offre : enchere.offres.entrySet())
+				if (offre.getValue() != Long.MAX_VALUE && prefere(offre.getValue(), offre.getKey(), meilleureOffre, gagnant)) {
+					gagnant = offre.getKey();
+					meilleureOffre = offre.getValue();
+				}
+
+			// Aucune cabine ne peut venir: l'enchère sera rouverte par la surveillance
+			if (gagnant < 0)
+				return;
+
+			enchere.proprietaire = gagnant;
+			enchere.offreProprietaire = meilleureOffre;
+			if (gagnant != identifiant)
+				return;
+
+			nombreAttributions++;
+			diffuser(ProtocoleEnchere.ATTRIBUTION, cle, meilleureOffre);
+		}
+
+		// Hors du moniteur: le modèle notifie ce nœud verrou tenu
+		enregistrer(cle);
+	}
+
+	/**
+	 * @return <code>true</code> si l'offre <code>offre</code> du nœud <code>noeud</code> est meilleure
+	 * que l'offre <code>autreOffre</code> du nœud <code>autreNoeud</code> (-1 si aucune).
+	 */
+	private static boolean prefere(long offre, int noeud, long autreOffre, int autreNoeud) {
+		return autreNoeud < 0 || offre < autreOffre || (offre == autreOffre && noeud < autreNoeud);
+	}
+
+	/**
+	 * Reçoit l'attribution d'un appel à un autre nœud. Si ce nœud réclame aussi l'appel, la moins bonne offre cède.
+	 */
+	private void attribution(int noeud, int cle, long offre) {
+		boolean ceder = false;
+
+		synchronized (this) {
+			Enchere enchere = encheres.computeIfAbsent(cle, k -> new Enchere(horloge.getTempsCourant()));
+
+			if (enchere.proprietaire == identifiant) {
+				if (prefere(offre, noeud, enchere.offreProprietaire, identifiant)) {
+					ceder = true;
+					nombreConflits++;
+				}
+				else {
+					// L'autre nœud cédera en recevant cette attribution
+					diffuser(ProtocoleEnchere.ATTRIBUTION, cle, enchere.offreProprietaire);
+					return;
+				}
+			}
+
+			enchere.proprietaire = noeud;
+			enchere.offreProprietaire = offre;
+		}
+
+		if (ceder)
+			retirer(cle);
+	}
+
+	/**
+	 * Diffuse un battement, puis remet aux enchères les appels des nœuds silencieux et ceux restés sans cabine.
+	 */
+	private void surveiller() {
+		diffuser(ProtocoleEnchere.BATTEMENT, -1, 0);
+
+		List<Integer> aRouvrir = new ArrayList<>();
+		synchronized (this) {
+			long maintenant = horloge.getTempsCourant();
+
+			for (Map.Entry<Integer, Enchere> entree : encheres.entrySet()) {
+				Enchere enchere = entree.getValue();
+				if (enchere.proprietaire == identifiant)
+					continue;
+
+				long depuis = enchere.proprietaire < 0 ? enchere.ouverture
+						: derniersMessages.getOrDefault(enchere.proprietaire, enchere.ouverture);
+				if (maintenant - depuis > DELAI_PANNE)
+					aRouvrir.add(entree.getKey());
+			}
+
+			for (int cle : aRouvrir) {
+				encheres.remove(cle);
+				diffuser(ProtocoleEnchere.APPEL, cle, 0);
+				ouvrir(cle);
+			}
+		}
+	}
+
+	/*														*/
+	/* réseau													*/
+	/* 														*/
+
+	private void recevoir() {
+		byte[] tampon = new byte[ProtocoleEnchere.TAILLE];
+		DatagramPacket paquet = new DatagramPacket(tampon, tampon.length);
+
+		while (!socket.isClosed()) {
+			try {
+				socket.receive(paquet);
+				traiter(ProtocoleEnchere.lire(paquet.getData(), paquet.getLength()));
+			} catch (IOException e) {
+				if (!socket.isClosed())
+					System.err.println("Erreur : message d'un nœud : " + e.getMessage());
+			}
+		}
+	}
+
+	private void traiter(Message message) {
+		boolean retirer = false;
+
+		synchronized (this) {
+			long maintenant = horloge.getTempsCourant();
+			derniersMessages.put(message.noeud, maintenant);
+			Enchere enchere = message.cle >= 0 ? encheres.get(message.cle) : null;
+
+			switch (message.type) {
+				case ProtocoleEnchere.APPEL:
+				case ProtocoleEnchere.OFFRE:
+					// Un appel rendu par sa cabine, ou resté sans cabine, est remis aux enchères
+					if (enchere != null && message.type == ProtocoleEnchere.APPEL && (enchere.proprietaire == message.noeud
+							|| (enchere.proprietaire < 0 && maintenant - enchere.ouverture > FENETRE_ENCHERE))) {
+						encheres.remove(message.cle);
+						enchere = null;
+					}
+					if (enchere == null) {
+						ouvrir(message.cle);
+						enchere = encheres.get(message.cle);
+					}
+					if (message.type == ProtocoleEnchere.OFFRE && enchere.proprietaire < 0)
+						enchere.offres.put(message.noeud, message.eta);
+					// Un nœud qui ne connaissait pas l'attribution l'apprend
+					else if (enchere.proprietaire == identifiant)
+						diffuser(ProtocoleEnchere.ATTRIBUTION, message.cle, enchere.offreProprietaire);
+					break;
+				case ProtocoleEnchere.SERVI:
+					if (enchere != null) {
+						encheres.remove(message.cle);
+						// Les passagers sont partis avec l'autre cabine
+						retirer = enchere.proprietaire == identifiant;
+					}
+					break;
+				default:
+					break;
+			}
+		}
+
+		if (message.type == ProtocoleEnchere.ATTRIBUTION)
+			attribution(message.noeud, message.cle, message.eta);
+		else if (retirer)
+			retirer(message.cle);
+	}
+
+	private void diffuser(byte type, int cle, long offre) {
+		byte[] donnees = ProtocoleEnchere.ecrire(type, identifiant, cle, offre);
+
+		for (int pair : pairs) {
+			try {
+				socket.send(new DatagramPacket(donnees, donnees.length, InetAddress.getLoopbackAddress(), pair));
+			} catch (IOException e) {
+				if (!socket.isClosed())
+					System.err.println("Erreur : envoi au nœud " + pair + " : " + e.getMessage());
+			}
+		}
+	}
+
+	/*														*/
+	/* cabine													*/
+	/* 														*/
+
+	private void enregistrer(int cle) {
+		int niveau = zonage.getNiveau(cle / 2);
+
+		if (cle % 2 == 0)
+			modele.monterNiveau(niveau);
+		else
+			modele.descendreNiveau(niveau);
+	}
+
+	private void retirer(int cle) {
+		modele.retirerAppel(zonage.getNiveau(cle / 2), cle % 2 == 0 ? Sens.MONTER : Sens.DESCENDRE);
+	}
+
+	/**
+	 * 	Suit la cabine: un appel servi est annoncé aux autres nœuds, et les appels d'une cabine en arrêt d'urgence
+	 * 	sont remis aux enchères.
+	 */
+	@Override
+	public void propertyChange(PropertyChangeEvent event) {
+		String nom = event.getPropertyName();
+		boolean montee = nom.startsWith("monterNiveau");
+
+		if ((montee || nom.startsWith("descendreNiveau")) && Boolean.FALSE.equals(event.getNewValue())) {
+			int niveau = Integer.parseInt(nom.substring(montee ? "monterNiveau".length() : "descendreNiveau".length()));
+			int cle = cle(zonage.rang(niveau), montee);
+
+			synchronized (this) {
+				Enchere enchere = encheres.get(cle);
+				// Un appel cédé à un autre nœud a déjà changé de propriétaire
+				if (enchere != null && enchere.proprietaire == identifiant) {
+					encheres.remove(cle);
+					diffuser(ProtocoleEnchere.SERVI, cle, 0);
+				}
+			}
+		}
+		else if (nom.equals("etatCourant") && event.getNewValue() == Etat.ARRET_URGENCE) {
+			synchronized (this) {
+				List<Integer> aRouvrir = new ArrayList<>();
+				for (Map.Entry<Integer, Enchere> entree : encheres.entrySet())
+					if (entree.getValue().proprietaire == identifiant)
+						aRouvrir.add(entree.getKey());
+
+				for (int cle : aRouvrir) {
+					encheres.remove(cle);
+					diffuser(ProtocoleEnchere.APPEL, cle, 0);
+					ouvrir(cle);
+				}
+			}
+		}
+	}
+
+	private static int cle(int rang, boolean montee) {
+		return 2 * rang + (montee ? 0 : 1);
+	}
+}
@@ -0,0 +1,216 @@
+package reseau;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+
+import modele.Instantane;
+import modele.Modele;
+import util.PolitiqueDebordement;
+
+/**
+ * 	<p>
+ * 		Réplique l'état d'un système de contrôle-commande vers un système de secours, dans un autre processus
+ * 		connecté sur un port local ({@link SecoursReplication}).
+ * 	</p>
+ * 	<p>
+ * 		La réplication est asynchrone: le modèle ne fait que signaler un changement à un écouteur asynchrone
+ * 		d'une seule notification, et un thread d'envoi capture l'état le plus récent. Les changements survenus pendant
+ * 		un envoi sont donc regroupés dans la trame suivante, et le traitement des signaux n'attend jamais le réseau
+ * 		ni le secours. En l'absence de changement, un battement est envoyé toutes les
+ * 		{@link #PERIODE_BATTEMENT PERIODE_BATTEMENT} millisecondes.
+ * 	</p>
+ * 	<p>
+ * 		Un seul secours est connecté à la fois: une nouvelle connexion remplace la précédente
+ * 		et reçoit d'abord un instantané complet.
+ * 	</p>
+ *
+ * @see ProtocoleReplication
+ */
+public class PrimaireReplication implements PropertyChangeListener {
+
+	/**
+	 * Durée maximale sans trame envoyée au secours, en millisecondes.
+	 */
+	public static final long PERIODE_BATTEMENT = 100;
+
+	private Modele modele;
+	private ServerSocket serveur;
+
+	/* Protégés par le moniteur de cet objet */
+	private Socket socket;
+	private DataOutputStream sortie;
+	private boolean changement;
+
+	private Instantane envoye;
+	private long[] reglagesEnvoyes;
+	private long version;
+	private volatile long nombreTrames;
+
+	/**
+	 * @param modele Système dont l'état est répliqué.
+	 * @param port Port local d'écoute, 0 pour un port libre quelconque.
+	 */
+	public PrimaireReplication(Modele modele, int port) throws IOException {
+		this.modele = modele;
+		serveur = new ServerSocket(port, 1, InetAddress.getLoopbackAddress());
+	}
+
+	public int getPort() {
+		return serveur.getLocalPort();
+	}
+
+	public synchronized boolean estConnecte() {
+		return socket != null;
+	}
+
+	/**
+	 * @return Le nombre de trames d'état envoyées, battements exclus.
+	 */
+	public long getNombreTrames() {
+		return nombreTrames;
+	}
+
+	/**
+	 * Commence à accepter un secours et à lui répliquer les changements du modèle.
+	 */
+	public void demarrer() {
+		modele.ajouterEcouteurAsynchrone(this, 1, PolitiqueDebordement.SUPPRIMER_PLUS_ANCIEN);
+
+		Thread accueil = new Thread(this::accueillir, "replication-accueil");
+		accueil.setDaemon(true);
+		accueil.start();
+
+		Thread envoi = new Thread(this::envoyer, "replication-envoi");
+		envoi.setDaemon(true);
+		envoi.start();
+	}
+
+	/**
+	 * Ferme la connexion au secours et cesse de répliquer: le secours reprend alors le contrôle.
+	 */
+	public void arreter() {
+		modele.supprimerEcouteur(this);
+
+		try {
+			serveur.close();
+		} catch (IOException e) {
+			System.err.println("Erreur : fermeture de la réplication : " + e.getMessage());
+		}
+
+		synchronized (this) {
+			deconnecter();
+			notify();
+		}
+	}
+
+	@Override
+	public synchronized void propertyChange(PropertyChangeEvent event) {
+		changement = true;
+		notify();
+	}
+
+	private void accueillir() {
+		while (!serveur.isClosed()) {
+			try {
+				Socket connexion = serveur.accept();
+				connexion.setTcpNoDelay(true);
+				DataOutputStream flux = new DataOutputStream(new BufferedOutputStream(connexion.getOutputStream()));
+				ProtocoleEtat.ecrireEntete(flux, modele.getNiveauxDesservis());
+
+				synchronized (this) {
+					deconnecter();
+					socket = connexion;
+					sortie = flux;
+					envoye = null;
+					reglagesEnvoyes = null;
+					changement = true;
+					notify();
+				}
+			} catch (IOException e) {
+				if (!serveur.isClosed())
+					System.err.println("Erreur : connexion du secours : " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Envoie l'état dès qu'il change, ou un battement à chaque période sans changement.
+	 */
+	private void envoyer() {
+		long dernierEnvoi = 0;
+		boolean etat;
+
+		try {
+			while (!serveur.isClosed()) {
+				synchronized (this) {
+					long attente = PERIODE_BATTEMENT - (System.currentTimeMillis() - dernierEnvoi);
+					while (!changement && attente > 0 && !serveur.isClosed()) {
+						wait(attente);
+						attente = PERIODE_BATTEMENT - (System.currentTimeMillis() - dernierEnvoi);
+					}
+					etat = changement;
+					changement = false;
+					if (sortie == null) {
+						dernierEnvoi = System.currentTimeMillis();
+						continue;
+					}
+				}
+
+				// Capture hors du moniteur: le verrou du modèle n'est jamais attendu en le tenant
+				Instantane instantane = modele.capturerInstantane();
+				int tempsRestantPause = (int) modele.getTempsRestantPause();
+				long[] reglages = ProtocoleReplication.reglages(modele);
+
+				synchronized (this) {
+					if (sortie == null)
+						continue;
+
+					try {
+						// Les réglages ne notifient pas: leur changement est vu au plus tard au battement suivant
+						if (!Arrays.equals(reglages, reglagesEnvoyes)) {
+							ProtocoleReplication.ecrireConfiguration(sortie, modele.getZonage(), reglages);
+							reglagesEnvoyes = reglages;
+						}
+						// Un changement sans effet sur l'instantané peut avoir replanifié la fin de pause
+						if (etat || envoye == null) {
+							ProtocoleReplication.ecrireEtat(sortie, ++version, envoye, instantane, tempsRestantPause);
+							envoye = instantane;
+							nombreTrames++;
+						}
+						else
+							ProtocoleReplication.ecrireBattement(sortie);
+						sortie.flush();
+					} catch (IOException e) {
+						System.err.println("Erreur : secours déconnecté : " + e.getMessage());
+						deconnecter();
+					}
+					dernierEnvoi = System.currentTimeMillis();
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Ferme la connexion au secours, s'il y en a une. Appelée moniteur tenu.
+	 */
+	private void deconnecter() {
+		if (socket != null) {
+			try {
+				socket.close();
+			} catch (IOException e) {
+				// déjà fermée
+			}
+		}
+		socket = null;
+		sortie = null;
+	}
+}
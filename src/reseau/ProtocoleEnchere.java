@@ -0,0 +1,85 @@
+package reseau;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * 	<p>
+ * 		Format des datagrammes échangés par les {@link NoeudCabine nœuds} d'une batterie décentralisée.
+ * 		Tous les messages ont la même forme: type, nœud émetteur, clé de l'appel et heure d'arrivée estimée.
+ * 	</p>
+ * 	<ul>
+ * 		<li><b>APPEL</b>: un bouton de palier a été pressé, les nœuds ouvrent l'enchère de l'appel.</li>
+ * 		<li><b>OFFRE</b>: temps d'arrivée estimé de la cabine de l'émetteur à l'appel, en millisecondes.</li>
+ * 		<li><b>ATTRIBUTION</b>: l'émetteur a remporté l'enchère et a enregistré l'appel, avec son offre.</li>
+ * 		<li><b>SERVI</b>: la cabine de l'émetteur a servi l'appel.</li>
+ * 		<li><b>BATTEMENT</b>: l'émetteur est en vie (clé et offre inutilisées).</li>
+ * 	</ul>
+ * 	<p>
+ * 		La clé d'un appel est <code>2 * rang</code> pour monter et <code>2 * rang + 1</code> pour descendre, comme dans {@link modele.Batterie}.
+ * 	</p>
+ */
+public class ProtocoleEnchere {
+
+	public static final byte APPEL = 1, OFFRE = 2, ATTRIBUTION = 3, SERVI = 4, BATTEMENT = 5;
+
+	/**
+	 * Taille d'un datagramme, en octets.
+	 */
+	public static final int TAILLE = 17;
+
+	private ProtocoleEnchere() {
+	}
+
+	public static byte[] ecrire(byte type, int noeud, int cle, long eta) {
+		ByteArrayOutputStream octets = new ByteArrayOutputStream(TAILLE);
+
+		try (DataOutputStream sortie = new DataOutputStream(octets)) {
+			sortie.writeByte(type);
+			sortie.writeInt(noeud);
+			sortie.writeInt(cle);
+			sortie.writeLong(eta);
+		} catch (IOException e) {
+			// impossible en mémoire
+			throw new IllegalStateException(e);
+		}
+
+		return octets.toByteArray();
+	}
+
+	/**
+	 * Lit un datagramme.
+	 */
+	public static Message lire(byte[] donnees, int longueur) throws IOException {
+		if (longueur != TAILLE)
+			throw new IOException("Datagramme de " + longueur + " octets au lieu de " + TAILLE + ".");
+
+		try (DataInputStream entree = new DataInputStream(new ByteArrayInputStream(donnees, 0, longueur))) {
+			byte type = entree.readByte();
+			if (type < APPEL || type > BATTEMENT)
+				throw new IOException("Type de message inconnu: " + type);
+
+			return new Message(type, entree.readInt(), entree.readInt(), entree.readLong());
+		}
+	}
+
+	/**
+	 * Message reçu d'un nœud.
+	 */
+	public static class Message {
+		public final byte type;
+		public final int noeud;
+		public final int cle;
+		public final long eta;
+
+		public Message(byte type, int noeud, int cle, long eta) {
+			this.type = type;
+			this.noeud = noeud;
+			this.cle = cle;
+			this.eta = eta;
+		}
+	}
+}
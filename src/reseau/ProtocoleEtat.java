@@ -0,0 +1,208 @@
+package reseau;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import modele.Instantane;
+import util.Etat;
+import util.Sens;
+import util.SignauxCompacts;
+
+/**
+ * 	<p>
+ * 		Format binaire du flux d'état publié par {@link PublicateurEtat}. Chaque trame commence par son type:
+ * 	</p>
+ * 	<ul>
+ * 		<li><b>ENTETE</b>: nombre de niveaux desservis puis leurs numéros, envoyée une fois à la connexion.</li>
+ * 		<li><b>INSTANTANE</b>: version, niveau, état, sens, charge et les trois tableaux de signaux complets.</li>
+ * 		<li><b>DELTA</b>: version, masque des champs modifiés, leurs nouvelles valeurs, puis pour chaque tableau
+ * 			de signaux les mots de 64 bits modifiés (indice et ou exclusif avec l'ancien mot).</li>
+ * 	</ul>
+ * 	<p>
+ * 		Le client acquitte chaque trame d'instantané ou de delta par un octet quelconque, une fois la trame appliquée.
+ * 		Le publicateur n'envoie pas plus de {@link #FENETRE FENETRE} trames non acquittées à un client:
+ * 		au-delà, les états suivants sont fusionnés au lieu de s'accumuler dans les tampons du réseau.
+ * 	</p>
+ * 	<p>
+ * 		La version augmente à chaque publication: un écart entre deux versions reçues indique des états fusionnés
+ * 		par le publicateur parce que le client ne suivait pas.
+ * 	</p>
+ */
+public class ProtocoleEtat {
+
+	public static final byte ENTETE = 0, INSTANTANE = 1, DELTA = 2;
+
+	/**
+	 * Nombre maximal de trames envoyées à un client et pas encore acquittées.
+	 */
+	public static final int FENETRE = 2;
+
+	private static final int NIVEAU = 1, ETAT = 2, SENS = 4, CHARGE = 8, SIGNAUX = 16;
+
+	private static final Etat[] ETATS = Etat.values();
+	private static final Sens[] SENS_POSSIBLES = Sens.values();
+
+	private ProtocoleEtat() {
+	}
+
+	public static void ecrireEntete(DataOutputStream sortie, int[] niveauxDesservis) throws IOException {
+		sortie.writeByte(ENTETE);
+		ecrireEntier(sortie, niveauxDesservis.length);
+		for (int niveau : niveauxDesservis)
+			sortie.writeInt(niveau);
+	}
+
+	public static int[] lireEntete(DataInputStream entree) throws IOException {
+		if (entree.readByte() != ENTETE)
+			throw new IOException("Trame d'entête attendue.");
+
+		int[] niveauxDesservis = new int[(int) lireEntier(entree)];
+		for (int i = 0; i < niveauxDesservis.length; i++)
+			niveauxDesservis[i] = entree.readInt();
+		return niveauxDesservis;
+	}
+
+	public static void ecrireInstantane(DataOutputStream sortie, long version, Instantane instantane) throws IOException {
+		sortie.writeByte(INSTANTANE);
+		ecrireEntier(sortie, version);
+		sortie.writeInt(instantane.getNiveauCourant());
+		sortie.writeByte(instantane.getEtat().ordinal());
+		sortie.writeByte(instantane.getSens().ordinal());
+		sortie.writeInt(instantane.getCharge());
+
+		SignauxCompacts signaux = instantane.getSignaux();
+		for (int tableau = 0; tableau < 3; tableau++)
+			for (int i = 0; i < signaux.getNombreMots(); i++)
+				sortie.writeLong(signaux.getMot(tableau, i));
+	}
+
+	/**
+	 * Écrit les différences entre <code>precedent</code>, dernier état envoyé au client, et <code>courant</code>.
+	 */
+	public static void ecrireDelta(DataOutputStream sortie, long version, Instantane precedent, Instantane courant)
+			throws IOException {
+		SignauxCompacts anciens = precedent.getSignaux(), nouveaux = courant.getSignaux();
+		int masque = 0;
+
+		if (precedent.getNiveauCourant() != courant.getNiveauCourant())
+			masque |= NIVEAU;
+		if (precedent.getEtat() != courant.getEtat())
+			masque |= ETAT;
+		if (precedent.getSens() != courant.getSens())
+			masque |= SENS;
+		if (precedent.getCharge() != courant.getCharge())
+			masque |= CHARGE;
+		if (!anciens.equals(nouveaux))
+			masque |= SIGNAUX;
+
+		sortie.writeByte(DELTA);
+		ecrireEntier(sortie, version);
+		sortie.writeByte(masque);
+
+		if ((masque & NIVEAU) != 0)
+			sortie.writeInt(courant.getNiveauCourant());
+		if ((masque & ETAT) != 0)
+			sortie.writeByte(courant.getEtat().ordinal());
+		if ((masque & SENS) != 0)
+			sortie.writeByte(courant.getSens().ordinal());
+		if ((masque & CHARGE) != 0)
+			sortie.writeInt(courant.getCharge());
+
+		if ((masque & SIGNAUX) != 0) {
+			for (int tableau = 0; tableau < 3; tableau++) {
+				int modifies = 0;
+				for (int i = 0; i < nouveaux.getNombreMots(); i++)
+					if (anciens.getMot(tableau, i) != nouveaux.getMot(tableau, i))
+						modifies++;
+
+				ecrireEntier(sortie, modifies);
+				for (int i = 0; i < nouveaux.getNombreMots(); i++) {
+					long difference = anciens.getMot(tableau, i) ^ nouveaux.getMot(tableau, i);
+					if (difference != 0) {
+						ecrireEntier(sortie, i);
+						sortie.writeLong(difference);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * 	Lit une trame d'instantané ou de delta et l'applique à <code>courant</code>.
+	 * 
+	 * @param courant Dernier état reçu, <code>null</code> avant le premier instantané.
+	 * @param nombreRangs Nombre de niveaux desservis, lu dans l'entête.
+	 * @param version Reçoit la version de la trame dans sa première case.
+	 * @return Le nouvel état.
+	 */
+	public static Instantane lireTrame(DataInputStream entree, Instantane courant, int nombreRangs, long[] version)
+			throws IOException {
+		byte type = entree.readByte();
+		version[0] = lireEntier(entree);
+
+		if (type == INSTANTANE) {
+			int niveau = entree.readInt();
+			Etat etat = ETATS[entree.readByte()];
+			Sens sens = SENS_POSSIBLES[entree.readByte()];
+			int charge = entree.readInt();
+
+			SignauxCompacts signaux = new SignauxCompacts(nombreRangs);
+			for (int tableau = 0; tableau < 3; tableau++)
+				for (int i = 0; i < signaux.getNombreMots(); i++)
+					signaux.setMot(tableau, i, entree.readLong());
+
+			return new Instantane(niveau, etat, sens, charge, signaux);
+		}
+
+		if (type != DELTA)
+			throw new IOException("Type de trame inconnu: " + type);
+		if (courant == null)
+			throw new IOException("Delta reçu avant le premier instantané.");
+
+		int masque = entree.readByte();
+		int niveau = (masque & NIVEAU) != 0 ? entree.readInt() : courant.getNiveauCourant();
+		Etat etat = (masque & ETAT) != 0 ? ETATS[entree.readByte()] : courant.getEtat();
+		Sens sens = (masque & SENS) != 0 ? SENS_POSSIBLES[entree.readByte()] : courant.getSens();
+		int charge = (masque & CHARGE) != 0 ? entree.readInt() : courant.getCharge();
+
+		SignauxCompacts signaux = courant.getSignaux();
+		if ((masque & SIGNAUX) != 0) {
+			signaux = new SignauxCompacts(signaux);
+			for (int tableau = 0; tableau < 3; tableau++) {
+				long modifies = lireEntier(entree);
+				for (long k = 0; k < modifies; k++) {
+					int i = (int) lireEntier(entree);
+					signaux.setMot(tableau, i, signaux.getMot(tableau, i) ^ entree.readLong());
+				}
+			}
+		}
+
+		return new Instantane(niveau, etat, sens, charge, signaux);
+	}
+
+	/**
+	 * Écrit un entier positif sur un nombre variable d'octets, 7 bits par octet.
+	 */
+	private static void ecrireEntier(DataOutputStream sortie, long valeur) throws IOException {
+		while ((valeur & ~0x7FL) != 0) {
+			sortie.writeByte((int) ((valeur & 0x7F) | 0x80));
+			valeur >>>= 7;
+		}
+		sortie.writeByte((int) valeur);
+	}
+
+	private static long lireEntier(DataInputStream entree) throws IOException {
+		long valeur = 0;
+		int decalage = 0;
+		byte octet;
+
+		do {
+			octet = entree.readByte();
+			valeur |= (long) (octet & 0x7F) << decalage;
+			decalage += 7;
+		} while ((octet & 0x80) != 0);
+
+		return valeur;
+	}
+}
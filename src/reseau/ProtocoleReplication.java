@@ -0,0 +1,135 @@
+package reseau;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import modele.Instantane;
+import modele.Modele;
+import util.Zonage;
+
+/**
+ * 	<p>
+ * 		Format binaire du flux de réplication d'un système principal vers son système de secours.
+ * 		Le flux commence par l'entête de {@link ProtocoleEtat}, puis chaque trame commence par son type:
+ * 	</p>
+ * 	<ul>
+ * 		<li><b>CONFIGURATION</b>: premier et dernier niveau de la gaine, niveaux de correspondance (sky lobbies),
+ * 			puis les {@link #reglages(Modele) réglages} du principal. Première trame du flux, renvoyée lorsque
+ * 			les réglages changent.</li>
+ * 		<li><b>ETAT</b>: temps restant avant la fin de la pause en cours, en millisecondes, puis une trame
+ * 			d'instantané ou de delta de {@link ProtocoleEtat}.</li>
+ * 		<li><b>BATTEMENT</b>: aucune donnée, envoyée lorsque l'état n'a pas changé depuis
+ * 			{@link PrimaireReplication#PERIODE_BATTEMENT PERIODE_BATTEMENT} millisecondes.</li>
+ * 	</ul>
+ * 	<p>
+ * 		Le flux passe par une connexion fiable: seul le premier état est un instantané complet, les suivants
+ * 		sont des deltas. Le secours n'acquitte rien, le principal n'attend donc jamais son secours.
+ * 	</p>
+ */
+public class ProtocoleReplication {
+
+	public static final byte ETAT = 1, BATTEMENT = 2, CONFIGURATION = 3;
+
+	/**
+	 * Nombre de {@link #reglages(Modele) réglages} d'une trame <b>CONFIGURATION</b>.
+	 */
+	public static final int NOMBRE_REGLAGES = 5;
+
+	private ProtocoleReplication() {
+	}
+
+	/**
+	 * @return Les réglages du modèle recopiés par le secours: charge nominale, attente maximale, niveau et délai de stationnement,
+	 * 		contournement des appels par une cabine pleine (1 si actif, 0 sinon).
+	 */
+	public static long[] reglages(Modele modele) {
+		return new long[] { modele.getChargeNominale(), modele.getAttenteMaximale(), modele.getNiveauParking(), modele.getDelaiParking(),
+				modele.estContournementPleineChargeActif() ? 1 : 0 };
+	}
+
+	/**
+	 * Écrit le zonage du modèle et ses <code>reglages</code>.
+	 */
+	public static void ecrireConfiguration(DataOutputStream sortie, Zonage zonage, long[] reglages) throws IOException {
+		sortie.writeByte(CONFIGURATION);
+		sortie.writeInt(zonage.getPremierNiveau());
+		sortie.writeInt(zonage.getDernierNiveau());
+
+		int[] skyLobbies = zonage.getSkyLobbies();
+		sortie.writeInt(skyLobbies.length);
+		for (int niveau : skyLobbies)
+			sortie.writeInt(niveau);
+
+		for (long reglage : reglages)
+			sortie.writeLong(reglage);
+	}
+
+	/**
+	 * Écrit l'état <code>courant</code>, en entier si <code>precedent</code> est <code>null</code>,
+	 * sinon sous forme de différences avec le dernier état envoyé.
+	 */
+	public static void ecrireEtat(DataOutputStream sortie, long version, Instantane precedent, Instantane courant,
+			int tempsRestantPause) throws IOException {
+		sortie.writeByte(ETAT);
+		sortie.writeInt(tempsRestantPause);
+
+		if (precedent == null)
+			ProtocoleEtat.ecrireInstantane(sortie, version, courant);
+		else
+			ProtocoleEtat.ecrireDelta(sortie, version, precedent, courant);
+	}
+
+	public static void ecrireBattement(DataOutputStream sortie) throws IOException {
+		sortie.writeByte(BATTEMENT);
+	}
+
+	/**
+	 * Lit le type de la prochaine trame.
+	 */
+	public static byte lireType(DataInputStream entree) throws IOException {
+		byte type = entree.readByte();
+
+		if (type != ETAT && type != BATTEMENT && type != CONFIGURATION)
+			throw new IOException("Type de trame de réplication inconnu: " + type);
+		return type;
+	}
+
+	/**
+	 * 	Lit la suite d'une trame <b>CONFIGURATION</b>.
+	 *
+	 * @param niveauxDesservis Niveaux desservis lus dans l'entête.
+	 * @param reglages Reçoit les {@link #reglages(Modele) réglages} du principal.
+	 * @return Le zonage du principal.
+	 */
+	public static Zonage lireConfiguration(DataInputStream entree, int[] niveauxDesservis, long[] reglages) throws IOException {
+		int premierNiveau = entree.readInt(), dernierNiveau = entree.readInt();
+
+		int[] skyLobbies = new int[entree.readInt()];
+		for (int i = 0; i < skyLobbies.length; i++)
+			skyLobbies[i] = entree.readInt();
+
+		for (int i = 0; i < reglages.length; i++)
+			reglages[i] = entree.readLong();
+
+		try {
+			return new Zonage(premierNiveau, dernierNiveau, niveauxDesservis, skyLobbies);
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Configuration de réplication invalide: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * 	Lit la suite d'une trame <b>ETAT</b> et l'applique à <code>courant</code>.
+	 *
+	 * @param tempsRestantPause Reçoit le temps restant avant la fin de la pause dans sa première case.
+	 * @return Le nouvel état.
+	 *
+	 * @see ProtocoleEtat#lireTrame(DataInputStream, Instantane, int, long[])
+	 */
+	public static Instantane lireEtat(DataInputStream entree, Instantane courant, int nombreRangs, long[] version,
+			int[] tempsRestantPause) throws IOException {
+		tempsRestantPause[0] = entree.readInt();
+		return ProtocoleEtat.lireTrame(entree, courant, nombreRangs, version);
+	}
+}
@@ -0,0 +1,249 @@
+package reseau;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import modele.Instantane;
+import modele.Modele;
+import util.PolitiqueDebordement;
+
+/**
+ * 	<p>
+ * 		Publie l'état d'un système de contrôle-commande aux écrans de supervision connectés sur un port local.
+ * 	</p>
+ * 	<p>
+ * 		Chaque changement du modèle déclenche la capture d'un {@link Instantane instantané}, numéroté par une version.
+ * 		Chaque client dispose de son propre thread d'envoi et ne conserve que le dernier instantané à lui envoyer.
+ * 		Comme au plus {@link ProtocoleEtat#FENETRE FENETRE} trames peuvent attendre l'acquittement du client,
+ * 		un client lent reçoit directement l'état le plus récent au lieu d'un arriéré de notifications.
+ * 		Le client reçoit la différence avec le dernier état qui lui a été envoyé, ou un instantané complet
+ * 		à la connexion puis au moins toutes les {@link #PERIODE_INSTANTANE PERIODE_INSTANTANE} millisecondes.
+ * 	</p>
+ * 
+ * @see ProtocoleEtat
+ * @see ClientEtat
+ */
+public class PublicateurEtat implements PropertyChangeListener {
+
+	/**
+	 * Durée maximale entre deux instantanés complets envoyés à un client, en millisecondes.
+	 */
+	public static final long PERIODE_INSTANTANE = 1000;
+
+	private Modele modele;
+	private ServerSocket serveur;
+	private List<Client> clients;
+	private Timer minuterie;
+
+	private long version;
+	private Instantane dernier;
+
+	/**
+	 * @param modele Système dont l'état est publié.
+	 * @param port Port local d'écoute, 0 pour un port libre quelconque.
+	 */
+	public PublicateurEtat(Modele modele, int port) throws IOException {
+		this.modele = modele;
+		serveur = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+		clients = new CopyOnWriteArrayList<>();
+	}
+
+	public int getPort() {
+		return serveur.getLocalPort();
+	}
+
+	public int getNombreClients() {
+		return clients.size();
+	}
+
+	/**
+	 * Commence à accepter des clients et à publier les changements du modèle.
+	 */
+	public void demarrer() {
+		publier();
+		// Une seule notification en attente suffit: elle déclenche la capture de l'état le plus récent
+		modele.ajouterEcouteurAsynchrone(this, 1, PolitiqueDebordement.SUPPRIMER_PLUS_ANCIEN);
+
+		Thread accueil = new Thread(this::accueillir, "publicateur-accueil");
+		accueil.setDaemon(true);
+		accueil.start();
+
+		minuterie = new Timer("publicateur-instantanes", true);
+		minuterie.scheduleAtFixedRate(new TimerTask() {
+			@Override
+			public void run() {
+				publier();
+			}
+		}, PERIODE_INSTANTANE, PERIODE_INSTANTANE);
+	}
+
+	/**
+	 * Ferme toutes les connexions et cesse de publier.
+	 */
+	public void arreter() {
+		modele.supprimerEcouteur(this);
+		if (minuterie != null)
+			minuterie.cancel();
+
+		try {
+			serveur.close();
+		} catch (IOException e) {
+			System.err.println("Erreur : fermeture du publicateur : " + e.getMessage());
+		}
+
+		for (Client client : clients)
+			client.fermer();
+	}
+
+	@Override
+	public void propertyChange(PropertyChangeEvent event) {
+		publier();
+	}
+
+	/**
+	 * Capture l'état du modèle et le propose à chaque client.
+	 */
+	private synchronized void publier() {
+		Instantane instantane = modele.capturerInstantane();
+
+		if (!instantane.equals(dernier)) {
+			version++;
+			dernier = instantane;
+		}
+
+		for (Client client : clients)
+			client.proposer(version, dernier);
+	}
+
+	private void accueillir() {
+		while (!serveur.isClosed()) {
+			try {
+				Socket socket = serveur.accept();
+				socket.setTcpNoDelay(true);
+
+				Client client = new Client(socket);
+				clients.add(client);
+				synchronized (this) {
+					client.proposer(version, dernier);
+				}
+			} catch (IOException e) {
+				if (!serveur.isClosed())
+					System.err.println("Erreur : connexion d'un client : " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Connexion d'un écran de supervision et son thread d'envoi.
+	 */
+	private class Client {
+		private Socket socket;
+		private DataOutputStream sortie;
+		private InputStream acquittements;
+		private int nonAcquittees;
+
+		/* Dernier état proposé, pas encore envoyé: un nouvel état remplace le précédent */
+		private long versionProposee = -1;
+		private Instantane aEnvoyer;
+
+		private long versionEnvoyee = -1;
+		private Instantane envoye;
+		private long dernierInstantaneComplet;
+
+		private Client(Socket socket) throws IOException {
+			this.socket = socket;
+			sortie = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			acquittements = socket.getInputStream();
+			ProtocoleEtat.ecrireEntete(sortie, modele.getNiveauxDesservis());
+
+			Thread envoi = new Thread(this::envoyer, "publicateur-" + socket.getPort());
+			envoi.setDaemon(true);
+			envoi.start();
+		}
+
+		private synchronized void proposer(long version, Instantane instantane) {
+			versionProposee = version;
+			aEnvoyer = instantane;
+			notify();
+		}
+
+		private void envoyer() {
+			try {
+				while (!socket.isClosed()) {
+					long version;
+					Instantane instantane;
+
+					synchronized (this) {
+						while (aEnvoyer == null && !socket.isClosed())
+							wait();
+						version = versionProposee;
+						instantane = aEnvoyer;
+						aEnvoyer = null;
+					}
+					if (instantane == null)
+						break;
+
+					// Attend que le client suive avant d'envoyer, les états proposés entre-temps sont fusionnés
+					while (nonAcquittees >= ProtocoleEtat.FENETRE) {
+						if (acquittements.read() < 0)
+							throw new EOFException();
+						nonAcquittees--;
+					}
+					synchronized (this) {
+						if (aEnvoyer != null) {
+							version = versionProposee;
+							instantane = aEnvoyer;
+							aEnvoyer = null;
+						}
+					}
+
+					long maintenant = System.currentTimeMillis();
+					if (envoye == null || maintenant - dernierInstantaneComplet >= PERIODE_INSTANTANE) {
+						ProtocoleEtat.ecrireInstantane(sortie, version, instantane);
+						dernierInstantaneComplet = maintenant;
+					}
+					else if (version != versionEnvoyee) {
+						ProtocoleEtat.ecrireDelta(sortie, version, envoye, instantane);
+					}
+					else {
+						continue;
+					}
+
+					sortie.flush();
+					nonAcquittees++;
+					versionEnvoyee = version;
+					envoye = instantane;
+				}
+			} catch (IOException e) {
+				// le client s'est déconnecté
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			fermer();
+		}
+
+		private void fermer() {
+			clients.remove(this);
+			try {
+				socket.close();
+			} catch (IOException e) {
+				// déjà fermée
+			}
+			synchronized (this) {
+				notify();
+			}
+		}
+	}
+}
@@ -0,0 +1,170 @@
+package reseau;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CountDownLatch;
+
+import modele.Instantane;
+import modele.Modele;
+import util.Horloge;
+import util.Zonage;
+
+/**
+ * 	<p>
+ * 		Système de contrôle-commande de secours: tient à jour une réplique du système principal à partir du flux
+ * 		d'un {@link PrimaireReplication}, et reprend le contrôle lorsque le principal ne répond plus.
+ * 	</p>
+ * 	<p>
+ * 		Le principal envoie au moins une trame toutes les {@link PrimaireReplication#PERIODE_BATTEMENT PERIODE_BATTEMENT}
+ * 		millisecondes. Sans trame pendant {@link #DELAI_BASCULE DELAI_BASCULE} millisecondes, ou dès que la connexion
+ * 		est fermée, la réplique {@link Modele#reprendreControle() reprend le contrôle} avec tous les signaux reçus:
+ * 		seuls les signaux enregistrés par le principal après son dernier envoi sont perdus.
+ * 	</p>
+ * 	<p>
+ * 		La réplique est créée d'après l'entête et la configuration du flux: elle a le zonage du principal, sky lobbies compris,
+ * 		et suit ses réglages numériques (charge nominale, attente maximale, stationnement). La stratégie et la politique de pause,
+ * 		des objets, ne sont pas recopiées: sans les mêmes réglages que le principal avant {@link #demarrer() demarrer},
+ * 		la reprise change le comportement de la cabine.
+ * 	</p>
+ */
+public class SecoursReplication implements Closeable {
+
+	/**
+	 * Durée sans trame du principal au-delà de laquelle le secours reprend le contrôle, en millisecondes.
+	 */
+	public static final int DELAI_BASCULE = 500;
+
+	private Socket socket;
+	private DataInputStream entree;
+	private int[] niveauxDesservis;
+	private Modele modele;
+
+	private final CountDownLatch reprise = new CountDownLatch(1);
+	private volatile long nombreTrames;
+	private volatile boolean ferme;
+
+	/**
+	 * Se connecte au principal dont la réplication écoute sur <code>port</code> et crée la réplique.
+	 */
+	public SecoursReplication(int port, Horloge horloge) throws IOException {
+		socket = new Socket(InetAddress.getLoopbackAddress(), port);
+		socket.setSoTimeout(DELAI_BASCULE);
+		entree = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+		niveauxDesservis = ProtocoleEtat.lireEntete(entree);
+
+		if (ProtocoleReplication.lireType(entree) != ProtocoleReplication.CONFIGURATION)
+			throw new IOException("Trame de configuration attendue.");
+		long[] reglages = new long[ProtocoleReplication.NOMBRE_REGLAGES];
+		Zonage zonage = ProtocoleReplication.lireConfiguration(entree, niveauxDesservis, reglages);
+		modele = new Modele(zonage, horloge);
+		regler(reglages);
+	}
+
+	/**
+	 * @return La réplique, qui devient le système de contrôle-commande après la reprise.
+	 */
+	public Modele getModele() {
+		return modele;
+	}
+
+	/**
+	 * @return Le nombre de trames d'état appliquées à la réplique, battements exclus.
+	 */
+	public long getNombreTrames() {
+		return nombreTrames;
+	}
+
+	public boolean estActif() {
+		return reprise.getCount() == 0;
+	}
+
+	/**
+	 * Commence à appliquer le flux du principal à la réplique.
+	 */
+	public void demarrer() {
+		Thread lecture = new Thread(this::repliquer, "replication-secours");
+		lecture.setDaemon(true);
+		lecture.start();
+	}
+
+	/**
+	 * Attend que le secours ait repris le contrôle.
+	 */
+	public void attendreReprise() throws InterruptedException {
+		reprise.await();
+	}
+
+	private void repliquer() {
+		Instantane instantane = null;
+		long[] version = new long[1];
+		int[] tempsRestantPause = new int[1];
+		long[] reglages = new long[ProtocoleReplication.NOMBRE_REGLAGES];
+
+		try {
+			while (true) {
+				byte type = ProtocoleReplication.lireType(entree);
+				if (type == ProtocoleReplication.BATTEMENT)
+					continue;
+				if (type == ProtocoleReplication.CONFIGURATION) {
+					// Le zonage ne change pas: seuls les réglages sont appliqués
+					ProtocoleReplication.lireConfiguration(entree, niveauxDesservis, reglages);
+					regler(reglages);
+					continue;
+				}
+
+				instantane = ProtocoleReplication.lireEtat(entree, instantane, niveauxDesservis.length, version, tempsRestantPause);
+				modele.restaurerEtat(instantane, tempsRestantPause[0]);
+				nombreTrames++;
+			}
+		} catch (SocketTimeoutException e) {
+			System.err.println("Erreur : le principal ne répond plus depuis " + DELAI_BASCULE + " ms.");
+		} catch (EOFException e) {
+			System.err.println("Erreur : connexion fermée par le principal.");
+		} catch (IOException e) {
+			if (ferme)
+				return;
+			System.err.println("Erreur : connexion au principal perdue : " + e.getMessage());
+		}
+
+		basculer();
+	}
+
+	/**
+	 * Applique à la réplique les {@link ProtocoleReplication#reglages(Modele) réglages} du principal.
+	 */
+	private void regler(long[] reglages) {
+		modele.setChargeNominale((int) reglages[0]);
+		modele.setAttenteMaximale(reglages[1]);
+		modele.setNiveauParking((int) reglages[2], reglages[3]);
+		modele.setContournementPleineCharge(reglages[4] != 0);
+	}
+
+	/**
+	 * Reprend le contrôle avec l'état recopié. La connexion au principal est fermée: il ne peut plus écraser la réplique.
+	 */
+	private void basculer() {
+		try {
+			socket.close();
+		} catch (IOException e) {
+			// déjà fermée
+		}
+
+		modele.reprendreControle();
+		reprise.countDown();
+	}
+
+	/**
+	 * Cesse de répliquer sans reprendre le contrôle.
+	 */
+	@Override
+	public void close() throws IOException {
+		ferme = true;
+		socket.close();
+	}
+}
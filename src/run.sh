@@ -1,4 +1,6 @@
 #!/bin/bash
-javac --module-path ../resources/lib/javafx-sdk-11.0.2/lib --add-modules=javafx.controls,javafx.graphics,javafx.media $(find ./*/* | grep .java)
+# Coeur du système (sans JavaFX) puis interface graphique
+javac -encoding UTF-8 $(find ./modele ./util ./simulation ./reseau | grep .java) application/MainConsole.java
+javac -encoding UTF-8 --module-path ../resources/lib/javafx-sdk-11.0.2/lib --add-modules=javafx.controls,javafx.graphics,javafx.media -cp . $(find ./vues ./controleurs | grep .java) application/Main.java
 
-java --module-path ../resources/lib/javafx-sdk-11.0.2/lib --add-modules=javafx.controls,javafx.graphics,javafx.media application.Main
+java --module-path ../resources/lib/javafx-sdk-11.0.2/lib --add-modules=javafx.controls,javafx.graphics,javafx.media application.Main "$@"
@@ -0,0 +1,128 @@
+package simulation;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import modele.AffectationAppels;
+import modele.ModeleLeger;
+import util.Histogramme;
+import util.Sens;
+import util.SignauxCompacts;
+import util.Zonage;
+
+/**
+ * 	<p>
+ * 		Banc de comparaison entre l'affectation gloutonne des appels extérieurs et la recherche
+ * 		par séparation et évaluation de {@link AffectationAppels}, sur des situations tirées au hasard.
+ * 	</p>
+ * 	<p>
+ * 		Pour chaque situation, les cabines sont placées à des niveaux et dans des sens aléatoires avec quelques
+ * 		demandes de niveau, puis plusieurs appels de palier sont à répartir. Le banc affiche le gain moyen sur la somme
+ * 		des délais de prise en charge, la part des situations résolues de façon prouvée optimale dans le budget,
+ * 		l'histogramme des durées de décision et leur dépassement du budget. Les situations
+ * 		sont d'abord toutes résolues une première fois sans mesure, pour que les durées ne comptent pas la compilation à la volée.
+ * 	</p>
+ * 	<pre>
+ * 		java simulation.BancAffectation [--situations=200] [--cabines=4] [--appels=12] [--budget=5] [--graine=1]
+ * 	</pre>
+ * 	<p>
+ * 		<code>--budget</code> est en millisecondes.
+ * 	</p>
+ */
+public class BancAffectation {
+
+	private static final int PREMIER_NIVEAU = 0, DERNIER_NIVEAU = 20;
+	private static final int DEMANDES_PAR_CABINE = 2;
+
+	public static void main(String[] args) {
+		int nombreSituations = 200;
+		int nombreCabines = 4;
+		int nombreAppels = 12;
+		long budget = AffectationAppels.BUDGET;
+		long graine = 1;
+
+		for (String arg : args) {
+			if (arg.startsWith("--situations="))
+				nombreSituations = Integer.parseInt(arg.substring("--situations=".length()));
+			else if (arg.startsWith("--cabines="))
+				nombreCabines = Integer.parseInt(arg.substring("--cabines=".length()));
+			else if (arg.startsWith("--appels="))
+				nombreAppels = Integer.parseInt(arg.substring("--appels=".length()));
+			else if (arg.startsWith("--budget="))
+				budget = Long.parseLong(arg.substring("--budget=".length())) * 1_000_000;
+			else if (arg.startsWith("--graine="))
+				graine = Long.parseLong(arg.substring("--graine=".length()));
+		}
+
+		Zonage zonage = new Zonage(PREMIER_NIVEAU, DERNIER_NIVEAU);
+		int nombreRangs = zonage.getNombreNiveauxDesservis();
+		AffectationAppels affectation = new AffectationAppels(budget);
+		Histogramme durees = new Histogramme();
+
+		long totalGlouton = 0, totalOptimise = 0;
+		int optimales = 0;
+		long[] depassements = new long[nombreSituations];
+
+		// Première passe de préchauffage, puis mêmes situations mesurées
+		for (int passe = 0; passe < 2; passe++) {
+			Random aleatoire = new Random(graine);
+			durees.reinitialiser();
+			totalGlouton = totalOptimise = 0;
+			optimales = 0;
+
+			for (int s = 0; s < nombreSituations; s++) {
+				ModeleLeger[] cabines = new ModeleLeger[nombreCabines];
+				long[] attentesDepart = new long[nombreCabines];
+				for (int c = 0; c < nombreCabines; c++) {
+					SignauxCompacts demandes = new SignauxCompacts(nombreRangs);
+					for (int d = 0; d < DEMANDES_PAR_CABINE; d++)
+						demandes.set(SignauxCompacts.DEMANDE, aleatoire.nextInt(nombreRangs), true);
+
+					boolean enMouvement = aleatoire.nextBoolean();
+					cabines[c] = new ModeleLeger(zonage, zonage.getNiveau(aleatoire.nextInt(nombreRangs)),
+							aleatoire.nextBoolean() ? Sens.MONTER : Sens.DESCENDRE, enMouvement, demandes);
+					attentesDepart[c] = enMouvement ? 0 : aleatoire.nextInt((int) ModeleLeger.DUREE_ARRET);
+				}
+
+				// Appels distincts, sans bouton inexistant aux extrémités
+				int[] rangs = new int[nombreAppels];
+				boolean[] montees = new boolean[nombreAppels];
+				boolean[] tires = new boolean[2 * nombreRangs];
+				for (int i = 0; i < nombreAppels; i++) {
+					int cle;
+					do {
+						rangs[i] = aleatoire.nextInt(nombreRangs);
+						montees[i] = rangs[i] == 0 || (rangs[i] < nombreRangs - 1 && aleatoire.nextBoolean());
+						cle = 2 * rangs[i] + (montees[i] ? 0 : 1);
+					} while (tires[cle]);
+					tires[cle] = true;
+				}
+
+				long glouton = affectation.evaluer(cabines, attentesDepart, rangs, montees,
+						affectation.affecterAuPlusProche(cabines, attentesDepart, rangs, montees));
+
+				long debut = System.nanoTime();
+				affectation.affecter(cabines, attentesDepart, rangs, montees);
+				long duree = System.nanoTime() - debut;
+				durees.enregistrer(duree);
+				depassements[s] = Math.max(0, duree - budget);
+
+				totalGlouton += glouton;
+				totalOptimise += affectation.getCout();
+				if (affectation.estOptimale())
+					optimales++;
+			}
+		}
+
+		System.out.printf("Situations : %d (%d cabines, %d appels, budget %d ms)%n",
+				nombreSituations, nombreCabines, nombreAppels, budget / 1_000_000);
+		System.out.printf("Délai moyen par appel, au plus proche : %.1f s%n", totalGlouton / 1000.0 / nombreSituations / nombreAppels);
+		System.out.printf("Délai moyen par appel, optimisé : %.1f s%n", totalOptimise / 1000.0 / nombreSituations / nombreAppels);
+		System.out.printf("Gain : %.1f %%%n", 100.0 * (totalGlouton - totalOptimise) / totalGlouton);
+		System.out.printf("Résolues de façon optimale : %d / %d%n", optimales, nombreSituations);
+		System.out.println("Durée de décision : " + durees);
+		Arrays.sort(depassements);
+		System.out.printf("Dépassement du budget : médian %.1f us, p99 %.1f us, maximal %.1f us%n",
+				depassements[nombreSituations / 2] / 1e3, depassements[nombreSituations * 99 / 100] / 1e3, depassements[nombreSituations - 1] / 1e3);
+	}
+}
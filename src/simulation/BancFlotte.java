@@ -0,0 +1,120 @@
+package simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import modele.FlotteCabines;
+
+/**
+ * 	<p>
+ * 		Banc de débit du moteur de flotte {@link FlotteCabines}: un grand nombre de cabines reçoivent des appels
+ * 		aléatoires et avancent pas à pas, chaque thread prenant en charge une plage de cabines.
+ * 	</p>
+ * 	<pre>
+ * 		java simulation.BancFlotte [--cabines=1000000] [--niveaux=20] [--pas=500] [--appels=0.05] [--threads=1]
+ * 	</pre>
+ * 	<p>
+ * 		<code>--appels</code> est le nombre moyen d'appels extérieurs reçus par cabine et par pas.
+ * 		Le banc affiche le nombre de pas de cabine simulés par seconde.
+ * 	</p>
+ */
+public class BancFlotte {
+
+	private static final int PAS_ARRET = 4;
+	private static final int PAS_CHAUFFE = 50;
+
+	public static void main(String[] args) throws InterruptedException {
+		int nombreCabines = 1_000_000;
+		int nombreNiveaux = 20;
+		int nombrePas = 500;
+		double appels = 0.05;
+		int nombreThreads = 1;
+
+		for (String arg : args) {
+			if (arg.startsWith("--cabines="))
+				nombreCabines = Integer.parseInt(arg.substring("--cabines=".length()));
+			else if (arg.startsWith("--niveaux="))
+				nombreNiveaux = Integer.parseInt(arg.substring("--niveaux=".length()));
+			else if (arg.startsWith("--pas="))
+				nombrePas = Integer.parseInt(arg.substring("--pas=".length()));
+			else if (arg.startsWith("--appels="))
+				appels = Double.parseDouble(arg.substring("--appels=".length()));
+			else if (arg.startsWith("--threads="))
+				nombreThreads = Integer.parseInt(arg.substring("--threads=".length()));
+		}
+
+		FlotteCabines flotte = new FlotteCabines(nombreCabines, nombreNiveaux, PAS_ARRET, 1);
+		executer(flotte, PAS_CHAUFFE, appels, nombreThreads);
+
+		long debut = System.nanoTime();
+		executer(flotte, nombrePas, appels, nombreThreads);
+		double secondes = (System.nanoTime() - debut) / 1e9;
+
+		System.out.printf(Locale.ROOT, "%d cabines, %d niveaux, %d pas, %d threads: %.2f s%n",
+				nombreCabines, nombreNiveaux, nombrePas, nombreThreads, secondes);
+		System.out.printf(Locale.ROOT, "%.1f millions de pas de cabine par seconde%n", (double) nombreCabines * nombrePas / secondes / 1e6);
+		System.out.printf(Locale.ROOT, "%d appels servis, %d signaux en attente%n", flotte.getAppelsServis(), flotte.getSignauxEnAttente());
+	}
+
+	/**
+	 * Fait avancer la flotte de <code>nombrePas</code> pas, chaque thread générant les appels de sa plage de cabines.
+	 */
+	private static void executer(FlotteCabines flotte, int nombrePas, double appels, int nombreThreads) throws InterruptedException {
+		int nombreCabines = flotte.getNombreCabines();
+		List<Thread> threads = new ArrayList<>();
+
+		for (int t = 0; t < nombreThreads; t++) {
+			int debut = (int) ((long) nombreCabines * t / nombreThreads);
+			int fin = (int) ((long) nombreCabines * (t + 1) / nombreThreads);
+			long graine = 0x5DEECE66DL * (t + 1);
+
+			Thread thread = new Thread(() -> {
+				GenerateurAppels generateur = new GenerateurAppels(graine, flotte.getNombreNiveaux());
+				long appelsParPas = Math.round(appels * (fin - debut));
+
+				for (int pas = 0; pas < nombrePas; pas++) {
+					for (long a = 0; a < appelsParPas; a++)
+						generateur.appeler(flotte, debut, fin);
+					flotte.avancer(debut, fin);
+				}
+			}, "flotte-" + t);
+			threads.add(thread);
+			thread.start();
+		}
+
+		for (Thread thread : threads)
+			thread.join();
+	}
+
+	/**
+	 * Tirage xorshift des appels extérieurs: cabine, niveau et sens au hasard.
+	 */
+	private static class GenerateurAppels {
+		private long etat;
+		private final int nombreNiveaux;
+
+		private GenerateurAppels(long graine, int nombreNiveaux) {
+			etat = graine | 1;
+			this.nombreNiveaux = nombreNiveaux;
+		}
+
+		private void appeler(FlotteCabines flotte, int debut, int fin) {
+			long x = suivant();
+			int cabine = debut + (int) Long.remainderUnsigned(x, fin - debut);
+			int rang = (int) Long.remainderUnsigned(x >>> 32, nombreNiveaux);
+
+			if (rang == 0 || (rang < nombreNiveaux - 1 && (x & 1) == 0))
+				flotte.monterNiveau(cabine, rang);
+			else
+				flotte.descendreNiveau(cabine, rang);
+		}
+
+		private long suivant() {
+			etat ^= etat << 13;
+			etat ^= etat >>> 7;
+			etat ^= etat << 17;
+			return etat;
+		}
+	}
+}
@@ -0,0 +1,140 @@
+package simulation;
+
+import java.beans.PropertyChangeListener;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import modele.Modele;
+import util.Etat;
+import util.Horloge;
+import util.HorlogeReelle;
+import util.PolitiqueDebordement;
+
+/**
+ * 	<p>
+ * 		Banc de mesure du délai de réaction à l'arrêt d'urgence sous charge.
+ * 	</p>
+ * 	<p>
+ * 		Le modèle tourne en temps réel avec le moteur de traction pendant que plusieurs threads le bombardent
+ * 		de signaux et que des écouteurs lents reçoivent chaque notification. Inscrits de façon synchrone,
+ * 		ils occupent le verrou du contrôle-commande; avec <code>--asynchrone</code>, ils sont notifiés depuis leur propre thread.
+ * 		Un arrêt d'urgence est envoyé puis levé régulièrement et l'histogramme des délais est affiché à la fin.
+ * 	</p>
+ * 	<pre>
+ * 		java simulation.BancUrgence [--duree=10] [--threads=4] [--ecouteur-lent=2] [--ecouteurs=1] [--asynchrone]
+ * 	</pre>
+ * 	<p>
+ * 		<code>--duree</code> est en secondes et <code>--ecouteur-lent</code> est le temps passé par l'écouteur
+ * 		lent à chaque notification, en millisecondes.
+ * 	</p>
+ */
+public class BancUrgence {
+
+	private static final int PREMIER_NIVEAU = 0, DERNIER_NIVEAU = 20;
+	private static final long PERIODE_URGENCE = 50;
+	private static final int CAPACITE_NOTIFICATIONS = 256;
+
+	public static void main(String[] args) throws InterruptedException {
+		long duree = 10_000;
+		int nombreThreads = 4;
+		long lenteur = 2;
+		int nombreEcouteurs = 1;
+		boolean asynchrone = false;
+
+		for (String arg : args) {
+			if (arg.startsWith("--duree="))
+				duree = Long.parseLong(arg.substring("--duree=".length())) * 1000;
+			else if (arg.startsWith("--threads="))
+				nombreThreads = Integer.parseInt(arg.substring("--threads=".length()));
+			else if (arg.startsWith("--ecouteur-lent="))
+				lenteur = Long.parseLong(arg.substring("--ecouteur-lent=".length()));
+			else if (arg.startsWith("--ecouteurs="))
+				nombreEcouteurs = Integer.parseInt(arg.substring("--ecouteurs=".length()));
+			else if (arg.equals("--asynchrone"))
+				asynchrone = true;
+		}
+
+		PrintStream sortie = System.out;
+		PrintStream nulle = new PrintStream(OutputStream.nullOutputStream());
+		System.setOut(nulle);
+		System.setErr(nulle);
+
+		Horloge horloge = new HorlogeReelle();
+		Modele modele = new Modele(PREMIER_NIVEAU, DERNIER_NIVEAU, horloge);
+		MoteurTraction moteur = new MoteurTraction(modele, horloge);
+		moteur.demarrer();
+
+		final long pause = lenteur;
+		for (int i = 0; i < nombreEcouteurs; i++) {
+			PropertyChangeListener ecouteur = event -> attendre(pause);
+			if (asynchrone)
+				modele.ajouterEcouteurAsynchrone(ecouteur, CAPACITE_NOTIFICATIONS, PolitiqueDebordement.SUPPRIMER_PLUS_ANCIEN);
+			else
+				modele.ajouterEcouteur(ecouteur);
+		}
+
+		long fin = System.currentTimeMillis() + duree;
+		List<Thread> threads = new ArrayList<>();
+		for (int i = 0; i < nombreThreads; i++) {
+			Random aleatoire = new Random(i);
+			Thread thread = new Thread(() -> {
+				while (System.currentTimeMillis() < fin)
+					envoyerSignal(modele, aleatoire);
+			}, "charge-" + i);
+			thread.setDaemon(true);
+			threads.add(thread);
+			thread.start();
+		}
+
+		while (System.currentTimeMillis() < fin) {
+			modele.arretUrgence();
+			Thread.sleep(PERIODE_URGENCE);
+			if (modele.getEtatCourant() == Etat.ARRET_URGENCE)
+				modele.arretUrgence();
+			Thread.sleep(PERIODE_URGENCE);
+		}
+
+		for (Thread thread : threads)
+			thread.join();
+		moteur.arreter();
+
+		sortie.println("Délai de réaction à l'arrêt d'urgence (" + nombreThreads + " threads de charge, " + nombreEcouteurs
+				+ (asynchrone ? " écouteurs asynchrones" : " écouteurs synchrones") + " de " + lenteur + " ms):");
+		sortie.println(modele.getLatencesUrgence());
+	}
+
+	private static void envoyerSignal(Modele modele, Random aleatoire) {
+		int niveau = PREMIER_NIVEAU + aleatoire.nextInt(DERNIER_NIVEAU - PREMIER_NIVEAU + 1);
+
+		switch (aleatoire.nextInt(5)) {
+			case 0:
+				modele.demandeNiveau(niveau);
+				break;
+			case 1:
+				if (niveau < DERNIER_NIVEAU)
+					modele.monterNiveau(niveau);
+				break;
+			case 2:
+				if (niveau > PREMIER_NIVEAU)
+					modele.descendreNiveau(niveau);
+				break;
+			case 3:
+				modele.detectionPassage();
+				break;
+			default:
+				modele.fermerPortes();
+				break;
+		}
+	}
+
+	private static void attendre(long duree) {
+		try {
+			Thread.sleep(duree);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,317 @@
+package simulation;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import modele.Batterie;
+import modele.Modele;
+import util.Etat;
+import util.HorlogeVirtuelle;
+import util.Sens;
+import util.SignauxCompacts;
+
+/**
+ * 	<p>
+ * 		Recherche automatique de séquences de signaux qui font perdre un appel à une {@link Batterie}.
+ * 	</p>
+ * 	<p>
+ * 		Chaque cas tire le nombre de cabines et de niveaux, puis une séquence aléatoire d'appels aux paliers,
+ * 		de demandes de niveau, d'arrêts d'urgence d'une cabine et de leurs levées, de niveaux atteints et d'avances
+ * 		de l'{@link HorlogeVirtuelle horloge virtuelle}. Après chaque signal, le banc vérifie que tout appel affecté à une cabine:
+ * 	</p>
+ * 	<ul>
+ * 		<li>ne l'est pas à une cabine en arrêt d'urgence;</li>
+ * 		<li>est enregistré par sa cabine.</li>
+ * 	</ul>
+ * 	<p>
+ * 		À la fin de la séquence, les arrêts d'urgence sont levés et un moteur docile emmène chaque cabine de niveau en niveau:
+ * 		tous les appels de la batterie doivent être servis en un nombre borné de pas.
+ * 	</p>
+ * 	<pre>
+ * 		java simulation.FuzzeurBatterie [--duree=60] [--graine=1] [--longueur=200]
+ * 	</pre>
+ * 	<p>
+ * 		<code>--duree</code> est en secondes de temps réel. Le programme se termine avec le code 1 si un invariant est violé.
+ * 	</p>
+ *
+ * @see FuzzeurModele
+ */
+public class FuzzeurBatterie {
+
+	private static final int MONTER = 0, DESCENDRE = 1, DEMANDE = 2, URGENCE = 3, PAS_MOTEUR = 4, TEMPS = 5, TACHE = 6;
+
+	private static final String[] NOMS = { "batterie.monterNiveau", "batterie.descendreNiveau", "demandeNiveau",
+			"arretUrgence", "niveauAtteint", "horloge.avancer", "horloge.avancerJusquaProchaineTache" };
+
+	/** Poids de tirage de chaque type de signal: le moteur docile et le temps dominent pour que les cabines circulent. */
+	private static final int[] POIDS = { 10, 10, 6, 3, 30, 15, 8 };
+
+	/** Nombre maximal de pas du vidage, par niveau et par cabine. */
+	private static final int PAS_VIDAGE_PAR_NIVEAU = 40;
+
+	private long nombreCas, nombrePas;
+
+	public static void main(String[] args) {
+		long duree = 60_000;
+		long graine = 1;
+		int longueur = 200;
+
+		for (String arg : args) {
+			if (arg.startsWith("--duree="))
+				duree = Long.parseLong(arg.substring("--duree=".length())) * 1000;
+			else if (arg.startsWith("--graine="))
+				graine = Long.parseLong(arg.substring("--graine=".length()));
+			else if (arg.startsWith("--longueur="))
+				longueur = Integer.parseInt(arg.substring("--longueur=".length()));
+		}
+
+		// Les cabines affichent chaque niveau atteint et chaque signal refusé
+		PrintStream sortie = System.out;
+		PrintStream nulle = new PrintStream(OutputStream.nullOutputStream());
+		System.setOut(nulle);
+		System.setErr(nulle);
+
+		FuzzeurBatterie fuzzeur = new FuzzeurBatterie();
+		Map<String, String> defauts = fuzzeur.explorer(duree, graine, longueur);
+
+		sortie.println(fuzzeur.nombreCas + " séquences, " + fuzzeur.nombrePas + " signaux, " + defauts.size() + " invariant(s) violé(s).");
+		for (String reproduction : defauts.values())
+			sortie.println(reproduction);
+
+		System.exit(defauts.isEmpty() ? 0 : 1);
+	}
+
+	/**
+	 * Exécute des cas pendant <code>duree</code> millisecondes.
+	 *
+	 * @return Pour chaque invariant violé, la première séquence qui le viole, mise en forme.
+	 */
+	public Map<String, String> explorer(long duree, long graine, int longueur) {
+		Map<String, String> defauts = new LinkedHashMap<>();
+		Random aleatoire = new Random(graine);
+		long fin = System.currentTimeMillis() + duree;
+
+		while (System.currentTimeMillis() < fin) {
+			int nombreCabines = 2 + aleatoire.nextInt(3);
+			int dernierNiveau = 3 + aleatoire.nextInt(13);
+			List<int[]> sequence = tirer(nombreCabines, dernierNiveau, aleatoire, longueur);
+			String defaut = executer(nombreCabines, dernierNiveau, sequence);
+			nombreCas++;
+
+			if (defaut != null && !defauts.containsKey(defaut))
+				defauts.put(defaut, formater(nombreCabines, dernierNiveau, sequence, defaut));
+		}
+
+		return defauts;
+	}
+
+	/**
+	 * @return Une séquence de signaux <code>{ type, cabine, paramètre }</code>.
+	 */
+	private static List<int[]> tirer(int nombreCabines, int dernierNiveau, Random aleatoire, int longueur) {
+		int total = 0;
+		for (int poids : POIDS)
+			total += poids;
+		List<int[]> sequence = new ArrayList<>(longueur);
+
+		for (int i = 0; i < longueur; i++) {
+			int tirage = aleatoire.nextInt(total), type = 0;
+			while (tirage >= POIDS[type])
+				tirage -= POIDS[type++];
+
+			int cabine = aleatoire.nextInt(nombreCabines), parametre = 0;
+			switch (type) {
+				case MONTER:
+					parametre = aleatoire.nextInt(dernierNiveau);
+					break;
+				case DESCENDRE:
+					parametre = 1 + aleatoire.nextInt(dernierNiveau);
+					break;
+				case DEMANDE:
+					parametre = aleatoire.nextInt(dernierNiveau + 1);
+					break;
+				case TEMPS:
+					parametre = aleatoire.nextInt(4) == 0 ? aleatoire.nextInt(200) : aleatoire.nextInt(12_000);
+					break;
+				default:
+					break;
+			}
+			sequence.add(new int[] { type, cabine, parametre });
+		}
+
+		return sequence;
+	}
+
+	/**
+	 * Rejoue une séquence sur une nouvelle batterie, puis la vide avec un moteur docile.
+	 *
+	 * @return L'invariant violé, <code>null</code> si aucun.
+	 */
+	private String executer(int nombreCabines, int dernierNiveau, List<int[]> sequence) {
+		HorlogeVirtuelle horloge = new HorlogeVirtuelle();
+		List<Modele> cabines = new ArrayList<>();
+		for (int c = 0; c < nombreCabines; c++)
+			cabines.add(new Modele(0, dernierNiveau, horloge));
+		Batterie batterie = new Batterie(cabines, horloge);
+
+		try {
+			for (int[] signal : sequence) {
+				appliquer(batterie, horloge, signal[0], cabines.get(signal[1]), signal[2]);
+				nombrePas++;
+
+				String defaut = verifier(batterie);
+				if (defaut != null)
+					return defaut;
+			}
+
+			return vider(batterie, horloge);
+		} catch (RuntimeException e) {
+			return "exception " + e.getClass().getSimpleName() + " : " + e.getMessage();
+		}
+	}
+
+	private static void appliquer(Batterie batterie, HorlogeVirtuelle horloge, int type, Modele cabine, int parametre) {
+		switch (type) {
+			case MONTER:
+				batterie.monterNiveau(parametre);
+				break;
+			case DESCENDRE:
+				batterie.descendreNiveau(parametre);
+				break;
+			case DEMANDE:
+				cabine.demandeNiveau(parametre);
+				break;
+			case URGENCE:
+				cabine.arretUrgence();
+				break;
+			case PAS_MOTEUR:
+				if (enMouvement(cabine))
+					cabine.niveauAtteint();
+				break;
+			case TEMPS:
+				horloge.avancer(parametre);
+				break;
+			default:
+				horloge.avancerJusquaProchaineTache();
+				break;
+		}
+	}
+
+	private static boolean enMouvement(Modele cabine) {
+		Etat etat = cabine.getEtatCourant();
+		return etat == Etat.MONTER || etat == Etat.DESCENDRE || etat == Etat.ARRET_PRO_NIV;
+	}
+
+	/**
+	 * @return L'invariant violé par les affectations de la batterie, <code>null</code> si aucun.
+	 */
+	private static String verifier(Batterie batterie) {
+		List<Modele> cabines = batterie.getCabines();
+
+		for (int niveau : cabines.get(0).getNiveauxDesservis()) {
+			for (Sens sens : Sens.values()) {
+				int indice = batterie.getCabineAffectee(niveau, sens);
+				if (indice < 0)
+					continue;
+
+				Modele cabine = cabines.get(indice);
+				if (cabine.getEtatCourant() == Etat.ARRET_URGENCE)
+					return "appel affecté à une cabine en arrêt d'urgence";
+				boolean enregistre = sens == Sens.MONTER ? cabine.getSignaux().monterNiveau(niveau) : cabine.getSignaux().descendreNiveau(niveau);
+				if (!enregistre)
+					return "appel affecté absent de sa cabine";
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return <code>true</code> si un appel de la batterie est encore en attente.
+	 */
+	private static boolean appelEnAttente(Batterie batterie) {
+		for (int niveau : batterie.getCabines().get(0).getNiveauxDesservis())
+			for (Sens sens : Sens.values())
+				if (batterie.getCabineAffectee(niveau, sens) >= 0)
+					return true;
+		return false;
+	}
+
+	/**
+	 * Lève les arrêts d'urgence et laisse les cabines servir les appels restants.
+	 *
+	 * @return L'invariant violé, <code>null</code> si tous les appels sont servis.
+	 */
+	private String vider(Batterie batterie, HorlogeVirtuelle horloge) {
+		List<Modele> cabines = batterie.getCabines();
+		for (Modele cabine : cabines)
+			if (cabine.getEtatCourant() == Etat.ARRET_URGENCE)
+				cabine.arretUrgence();
+		horloge.avancer(0);
+
+		int pasMax = PAS_VIDAGE_PAR_NIVEAU * cabines.size() * cabines.get(0).getNiveauxDesservis().length;
+		for (int pas = 0; pas < pasMax; pas++) {
+			boolean signaux = false;
+			for (Modele cabine : cabines) {
+				SignauxCompacts enregistres = cabine.getSignaux().capturer();
+				signaux |= enregistres.nombre(SignauxCompacts.MONTER) + enregistres.nombre(SignauxCompacts.DESCENDRE) > 0;
+			}
+			if (!signaux && !appelEnAttente(batterie))
+				return null;
+
+			boolean mouvement = false;
+			for (Modele cabine : cabines) {
+				if (enMouvement(cabine)) {
+					cabine.niveauAtteint();
+					mouvement = true;
+				}
+			}
+			if (!mouvement && !horloge.avancerJusquaProchaineTache())
+				return "appel jamais servi";
+			nombrePas++;
+
+			String defaut = verifier(batterie);
+			if (defaut != null)
+				return defaut;
+		}
+
+		return "appel jamais servi";
+	}
+
+	private static String formater(int nombreCabines, int dernierNiveau, List<int[]> sequence, String defaut) {
+		StringBuilder texte = new StringBuilder();
+		texte.append("Invariant violé : ").append(defaut).append(" (").append(nombreCabines).append(" cabines, niveaux 0 à ")
+				.append(dernierNiveau).append(")\n");
+
+		for (int[] signal : sequence) {
+			texte.append("\t");
+			switch (signal[0]) {
+				case MONTER:
+				case DESCENDRE:
+				case TEMPS:
+					texte.append(NOMS[signal[0]]).append("(").append(signal[2]).append(");");
+					break;
+				case DEMANDE:
+					texte.append("cabine").append(signal[1]).append(".").append(NOMS[signal[0]]).append("(").append(signal[2]).append(");");
+					break;
+				case URGENCE:
+					texte.append("cabine").append(signal[1]).append(".").append(NOMS[signal[0]]).append("();");
+					break;
+				case PAS_MOTEUR:
+					texte.append("cabine").append(signal[1]).append(".").append(NOMS[signal[0]]).append("(); // en mouvement");
+					break;
+				default:
+					texte.append(NOMS[signal[0]]).append("();");
+					break;
+			}
+			texte.append("\n");
+		}
+		texte.append("\t// puis vidage: arrêts d'urgence levés, moteur docile");
+
+		return texte.toString();
+	}
+}
@@ -0,0 +1,460 @@
+package simulation;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import modele.Modele;
+import modele.StrategieAnticipation;
+import util.Etat;
+import util.HorlogeVirtuelle;
+import util.LotSignaux;
+import util.Sens;
+import util.SignauxCompacts;
+import util.Zonage;
+
+/**
+ * 	<p>
+ * 		Recherche automatique de séquences de signaux qui violent les invariants du contrôle-commande.
+ * 	</p>
+ * 	<p>
+ * 		Chaque cas tire un zonage (parfois avec des niveaux non desservis), une stratégie et une attente maximale,
+ * 		puis une séquence aléatoire de signaux avec une part de signaux hostiles: appuis pendant les pauses,
+ * 		arrêts d'urgence répétés, niveaux atteints à contretemps, niveaux hors de la gaine ou aux extrémités,
+ * 		lots de signaux, retraits d'appels, surcharge. Le temps est celui d'une {@link HorlogeVirtuelle}: rien n'attend,
+ * 		et les pauses se terminent dès que la séquence fait avancer l'horloge. Après chaque signal, le banc vérifie que:
+ * 	</p>
+ * 	<ul>
+ * 		<li>la cabine reste entre le premier et le dernier niveau desservis, et n'est pas lancée au-delà;</li>
+ * 		<li>aucun appel n'est enregistré en arrêt d'urgence;</li>
+ * 		<li>le sens est celui du mouvement en montée et en descente;</li>
+ * 		<li>aucune exception ne sort du modèle, hormis le refus d'un bouton qui n'existe pas.</li>
+ * 	</ul>
+ * 	<p>
+ * 		À la fin de la séquence, l'arrêt d'urgence est levé, la cabine est vidée et un moteur docile l'emmène de niveau
+ * 		en niveau: tous les signaux restants doivent être servis en un nombre borné de pas (aucun appel n'attend indéfiniment).
+ * 	</p>
+ * 	<p>
+ * 		Une séquence fautive est réduite, en retirant des tranches de signaux puis en simplifiant leurs paramètres tant que
+ * 		le même invariant est violé, et affichée sous forme d'appels au modèle à recopier dans un programme de reproduction.
+ * 	</p>
+ * 	<pre>
+ * 		java simulation.FuzzeurModele [--duree=60] [--graine=1] [--longueur=200]
+ * 	</pre>
+ * 	<p>
+ * 		<code>--duree</code> est en secondes de temps réel. Le programme se termine avec le code 1 si un invariant est violé.
+ * 	</p>
+ */
+public class FuzzeurModele {
+
+	private static final int DEMANDE = 0, MONTER = 1, DESCENDRE = 2, LOT = 3, RETIRER = 4, NIVEAU_ATTEINT = 5,
+			PAS_MOTEUR = 6, URGENCE = 7, PASSAGE = 8, FERMER = 9, CHARGE = 10, TEMPS = 11, TACHE = 12;
+
+	private static final String[] NOMS = { "demandeNiveau", "monterNiveau", "descendreNiveau", "soumettreSignaux",
+			"retirerAppel", "niveauAtteint", "niveauAtteint", "arretUrgence", "detectionPassage", "fermerPortes",
+			"chargeCabine", "horloge.avancer", "horloge.avancerJusquaProchaineTache" };
+
+	/** Poids de tirage de chaque type de signal: le moteur docile et le temps dominent pour que la cabine circule. */
+	private static final int[] POIDS = { 10, 8, 8, 3, 2, 3, 25, 1, 3, 2, 2, 20, 8 };
+
+	/** Nombre maximal de pas du vidage, par niveau desservi. */
+	private static final int PAS_VIDAGE_PAR_NIVEAU = 40;
+
+	/**
+	 * Configuration d'un cas, tirée de sa graine.
+	 */
+	private static class Cas {
+		private final long graine;
+		private final Zonage zonage;
+		private final boolean anticipation;
+		private final long attenteMaximale;
+
+		private Cas(long graine) {
+			this.graine = graine;
+			Random aleatoire = new Random(graine);
+
+			int premier = aleatoire.nextInt(5) - 2;
+			int dernier = premier + 1 + aleatoire.nextInt(aleatoire.nextBoolean() ? 4 : 20);
+			if (aleatoire.nextInt(3) == 0) {
+				List<Integer> niveaux = new ArrayList<>();
+				for (int niveau = premier; niveau <= dernier; niveau++)
+					if (niveau == premier || niveau == dernier || aleatoire.nextBoolean())
+						niveaux.add(niveau);
+				zonage = new Zonage(premier, dernier, niveaux.stream().mapToInt(Integer::intValue).toArray(), new int[0]);
+			}
+			else
+				zonage = new Zonage(premier, dernier);
+
+			anticipation = aleatoire.nextInt(4) == 0;
+			attenteMaximale = aleatoire.nextBoolean() ? 0 : 10_000 + aleatoire.nextInt(60_000);
+		}
+
+		@Override
+		public String toString() {
+			return "graine " + graine + ", niveaux desservis " + Arrays.toString(zonage.getNiveauxDesservis())
+					+ ", stratégie " + (anticipation ? "anticipation" : "collective") + ", attente maximale " + attenteMaximale + " ms";
+		}
+	}
+
+	private long nombreCas, nombrePas;
+
+	public static void main(String[] args) {
+		long duree = 60_000;
+		long graine = 1;
+		int longueur = 200;
+
+		for (String arg : args) {
+			if (arg.startsWith("--duree="))
+				duree = Long.parseLong(arg.substring("--duree=".length())) * 1000;
+			else if (arg.startsWith("--graine="))
+				graine = Long.parseLong(arg.substring("--graine=".length()));
+			else if (arg.startsWith("--longueur="))
+				longueur = Integer.parseInt(arg.substring("--longueur=".length()));
+		}
+
+		// Le modèle affiche chaque niveau atteint et chaque signal refusé
+		PrintStream sortie = System.out;
+		PrintStream nulle = new PrintStream(OutputStream.nullOutputStream());
+		System.setOut(nulle);
+		System.setErr(nulle);
+
+		FuzzeurModele fuzzeur = new FuzzeurModele();
+		Map<String, String> defauts = fuzzeur.explorer(duree, graine, longueur);
+
+		sortie.println(fuzzeur.nombreCas + " séquences, " + fuzzeur.nombrePas + " signaux ("
+				+ Math.round(fuzzeur.nombrePas * 60_000.0 / duree) + " par minute), " + defauts.size() + " invariant(s) violé(s).");
+		for (String reproduction : defauts.values())
+			sortie.println(reproduction);
+
+		System.exit(defauts.isEmpty() ? 0 : 1);
+	}
+
+	/**
+	 * Exécute des cas pendant <code>duree</code> millisecondes.
+	 *
+	 * @return Pour chaque invariant violé, la plus courte séquence trouvée après réduction, mise en forme.
+	 */
+	public Map<String, String> explorer(long duree, long graine, int longueur) {
+		Map<String, String> defauts = new LinkedHashMap<>();
+		Random aleatoire = new Random(graine);
+		long fin = System.currentTimeMillis() + duree;
+
+		while (System.currentTimeMillis() < fin) {
+			Cas cas = new Cas(aleatoire.nextLong());
+			List<int[]> sequence = tirer(cas, aleatoire, longueur);
+			String defaut = executer(cas, sequence);
+			nombreCas++;
+
+			if (defaut != null && !defauts.containsKey(defaut)) {
+				List<int[]> reduite = reduire(cas, sequence, defaut);
+				defauts.put(defaut, formater(cas, reduite, defaut));
+			}
+		}
+
+		return defauts;
+	}
+
+	/*														*/
+	/* séquences												*/
+	/* 														*/
+
+	private static List<int[]> tirer(Cas cas, Random aleatoire, int longueur) {
+		int[] niveaux = cas.zonage.getNiveauxDesservis();
+		int total = Arrays.stream(POIDS).sum();
+		List<int[]> sequence = new ArrayList<>(longueur);
+
+		for (int i = 0; i < longueur; i++) {
+			int tirage = aleatoire.nextInt(total), type = 0;
+			while (tirage >= POIDS[type])
+				tirage -= POIDS[type++];
+
+			int parametre = 0;
+			switch (type) {
+				case DEMANDE:
+				case MONTER:
+				case DESCENDRE:
+					parametre = niveau(cas, niveaux, aleatoire);
+					break;
+				case LOT:
+					parametre = aleatoire.nextInt(1 << 16);
+					break;
+				case RETIRER:
+					parametre = 2 * niveau(cas, niveaux, aleatoire) + aleatoire.nextInt(2);
+					break;
+				case CHARGE:
+					parametre = aleatoire.nextInt(800);
+					break;
+				case TEMPS:
+					parametre = aleatoire.nextInt(4) == 0 ? aleatoire.nextInt(200) : aleatoire.nextInt(12_000);
+					break;
+				default:
+					break;
+			}
+			sequence.add(new int[] { type, parametre });
+		}
+
+		return sequence;
+	}
+
+	/**
+	 * Tire un niveau, de préférence aux extrémités de la gaine, juste au-delà, ou un niveau desservi.
+	 */
+	private static int niveau(Cas cas, int[] niveaux, Random aleatoire) {
+		switch (aleatoire.nextInt(8)) {
+			case 0:
+				return cas.zonage.getPremierNiveau() - 1 + aleatoire.nextInt(2);
+			case 1:
+				return cas.zonage.getDernierNiveau() + aleatoire.nextInt(2);
+			case 2:
+				return cas.zonage.getPremierNiveau() + aleatoire.nextInt(cas.zonage.getDernierNiveau() - cas.zonage.getPremierNiveau() + 1);
+			default:
+				return niveaux[aleatoire.nextInt(niveaux.length)];
+		}
+	}
+
+	/*														*/
+	/* exécution												*/
+	/* 														*/
+
+	/**
+	 * Rejoue une séquence sur un nouveau modèle, puis la vide avec un moteur docile.
+	 *
+	 * @return L'invariant violé, <code>null</code> si aucun.
+	 */
+	private String executer(Cas cas, List<int[]> sequence) {
+		HorlogeVirtuelle horloge = new HorlogeVirtuelle();
+		Modele modele = new Modele(cas.zonage, horloge);
+		if (cas.anticipation)
+			modele.setStrategie(new StrategieAnticipation());
+		modele.setAttenteMaximale(cas.attenteMaximale);
+
+		try {
+			for (int[] signal : sequence) {
+				appliquer(modele, horloge, signal[0], signal[1]);
+				nombrePas++;
+
+				String defaut = verifier(modele);
+				if (defaut != null)
+					return defaut;
+			}
+
+			return vider(modele, horloge);
+		} catch (RuntimeException e) {
+			return "exception " + e.getClass().getSimpleName() + " : " + e.getMessage();
+		}
+	}
+
+	private static void appliquer(Modele modele, HorlogeVirtuelle horloge, int type, int parametre) {
+		try {
+			switch (type) {
+				case DEMANDE:
+					modele.demandeNiveau(parametre);
+					break;
+				case MONTER:
+					modele.monterNiveau(parametre);
+					break;
+				case DESCENDRE:
+					modele.descendreNiveau(parametre);
+					break;
+				case LOT:
+					modele.soumettreSignaux(lot(modele.getZonage(), parametre));
+					break;
+				case RETIRER:
+					modele.retirerAppel(Math.floorDiv(parametre, 2), Math.floorMod(parametre, 2) == 0 ? Sens.MONTER : Sens.DESCENDRE);
+					break;
+				case NIVEAU_ATTEINT:
+					modele.niveauAtteint();
+					break;
+				case PAS_MOTEUR:
+					if (enMouvement(modele))
+						modele.niveauAtteint();
+					break;
+				case URGENCE:
+					modele.arretUrgence();
+					break;
+				case PASSAGE:
+					modele.detectionPassage();
+					break;
+				case FERMER:
+					modele.fermerPortes();
+					break;
+				case CHARGE:
+					modele.chargeCabine(parametre);
+					break;
+				case TEMPS:
+					horloge.avancer(parametre);
+					break;
+				default:
+					horloge.avancerJusquaProchaineTache();
+					break;
+			}
+		} catch (IllegalArgumentException e) {
+			// Bouton qui n'existe pas: refus documenté
+		}
+	}
+
+	/**
+	 * @return Un lot de un à quatre signaux tiré de <code>graine</code>, niveaux hors de la gaine compris.
+	 */
+	private static LotSignaux lot(Zonage zonage, int graine) {
+		Random aleatoire = new Random(graine);
+		LotSignaux lot = new LotSignaux();
+
+		for (int i = 1 + aleatoire.nextInt(4); i > 0; i--)
+			lot.ajouter(aleatoire.nextInt(3), zonage.getPremierNiveau() - 1 + aleatoire.nextInt(zonage.getDernierNiveau() - zonage.getPremierNiveau() + 3));
+		return lot;
+	}
+
+	private static boolean enMouvement(Modele modele) {
+		Etat etat = modele.getEtatCourant();
+		return etat == Etat.MONTER || etat == Etat.DESCENDRE || etat == Etat.ARRET_PRO_NIV;
+	}
+
+	/**
+	 * @return L'invariant violé par l'état courant du modèle, <code>null</code> si aucun.
+	 */
+	private static String verifier(Modele modele) {
+		int[] niveaux = modele.getNiveauxDesservis();
+		int bas = niveaux[0], haut = niveaux[niveaux.length - 1];
+		int niveau = modele.getNiveauCourant();
+		Etat etat = modele.getEtatCourant();
+		Sens sens = modele.getSens();
+
+		if (niveau < bas || niveau > haut)
+			return "cabine hors des niveaux desservis";
+		if (enMouvement(modele) && ((sens == Sens.MONTER && niveau == haut) || (sens == Sens.DESCENDRE && niveau == bas)))
+			return "cabine lancée au-delà du dernier niveau desservi";
+		if ((etat == Etat.MONTER && sens != Sens.MONTER) || (etat == Etat.DESCENDRE && sens != Sens.DESCENDRE))
+			return "sens incohérent avec le mouvement";
+		if (etat == Etat.ARRET_URGENCE && !modele.getSignaux().capturer().estVide())
+			return "appel enregistré en arrêt d'urgence";
+		return null;
+	}
+
+	/**
+	 * Lève l'arrêt d'urgence, vide la cabine et la laisse servir les signaux restants.
+	 *
+	 * @return L'invariant violé, <code>null</code> si tous les signaux sont servis.
+	 */
+	private String vider(Modele modele, HorlogeVirtuelle horloge) {
+		if (modele.getEtatCourant() == Etat.ARRET_URGENCE)
+			modele.arretUrgence();
+		modele.chargeCabine(0);
+
+		int pasMax = PAS_VIDAGE_PAR_NIVEAU * modele.getNiveauxDesservis().length;
+		for (int pas = 0; pas < pasMax; pas++) {
+			SignauxCompacts signaux = modele.getSignaux().capturer();
+			if (signaux.estVide() && modele.getEtatCourant() == Etat.ATTENTE_SIGNAL)
+				return null;
+
+			if (enMouvement(modele))
+				modele.niveauAtteint();
+			else if (!horloge.avancerJusquaProchaineTache())
+				return "appel jamais servi";
+			nombrePas++;
+
+			String defaut = verifier(modele);
+			if (defaut != null)
+				return defaut;
+		}
+
+		return "appel jamais servi";
+	}
+
+	/*														*/
+	/* réduction												*/
+	/* 														*/
+
+	/**
+	 * Retire des tranches de signaux de plus en plus courtes, puis simplifie les paramètres,
+	 * tant que la séquence viole toujours le même invariant.
+	 */
+	private List<int[]> reduire(Cas cas, List<int[]> sequence, String defaut) {
+		List<int[]> courante = new ArrayList<>(sequence);
+
+		for (int taille = Math.max(1, courante.size() / 2); taille >= 1; taille /= 2) {
+			boolean progres;
+			do {
+				progres = false;
+				for (int debut = 0; debut < courante.size(); ) {
+					List<int[]> essai = new ArrayList<>(courante.subList(0, debut));
+					essai.addAll(courante.subList(Math.min(courante.size(), debut + taille), courante.size()));
+
+					if (defaut.equals(executer(cas, essai))) {
+						courante = essai;
+						progres = true;
+					}
+					else
+						debut += taille;
+				}
+			} while (progres && taille == 1);
+		}
+
+		// Des durées et des charges plus petites rendent la reproduction plus lisible
+		for (int i = 0; i < courante.size(); i++) {
+			int[] signal = courante.get(i);
+			if (signal[0] != TEMPS && signal[0] != CHARGE)
+				continue;
+
+			for (int parametre = 0; parametre < signal[1]; parametre = parametre == 0 ? 1 : parametre * 2) {
+				List<int[]> essai = new ArrayList<>(courante);
+				essai.set(i, new int[] { signal[0], parametre });
+				if (defaut.equals(executer(cas, essai))) {
+					courante = essai;
+					break;
+				}
+			}
+		}
+
+		return courante;
+	}
+
+	private static String formater(Cas cas, List<int[]> sequence, String defaut) {
+		StringBuilder texte = new StringBuilder();
+		texte.append("Invariant violé : ").append(defaut).append(" (").append(cas).append(")\n");
+
+		for (int[] signal : sequence) {
+			texte.append("\t");
+			switch (signal[0]) {
+				case LOT:
+					texte.append("modele.soumettreSignaux(").append(decrireLot(lot(cas.zonage, signal[1]))).append(");");
+					break;
+				case RETIRER:
+					texte.append("modele.retirerAppel(").append(Math.floorDiv(signal[1], 2)).append(", Sens.")
+							.append(Math.floorMod(signal[1], 2) == 0 ? "MONTER" : "DESCENDRE").append(");");
+					break;
+				case DEMANDE:
+				case MONTER:
+				case DESCENDRE:
+				case CHARGE:
+				case TEMPS:
+					texte.append(signal[0] >= TEMPS ? "" : "modele.").append(NOMS[signal[0]]).append("(").append(signal[1]).append(");");
+					break;
+				case PAS_MOTEUR:
+					texte.append("modele.niveauAtteint(); // en mouvement");
+					break;
+				default:
+					texte.append(signal[0] >= TEMPS ? "" : "modele.").append(NOMS[signal[0]]).append("();");
+					break;
+			}
+			texte.append("\n");
+		}
+		texte.append("\t// puis vidage: arrêt d'urgence levé, cabine vide, moteur docile");
+
+		return texte.toString();
+	}
+
+	private static String decrireLot(LotSignaux lot) {
+		StringBuilder texte = new StringBuilder("new LotSignaux()");
+		String[] types = { "demandeNiveau", "monterNiveau", "descendreNiveau" };
+
+		for (int i = 0; i < lot.getTaille(); i++)
+			texte.append(".").append(types[lot.getType(i)]).append("(").append(lot.getNiveau(i)).append(")");
+		return texte.toString();
+	}
+}
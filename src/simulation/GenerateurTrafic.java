@@ -0,0 +1,94 @@
+package simulation;
+
+import java.util.Random;
+
+import util.Horloge;
+
+/**
+ * 	<p>
+ * 		Générateur d'arrivées de passagers selon un {@link ProfilTrafic profil de trafic}.
+ * 	</p>
+ * 	<p>
+ * 		Les arrivées suivent un processus de Poisson de débit donné. Le générateur est déterministe
+ * 		pour une graine donnée, ce qui rend les simulations reproductibles.
+ * 	</p>
+ */
+public class GenerateurTrafic {
+	/** Part des déplacements entre étages dans le profil mixte, en pourcentage. */
+	private final int PART_INTERETAGE_MIXTE = 20;
+
+	private SimulateurPassagers simulateur;
+	private Horloge horloge;
+	private int[] niveaux;
+	private ProfilTrafic profil;
+	private double intervalleMoyen;
+	private long fin;
+	private Random aleatoire;
+
+	/**
+	 * @param niveaux Niveaux desservis, le premier étant le hall.
+	 * @param debit Nombre moyen d'arrivées par minute.
+	 * @param duree Durée de la génération en millisecondes, à partir du démarrage.
+	 */
+	public GenerateurTrafic(SimulateurPassagers simulateur, Horloge horloge, int[] niveaux, ProfilTrafic profil,
+			double debit, long duree, long graine) {
+		this.simulateur = simulateur;
+		this.horloge = horloge;
+		this.niveaux = niveaux;
+		this.profil = profil;
+		this.intervalleMoyen = 60_000 / debit;
+		this.fin = horloge.getTempsCourant() + duree;
+		this.aleatoire = new Random(graine);
+	}
+
+	/**
+	 * Planifie la première arrivée. Les suivantes sont planifiées au fur et à mesure.
+	 */
+	public void demarrer() {
+		planifierArrivee();
+	}
+
+	private void planifierArrivee() {
+		long delai = Math.round(-Math.log(1 - aleatoire.nextDouble()) * intervalleMoyen);
+
+		if (horloge.getTempsCourant() + delai <= fin)
+			horloge.planifier(this::arrivee, delai);
+	}
+
+	private void arrivee() {
+		int hall = niveaux[0];
+		ProfilTrafic profil = this.profil;
+
+		if (profil == ProfilTrafic.MIXTE) {
+			int tirage = aleatoire.nextInt(100);
+			if (tirage < PART_INTERETAGE_MIXTE)
+				profil = ProfilTrafic.INTERETAGE;
+			else
+				profil = tirage % 2 == 0 ? ProfilTrafic.MONTANT : ProfilTrafic.DESCENDANT;
+		}
+
+		switch (profil) {
+			case MONTANT:
+				simulateur.ajouterPassager(hall, etage());
+				break;
+			case DESCENDANT:
+				simulateur.ajouterPassager(etage(), hall);
+				break;
+			default:
+				int origine = niveaux[aleatoire.nextInt(niveaux.length)];
+				int destination;
+				do {
+					destination = niveaux[aleatoire.nextInt(niveaux.length)];
+				} while (destination == origine);
+				simulateur.ajouterPassager(origine, destination);
+				break;
+		}
+
+		planifierArrivee();
+	}
+
+	/** @return Un niveau desservi autre que le hall, tiré uniformément. */
+	private int etage() {
+		return niveaux[1 + aleatoire.nextInt(niveaux.length - 1)];
+	}
+}
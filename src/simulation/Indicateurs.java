@@ -0,0 +1,146 @@
+package simulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * 	<p>
+ * 		Indicateurs de qualité de service calculés à partir des passagers arrivés à destination:
+ * 	</p>
+ * 	<ul>
+ * 		<li>temps d'attente moyen, 95<sup>e</sup> et 99<sup>e</sup> centiles (secondes),</li>
+ * 		<li>temps de trajet moyen, de l'arrivée au palier à l'arrivée à destination (secondes),</li>
+ * 		<li>capacité de transport: nombre maximal de passagers arrivés à destination en 5 minutes,</li>
+ * 		<li>nombre moyen d'arrêts intermédiaires par trajet.</li>
+ * 	</ul>
+ */
+public class Indicateurs {
+	public static final String[] NOMS = {
+		"ATTENTE_MOYENNE", "ATTENTE_P95", "ATTENTE_P99", "TRAJET_MOYEN", "CAPACITE_5_MIN", "ARRETS_PAR_TRAJET"
+	};
+	/** Pour chaque indicateur, <code>true</code> si une valeur plus grande est meilleure. */
+	private static final boolean[] HAUSSE_FAVORABLE = { false, false, false, false, true, false };
+
+	private static final long CINQ_MINUTES = 5 * 60_000;
+
+	private double[] valeurs;
+	private int passagersServis;
+
+	private Indicateurs(double[] valeurs, int passagersServis) {
+		this.valeurs = valeurs;
+		this.passagersServis = passagersServis;
+	}
+
+	public static Indicateurs calculer(List<Passager> arrives) {
+		int n = arrives.size();
+		double[] valeurs = new double[NOMS.length];
+
+		if (n == 0)
+			return new Indicateurs(valeurs, 0);
+
+		long[] attentes = new long[n], debarquements = new long[n];
+		double sommeTrajets = 0, sommeArrets = 0;
+
+		for (int i = 0; i < n; i++) {
+			Passager passager = arrives.get(i);
+			attentes[i] = passager.getTempsAttente();
+			debarquements[i] = passager.getTempsDebarquement();
+			sommeTrajets += passager.getTempsTrajet();
+			sommeArrets += passager.getArretsIntermediaires();
+		}
+
+		Arrays.sort(attentes);
+		Arrays.sort(debarquements);
+
+		valeurs[0] = Arrays.stream(attentes).average().getAsDouble() / 1000;
+		valeurs[1] = attentes[(int) Math.ceil(0.95 * n) - 1] / 1000.0;
+		valeurs[2] = attentes[(int) Math.ceil(0.99 * n) - 1] / 1000.0;
+		valeurs[3] = sommeTrajets / n / 1000;
+		valeurs[4] = capaciteMaximale(debarquements);
+		valeurs[5] = sommeArrets / n;
+
+		return new Indicateurs(valeurs, n);
+	}
+
+	/** Plus grand nombre d'arrivées à destination dans une fenêtre glissante de 5 minutes. */
+	private static int capaciteMaximale(long[] debarquements) {
+		int maximum = 0;
+
+		for (int debut = 0, fin = 0; fin < debarquements.length; fin++) {
+			while (debarquements[fin] - debarquements[debut] >= CINQ_MINUTES)
+				debut++;
+			maximum = Math.max(maximum, fin - debut + 1);
+		}
+
+		return maximum;
+	}
+
+	public double getValeur(String nom) {
+		return valeurs[indice(nom)];
+	}
+
+	public int getPassagersServis() {
+		return passagersServis;
+	}
+
+	private static int indice(String nom) {
+		for (int i = 0; i < NOMS.length; i++)
+			if (NOMS[i].equals(nom))
+				return i;
+
+		throw new IllegalArgumentException("Indicateur inconnu: " + nom);
+	}
+
+	/**
+	 * Compare ces indicateurs à ceux d'une référence.
+	 * 
+	 * @param tolerance Dégradation relative tolérée, en pourcentage.
+	 * @return La description des indicateurs dégradés au-delà de la tolérance, vide s'il n'y en a aucun.
+	 */
+	public List<String> regressions(Indicateurs reference, double tolerance) {
+		List<String> regressions = new ArrayList<>();
+
+		for (int i = 0; i < NOMS.length; i++) {
+			double ancien = reference.valeurs[i], nouveau = valeurs[i];
+			double degradation = HAUSSE_FAVORABLE[i] ? ancien - nouveau : nouveau - ancien;
+			double marge = Math.abs(ancien) * tolerance / 100;
+
+			if (degradation > marge + 1e-9)
+				regressions.add(String.format(Locale.ROOT, "%s: %.3f -> %.3f", NOMS[i], ancien, nouveau));
+		}
+
+		// Un passager jamais servi n'apparaît pas dans les autres indicateurs
+		if (passagersServis < reference.passagersServis)
+			regressions.add("PASSAGERS_SERVIS: " + reference.passagersServis + " -> " + passagersServis);
+
+		return regressions;
+	}
+
+	public Properties enProprietes() {
+		Properties proprietes = new Properties();
+
+		for (int i = 0; i < NOMS.length; i++)
+			proprietes.setProperty(NOMS[i], String.format(Locale.ROOT, "%.3f", valeurs[i]));
+		proprietes.setProperty("PASSAGERS_SERVIS", Integer.toString(passagersServis));
+
+		return proprietes;
+	}
+
+	public static Indicateurs depuisProprietes(Properties proprietes) {
+		double[] valeurs = new double[NOMS.length];
+
+		for (int i = 0; i < NOMS.length; i++)
+			valeurs[i] = Double.parseDouble(proprietes.getProperty(NOMS[i], "NaN"));
+
+		return new Indicateurs(valeurs, Integer.parseInt(proprietes.getProperty("PASSAGERS_SERVIS", "0")));
+	}
+
+	@Override
+	public String toString() {
+		return String.format(Locale.ROOT, "attente moy. %.1f s, attente p95 %.1f s, p99 %.1f s, trajet moy. %.1f s, capacité %d pass./5 min, "
+				+ "%.2f arrêts/trajet (%d passagers)", valeurs[0], valeurs[1], valeurs[2], valeurs[3], (int) valeurs[4], valeurs[5], passagersServis);
+	}
+}
@@ -0,0 +1,279 @@
+package simulation;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.TimerTask;
+
+import modele.IModele;
+import util.Etat;
+import util.Horloge;
+import util.Sens;
+
+/**
+ * 	<p>
+ * 		Simulateur du moteur de traction et de la gaine de l'ascenseur.
+ * 	</p>
+ * 	<p>
+ * 		Le moteur reçoit ses commandes en observant l'attribut <code>etatCourant</code> du modèle et intègre
+ * 		la position, la vitesse et l'accélération de la cabine par pas de temps fixes, en respectant la vitesse
+ * 		nominale, l'accélération maximale et le jerk (variation de l'accélération) de l'installation.
+ * 	</p>
+ * 	<p>
+ * 		Il envoie lui-même le signal {@link IModele#niveauAtteint() niveauAtteint} lorsque la cabine franchit un niveau
+ * 		ou s'immobilise au niveau demandé par la commande <code>ARRET_PRO_NIV</code>. Le freinage commence à la distance
+ * 		de freinage de la cabine, de sorte que l'arrêt se fasse exactement au niveau.
+ * 	</p>
+ * 	<p>
+ * 		Les pas de temps sont cadencés par une {@link Horloge}: réelle pour l'interface graphique,
+ * 		virtuelle pour les simulations.
+ * 	</p>
+ */
+public class MoteurTraction implements PropertyChangeListener {
+	/** Pas d'intégration en millisecondes. */
+	private final long PAS = 20;
+	/** Vitesse en dessous de laquelle la cabine se met à niveau à vitesse constante (m/s). */
+	private final double VITESSE_ISONIVELAGE = 0.05;
+	/** Distance en dessous de laquelle la cabine est considérée à niveau (m). */
+	private final double TOLERANCE = 0.005;
+	/** Décélération appliquée lors d'un arrêt d'urgence (m/s²). */
+	private final double DECELERATION_URGENCE = 2.5;
+
+	private final double HAUTEUR_NIVEAU, VITESSE_NOMINALE, ACCELERATION, JERK;
+
+	private IModele modele;
+	private Horloge horloge;
+	private TimerTask tache;
+
+	private volatile Etat commande;
+	/** Position de la cabine en mètres, mesurée depuis le premier niveau. */
+	private double position;
+	private double vitesse, acceleration;
+
+	private double distanceParcourue;
+	private int nombreDemarrages;
+
+	/**
+	 * Construit un moteur aux caractéristiques courantes d'un ascenseur de bureaux:
+	 * 3 m entre niveaux, 1,6 m/s, 0,8 m/s² et 1,2 m/s³.
+	 */
+	public MoteurTraction(IModele modele, Horloge horloge) {
+		this(modele, horloge, 3.0, 1.6, 0.8, 1.2);
+	}
+
+	/**
+	 * @param hauteurNiveau Distance entre deux niveaux (m).
+	 * @param vitesseNominale Vitesse nominale de la cabine (m/s).
+	 * @param acceleration Accélération et décélération maximales (m/s²).
+	 * @param jerk Variation maximale de l'accélération (m/s³).
+	 * 
+	 * @throws IllegalArgumentException si la cabine lancée à sa vitesse nominale ne peut pas s'arrêter
+	 * 		en un niveau, ce qui rendrait la commande <code>ARRET_PRO_NIV</code> impossible à respecter.
+	 */
+	public MoteurTraction(IModele modele, Horloge horloge, double hauteurNiveau, double vitesseNominale,
+			double acceleration, double jerk) {
+		HAUTEUR_NIVEAU = hauteurNiveau;
+		VITESSE_NOMINALE = vitesseNominale;
+		ACCELERATION = acceleration;
+		JERK = jerk;
+
+		if (distanceFreinage(VITESSE_NOMINALE) > HAUTEUR_NIVEAU)
+			throw new IllegalArgumentException("La distance de freinage (" + distanceFreinage(VITESSE_NOMINALE)
+					+ " m) dépasse la hauteur d'un niveau (" + HAUTEUR_NIVEAU + " m).");
+
+		this.modele = modele;
+		this.horloge = horloge;
+		commande = modele.getEtatCourant();
+		position = hauteur(modele.getNiveauCourant());
+		modele.ajouterEcouteur(this);
+	}
+
+	/**
+	 * Démarre l'intégration périodique du mouvement de la cabine.
+	 */
+	public void demarrer() {
+		if (tache == null)
+			tache = horloge.planifierPeriodique(this::pas, PAS);
+	}
+
+	/**
+	 * Interrompt l'intégration du mouvement de la cabine.
+	 */
+	public void arreter() {
+		if (tache != null) {
+			tache.cancel();
+			tache = null;
+		}
+	}
+
+	@Override
+	public void propertyChange(PropertyChangeEvent event) {
+		if (event.getPropertyName().equals("etatCourant"))
+			commande = (Etat) event.getNewValue();
+	}
+
+	/**
+	 * Distance nécessaire pour arrêter la cabine lancée à <code>vitesse</code>,
+	 * en tenant compte de la montée progressive de la décélération.
+	 */
+	public double distanceFreinage(double vitesse) {
+		return vitesse * vitesse / (2 * ACCELERATION) + vitesse * ACCELERATION / (2 * JERK);
+	}
+
+	/**
+	 * Avance la simulation d'un pas de temps.
+	 */
+	private void pas() {
+		double dt = PAS / 1000.0;
+		Etat commande = this.commande;
+
+		if (commande == Etat.ARRET_URGENCE) {
+			freinerUrgence(dt);
+			return;
+		}
+
+		int direction = modele.getSens() == Sens.MONTER ? 1 : -1;
+
+		switch (commande) {
+			case MONTER:
+			case DESCENDRE:
+				direction = commande == Etat.MONTER ? 1 : -1;
+				integrer(accelerationVers(direction * VITESSE_NOMINALE, dt), dt);
+				detecterPassageNiveau(direction);
+				break;
+			case ARRET_PRO_NIV:
+				approcherNiveau(direction, dt);
+				break;
+			default:
+				integrer(accelerationVers(0, dt), dt);
+				break;
+		}
+	}
+
+	/**
+	 * Conduit la cabine jusqu'au prochain niveau dans le sens <code>direction</code> et l'y arrête.
+	 */
+	private void approcherNiveau(int direction, double dt) {
+		double cible = hauteur(modele.getNiveauCourant() + direction);
+		double distance = (cible - position) * direction;
+
+		if (distance > TOLERANCE) {
+			double vitesseAbsolue = Math.abs(vitesse);
+
+			if (distance <= distanceFreinage(vitesseAbsolue) + vitesseAbsolue * dt)
+				integrer(-direction * vitesseAbsolue * vitesseAbsolue / (2 * distance), dt);
+			else
+				integrer(accelerationVers(direction * VITESSE_NOMINALE, dt), dt);
+
+			distance = (cible - position) * direction;
+
+			// Fin d'approche à petite vitesse pour se mettre à niveau
+			if (distance > TOLERANCE && vitesse * direction < VITESSE_ISONIVELAGE) {
+				vitesse = direction * VITESSE_ISONIVELAGE;
+				acceleration = 0;
+			}
+		}
+
+		if (distance <= TOLERANCE) {
+			distanceParcourue += Math.abs(cible - position);
+			position = cible;
+			vitesse = 0;
+			acceleration = 0;
+			modele.niveauAtteint();
+		}
+	}
+
+	/**
+	 * Envoie le signal "niveau atteint" lorsque la cabine franchit le niveau suivant.
+	 */
+	private void detecterPassageNiveau(int direction) {
+		int prochainNiveau = modele.getNiveauCourant() + direction;
+
+		if (prochainNiveau < modele.getPremierNiveau() || prochainNiveau > modele.getDernierNiveau()) {
+			// Ne jamais sortir de la gaine
+			position = hauteur(modele.getNiveauCourant());
+			vitesse = 0;
+			acceleration = 0;
+			return;
+		}
+
+		if ((position - hauteur(prochainNiveau)) * direction >= 0)
+			modele.niveauAtteint();
+	}
+
+	/**
+	 * Calcule l'accélération à demander pour rejoindre la vitesse <code>vitesseCible</code> sans la dépasser,
+	 * en commençant à réduire l'accélération suffisamment tôt compte tenu du jerk.
+	 */
+	private double accelerationVers(double vitesseCible, double dt) {
+		double ecart = vitesseCible - vitesse;
+
+		if (ecart * acceleration > 0 && Math.abs(ecart) <= acceleration * acceleration / (2 * JERK))
+			return 0;
+
+		return Math.max(-ACCELERATION, Math.min(ACCELERATION, ecart / dt));
+	}
+
+	/**
+	 * Intègre le mouvement de la cabine sur un pas de temps, l'accélération rejoignant
+	 * <code>consigne</code> à la vitesse permise par le jerk.
+	 */
+	private void integrer(double consigne, double dt) {
+		double variationMax = JERK * dt;
+		double ancienneVitesse = vitesse;
+
+		acceleration += Math.max(-variationMax, Math.min(variationMax, consigne - acceleration));
+		vitesse = Math.max(-VITESSE_NOMINALE, Math.min(VITESSE_NOMINALE, vitesse + acceleration * dt));
+
+		if (ancienneVitesse == 0 && vitesse != 0)
+			nombreDemarrages++;
+
+		deplacer((ancienneVitesse + vitesse) / 2 * dt);
+	}
+
+	private void freinerUrgence(double dt) {
+		double ancienneVitesse = vitesse;
+		double reduction = DECELERATION_URGENCE * dt;
+
+		acceleration = 0;
+		if (Math.abs(vitesse) <= reduction)
+			vitesse = 0;
+		else
+			vitesse -= Math.signum(vitesse) * reduction;
+
+		deplacer((ancienneVitesse + vitesse) / 2 * dt);
+	}
+
+	private void deplacer(double deplacement) {
+		position += deplacement;
+		distanceParcourue += Math.abs(deplacement);
+	}
+
+	private double hauteur(int niveau) {
+		return (niveau - modele.getPremierNiveau()) * HAUTEUR_NIVEAU;
+	}
+
+	/** @return La position de la cabine en mètres, mesurée depuis le premier niveau. */
+	public double getPosition() {
+		return position;
+	}
+
+	/** @return La vitesse de la cabine en m/s, positive à la montée. */
+	public double getVitesse() {
+		return vitesse;
+	}
+
+	/** @return L'accélération de la cabine en m/s². */
+	public double getAcceleration() {
+		return acceleration;
+	}
+
+	/** @return La distance totale parcourue par la cabine en mètres. */
+	public double getDistanceParcourue() {
+		return distanceParcourue;
+	}
+
+	/** @return Le nombre de démarrages de la cabine depuis l'arrêt. */
+	public int getNombreDemarrages() {
+		return nombreDemarrages;
+	}
+}
@@ -0,0 +1,343 @@
+package simulation;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 	<p>
+ * 		Réglage hors ligne des paramètres de desserte d'un bâtiment.
+ * 	</p>
+ * 	<p>
+ * 		Chaque configuration essayée est une copie du scénario de base dont quelques propriétés sont remplacées
+ * 		(stratégie, durées de pause, attente maximale, stationnement...). Les configurations sont simulées
+ * 		sans interface graphique, en parallèle sur tous les processeurs, et l'outil affiche le front de Pareto
+ * 		entre le temps d'attente et l'énergie, estimée par le nombre de démarrages du moteur.
+ * 	</p>
+ * 	<p>
+ * 		Trois recherches sont proposées:
+ * 	</p>
+ * 	<ul>
+ * 		<li><code>grille</code>: toutes les combinaisons de valeurs,</li>
+ * 		<li><code>aleatoire</code>: <code>--essais</code> combinaisons tirées au hasard,</li>
+ * 		<li><code>locale</code>: un tirage aléatoire, puis à chaque tour les voisins des configurations du front
+ * 		(une valeur décalée d'un cran), jusqu'à ce que le front ne bouge plus.</li>
+ * 	</ul>
+ * 	<pre>
+ * 		java simulation.Optimiseur ../scenarios/bureaux-midi.properties
+ * 			--parametre=DUREE_PAUSE_APPEL=3000..9000:1000 --parametre=STRATEGIE=collective,anticipation
+ * 			[--recherche=grille] [--essais=32] [--tours=5] [--attente=ATTENTE_MOYENNE] [--graine=1]
+ * 	</pre>
+ * 	<p>
+ * 		Les valeurs d'un paramètre sont une liste séparée par des virgules ou un intervalle <code>min..max:pas</code>.
+ * 	</p>
+ */
+public class Optimiseur {
+
+	private static final int ESSAIS = 32, TOURS = 5;
+
+	private final Properties base;
+	private final Map<String, List<String>> espace;
+	private final String attente;
+	private final ExecutorService executeur;
+	/**
+	 * Flux des erreurs de la recherche, <code>System.err</code> à la création de l'optimiseur:
+	 * la sortie d'erreur peut ensuite être rendue muette pour ne pas afficher les traces du modèle.
+	 */
+	private final PrintStream erreurs = System.err;
+
+	/**
+	 * Configurations déjà simulées, par valeur de chaque paramètre: une configuration n'est jamais simulée deux fois.
+	 */
+	private final Map<List<String>, Resultat> resultats = new LinkedHashMap<>();
+
+	/**
+	 * @param base Propriétés du scénario de base.
+	 * @param espace Valeurs possibles de chaque paramètre, dans l'ordre.
+	 * @param attente Indicateur de temps d'attente à minimiser, par exemple <code>ATTENTE_MOYENNE</code>.
+	 */
+	public Optimiseur(Properties base, Map<String, List<String>> espace, String attente) {
+		this.base = base;
+		this.espace = espace;
+		this.attente = attente;
+		executeur = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Résultat de la simulation d'une configuration.
+	 */
+	public static class Resultat {
+		private final List<String> valeurs;
+		private final Indicateurs indicateurs;
+		private final double attente;
+		private final int demarrages;
+		private final double distance;
+
+		private Resultat(List<String> valeurs, Indicateurs indicateurs, double attente, int demarrages, double distance) {
+			this.valeurs = valeurs;
+			this.indicateurs = indicateurs;
+			this.attente = attente;
+			this.demarrages = demarrages;
+			this.distance = distance;
+		}
+
+		public List<String> getValeurs() {
+			return valeurs;
+		}
+
+		public Indicateurs getIndicateurs() {
+			return indicateurs;
+		}
+
+		/**
+		 * Détermine si ce résultat est au moins aussi bon que <code>autre</code> sur les deux objectifs et meilleur sur l'un d'eux.
+		 */
+		public boolean domine(Resultat autre) {
+			return attente <= autre.attente && demarrages <= autre.demarrages
+					&& (attente < autre.attente || demarrages < autre.demarrages);
+		}
+	}
+
+	public void grille() throws InterruptedException {
+		List<List<String>> configurations = new ArrayList<>();
+		configurations.add(new ArrayList<>());
+
+		for (List<String> valeurs : espace.values()) {
+			List<List<String>> produit = new ArrayList<>();
+			for (List<String> debut : configurations)
+				for (String valeur : valeurs) {
+					List<String> configuration = new ArrayList<>(debut);
+					configuration.add(valeur);
+					produit.add(configuration);
+				}
+			configurations = produit;
+		}
+
+		simuler(configurations);
+	}
+
+	public void aleatoire(int essais, Random aleatoire) throws InterruptedException {
+		List<List<String>> configurations = new ArrayList<>();
+
+		for (int i = 0; i < essais; i++) {
+			List<String> configuration = new ArrayList<>();
+			for (List<String> valeurs : espace.values())
+				configuration.add(valeurs.get(aleatoire.nextInt(valeurs.size())));
+			configurations.add(configuration);
+		}
+
+		simuler(configurations);
+	}
+
+	/**
+	 * Explore les voisins du front de Pareto pendant au plus <code>tours</code> tours, après un tirage aléatoire.
+	 */
+	public void locale(int essais, int tours, Random aleatoire) throws InterruptedException {
+		aleatoire(essais, aleatoire);
+
+		for (int tour = 0; tour < tours; tour++) {
+			List<List<String>> voisins = new ArrayList<>();
+
+			for (Resultat resultat : front()) {
+				int parametre = 0;
+				for (List<String> valeurs : espace.values()) {
+					int indice = valeurs.indexOf(resultat.valeurs.get(parametre));
+					for (int decalage = -1; decalage <= 1; decalage += 2)
+						if (indice + decalage >= 0 && indice + decalage < valeurs.size()) {
+							List<String> voisin = new ArrayList<>(resultat.valeurs);
+							voisin.set(parametre, valeurs.get(indice + decalage));
+							if (!resultats.containsKey(voisin) && !voisins.contains(voisin))
+								voisins.add(voisin);
+						}
+					parametre++;
+				}
+			}
+
+			if (voisins.isEmpty())
+				return;
+			simuler(voisins);
+		}
+	}
+
+	/**
+	 * Simule en parallèle les configurations qui ne l'ont pas encore été.
+	 */
+	private void simuler(List<List<String>> configurations) throws InterruptedException {
+		Map<List<String>, Future<Resultat>> enCours = new LinkedHashMap<>();
+
+		for (List<String> configuration : configurations)
+			if (!resultats.containsKey(configuration) && !enCours.containsKey(configuration))
+				enCours.put(configuration, executeur.submit(() -> executer(configuration)));
+
+		for (Map.Entry<List<String>, Future<Resultat>> entree : enCours.entrySet()) {
+			try {
+				resultats.put(entree.getKey(), entree.getValue().get());
+			} catch (ExecutionException e) {
+				erreurs.println("Erreur : La configuration " + entree.getKey() + " n'a pas pu être simulée: " + e.getCause());
+			}
+		}
+	}
+
+	private Resultat executer(List<String> configuration) {
+		Properties proprietes = new Properties();
+		proprietes.putAll(base);
+
+		int parametre = 0;
+		for (String nom : espace.keySet())
+			proprietes.setProperty(nom, configuration.get(parametre++));
+
+		Scenario scenario = new Scenario(configuration.toString(), proprietes);
+		Indicateurs indicateurs = scenario.executer();
+
+		return new Resultat(configuration, indicateurs, indicateurs.getValeur(attente),
+				scenario.getNombreDemarrages(), scenario.getDistanceParcourue());
+	}
+
+	/**
+	 * @return Les configurations qu'aucune autre ne domine, par temps d'attente croissant.
+	 * Celles qui servent moins de passagers que la meilleure sont écartées.
+	 */
+	public List<Resultat> front() {
+		int servis = resultats.values().stream().mapToInt(r -> r.indicateurs.getPassagersServis()).max().orElse(0);
+		List<Resultat> front = new ArrayList<>();
+
+		for (Resultat resultat : resultats.values()) {
+			if (resultat.indicateurs.getPassagersServis() < servis)
+				continue;
+
+			boolean domine = false;
+			for (Resultat autre : resultats.values())
+				if (autre.indicateurs.getPassagersServis() >= servis && autre.domine(resultat)) {
+					domine = true;
+					break;
+				}
+			// Une seule configuration par point du front
+			if (!domine && front.stream().noneMatch(r -> r.attente == resultat.attente && r.demarrages == resultat.demarrages))
+				front.add(resultat);
+		}
+
+		front.sort(Comparator.comparingDouble((Resultat r) -> r.attente).thenComparingInt(r -> r.demarrages));
+		return front;
+	}
+
+	public int getNombreSimulations() {
+		return resultats.size();
+	}
+
+	public void fermer() {
+		executeur.shutdown();
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		String fichier = null;
+		Map<String, List<String>> espace = new LinkedHashMap<>();
+		String recherche = "grille", attente = "ATTENTE_MOYENNE";
+		int essais = ESSAIS, tours = TOURS;
+		long graine = 1;
+
+		for (String arg : args) {
+			if (arg.startsWith("--parametre=")) {
+				String definition = arg.substring("--parametre=".length());
+				int egal = definition.indexOf('=');
+				espace.put(definition.substring(0, egal).trim(), valeurs(definition.substring(egal + 1)));
+			}
+			else if (arg.startsWith("--recherche="))
+				recherche = arg.substring("--recherche=".length());
+			else if (arg.startsWith("--essais="))
+				essais = Integer.parseInt(arg.substring("--essais=".length()));
+			else if (arg.startsWith("--tours="))
+				tours = Integer.parseInt(arg.substring("--tours=".length()));
+			else if (arg.startsWith("--attente="))
+				attente = arg.substring("--attente=".length());
+			else if (arg.startsWith("--graine="))
+				graine = Long.parseLong(arg.substring("--graine=".length()));
+			else
+				fichier = arg;
+		}
+
+		if (fichier == null || espace.isEmpty()) {
+			System.err.println("Erreur : Utilisation: java simulation.Optimiseur scenario.properties --parametre=NOM=v1,v2 [...]");
+			System.exit(2);
+		}
+
+		Scenario base = Scenario.charger(Paths.get(fichier));
+		Optimiseur optimiseur = new Optimiseur(base.getProprietes(), espace, attente);
+
+		// Le modèle trace chaque transition sur la console, l'optimiseur garde la sortie d'erreur d'origine
+		PrintStream sortie = System.out, erreurs = System.err;
+		PrintStream nulle = new PrintStream(OutputStream.nullOutputStream());
+		System.setOut(nulle);
+		System.setErr(nulle);
+
+		long debut = System.currentTimeMillis();
+		try {
+			switch (recherche) {
+				case "grille":
+					optimiseur.grille();
+					break;
+				case "aleatoire":
+					optimiseur.aleatoire(essais, new Random(graine));
+					break;
+				case "locale":
+					optimiseur.locale(essais, tours, new Random(graine));
+					break;
+				default:
+					erreurs.println("Erreur : Recherche inconnue: " + recherche);
+					System.exit(2);
+			}
+		}
+		finally {
+			optimiseur.fermer();
+			System.setOut(sortie);
+			System.setErr(erreurs);
+		}
+
+		sortie.printf(Locale.ROOT, "%s: %d configurations simulées en %.1f s sur %d processeurs%n", base.getNom(),
+				optimiseur.getNombreSimulations(), (System.currentTimeMillis() - debut) / 1000.0,
+				Runtime.getRuntime().availableProcessors());
+		sortie.println("Front de Pareto (" + attente + " / démarrages):");
+		for (Resultat resultat : optimiseur.front()) {
+			StringBuilder configuration = new StringBuilder();
+			int parametre = 0;
+			for (String nom : espace.keySet())
+				configuration.append(nom).append('=').append(resultat.valeurs.get(parametre++)).append(' ');
+
+			sortie.printf(Locale.ROOT, "\t%s: %.1f s, %d démarrages, %.0f m\n\t\t%s%n", configuration.toString().trim(),
+					resultat.attente, resultat.demarrages, resultat.distance, resultat.indicateurs);
+		}
+	}
+
+	/**
+	 * @return Les valeurs d'une liste <code>a,b,c</code> ou d'un intervalle entier <code>min..max:pas</code>.
+	 */
+	private static List<String> valeurs(String definition) {
+		List<String> valeurs = new ArrayList<>();
+
+		if (definition.contains("..")) {
+			String[] bornes = definition.split("\\.\\.|:");
+			int min = Integer.parseInt(bornes[0].trim()), max = Integer.parseInt(bornes[1].trim());
+			int pas = bornes.length > 2 ? Integer.parseInt(bornes[2].trim()) : 1;
+			for (int valeur = min; valeur <= max; valeur += pas)
+				valeurs.add(Integer.toString(valeur));
+		}
+		else {
+			for (String valeur : definition.split(","))
+				valeurs.add(valeur.trim());
+		}
+
+		return valeurs;
+	}
+}
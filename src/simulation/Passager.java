@@ -0,0 +1,74 @@
+package simulation;
+
+/**
+ * 	<p>
+ * 		Passager de la simulation: il attend à son niveau d'origine, monte dans la cabine puis en descend
+ * 		à son niveau de destination. Les instants sont exprimés en millisecondes selon l'horloge de la simulation.
+ * 	</p>
+ */
+public class Passager {
+	private final int origine, destination;
+	private final long tempsArrivee;
+	private long tempsEmbarquement = -1, tempsDebarquement = -1;
+	/** Nombre d'arrêts effectués par la cabine entre l'embarquement et le débarquement du passager. */
+	private int arretsIntermediaires;
+
+	public Passager(int origine, int destination, long tempsArrivee) {
+		if (origine == destination)
+			throw new IllegalArgumentException("Le niveau de destination doit être différent du niveau d'origine.");
+
+		this.origine = origine;
+		this.destination = destination;
+		this.tempsArrivee = tempsArrivee;
+	}
+
+	public boolean veutMonter() {
+		return destination > origine;
+	}
+
+	void embarquer(long temps) {
+		tempsEmbarquement = temps;
+	}
+
+	void debarquer(long temps) {
+		tempsDebarquement = temps;
+	}
+
+	void compterArret() {
+		arretsIntermediaires++;
+	}
+
+	public int getOrigine() {
+		return origine;
+	}
+
+	public int getDestination() {
+		return destination;
+	}
+
+	public long getTempsArrivee() {
+		return tempsArrivee;
+	}
+
+	public long getTempsEmbarquement() {
+		return tempsEmbarquement;
+	}
+
+	public long getTempsDebarquement() {
+		return tempsDebarquement;
+	}
+
+	public int getArretsIntermediaires() {
+		return arretsIntermediaires;
+	}
+
+	/** @return Le temps d'attente au palier, ou -1 si le passager n'a pas encore embarqué. */
+	public long getTempsAttente() {
+		return tempsEmbarquement < 0 ? -1 : tempsEmbarquement - tempsArrivee;
+	}
+
+	/** @return Le temps entre l'arrivée au palier et l'arrivée à destination, ou -1 si le passager n'est pas arrivé. */
+	public long getTempsTrajet() {
+		return tempsDebarquement < 0 ? -1 : tempsDebarquement - tempsArrivee;
+	}
+}
@@ -0,0 +1,15 @@
+package simulation;
+
+/**
+ * Profils de trafic générés par {@link GenerateurTrafic}. Le hall est le plus bas des niveaux desservis.
+ */
+public enum ProfilTrafic {
+	/** Pointe montante: les passagers partent du hall vers les étages. */
+	MONTANT,
+	/** Pointe descendante: les passagers partent des étages vers le hall. */
+	DESCENDANT,
+	/** Trafic de mi-journée: montées et descentes depuis et vers le hall, et déplacements entre étages. */
+	MIXTE,
+	/** Déplacements entre deux niveaux quelconques. */
+	INTERETAGE
+}
@@ -0,0 +1,251 @@
+package simulation;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Properties;
+
+import modele.EstimateurOrigineDestination;
+import modele.IModele;
+import modele.IPolitiquePause;
+import modele.IStrategie;
+import modele.Modele;
+import modele.ModeleDoublePont;
+import modele.PolitiquePauseAdaptative;
+import modele.PolitiquePauseFixe;
+import modele.ReconnaisseurTrafic;
+import modele.StrategieAnticipation;
+import modele.StrategieCollective;
+import util.HorlogeVirtuelle;
+import util.Zonage;
+
+/**
+ * 	<p>
+ * 		Scénario de simulation sans interface graphique, décrit par un fichier de propriétés:
+ * 	</p>
+ * 	<pre>
+ * 		PREMIER_NIVEAU=0
+ * 		DERNIER_NIVEAU=10
+ * 		# Optionnel: niveaux desservis, séparés par des virgules (tous par défaut)
+ * 		NIVEAUX_DESSERVIS=0,5,6,7,8,9,10
+ * 		# Optionnel: cabine à double pont, qui dessert tous les niveaux (false par défaut)
+ * 		# Les niveaux de stationnement et le niveau principal sont alors des positions de la cabine
+ * 		DOUBLE_PONT=true
+ * 		# collective, ou anticipation (expérimentale, pour comparaison: elle ne fait pas mieux que la collective)
+ * 		STRATEGIE=collective
+ * 		# adaptative (par défaut) ou fixe
+ * 		PAUSE=adaptative
+ * 		# Optionnel: durées des pauses en millisecondes (pour la pause fixe, seule la seconde est utilisée)
+ * 		DUREE_PAUSE_DEMANDE=4000
+ * 		DUREE_PAUSE_APPEL=6000
+ * 		# Optionnel: attente maximale d'un appel extérieur en secondes (0 par défaut, sans limite)
+ * 		ATTENTE_MAXIMALE=90
+ * 		# Optionnel: false pour qu'une cabine pleine s'arrête aussi aux appels extérieurs (true par défaut)
+ * 		CONTOURNEMENT_PLEINE_CHARGE=false
+ * 		# Optionnel: niveau de stationnement et délai d'inactivité en secondes avant d'y retourner
+ * 		# ("demande" pour stationner au niveau le plus appelé, estimé en continu)
+ * 		PARKING_NIVEAU=0
+ * 		PARKING_DELAI=30
+ * 		# Optionnel: "auto" pour adapter pauses et stationnement au trafic reconnu
+ * 		# (remplace PAUSE et PARKING_*, garde STRATEGIE), le niveau principal étant le premier niveau desservi
+ * 		MODE_TRAFIC=auto
+ * 		# Nombre maximal de passagers par pont, dont est déduite la charge nominale de la cabine
+ * 		CAPACITE=8
+ * 		# MONTANT, DESCENDANT, MIXTE ou INTERETAGE
+ * 		TRAFIC=MONTANT
+ * 		# Arrivées par minute
+ * 		DEBIT=4
+ * 		# Durée des arrivées en secondes
+ * 		DUREE=3600
+ * 		GRAINE=42
+ * 	</pre>
+ * 	<p>
+ * 		Le scénario est simulé avec une {@link HorlogeVirtuelle}, le {@link MoteurTraction moteur de traction}
+ * 		et le {@link SimulateurPassagers simulateur de passagers}: une heure de trafic est simulée en quelques secondes
+ * 		et deux exécutions d'un même scénario donnent les mêmes {@link Indicateurs indicateurs}.
+ * 	</p>
+ */
+public class Scenario {
+	/** Durée maximale laissée à la cabine pour servir les derniers passagers, en millisecondes. */
+	private static final long DUREE_MAX_VIDAGE = 3_600_000;
+	private static final long PAS_VIDAGE = 10_000;
+	/** Demi-vie des observations de l'estimateur origine-destination, en millisecondes. */
+	private static final long DEMI_VIE_DEMANDE = 900_000;
+
+	private final String nom;
+	private final Properties proprietes;
+
+	private double distanceParcourue;
+	private int nombreDemarrages;
+	private int nombreChangementsMode;
+
+	public Scenario(String nom, Properties proprietes) {
+		this.nom = nom;
+		this.proprietes = proprietes;
+	}
+
+	/**
+	 * Charge un scénario. Son nom est celui du fichier, sans extension.
+	 */
+	public static Scenario charger(Path fichier) throws IOException {
+		Properties proprietes = new Properties();
+
+		try (Reader lecteur = Files.newBufferedReader(fichier, StandardCharsets.UTF_8)) {
+			proprietes.load(lecteur);
+		}
+
+		String nom = fichier.getFileName().toString().replaceFirst("\\.properties$", "");
+		return new Scenario(nom, proprietes);
+	}
+
+	public String getNom() {
+		return nom;
+	}
+
+	public Properties getProprietes() {
+		return proprietes;
+	}
+
+	/**
+	 * @return La distance parcourue par la cabine lors de la dernière exécution, en mètres.
+	 */
+	public double getDistanceParcourue() {
+		return distanceParcourue;
+	}
+
+	/**
+	 * @return Le nombre de démarrages du moteur lors de la dernière exécution, principal poste de consommation d'énergie.
+	 */
+	public int getNombreDemarrages() {
+		return nombreDemarrages;
+	}
+
+	/**
+	 * @return Le nombre de changements de mode de trafic lors de la dernière exécution, avec <code>MODE_TRAFIC=auto</code>.
+	 */
+	public int getNombreChangementsMode() {
+		return nombreChangementsMode;
+	}
+
+	/**
+	 * Simule le scénario jusqu'à ce que tous les passagers soient arrivés à destination.
+	 */
+	public Indicateurs executer() {
+		HorlogeVirtuelle horloge = new HorlogeVirtuelle();
+		IModele cabine;
+		Modele modele;
+		if (Boolean.parseBoolean(proprietes.getProperty("DOUBLE_PONT", "false").trim())) {
+			ModeleDoublePont doublePont = new ModeleDoublePont(entier("PREMIER_NIVEAU", 0), entier("DERNIER_NIVEAU", 10), horloge);
+			cabine = doublePont;
+			modele = doublePont.getModelePositions();
+		}
+		else {
+			modele = new Modele(creerZonage(), horloge);
+			cabine = modele;
+		}
+		int capacite = entier("CAPACITE", 8);
+		modele.setChargeNominale(capacite * cabine.getNombrePonts() * SimulateurPassagers.MASSE_PASSAGER);
+		modele.setStrategie(creerStrategie(proprietes.getProperty("STRATEGIE", "collective")));
+		modele.setPolitiquePause(creerPolitiquePause(proprietes.getProperty("PAUSE", "adaptative")));
+		modele.setAttenteMaximale(entier("ATTENTE_MAXIMALE", 0) * 1000L);
+		modele.setContournementPleineCharge(Boolean.parseBoolean(proprietes.getProperty("CONTOURNEMENT_PLEINE_CHARGE", "true").trim()));
+		configurerParking(modele, horloge);
+		ReconnaisseurTrafic reconnaisseur = null;
+		if (proprietes.getProperty("MODE_TRAFIC", "").trim().equalsIgnoreCase("auto"))
+			reconnaisseur = new ReconnaisseurTrafic(modele, horloge, modele.getNiveauxDesservis()[0]);
+
+		// Entre deux positions d'une cabine à double pont, la cabine parcourt deux niveaux
+		MoteurTraction moteur = new MoteurTraction(modele, horloge, 3.0 * cabine.getNombrePonts(), 1.6, 0.8, 1.2);
+		SimulateurPassagers passagers = new SimulateurPassagers(cabine, horloge, capacite);
+		long duree = entier("DUREE", 3600) * 1000L;
+		GenerateurTrafic trafic = new GenerateurTrafic(passagers, horloge, cabine.getNiveauxDesservis(),
+				ProfilTrafic.valueOf(proprietes.getProperty("TRAFIC", "MIXTE").trim().toUpperCase()),
+				Double.parseDouble(proprietes.getProperty("DEBIT", "4").trim()), duree, entier("GRAINE", 0));
+
+		moteur.demarrer();
+		trafic.demarrer();
+		if (reconnaisseur != null)
+			reconnaisseur.demarrer();
+		horloge.avancer(duree);
+
+		for (long vidage = 0; vidage < DUREE_MAX_VIDAGE
+				&& passagers.getNombreEnAttente() + passagers.getNombreEnCabine() > 0; vidage += PAS_VIDAGE)
+			horloge.avancer(PAS_VIDAGE);
+
+		moteur.arreter();
+		if (reconnaisseur != null) {
+			reconnaisseur.arreter();
+			nombreChangementsMode = reconnaisseur.getNombreChangements();
+		}
+		distanceParcourue = moteur.getDistanceParcourue();
+		nombreDemarrages = moteur.getNombreDemarrages();
+		return Indicateurs.calculer(passagers.getPassagersArrives());
+	}
+
+	/**
+	 * Avec <code>PARKING_NIVEAU=demande</code>, le niveau de stationnement suit le niveau le plus appelé.
+	 */
+	private void configurerParking(Modele modele, HorlogeVirtuelle horloge) {
+		long delai = entier("PARKING_DELAI", 0) * 1000L;
+
+		if (!proprietes.getProperty("PARKING_NIVEAU", "").trim().equalsIgnoreCase("demande")) {
+			modele.setNiveauParking(entier("PARKING_NIVEAU", modele.getPremierNiveau()), delai);
+			return;
+		}
+
+		EstimateurOrigineDestination estimateur = new EstimateurOrigineDestination(modele, horloge, DEMI_VIE_DEMANDE);
+		modele.setNiveauParking(estimateur.getNiveauLePlusAppele(), delai);
+		// Abonné après l'estimateur: il est notifié une fois l'estimation à jour
+		modele.ajouterEcouteur(event -> {
+			int niveau = estimateur.getNiveauLePlusAppele();
+			if (niveau != modele.getNiveauParking())
+				modele.setNiveauParking(niveau, delai);
+		});
+	}
+
+	private Zonage creerZonage() {
+		int premier = entier("PREMIER_NIVEAU", 0), dernier = entier("DERNIER_NIVEAU", 10);
+		String desservis = proprietes.getProperty("NIVEAUX_DESSERVIS");
+
+		if (desservis == null)
+			return new Zonage(premier, dernier);
+
+		int[] niveaux = Arrays.stream(desservis.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+		return new Zonage(premier, dernier, niveaux, new int[0]);
+	}
+
+	/**
+	 * @return La stratégie de desserte correspondant à <code>nom</code>.
+	 */
+	public static IStrategie creerStrategie(String nom) {
+		switch (nom.trim().toLowerCase()) {
+			case "collective":
+				return new StrategieCollective();
+			case "anticipation":
+				return new StrategieAnticipation();
+			default:
+				throw new IllegalArgumentException("Stratégie inconnue: " + nom);
+		}
+	}
+
+	private IPolitiquePause creerPolitiquePause(String nom) {
+		int dureeDemande = entier("DUREE_PAUSE_DEMANDE", 4_000), dureeAppel = entier("DUREE_PAUSE_APPEL", 6_000);
+
+		switch (nom.trim().toLowerCase()) {
+			case "adaptative":
+				return new PolitiquePauseAdaptative(dureeDemande, dureeAppel, 2_500, 2_000);
+			case "fixe":
+				return new PolitiquePauseFixe(dureeAppel);
+			default:
+				throw new IllegalArgumentException("Politique de pause inconnue: " + nom);
+		}
+	}
+
+	private int entier(String cle, int defaut) {
+		String valeur = proprietes.getProperty(cle);
+		return valeur == null ? defaut : Integer.parseInt(valeur.trim());
+	}
+}
@@ -0,0 +1,293 @@
+package simulation;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import modele.IModele;
+import util.Etat;
+import util.Horloge;
+import util.LotSignaux;
+import util.Sens;
+
+/**
+ * 	<p>
+ * 		Simulateur des passagers d'un ascenseur.
+ * 	</p>
+ * 	<p>
+ * 		Les passagers arrivent aux paliers via {@link #ajouterPassager(int, int) ajouterPassager} et appuient sur le bouton
+ * 		extérieur correspondant à leur sens de déplacement. À chaque arrêt de la cabine, les passagers arrivés à destination
+ * 		descendent, puis ceux qui attendent dans le sens de progression montent dans la limite de la capacité de la cabine
+ * 		et appuient sur le bouton de leur niveau de destination. La charge résultante est transmise au modèle par le signal
+ * 		de pesée {@link IModele#chargeCabine(int) chargeCabine}. Les passagers franchissent les portes l'un après l'autre
+ * 		et chaque passage est signalé par la cellule des portes ({@link IModele#detectionPassage() detectionPassage}).
+ * 	</p>
+ * 	<p>
+ * 		Les passagers laissés au palier faute de place appuient de nouveau sur le bouton extérieur au départ de la cabine.
+ * 		Un passager qui arrive au palier pendant l'arrêt de la cabine monte lorsque les portes se rouvrent
+ * 		(notification <code>"dureePause"</code>).
+ * 		Dans une tour zonée, un passager ne peut voyager qu'entre deux niveaux desservis par la cabine:
+ * 		un trajet vers une autre zone se décompose en deux passagers, avant et après le sky lobby.
+ * 	</p>
+ * 	<p>
+ * 		Dans une cabine à plusieurs ponts, chaque pont dessert les niveaux d'une même parité: un passager monte dans le pont
+ * 		de son niveau de destination, en changeant de palier au besoin avant d'appeler la cabine. La capacité s'entend par pont.
+ * 	</p>
+ */
+public class SimulateurPassagers implements PropertyChangeListener {
+	/** Masse moyenne d'un passager en kilogrammes. */
+	public static final int MASSE_PASSAGER = 75;
+	/** Temps mis par un passager pour franchir les portes, en millisecondes. */
+	private final int DUREE_PASSAGE = 1_000;
+	/** Nombre maximal de passagers dans chaque pont de la cabine. */
+	private final int CAPACITE;
+	private final int PONTS;
+
+	private IModele modele;
+	private Horloge horloge;
+
+	private List<List<Passager>> enAttente;
+	/** Passagers de chaque pont. */
+	private List<List<Passager>> enCabine;
+	private List<Passager> arrives;
+
+	/** Boutons pressés ensemble par les passagers, soumis au modèle en un seul lot. */
+	private final LotSignaux lot = new LotSignaux();
+
+	/**
+	 * @param capacite Nombre maximal de passagers dans chaque pont de la cabine.
+	 */
+	public SimulateurPassagers(IModele modele, Horloge horloge, int capacite) {
+		CAPACITE = capacite;
+		PONTS = modele.getNombrePonts();
+		this.modele = modele;
+		this.horloge = horloge;
+
+		enAttente = new ArrayList<>();
+		for (int i = modele.getPremierNiveau(); i <= modele.getDernierNiveau(); i++)
+			enAttente.add(new ArrayList<>());
+		enCabine = new ArrayList<>();
+		for (int pont = 0; pont < PONTS; pont++)
+			enCabine.add(new ArrayList<>());
+		arrives = new ArrayList<>();
+
+		modele.ajouterEcouteur(this);
+	}
+
+	/**
+	 * Fait arriver un passager au palier du niveau <code>origine</code>.
+	 * Dans une cabine à plusieurs ponts, le passager rejoint d'abord le palier voisin desservi par le pont de sa destination.
+	 * 
+	 * @return Le passager créé, <code>null</code> si ce palier est sa destination: il prend l'escalier.
+	 */
+	public Passager ajouterPassager(int origine, int destination) {
+		if (!modele.estDesservi(origine) || !modele.estDesservi(destination))
+			throw new IllegalArgumentException("Les niveaux " + origine + " et " + destination + " doivent être desservis par la cabine.");
+
+		if (pont(origine) != pont(destination)) {
+			origine += pont(destination) - pont(origine);
+			if (!modele.estDesservi(origine))
+				origine -= PONTS;
+			if (origine == destination)
+				return null;
+		}
+
+		Passager passager = new Passager(origine, destination, horloge.getTempsCourant());
+
+		enAttente.get(origine - modele.getPremierNiveau()).add(passager);
+		appelerCabine(passager);
+
+		return passager;
+	}
+
+	@Override
+	public void propertyChange(PropertyChangeEvent event) {
+		String nomProp = event.getPropertyName();
+
+		if (nomProp.equals("etatCourant")) {
+			Etat ancienEtat = (Etat) event.getOldValue();
+			Etat nouvelEtat = (Etat) event.getNewValue();
+
+			if (nouvelEtat == Etat.ARRET)
+				echangerPassagers();
+			else if (ancienEtat == Etat.ARRET_URGENCE)
+				rappelerTout();
+			else if (ancienEtat == Etat.ARRET && nouvelEtat != Etat.ARRET_URGENCE)
+				for (int pont = 0; pont < PONTS; pont++)
+					rappelerPalier(niveauPont(pont));
+		}
+		else if (nomProp.equals("dureePause") && modele.getEtatCourant() == Etat.ARRET) {
+			// Pause relancée (changement de sens, portes rouvertes): les passagers arrivés entre-temps peuvent monter
+			signalerPassages(embarquer());
+		}
+	}
+
+	/**
+	 * Fait descendre les passagers arrivés à destination puis monter ceux qui attendent dans le sens de progression.
+	 */
+	private void echangerPassagers() {
+		long temps = horloge.getTempsCourant();
+
+		int sortants = 0;
+
+		for (int pont = 0; pont < PONTS; pont++) {
+			int niveau = niveauPont(pont);
+
+			Iterator<Passager> it = enCabine.get(pont).iterator();
+			while (it.hasNext()) {
+				Passager passager = it.next();
+
+				if (passager.getDestination() == niveau) {
+					passager.debarquer(temps);
+					arrives.add(passager);
+					it.remove();
+					sortants++;
+				}
+				else
+					passager.compterArret();
+			}
+		}
+
+		signalerPassages(sortants + embarquer());
+	}
+
+	/**
+	 * Fait monter les passagers qui attendent au niveau de chaque pont dans le sens de progression.
+	 * 
+	 * @return Le nombre de passagers montés.
+	 */
+	private int embarquer() {
+		long temps = horloge.getTempsCourant();
+		boolean monter = modele.getSens() == Sens.MONTER;
+		int entrants = 0;
+
+		for (int pont = 0; pont < PONTS; pont++) {
+			int niveau = niveauPont(pont);
+			if (!modele.estDesservi(niveau))
+				continue;
+
+			List<Passager> palier = enAttente.get(niveau - modele.getPremierNiveau());
+			List<Passager> cabine = enCabine.get(pont);
+
+			Iterator<Passager> it = palier.iterator();
+			while (it.hasNext()) {
+				Passager passager = it.next();
+
+				if (passager.veutMonter() != monter)
+					continue;
+
+				if (cabine.size() >= CAPACITE)
+					break;
+
+				passager.embarquer(temps);
+				cabine.add(passager);
+				it.remove();
+				entrants++;
+				lot.demandeNiveau(passager.getDestination());
+			}
+		}
+		soumettreLot();
+
+		modele.chargeCabine(getNombreEnCabine() * MASSE_PASSAGER);
+
+		return entrants;
+	}
+
+	/**
+	 * Planifie les signaux de la cellule des portes pour <code>nombre</code> passages successifs.
+	 */
+	private void signalerPassages(int nombre) {
+		for (int i = 1; i <= nombre; i++)
+			horloge.planifier(modele::detectionPassage, (long) i * DUREE_PASSAGE);
+	}
+
+	private void appelerCabine(Passager passager) {
+		if (passager.veutMonter())
+			modele.monterNiveau(passager.getOrigine());
+		else
+			modele.descendreNiveau(passager.getOrigine());
+	}
+
+	/**
+	 * Après un arrêt d'urgence, tous les signaux ont été effacés: chacun appuie de nouveau sur son bouton.
+	 */
+	private void rappelerTout() {
+		for (List<Passager> cabine : enCabine)
+			for (Passager passager : cabine)
+				lot.demandeNiveau(passager.getDestination());
+
+		for (List<Passager> palier : enAttente)
+			for (Passager passager : palier)
+				if (passager.veutMonter())
+					lot.monterNiveau(passager.getOrigine());
+				else
+					lot.descendreNiveau(passager.getOrigine());
+
+		soumettreLot();
+	}
+
+	/**
+	 * Au départ de la cabine, les passagers restés au palier appuient de nouveau sur leur bouton.
+	 */
+	private void rappelerPalier(int niveau) {
+		if (!modele.estDesservi(niveau))
+			return;
+
+		for (Passager passager : enAttente.get(niveau - modele.getPremierNiveau()))
+			if (passager.veutMonter())
+				lot.monterNiveau(niveau);
+			else
+				lot.descendreNiveau(niveau);
+
+		soumettreLot();
+	}
+
+	/**
+	 * @return Le pont qui dessert le niveau <code>niveau</code>, 0 pour une cabine à un seul pont.
+	 */
+	private int pont(int niveau) {
+		return (niveau - modele.getPremierNiveau()) % PONTS;
+	}
+
+	/**
+	 * @return Le niveau où se trouve le pont <code>pont</code>, le niveau courant étant celui du pont inférieur.
+	 */
+	private int niveauPont(int pont) {
+		return modele.getNiveauCourant() + pont;
+	}
+
+	private void soumettreLot() {
+		if (!lot.estVide())
+			modele.soumettreSignaux(lot);
+		lot.vider();
+	}
+
+	public int getCapacite() {
+		return CAPACITE;
+	}
+
+	public int getNombreEnCabine() {
+		int total = 0;
+
+		for (List<Passager> cabine : enCabine)
+			total += cabine.size();
+
+		return total;
+	}
+
+	public int getNombreEnAttente() {
+		int total = 0;
+
+		for (List<Passager> palier : enAttente)
+			total += palier.size();
+
+		return total;
+	}
+
+	/** @return Les passagers arrivés à destination, dans l'ordre de leur arrivée. */
+	public List<Passager> getPassagersArrives() {
+		return arrives;
+	}
+}
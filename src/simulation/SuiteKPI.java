@@ -0,0 +1,113 @@
+package simulation;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 	<p>
+ * 		Suite de non-régression des performances de l'ascenseur.
+ * 	</p>
+ * 	<p>
+ * 		Chaque fichier <code>.properties</code> du dossier des scénarios est simulé sans interface graphique
+ * 		et ses {@link Indicateurs indicateurs} sont comparés aux références enregistrées dans le sous-dossier
+ * 		<code>references</code>. L'exécution échoue (code de retour 1) si un indicateur se dégrade au-delà de la tolérance.
+ * 	</p>
+ * 	<p>
+ * 		Utilisation, depuis le dossier <code>src</code>:
+ * 	</p>
+ * 	<pre>
+ * 		java simulation.SuiteKPI [dossier] [--tolerance=5] [--maj-references]
+ * 	</pre>
+ * 	<p>
+ * 		L'option <code>--maj-references</code> enregistre les indicateurs obtenus comme nouvelles références.
+ * 	</p>
+ */
+public class SuiteKPI {
+
+	public static void main(String[] args) throws IOException {
+		Path dossier = Paths.get("../scenarios");
+		double tolerance = 5;
+		boolean majReferences = false;
+
+		for (String arg : args) {
+			if (arg.equals("--maj-references"))
+				majReferences = true;
+			else if (arg.startsWith("--tolerance="))
+				tolerance = Double.parseDouble(arg.substring("--tolerance=".length()));
+			else
+				dossier = Paths.get(arg);
+		}
+
+		Path dossierReferences = dossier.resolve("references");
+		List<Path> fichiers;
+		try (Stream<Path> contenu = Files.list(dossier)) {
+			fichiers = contenu.filter(f -> f.toString().endsWith(".properties")).sorted().collect(Collectors.toList());
+		}
+
+		PrintStream sortie = System.out;
+		int echecs = 0;
+
+		for (Path fichier : fichiers) {
+			Scenario scenario = Scenario.charger(fichier);
+			Indicateurs indicateurs = executerSansTraces(scenario);
+			Path fichierReference = dossierReferences.resolve(fichier.getFileName());
+
+			sortie.println(scenario.getNom() + ": " + indicateurs);
+
+			if (majReferences) {
+				Files.createDirectories(dossierReferences);
+				try (Writer ecrivain = Files.newBufferedWriter(fichierReference, StandardCharsets.UTF_8)) {
+					indicateurs.enProprietes().store(ecrivain, "Références de " + scenario.getNom());
+				}
+				sortie.println("\tréférence mise à jour");
+			}
+			else if (!Files.exists(fichierReference)) {
+				sortie.println("\tpas de référence, relancer avec --maj-references pour l'enregistrer");
+			}
+			else {
+				Properties reference = new Properties();
+				try (Reader lecteur = Files.newBufferedReader(fichierReference, StandardCharsets.UTF_8)) {
+					reference.load(lecteur);
+				}
+
+				List<String> regressions = indicateurs.regressions(Indicateurs.depuisProprietes(reference), tolerance);
+				for (String regression : regressions)
+					sortie.println("\tRÉGRESSION " + regression);
+				if (!regressions.isEmpty())
+					echecs++;
+			}
+		}
+
+		sortie.println(fichiers.size() + " scénarios, " + echecs + " en régression (tolérance " + tolerance + " %).");
+		System.exit(echecs == 0 ? 0 : 1);
+	}
+
+	/**
+	 * Exécute un scénario en masquant les traces que le modèle écrit sur la console à chaque transition.
+	 */
+	static Indicateurs executerSansTraces(Scenario scenario) {
+		PrintStream out = System.out, err = System.err;
+		PrintStream nulle = new PrintStream(OutputStream.nullOutputStream());
+
+		System.setOut(nulle);
+		System.setErr(nulle);
+		try {
+			return scenario.executer();
+		}
+		finally {
+			System.setOut(out);
+			System.setErr(err);
+		}
+	}
+}
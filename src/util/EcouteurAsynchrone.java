@@ -0,0 +1,223 @@
+package util;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 	<p>
+ * 		Écouteur qui délivre les notifications reçues à un autre écouteur depuis son propre thread.
+ * 	</p>
+ * 	<p>
+ * 		L'émetteur ne fait que déposer la notification dans une file bornée, ce qui découple le temps de réaction
+ * 		du contrôle-commande du nombre et de la lenteur des écouteurs. Lorsque la file est pleine,
+ * 		la {@link PolitiqueDebordement politique de débordement} choisie s'applique.
+ * 	</p>
+ * 	<p>
+ * 		Les notifications sont délivrées dans l'ordre de leur émission (une notification fusionnée
+ * 		garde la place de celle qu'elle remplace), sous forme de {@link NotificationDatee} portant
+ * 		la date de leur dépôt.
+ * 	</p>
+ */
+public class EcouteurAsynchrone implements PropertyChangeListener {
+
+	/**
+	 * Attente maximale d'un émetteur devant une file pleine avec la politique <b>BLOQUER</b>, en millisecondes.
+	 */
+	public static final long DELAI_MAX_BLOCAGE = 50;
+
+	/**
+	 * Notification en attente de livraison. Elle est modifiée sur place lors d'une fusion, sans changer de date.
+	 */
+	private static class Entree {
+		private PropertyChangeEvent evenement;
+		private final long depot;
+
+		private Entree(PropertyChangeEvent evenement) {
+			this.evenement = evenement;
+			depot = System.nanoTime();
+		}
+	}
+
+	private PropertyChangeListener destinataire;
+	private PolitiqueDebordement politique;
+	private int capacite;
+
+	private ArrayDeque<Entree> file;
+	/**
+	 * Dernière notification en attente pour chaque nom de propriété, utilisée par la fusion.
+	 */
+	private Map<String, Entree> enAttente;
+
+	private ReentrantLock verrou;
+	private Condition nonVide, nonPleine;
+
+	private Thread livreur;
+	private volatile boolean ferme;
+	private long nombrePerdues;
+
+	/**
+	 * @param destinataire Écouteur auquel délivrer les notifications.
+	 * @param capacite Nombre maximal de notifications en attente.
+	 * @param politique Comportement lorsque <code>capacite</code> notifications sont en attente.
+	 */
+	public EcouteurAsynchrone(PropertyChangeListener destinataire, int capacite, PolitiqueDebordement politique) {
+		if (capacite < 1)
+			throw new IllegalArgumentException("La capacité doit être positive.");
+
+		this.destinataire = destinataire;
+		this.capacite = capacite;
+		this.politique = politique;
+		file = new ArrayDeque<>(capacite);
+		enAttente = new HashMap<>();
+		verrou = new ReentrantLock();
+		nonVide = verrou.newCondition();
+		nonPleine = verrou.newCondition();
+
+		livreur = new Thread(this::livrer, "ecouteur-" + destinataire.getClass().getSimpleName());
+		livreur.setDaemon(true);
+		livreur.start();
+	}
+
+	public PropertyChangeListener getDestinataire() {
+		return destinataire;
+	}
+
+	/**
+	 * @return Le nombre de notifications perdues ou fusionnées faute de place dans la file.
+	 */
+	public long getNombrePerdues() {
+		verrou.lock();
+		try {
+			return nombrePerdues;
+		} finally {
+			verrou.unlock();
+		}
+	}
+
+	/**
+	 * Dépose la notification dans la file, sans attendre sa livraison.
+	 */
+	@Override
+	public void propertyChange(PropertyChangeEvent evenement) {
+		if (ferme)
+			return;
+
+		verrou.lock();
+		try {
+			if (file.size() >= capacite && !deborder(evenement))
+				return;
+
+			Entree entree = new Entree(evenement);
+			file.addLast(entree);
+			if (evenement.getPropertyName() != null)
+				enAttente.put(evenement.getPropertyName(), entree);
+			nonVide.signal();
+		} finally {
+			verrou.unlock();
+		}
+	}
+
+	/**
+	 * Applique la politique de débordement, la file étant pleine.
+	 * 
+	 * @return <code>true</code> si <code>evenement</code> doit encore être ajouté à la file.
+	 */
+	private boolean deborder(PropertyChangeEvent evenement) {
+		switch (politique) {
+			case BLOQUER:
+				// L'émetteur tient souvent le verrou du contrôle-commande: l'attente est bornée,
+				// et l'arrêt d'urgence n'attend jamais
+				if (evenement.getNewValue() != Etat.ARRET_URGENCE)
+					attendrePlace();
+				if (ferme)
+					return false;
+				return file.size() < capacite || supprimerPlusAncienne();
+			case FUSIONNER:
+				Entree precedente = evenement.getPropertyName() == null ? null : enAttente.get(evenement.getPropertyName());
+				if (precedente != null) {
+					precedente.evenement = new PropertyChangeEvent(evenement.getSource(), evenement.getPropertyName(),
+							precedente.evenement.getOldValue(), evenement.getNewValue());
+					nombrePerdues++;
+					return false;
+				}
+				// pas de notification de la même propriété: la plus ancienne est perdue
+				return supprimerPlusAncienne();
+			default:
+				return supprimerPlusAncienne();
+		}
+	}
+
+	/**
+	 * Attend qu'une place se libère, au plus {@link #DELAI_MAX_BLOCAGE DELAI_MAX_BLOCAGE} millisecondes.
+	 */
+	private void attendrePlace() {
+		long reste = TimeUnit.MILLISECONDS.toNanos(DELAI_MAX_BLOCAGE);
+		try {
+			while (file.size() >= capacite && !ferme && reste > 0)
+				reste = nonPleine.awaitNanos(reste);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private boolean supprimerPlusAncienne() {
+		retirerPremiere();
+		nombrePerdues++;
+		return true;
+	}
+
+	private Entree retirerPremiere() {
+		Entree entree = file.pollFirst();
+		String nom = entree.evenement.getPropertyName();
+		if (nom != null && enAttente.get(nom) == entree)
+			enAttente.remove(nom);
+		return entree;
+	}
+
+	private void livrer() {
+		while (!ferme) {
+			Entree entree;
+
+			verrou.lock();
+			try {
+				while (file.isEmpty() && !ferme)
+					nonVide.awaitUninterruptibly();
+				if (ferme)
+					return;
+
+				entree = retirerPremiere();
+				nonPleine.signal();
+			} finally {
+				verrou.unlock();
+			}
+
+			try {
+				destinataire.propertyChange(new NotificationDatee(entree.evenement, entree.depot));
+			} catch (RuntimeException e) {
+				System.err.println("Erreur : l'écouteur " + destinataire + " a échoué sur " + entree.evenement.getPropertyName() + " : " + e);
+			}
+		}
+	}
+
+	/**
+	 * Arrête la livraison. Les notifications encore en attente sont perdues et les émetteurs bloqués libérés.
+	 */
+	public void fermer() {
+		verrou.lock();
+		try {
+			ferme = true;
+			file.clear();
+			enAttente.clear();
+			nonVide.signalAll();
+			nonPleine.signalAll();
+		} finally {
+			verrou.unlock();
+		}
+	}
+}
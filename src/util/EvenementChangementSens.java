@@ -0,0 +1,49 @@
+package util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 	<p>
+ * 		Événement JDK Flight Recorder: changement du sens de progression de la cabine.
+ * 		<code>temporisation</code> indique un demi-tour à la fin d'une pause pour servir un appel opposé au niveau courant.
+ * 	</p>
+ */
+@Name("ascenseur.ChangementSens")
+@Label("Changement de sens")
+@Category("Ascenseur")
+@Description("Changement du sens de progression de la cabine")
+@Enabled(false)
+@StackTrace(false)
+public class EvenementChangementSens extends Event {
+
+	@Label("Ancien sens")
+	String ancienSens;
+
+	@Label("Nouveau sens")
+	String nouveauSens;
+
+	@Label("Niveau")
+	int niveau;
+
+	@Label("Fin de pause")
+	@Description("Demi-tour décidé à la fin d'une pause")
+	boolean temporisation;
+
+	public static void enregistrer(Sens ancienSens, Sens nouveauSens, int niveau, boolean temporisation) {
+		EvenementChangementSens evenement = new EvenementChangementSens();
+		if (!evenement.isEnabled())
+			return;
+
+		evenement.ancienSens = String.valueOf(ancienSens);
+		evenement.nouveauSens = String.valueOf(nouveauSens);
+		evenement.niveau = niveau;
+		evenement.temporisation = temporisation;
+		evenement.commit();
+	}
+}
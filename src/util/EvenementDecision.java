@@ -0,0 +1,70 @@
+package util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 	<p>
+ * 		Événement JDK Flight Recorder: évaluation d'une décision de desserte (<code>doitArreter</code> ou
+ * 		<code>calculDeplacement</code>). Sa durée est celle du calcul, stratégie comprise.
+ * 	</p>
+ */
+@Name("ascenseur.Decision")
+@Label("Décision")
+@Category("Ascenseur")
+@Description("Évaluation d'une décision de desserte")
+@Enabled(false)
+@StackTrace(false)
+public class EvenementDecision extends Event {
+
+	@Label("Décision")
+	@Description("doitArreter ou calculDeplacement")
+	String decision;
+
+	@Label("Stratégie")
+	String strategie;
+
+	@Label("Niveau")
+	int niveau;
+
+	@Label("Sens")
+	String sens;
+
+	@Label("Résultat")
+	String resultat;
+
+	/**
+	 * @return L'événement commencé, <code>null</code> s'il n'est pas activé.
+	 */
+	public static EvenementDecision commencer(String decision, Object strategie, int niveau, Sens sens) {
+		EvenementDecision evenement = new EvenementDecision();
+		if (!evenement.isEnabled())
+			return null;
+
+		evenement.decision = decision;
+		evenement.strategie = strategie.getClass().getSimpleName();
+		evenement.niveau = niveau;
+		evenement.sens = String.valueOf(sens);
+		evenement.begin();
+		return evenement;
+	}
+
+	/**
+	 * Termine la décision commencée par {@link #commencer(String, Object, int, Sens) commencer} et renvoie son résultat.
+	 */
+	public static <T> T terminer(EvenementDecision evenement, T resultat) {
+		if (evenement != null) {
+			evenement.end();
+			if (evenement.shouldCommit()) {
+				evenement.resultat = String.valueOf(resultat);
+				evenement.commit();
+			}
+		}
+		return resultat;
+	}
+}
@@ -0,0 +1,64 @@
+package util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * 	<p>
+ * 		Événement JDK Flight Recorder couvrant une pause à un niveau, de son début à sa fin ou à son annulation.
+ * 		Il commence dans le thread qui arrête la cabine et se termine dans celui de l'horloge.
+ * 	</p>
+ * 	<p>
+ * 		La durée de l'événement est mesurée en temps réel; avec une horloge virtuelle, seule la durée prévue a un sens.
+ * 	</p>
+ */
+@Name("ascenseur.Pause")
+@Label("Pause")
+@Category("Ascenseur")
+@Description("Pause de la cabine à un niveau, portes ouvertes")
+@Enabled(false)
+@StackTrace(false)
+public class EvenementPause extends Event {
+
+	@Label("Niveau")
+	int niveau;
+
+	@Label("Durée prévue")
+	@Timespan(Timespan.MILLISECONDS)
+	long dureePrevue;
+
+	@Label("Interrompue")
+	@Description("Pause replanifiée ou annulée avant son terme")
+	boolean interrompue;
+
+	/**
+	 * @return L'événement commencé, <code>null</code> s'il n'est pas activé.
+	 */
+	public static EvenementPause commencer(int niveau, long dureePrevue) {
+		EvenementPause evenement = new EvenementPause();
+		if (!evenement.isEnabled())
+			return null;
+
+		evenement.niveau = niveau;
+		evenement.dureePrevue = dureePrevue;
+		evenement.begin();
+		return evenement;
+	}
+
+	/**
+	 * Termine la pause commencée par {@link #commencer(int, long) commencer}, sans effet si <code>evenement</code> est <code>null</code>.
+	 */
+	public static void terminer(EvenementPause evenement, boolean interrompue) {
+		if (evenement == null)
+			return;
+
+		evenement.interrompue = interrompue;
+		evenement.commit();
+	}
+}
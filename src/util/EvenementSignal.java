@@ -0,0 +1,45 @@
+package util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 	<p>
+ * 		Événement JDK Flight Recorder: enregistrement ou suppression d'un signal (demande de niveau ou appel extérieur).
+ * 	</p>
+ */
+@Name("ascenseur.Signal")
+@Label("Signal")
+@Category("Ascenseur")
+@Description("Enregistrement ou suppression d'un signal")
+@Enabled(false)
+@StackTrace(false)
+public class EvenementSignal extends Event {
+
+	@Label("Type")
+	@Description("demandeNiveau, monterNiveau ou descendreNiveau")
+	String type;
+
+	@Label("Niveau")
+	int niveau;
+
+	@Label("Enregistré")
+	@Description("true à l'enregistrement, false à la suppression")
+	boolean enregistre;
+
+	public static void enregistrer(String type, int niveau, boolean enregistre) {
+		EvenementSignal evenement = new EvenementSignal();
+		if (!evenement.isEnabled())
+			return;
+
+		evenement.type = type;
+		evenement.niveau = niveau;
+		evenement.enregistre = enregistre;
+		evenement.commit();
+	}
+}
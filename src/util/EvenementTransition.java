@@ -0,0 +1,54 @@
+package util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 	<p>
+ * 		Événement JDK Flight Recorder: changement de l'état courant du système de contrôle-commande.
+ * 	</p>
+ * 	<p>
+ * 		Comme les autres événements de la catégorie <code>Ascenseur</code>, il est désactivé par défaut
+ * 		et ne coûte qu'un test tant qu'aucun enregistrement ne l'active, par exemple avec:
+ * 	</p>
+ * 	<pre>
+ * 		java -XX:StartFlightRecording:settings=../ascenseur.jfc,filename=ascenseur.jfr application.MainConsole
+ * 	</pre>
+ */
+@Name("ascenseur.Transition")
+@Label("Transition d'état")
+@Category("Ascenseur")
+@Description("Changement de l'état courant du contrôle-commande")
+@Enabled(false)
+@StackTrace(false)
+public class EvenementTransition extends Event {
+
+	@Label("Ancien état")
+	String ancienEtat;
+
+	@Label("Nouvel état")
+	String nouvelEtat;
+
+	@Label("Niveau")
+	int niveau;
+
+	@Label("Sens")
+	String sens;
+
+	public static void enregistrer(Etat ancienEtat, Etat nouvelEtat, int niveau, Sens sens) {
+		EvenementTransition evenement = new EvenementTransition();
+		if (!evenement.isEnabled())
+			return;
+
+		evenement.ancienEtat = String.valueOf(ancienEtat);
+		evenement.nouvelEtat = String.valueOf(nouvelEtat);
+		evenement.niveau = niveau;
+		evenement.sens = String.valueOf(sens);
+		evenement.commit();
+	}
+}
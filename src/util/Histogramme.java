@@ -0,0 +1,125 @@
+package util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 	<p>
+ * 		Histogramme de durées en nanosecondes, à classes logarithmiques: la classe <code>k</code>
+ * 		compte les durées comprises entre 2<sup>k</sup> et 2<sup>k+1</sup> - 1 nanosecondes.
+ * 	</p>
+ * 	<p>
+ * 		L'enregistrement ne prend aucun verrou et n'alloue rien, il peut donc être appelé depuis
+ * 		n'importe quel thread, y compris sur un chemin critique. La durée maximale est conservée exactement.
+ * 	</p>
+ */
+public class Histogramme {
+
+	private static final int NOMBRE_CLASSES = 64;
+
+	private AtomicLongArray classes;
+	private AtomicLong nombre;
+	private AtomicLong total;
+	private AtomicLong maximum;
+
+	public Histogramme() {
+		classes = new AtomicLongArray(NOMBRE_CLASSES);
+		nombre = new AtomicLong();
+		total = new AtomicLong();
+		maximum = new AtomicLong();
+	}
+
+	/**
+	 * Enregistre une durée. Les durées négatives sont comptées comme nulles.
+	 * 
+	 * @param duree Durée en nanosecondes.
+	 */
+	public void enregistrer(long duree) {
+		if (duree < 0)
+			duree = 0;
+
+		classes.incrementAndGet(classe(duree));
+		nombre.incrementAndGet();
+		total.addAndGet(duree);
+		maximum.accumulateAndGet(duree, Math::max);
+	}
+
+	public long getNombre() {
+		return nombre.get();
+	}
+
+	/**
+	 * @return La durée maximale enregistrée, en nanosecondes.
+	 */
+	public long getMaximum() {
+		return maximum.get();
+	}
+
+	/**
+	 * @return La durée moyenne enregistrée, en nanosecondes.
+	 */
+	public long getMoyenne() {
+		long n = nombre.get();
+		return n == 0 ? 0 : total.get() / n;
+	}
+
+	/**
+	 * 	Borne supérieure du centile <code>p</code>: au moins <code>p</code> % des durées enregistrées
+	 * 	lui sont inférieures ou égales. La précision est celle des classes (un facteur 2 au plus),
+	 * 	sans jamais dépasser le maximum exact.
+	 * 
+	 * @param p Centile entre 0 et 100.
+	 * @return La borne en nanosecondes, 0 si l'histogramme est vide.
+	 */
+	public long centile(double p) {
+		long n = nombre.get();
+		if (n == 0)
+			return 0;
+
+		long rang = (long) Math.ceil(n * p / 100.0);
+		long cumul = 0;
+		for (int k = 0; k < NOMBRE_CLASSES; k++) {
+			cumul += classes.get(k);
+			if (cumul >= rang && cumul > 0)
+				return Math.min(borneSuperieure(k), maximum.get());
+		}
+		return maximum.get();
+	}
+
+	/**
+	 * Remet l'histogramme à zéro.
+	 */
+	public void reinitialiser() {
+		for (int k = 0; k < NOMBRE_CLASSES; k++)
+			classes.set(k, 0);
+		nombre.set(0);
+		total.set(0);
+		maximum.set(0);
+	}
+
+	private static int classe(long duree) {
+		return duree == 0 ? 0 : 63 - Long.numberOfLeadingZeros(duree);
+	}
+
+	private static long borneSuperieure(int classe) {
+		return classe >= 62 ? Long.MAX_VALUE : (2L << classe) - 1;
+	}
+
+	/**
+	 * Résumé de l'histogramme en microsecondes, suivi des classes non vides.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("n=%d moyenne=%.1fus p50=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus",
+				getNombre(), getMoyenne() / 1e3, centile(50) / 1e3, centile(99) / 1e3,
+				centile(99.9) / 1e3, getMaximum() / 1e3));
+
+		for (int k = 0; k < NOMBRE_CLASSES; k++) {
+			long compte = classes.get(k);
+			if (compte > 0)
+				sb.append(String.format("%n  < %10.1fus : %d", (borneSuperieure(k) + 1) / 1e3, compte));
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,33 @@
+package util;
+
+import java.util.TimerTask;
+
+/**
+ * 	<p>
+ * 		Source de temps du système de contrôle-commande.
+ * 	</p>
+ * 	<p>
+ * 		Toutes les temporisations du modèle et des simulateurs passent par une horloge, ce qui permet
+ * 		de les exécuter en temps réel ({@link HorlogeReelle}) ou en temps simulé ({@link HorlogeVirtuelle}).
+ * 	</p>
+ */
+public interface Horloge {
+	/**
+	 * @return Le temps courant de l'horloge, en millisecondes.
+	 */
+	public long getTempsCourant();
+
+	/**
+	 * Planifie une exécution unique de <code>action</code> après <code>delai</code> millisecondes.
+	 * 
+	 * @return La tâche planifiée, qui peut être annulée via <code>cancel()</code>.
+	 */
+	public TimerTask planifier(Runnable action, long delai);
+
+	/**
+	 * Planifie une exécution de <code>action</code> toutes les <code>periode</code> millisecondes.
+	 * 
+	 * @return La tâche planifiée, qui peut être annulée via <code>cancel()</code>.
+	 */
+	public TimerTask planifierPeriodique(Runnable action, long periode);
+}
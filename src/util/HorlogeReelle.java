@@ -0,0 +1,44 @@
+package util;
+
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * Horloge s'appuyant sur l'heure système et sur un <code>Timer</code> pour exécuter les tâches planifiées.
+ */
+public class HorlogeReelle implements Horloge {
+
+	private Timer timer;
+
+	public HorlogeReelle() {
+		timer = new Timer("horloge", true);
+	}
+
+	@Override
+	public long getTempsCourant() {
+		return System.currentTimeMillis();
+	}
+
+	@Override
+	public TimerTask planifier(Runnable action, long delai) {
+		TimerTask tache = envelopper(action);
+		timer.schedule(tache, delai);
+		return tache;
+	}
+
+	@Override
+	public TimerTask planifierPeriodique(Runnable action, long periode) {
+		TimerTask tache = envelopper(action);
+		timer.scheduleAtFixedRate(tache, periode, periode);
+		return tache;
+	}
+
+	private TimerTask envelopper(Runnable action) {
+		return new TimerTask() {
+			@Override
+			public void run() {
+				action.run();
+			}
+		};
+	}
+}
@@ -0,0 +1,120 @@
+package util;
+
+import java.util.PriorityQueue;
+import java.util.TimerTask;
+
+/**
+ * 	<p>
+ * 		Horloge simulée: le temps n'avance que lorsqu'on appelle {@link #avancer(long) avancer}.
+ * 	</p>
+ * 	<p>
+ * 		Les tâches planifiées sont exécutées dans l'ordre de leurs échéances, sur le thread appelant,
+ * 		sans jamais dormir. Elle permet de simuler des heures de fonctionnement en quelques secondes.
+ * 	</p>
+ */
+public class HorlogeVirtuelle implements Horloge {
+
+	private long tempsCourant;
+	private long compteur;
+	private PriorityQueue<TacheVirtuelle> taches;
+
+	public HorlogeVirtuelle() {
+		taches = new PriorityQueue<>();
+	}
+
+	@Override
+	public long getTempsCourant() {
+		return tempsCourant;
+	}
+
+	@Override
+	public TimerTask planifier(Runnable action, long delai) {
+		TacheVirtuelle tache = new TacheVirtuelle(action, tempsCourant + delai, 0);
+		taches.add(tache);
+		return tache;
+	}
+
+	@Override
+	public TimerTask planifierPeriodique(Runnable action, long periode) {
+		TacheVirtuelle tache = new TacheVirtuelle(action, tempsCourant + periode, periode);
+		taches.add(tache);
+		return tache;
+	}
+
+	/**
+	 * Fait avancer le temps de <code>duree</code> millisecondes en exécutant, dans l'ordre,
+	 * toutes les tâches arrivant à échéance pendant cet intervalle.
+	 */
+	public void avancer(long duree) {
+		long fin = tempsCourant + duree;
+
+		while (!taches.isEmpty() && taches.peek().echeance <= fin)
+			executerProchaineTache();
+
+		tempsCourant = fin;
+	}
+
+	/**
+	 * Fait avancer le temps jusqu'à la prochaine tâche planifiée et l'exécute.
+	 * 
+	 * @return <code>false</code> si aucune tâche n'était planifiée.
+	 */
+	public boolean avancerJusquaProchaineTache() {
+		while (!taches.isEmpty() && taches.peek().annulee)
+			taches.poll();
+
+		if (taches.isEmpty())
+			return false;
+
+		executerProchaineTache();
+		return true;
+	}
+
+	private void executerProchaineTache() {
+		TacheVirtuelle tache = taches.poll();
+
+		if (tache.annulee)
+			return;
+
+		tempsCourant = Math.max(tempsCourant, tache.echeance);
+
+		if (tache.periode > 0) {
+			tache.echeance += tache.periode;
+			tache.ordre = compteur++;
+			taches.add(tache);
+		}
+		tache.run();
+	}
+
+	private class TacheVirtuelle extends TimerTask implements Comparable<TacheVirtuelle> {
+		private Runnable action;
+		private long echeance, periode, ordre;
+		private boolean annulee;
+
+		private TacheVirtuelle(Runnable action, long echeance, long periode) {
+			this.action = action;
+			this.echeance = echeance;
+			this.periode = periode;
+			this.ordre = compteur++;
+		}
+
+		@Override
+		public void run() {
+			action.run();
+		}
+
+		@Override
+		public boolean cancel() {
+			boolean etaitActive = !annulee;
+			annulee = true;
+			return etaitActive;
+		}
+
+		@Override
+		public int compareTo(TacheVirtuelle autre) {
+			if (echeance != autre.echeance)
+				return Long.compare(echeance, autre.echeance);
+			return Long.compare(ordre, autre.ordre);
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * 	<p>
+ * 		Lot de signaux reçus ensemble (trame d'un bus de boutons, rejeu d'une trace, paquet réseau),
+ * 		à soumettre d'un seul appel au modèle.
+ * 	</p>
+ * 	<p>
+ * 		Le modèle enregistre tous les signaux du lot puis ne prend qu'une seule décision de déplacement et d'arrêt,
+ * 		et les écouteurs ne reçoivent qu'une seule notification <code>"signaux"</code>.
+ * 		Les types de signaux sont ceux de {@link SignauxCompacts}.
+ * 	</p>
+ *
+ * @see Signaux#enregistrer(LotSignaux)
+ */
+public class LotSignaux {
+
+	private int[] types;
+	private int[] niveaux;
+	private int taille;
+
+	public LotSignaux() {
+		this(16);
+	}
+
+	/**
+	 * @param capacite Nombre de signaux prévus, le lot s'agrandit au besoin.
+	 */
+	public LotSignaux(int capacite) {
+		types = new int[Math.max(1, capacite)];
+		niveaux = new int[types.length];
+	}
+
+	public LotSignaux demandeNiveau(int niveau) {
+		return ajouter(SignauxCompacts.DEMANDE, niveau);
+	}
+
+	public LotSignaux monterNiveau(int niveau) {
+		return ajouter(SignauxCompacts.MONTER, niveau);
+	}
+
+	public LotSignaux descendreNiveau(int niveau) {
+		return ajouter(SignauxCompacts.DESCENDRE, niveau);
+	}
+
+	/**
+	 * @param type {@link SignauxCompacts#DEMANDE DEMANDE}, {@link SignauxCompacts#MONTER MONTER}
+	 * ou {@link SignauxCompacts#DESCENDRE DESCENDRE}.
+	 */
+	public LotSignaux ajouter(int type, int niveau) {
+		if (type < SignauxCompacts.DEMANDE || type > SignauxCompacts.DESCENDRE)
+			throw new IllegalArgumentException("Type de signal inconnu : " + type + ".");
+
+		if (taille == types.length) {
+			types = Arrays.copyOf(types, 2 * taille);
+			niveaux = Arrays.copyOf(niveaux, 2 * taille);
+		}
+
+		types[taille] = type;
+		niveaux[taille++] = niveau;
+		return this;
+	}
+
+	public int getTaille() {
+		return taille;
+	}
+
+	public boolean estVide() {
+		return taille == 0;
+	}
+
+	public int getType(int i) {
+		return types[i];
+	}
+
+	public int getNiveau(int i) {
+		return niveaux[i];
+	}
+
+	/**
+	 * Vide le lot pour le réutiliser, sans libérer sa mémoire.
+	 */
+	public void vider() {
+		taille = 0;
+	}
+}
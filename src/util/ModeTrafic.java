@@ -0,0 +1,27 @@
+package util;
+
+/**
+ * Situation de trafic reconnue d'après les signaux reçus par une cabine.
+ */
+public enum ModeTrafic {
+	/**
+	 * Pointe montante (arrivée du matin): les appels partent du niveau principal vers les étages.
+	 */
+	POINTE_MONTANTE,
+	/**
+	 * Pointe descendante (départ du soir): les passagers vont des étages vers le niveau principal.
+	 */
+	POINTE_DESCENDANTE,
+	/**
+	 * Trafic dans les deux sens (mi-journée): autant de passagers partent du niveau principal qu'ils n'y arrivent.
+	 */
+	DEUX_SENS,
+	/**
+	 * Trafic entre étages, sans rôle particulier du niveau principal.
+	 */
+	INTERETAGE,
+	/**
+	 * Trafic faible ou nul.
+	 */
+	REPOS
+}
@@ -0,0 +1,30 @@
+package util;
+
+import java.beans.PropertyChangeEvent;
+
+/**
+ * 	<p>
+ * 		Notification délivrée par un {@link EcouteurAsynchrone}, avec la date de son émission par le modèle.
+ * 	</p>
+ * 	<p>
+ * 		Une notification fusionnée garde la date de la plus ancienne modification qu'elle contient.
+ * 	</p>
+ */
+public class NotificationDatee extends PropertyChangeEvent {
+
+	private static final long serialVersionUID = 1L;
+
+	private final long dateEmission;
+
+	public NotificationDatee(PropertyChangeEvent evenement, long dateEmission) {
+		super(evenement.getSource(), evenement.getPropertyName(), evenement.getOldValue(), evenement.getNewValue());
+		this.dateEmission = dateEmission;
+	}
+
+	/**
+	 * @return La date d'émission, en nanosecondes de {@link System#nanoTime()}.
+	 */
+	public long getDateEmission() {
+		return dateEmission;
+	}
+}
@@ -0,0 +1,22 @@
+package util;
+
+/**
+ * Comportement d'un {@link EcouteurAsynchrone} lorsque sa file de notifications est pleine.
+ */
+public enum PolitiqueDebordement {
+	/**
+	 * La notification la plus ancienne de la file est perdue.
+	 */
+	SUPPRIMER_PLUS_ANCIEN,
+	/**
+	 * La notification remplace celle de la même propriété encore dans la file, qui n'est pas délivrée.
+	 * Sans notification de la même propriété dans la file, la plus ancienne est perdue.
+	 */
+	FUSIONNER,
+	/**
+	 * L'émetteur attend qu'une place se libère, au plus {@link EcouteurAsynchrone#DELAI_MAX_BLOCAGE DELAI_MAX_BLOCAGE}
+	 * millisecondes, puis la notification la plus ancienne est perdue. La notification de l'arrêt d'urgence n'attend jamais.
+	 * Le contrôle-commande dépend alors de la vitesse de l'écouteur, dans cette limite.
+	 */
+	BLOQUER
+}
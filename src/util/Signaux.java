@@ -4,26 +4,46 @@ import java.beans.PropertyChangeSupport;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class Signaux {
-	private final int PREMIER_NIVEAU, DERNIER_NIVEAU;
+	private final Zonage zonage;
 	
-	// Demandes à l'interieur de la cabine
+	// Demandes à l'interieur de la cabine, indexées par rang de niveau desservi
 	private AtomicBoolean[] demandeNiveau;
 	
-	// Demandes à l'exterieur de la cabine
+	// Demandes à l'exterieur de la cabine.
+	// Il n'y a pas de bouton pour monter au dernier niveau desservi, ni pour descendre au premier:
+	// monterNiveau est indexé par rang, descendreNiveau par rang - 1.
 	private AtomicBoolean[] monterNiveau; 
 	private AtomicBoolean[] descendreNiveau;
 	
+	// Instants d'enregistrement des signaux selon l'horloge, indexés comme les signaux eux-mêmes
+	private long[] dateDemande;
+	private long[] dateMonter;
+	private long[] dateDescendre;
+	
+	// File des appels extérieurs en attente, du plus ancien au plus récent, chaînée dans deux tableaux.
+	// Un appel pour monter au rang r occupe la case r, un appel pour descendre au rang r la case monterNiveau.length + r - 1.
+	private int[] suivant;
+	private int[] precedent;
+	private int premierAppel = -1;
+	private int dernierAppel = -1;
+	
 	private PropertyChangeSupport changeSupport;
+	private Horloge horloge;
 	
-	public Signaux(int premierNiveau, int dernierNiveau, PropertyChangeSupport changeSupport) {
-		PREMIER_NIVEAU = premierNiveau;
-		DERNIER_NIVEAU = dernierNiveau;
+	public Signaux(int premierNiveau, int dernierNiveau, PropertyChangeSupport changeSupport, Horloge horloge) {
+		this(new Zonage(premierNiveau, dernierNiveau), changeSupport, horloge);
+	}
+	
+	public Signaux(Zonage zonage, PropertyChangeSupport changeSupport, Horloge horloge) {
+		this.zonage = zonage;
 		this.changeSupport = changeSupport;
+		this.horloge = horloge;
 		
 		/* Initialise les tableaux et les booléens contenus à false */
-		demandeNiveau = new AtomicBoolean[DERNIER_NIVEAU - PREMIER_NIVEAU + 1];
-		monterNiveau = new AtomicBoolean[DERNIER_NIVEAU - PREMIER_NIVEAU];
-		descendreNiveau = new AtomicBoolean[DERNIER_NIVEAU - PREMIER_NIVEAU];
+		int nombreNiveaux = zonage.getNombreNiveauxDesservis();
+		demandeNiveau = new AtomicBoolean[nombreNiveaux];
+		monterNiveau = new AtomicBoolean[nombreNiveaux - 1];
+		descendreNiveau = new AtomicBoolean[nombreNiveaux - 1];
 		
 		for (int i = 0; i < demandeNiveau.length; i++)
 			demandeNiveau[i] = new AtomicBoolean();
@@ -31,58 +51,344 @@ public class Signaux {
 			monterNiveau[i] = new AtomicBoolean();
 		for (int i = 0; i < descendreNiveau.length; i++)
 			descendreNiveau[i] = new AtomicBoolean();
+		
+		dateDemande = new long[nombreNiveaux];
+		dateMonter = new long[nombreNiveaux - 1];
+		dateDescendre = new long[nombreNiveaux - 1];
+		suivant = new int[2 * (nombreNiveaux - 1)];
+		precedent = new int[2 * (nombreNiveaux - 1)];
+	}
+
+	public Zonage getZonage() {
+		return zonage;
+	}
+
+	/**
+	 * @return Le rang de <code>niveau</code>, après avoir vérifié qu'il est desservi.
+	 */
+	private int rangDesservi(int niveau) {
+		int rang = zonage.rang(niveau);
+		
+		if (rang < 0)
+			throw new IllegalArgumentException("Le niveau " + niveau + " n'est pas desservi.");
+		
+		return rang;
 	}
 
 	public boolean demandeNiveau(int niveau) {
-		return demandeNiveau[niveau - PREMIER_NIVEAU].get();
+		int rang = zonage.rang(niveau);
+		return rang >= 0 && demandeNiveau[rang].get();
 	}
 
 	public void setDemandeNiveau(int niveau, boolean valeur) {
-		boolean anciValeur = demandeNiveau[niveau - PREMIER_NIVEAU].get();
-		demandeNiveau[niveau - PREMIER_NIVEAU].set(valeur);
-		
+		boolean anciValeur = poserDemande(niveau, rangDesservi(niveau), valeur);
 		changeSupport.firePropertyChange("demandeNiveau"+niveau, anciValeur, valeur);
 	}
 
+	private boolean poserDemande(int niveau, int rang, boolean valeur) {
+		boolean anciValeur = demandeNiveau[rang].getAndSet(valeur);
+		if (valeur && !anciValeur)
+			dateDemande[rang] = horloge.getTempsCourant();
+		
+		if (anciValeur != valeur)
+			EvenementSignal.enregistrer("demandeNiveau", niveau, valeur);
+		return anciValeur;
+	}
+
 	public boolean monterNiveau(int niveau) {
-		return monterNiveau[niveau - PREMIER_NIVEAU].get();
+		int rang = zonage.rang(niveau);
+		return rang >= 0 && rang < monterNiveau.length && monterNiveau[rang].get();
 	}
 	
 	public void setMonterNiveau(int niveau, boolean valeur) {
-		boolean anciValeur = monterNiveau[niveau - PREMIER_NIVEAU].get();
-		monterNiveau[niveau - PREMIER_NIVEAU].set(valeur);
+		int rang = rangDesservi(niveau);
+		if (rang == monterNiveau.length)
+			throw new IllegalArgumentException("Il n'y a pas de bouton pour monter au niveau " + niveau + ".");
 		
+		boolean anciValeur = poserMonter(niveau, rang, valeur);
 		changeSupport.firePropertyChange("monterNiveau"+niveau, anciValeur, valeur);
 	}
+
+	private boolean poserMonter(int niveau, int rang, boolean valeur) {
+		boolean anciValeur;
+		synchronized (this) {
+			anciValeur = monterNiveau[rang].getAndSet(valeur);
+			if (valeur && !anciValeur)
+				dateMonter[rang] = enfiler(rang);
+			else if (!valeur && anciValeur)
+				retirer(rang);
+		}
+		
+		if (anciValeur != valeur)
+			EvenementSignal.enregistrer("monterNiveau", niveau, valeur);
+		return anciValeur;
+	}
 	
 	public boolean descendreNiveau(int niveau) {
-		return descendreNiveau[niveau - PREMIER_NIVEAU - 1].get();
+		int rang = zonage.rang(niveau);
+		return rang > 0 && descendreNiveau[rang - 1].get();
 	}
 
 	public void setDescendreNiveau(int niveau, boolean valeur) {
-		boolean anciValeur = descendreNiveau[niveau - PREMIER_NIVEAU - 1].get();
-		descendreNiveau[niveau - PREMIER_NIVEAU - 1].set(valeur);
+		int rang = rangDesservi(niveau);
+		if (rang == 0)
+			throw new IllegalArgumentException("Il n'y a pas de bouton pour descendre au niveau " + niveau + ".");
 		
+		boolean anciValeur = poserDescendre(niveau, rang, valeur);
 		changeSupport.firePropertyChange("descendreNiveau"+niveau, anciValeur, valeur);
 	}
+
+	private boolean poserDescendre(int niveau, int rang, boolean valeur) {
+		boolean anciValeur;
+		synchronized (this) {
+			anciValeur = descendreNiveau[rang - 1].getAndSet(valeur);
+			if (valeur && !anciValeur)
+				dateDescendre[rang - 1] = enfiler(monterNiveau.length + rang - 1);
+			else if (!valeur && anciValeur)
+				retirer(monterNiveau.length + rang - 1);
+		}
+		
+		if (anciValeur != valeur)
+			EvenementSignal.enregistrer("descendreNiveau", niveau, valeur);
+		return anciValeur;
+	}
+
+	/**
+	 * 	<p>
+	 * 		Enregistre tous les signaux d'un lot, puis notifie une seule fois les écouteurs par la propriété
+	 * 		<code>"signaux"</code>, dont l'ancienne et la nouvelle valeur sont les signaux avant et après le lot
+	 * 		sous forme {@link SignauxCompacts compacte}. Aucune notification par bouton n'est émise.
+	 * 	</p>
+	 * 	<p>
+	 * 		Les signaux à un niveau non desservi et les boutons qui n'existent pas sont ignorés.
+	 * 	</p>
+	 * 
+	 * @return Le nombre de signaux nouvellement enregistrés.
+	 */
+	public int enregistrer(LotSignaux lot) {
+		SignauxCompacts avant = capturer();
+		int nouveaux = 0;
+
+		for (int i = 0; i < lot.getTaille(); i++) {
+			int niveau = lot.getNiveau(i);
+			int rang = zonage.rang(niveau);
+			if (rang < 0)
+				continue;
+
+			switch (lot.getType(i)) {
+				case SignauxCompacts.DEMANDE:
+					if (!poserDemande(niveau, rang, true))
+						nouveaux++;
+					break;
+				case SignauxCompacts.MONTER:
+					if (rang < monterNiveau.length && !poserMonter(niveau, rang, true))
+						nouveaux++;
+					break;
+				case SignauxCompacts.DESCENDRE:
+					if (rang > 0 && !poserDescendre(niveau, rang, true))
+						nouveaux++;
+					break;
+			}
+		}
+
+		if (nouveaux > 0)
+			changeSupport.firePropertyChange("signaux", avant, capturer());
+		return nouveaux;
+	}
+	
+	/**
+	 * @return L'instant d'enregistrement de la demande du niveau <code>niveau</code>, selon l'horloge.
+	 * Sans signification si aucune demande n'est enregistrée.
+	 */
+	public long dateDemande(int niveau) {
+		return dateDemande[rangDesservi(niveau)];
+	}
+	
+	/**
+	 * @return L'instant d'enregistrement de l'appel du niveau <code>niveau</code> dans le sens <code>sens</code>, selon l'horloge.
+	 * Sans signification si cet appel n'est pas enregistré.
+	 */
+	public long dateAppel(int niveau, Sens sens) {
+		int rang = rangDesservi(niveau);
+		return sens == Sens.MONTER ? dateMonter[rang] : dateDescendre[rang - 1];
+	}
+	
+	/**
+	 * @return Le niveau de l'appel extérieur en attente depuis le plus longtemps, en temps constant.
+	 * Sans signification s'il n'y a aucun appel, voir {@link #dateAppelLePlusAncien()}.
+	 */
+	public synchronized int niveauAppelLePlusAncien() {
+		if (premierAppel < 0)
+			return zonage.getPremierNiveau();
+		return zonage.getNiveau(premierAppel < monterNiveau.length ? premierAppel : premierAppel - monterNiveau.length + 1);
+	}
+	
+	/**
+	 * @return Le sens de l'appel extérieur en attente depuis le plus longtemps.
+	 */
+	public synchronized Sens sensAppelLePlusAncien() {
+		return premierAppel < monterNiveau.length ? Sens.MONTER : Sens.DESCENDRE;
+	}
+	
+	/**
+	 * @return L'instant d'enregistrement de l'appel extérieur le plus ancien, <code>Long.MAX_VALUE</code> s'il n'y a aucun appel.
+	 */
+	public synchronized long dateAppelLePlusAncien() {
+		if (premierAppel < 0)
+			return Long.MAX_VALUE;
+		return premierAppel < monterNiveau.length ? dateMonter[premierAppel] : dateDescendre[premierAppel - monterNiveau.length];
+	}
+	
+	/**
+	 * Ajoute un appel en fin de file. Les instants d'enregistrement sont croissants: la file reste triée.
+	 * 
+	 * @return L'instant d'enregistrement de l'appel.
+	 */
+	private long enfiler(int appel) {
+		precedent[appel] = dernierAppel;
+		suivant[appel] = -1;
+		if (dernierAppel < 0)
+			premierAppel = appel;
+		else
+			suivant[dernierAppel] = appel;
+		dernierAppel = appel;
+		
+		return horloge.getTempsCourant();
+	}
+	
+	private void retirer(int appel) {
+		if (precedent[appel] < 0)
+			premierAppel = suivant[appel];
+		else
+			suivant[precedent[appel]] = suivant[appel];
+		
+		if (suivant[appel] < 0)
+			dernierAppel = precedent[appel];
+		else
+			precedent[suivant[appel]] = precedent[appel];
+	}
+	
+	/**
+	 * Détermine si une demande de niveau est enregistrée à un niveau desservi strictement au dessus de <code>niveau</code>.
+	 */
+	public boolean demandeAuDessus(int niveau) {
+		for (int rang = zonage.rangAuDessus(niveau); rang < demandeNiveau.length; rang++)
+			if (demandeNiveau[rang].get())
+				return true;
+		
+		return false;
+	}
+	
+	/**
+	 * Détermine si une demande de niveau est enregistrée à un niveau desservi strictement en dessous de <code>niveau</code>.
+	 */
+	public boolean demandeEnDessous(int niveau) {
+		for (int rang = zonage.rangEnDessous(niveau) - 1; rang >= 0; rang--)
+			if (demandeNiveau[rang].get())
+				return true;
+		
+		return false;
+	}
+	
+	/**
+	 * Détermine si un signal est enregistré à un niveau desservi strictement au dessus de <code>niveau</code>.
+	 */
+	public boolean requeteAuDessus(int niveau) {
+		for (int rang = zonage.rangAuDessus(niveau); rang < demandeNiveau.length; rang++)
+			if (demandeNiveau[rang].get() || (rang > 0 && descendreNiveau[rang - 1].get())
+			// Attention au bouton pour monter qui n'existe pas au dernier niveau
+			|| (rang < monterNiveau.length && monterNiveau[rang].get()))
+				return true;
+
+		return false;
+	}
 	
-	public void supprimerTousLesSignaux() {
+	/**
+	 * Détermine si un signal est enregistré à un niveau desservi strictement en dessous de <code>niveau</code>.
+	 */
+	public boolean requeteEnDessous(int niveau) {
+		for (int rang = zonage.rangEnDessous(niveau) - 1; rang >= 0; rang--)
+			if (demandeNiveau[rang].get() || monterNiveau[rang].get()
+			// Attention au bouton pour descendre qui n'existe pas au premier niveau
+			|| (rang > 0 && descendreNiveau[rang - 1].get()))
+				return true;
+
+		return false;
+	}
+	
+	/**
+	 * Copie les signaux enregistrés dans leur forme compacte, un bit par bouton.
+	 */
+	public SignauxCompacts capturer() {
+		SignauxCompacts copie = new SignauxCompacts(demandeNiveau.length);
+		
+		for (int rang = 0; rang < demandeNiveau.length; rang++)
+			copie.set(SignauxCompacts.DEMANDE, rang, demandeNiveau[rang].get());
+		
+		for (int i = 0; i < monterNiveau.length; i++) {
+			copie.set(SignauxCompacts.MONTER, i, monterNiveau[i].get());
+			copie.set(SignauxCompacts.DESCENDRE, i + 1, descendreNiveau[i].get());
+		}
+		
+		return copie;
+	}
+	
+	/**
+	 * 	<p>
+	 * 		Remplace les signaux enregistrés par <code>etat</code>, signaux copiés d'un autre système de contrôle-commande,
+	 * 		puis notifie une seule fois les écouteurs par la propriété <code>"signaux"</code>, comme {@link #enregistrer(LotSignaux) enregistrer}.
+	 * 	</p>
+	 * 	<p>
+	 * 		L'ancienneté des appels n'est pas transmise: un appel nouvellement enregistré prend l'instant de la restauration.
+	 * 	</p>
+	 */
+	public void restaurer(SignauxCompacts etat) {
+		SignauxCompacts avant = capturer();
+		if (avant.equals(etat))
+			return;
+
+		int[] niveaux = zonage.getNiveauxDesservis();
+		for (int rang = 0; rang < niveaux.length; rang++) {
+			poserDemande(niveaux[rang], rang, etat.get(SignauxCompacts.DEMANDE, rang));
+			if (rang < monterNiveau.length)
+				poserMonter(niveaux[rang], rang, etat.get(SignauxCompacts.MONTER, rang));
+			if (rang > 0)
+				poserDescendre(niveaux[rang], rang, etat.get(SignauxCompacts.DESCENDRE, rang));
+		}
+
+		changeSupport.firePropertyChange("signaux", avant, capturer());
+	}
+	
+	/**
+	 * Supprime tous les signaux, sans notifier les écouteurs. Chaque signal supprimé est tracé par un {@link EvenementSignal}.
+	 */
+	public synchronized void supprimerTousLesSignaux() {
 		for (int i = 0; i < demandeNiveau.length; i++)
-			demandeNiveau[i].set(false);
+			if (demandeNiveau[i].getAndSet(false))
+				EvenementSignal.enregistrer("demandeNiveau", zonage.getNiveau(i), false);
 		
 		for (int i = 0; i < monterNiveau.length; i++) {
-			monterNiveau[i].set(false);
-			descendreNiveau[i].set(false);
+			if (monterNiveau[i].getAndSet(false))
+				EvenementSignal.enregistrer("monterNiveau", zonage.getNiveau(i), false);
+			if (descendreNiveau[i].getAndSet(false))
+				EvenementSignal.enregistrer("descendreNiveau", zonage.getNiveau(i + 1), false);
 		}
+		
+		premierAppel = dernierAppel = -1;
 	}
 	
 	public void supprimerSignaux(int niveau, Sens sens) {
+		int rang = zonage.rang(niveau);
+		
+		if (rang < 0)
+			return;
+		
 		setDemandeNiveau(niveau, false);
 		
-		if (niveau > PREMIER_NIVEAU && sens == Sens.DESCENDRE)
+		if (rang > 0 && sens == Sens.DESCENDRE)
 			setDescendreNiveau(niveau, false);
 		
-		if (niveau < DERNIER_NIVEAU && sens == Sens.MONTER)
+		if (rang < monterNiveau.length && sens == Sens.MONTER)
 			setMonterNiveau(niveau, false);
 	}
 }
@@ -0,0 +1,190 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * 	<p>
+ * 		Copie compacte des signaux d'une cabine: un bit par bouton, regroupés par mots de 64 bits.
+ * 	</p>
+ * 	<p>
+ * 		Les trois tableaux (demandes de niveau, appels pour monter, appels pour descendre) sont indexés
+ * 		par rang de niveau desservi. Le bit de rang 0 des appels pour descendre et celui du dernier rang
+ * 		des appels pour monter sont toujours nuls, ces boutons n'existant pas.
+ * 	</p>
+ * 	<p>
+ * 		Une copie obtenue par {@link #partager() partager} partage les tableaux de bits avec l'original
+ * 		jusqu'à la première modification de l'un des deux (copie sur écriture): copier ne coûte alors
+ * 		que quelques références, ce qui permet de dupliquer un état à chaque simulation anticipée.
+ * 	</p>
+ * 
+ * @see Signaux#capturer()
+ */
+public class SignauxCompacts {
+
+	public static final int DEMANDE = 0, MONTER = 1, DESCENDRE = 2;
+
+	private final int nombreRangs;
+	private final long[][] bits;
+	/* Tableaux de bits partagés avec une autre copie, à dupliquer avant toute modification */
+	private final boolean[] partages;
+
+	public SignauxCompacts(int nombreRangs) {
+		this.nombreRangs = nombreRangs;
+		bits = new long[3][nombreMots(nombreRangs)];
+		partages = new boolean[3];
+	}
+
+	public SignauxCompacts(SignauxCompacts autre) {
+		nombreRangs = autre.nombreRangs;
+		bits = new long[3][];
+		for (int tableau = 0; tableau < 3; tableau++)
+			bits[tableau] = autre.bits[tableau].clone();
+		partages = new boolean[3];
+	}
+
+	private SignauxCompacts(SignauxCompacts autre, boolean partage) {
+		nombreRangs = autre.nombreRangs;
+		bits = autre.bits.clone();
+		partages = new boolean[] { true, true, true };
+
+		// L'original n'est écrit qu'une fois, il peut ensuite être partagé entre plusieurs threads en lecture
+		for (int tableau = 0; tableau < 3; tableau++)
+			if (!autre.partages[tableau])
+				autre.partages[tableau] = true;
+	}
+
+	/**
+	 * 	Copie sur écriture: la copie et l'original partagent leurs bits jusqu'à la première modification.
+	 * 	Plusieurs threads peuvent copier le même original tant qu'il n'est plus modifié.
+	 * 
+	 * @return Une copie indépendante de ces signaux, obtenue en temps constant.
+	 */
+	public SignauxCompacts partager() {
+		return new SignauxCompacts(this, true);
+	}
+
+	/**
+	 * @return Le nombre de mots de 64 bits nécessaires pour <code>nombreRangs</code> niveaux desservis.
+	 */
+	public static int nombreMots(int nombreRangs) {
+		return (nombreRangs + 63) >>> 6;
+	}
+
+	public int getNombreRangs() {
+		return nombreRangs;
+	}
+
+	public int getNombreMots() {
+		return bits[DEMANDE].length;
+	}
+
+	public boolean get(int tableau, int rang) {
+		return (bits[tableau][rang >>> 6] & (1L << rang)) != 0;
+	}
+
+	public void set(int tableau, int rang, boolean valeur) {
+		ecrire(tableau);
+		if (valeur)
+			bits[tableau][rang >>> 6] |= 1L << rang;
+		else
+			bits[tableau][rang >>> 6] &= ~(1L << rang);
+	}
+
+	public long getMot(int tableau, int indice) {
+		return bits[tableau][indice];
+	}
+
+	public void setMot(int tableau, int indice, long mot) {
+		ecrire(tableau);
+		bits[tableau][indice] = mot;
+	}
+
+	/**
+	 * Duplique le tableau de bits avant de le modifier s'il est partagé avec une autre copie.
+	 */
+	private void ecrire(int tableau) {
+		if (partages[tableau]) {
+			bits[tableau] = bits[tableau].clone();
+			partages[tableau] = false;
+		}
+	}
+
+	/**
+	 * @return Le nombre de signaux enregistrés, tous tableaux confondus.
+	 */
+	public int nombre() {
+		int nombre = 0;
+		for (long[] mots : bits)
+			for (long mot : mots)
+				nombre += Long.bitCount(mot);
+		return nombre;
+	}
+
+	/**
+	 * @return Le nombre de signaux enregistrés dans <code>tableau</code>.
+	 */
+	public int nombre(int tableau) {
+		int nombre = 0;
+		for (long mot : bits[tableau])
+			nombre += Long.bitCount(mot);
+		return nombre;
+	}
+
+	/**
+	 * @return <code>true</code> si un signal, quel que soit son tableau, est enregistré à un rang supérieur ou égal à <code>rang</code>.
+	 */
+	public boolean signalAPartirDe(int rang) {
+		if (rang >= nombreRangs)
+			return false;
+
+		int premier = rang >>> 6;
+		long masque = -1L << rang;
+		for (int i = premier; i < bits[DEMANDE].length; i++) {
+			if (((bits[DEMANDE][i] | bits[MONTER][i] | bits[DESCENDRE][i]) & masque) != 0)
+				return true;
+			masque = -1L;
+		}
+		return false;
+	}
+
+	/**
+	 * @return <code>true</code> si un signal, quel que soit son tableau, est enregistré à un rang strictement inférieur à <code>rang</code>.
+	 */
+	public boolean signalAvant(int rang) {
+		if (rang <= 0)
+			return false;
+
+		int dernier = (rang - 1) >>> 6;
+		for (int i = 0; i <= dernier; i++) {
+			long masque = i < dernier ? -1L : -1L >>> (63 - ((rang - 1) & 63));
+			if (((bits[DEMANDE][i] | bits[MONTER][i] | bits[DESCENDRE][i]) & masque) != 0)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @return <code>true</code> si aucun signal n'est enregistré.
+	 */
+	public boolean estVide() {
+		for (long[] mots : bits)
+			for (long mot : mots)
+				if (mot != 0)
+					return false;
+		return true;
+	}
+
+	@Override
+	public boolean equals(Object objet) {
+		if (!(objet instanceof SignauxCompacts))
+			return false;
+
+		SignauxCompacts autre = (SignauxCompacts) objet;
+		return nombreRangs == autre.nombreRangs && Arrays.deepEquals(bits, autre.bits);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.deepHashCode(bits);
+	}
+}
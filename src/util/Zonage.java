@@ -0,0 +1,132 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * 	<p>
+ * 		Décrit les niveaux desservis par une cabine dans sa gaine.
+ * 	</p>
+ * 	<p>
+ * 		Dans les tours, une cabine ne dessert qu'une zone de niveaux et traverse sans s'arrêter
+ * 		les niveaux des autres zones (trajet express). Les changements de cabine se font aux
+ * 		<b>sky lobbies</b>, des niveaux de correspondance desservis par plusieurs zones.
+ * 	</p>
+ * 	<p>
+ * 		Les niveaux desservis sont repérés par leur <b>rang</b>: 0 pour le plus bas, 1 pour le suivant, etc.
+ * 		Les signaux ne sont mémorisés que pour les niveaux desservis.
+ * 	</p>
+ */
+public class Zonage {
+	private final int PREMIER_NIVEAU, DERNIER_NIVEAU;
+	/** Niveaux desservis, triés par ordre croissant. */
+	private final int[] niveauxDesservis;
+	/** Niveaux de correspondance entre zones, triés par ordre croissant. */
+	private final int[] skyLobbies;
+
+	/**
+	 * Construit un zonage dans lequel tous les niveaux de la gaine sont desservis.
+	 */
+	public Zonage(int premierNiveau, int dernierNiveau) {
+		this(premierNiveau, dernierNiveau, intervalle(premierNiveau, dernierNiveau), new int[0]);
+	}
+
+	/**
+	 * @param premierNiveau Premier niveau de la gaine.
+	 * @param dernierNiveau Dernier niveau de la gaine.
+	 * @param niveauxDesservis Niveaux où la cabine peut s'arrêter (au moins deux).
+	 * @param skyLobbies Niveaux de correspondance, tous desservis.
+	 */
+	public Zonage(int premierNiveau, int dernierNiveau, int[] niveauxDesservis, int[] skyLobbies) {
+		if (premierNiveau >= dernierNiveau)
+			throw new IllegalArgumentException("Le premier niveau doit être strictement inférieur au dernier niveau.");
+
+		this.niveauxDesservis = Arrays.stream(niveauxDesservis).distinct().sorted().toArray();
+		this.skyLobbies = Arrays.stream(skyLobbies).distinct().sorted().toArray();
+
+		if (this.niveauxDesservis.length < 2)
+			throw new IllegalArgumentException("Une cabine doit desservir au moins deux niveaux.");
+		if (this.niveauxDesservis[0] < premierNiveau || this.niveauxDesservis[this.niveauxDesservis.length - 1] > dernierNiveau)
+			throw new IllegalArgumentException("Les niveaux desservis doivent être compris dans la gaine.");
+		for (int lobby : this.skyLobbies)
+			if (Arrays.binarySearch(this.niveauxDesservis, lobby) < 0)
+				throw new IllegalArgumentException("Le sky lobby " + lobby + " n'est pas desservi.");
+
+		PREMIER_NIVEAU = premierNiveau;
+		DERNIER_NIVEAU = dernierNiveau;
+	}
+
+	/**
+	 * Construit le zonage d'une cabine express: elle dessert les lobbies puis les niveaux de
+	 * <code>debutZone</code> à <code>finZone</code>, et traverse les niveaux intermédiaires sans s'arrêter.
+	 */
+	public static Zonage zoneExpress(int premierNiveau, int dernierNiveau, int[] lobbies, int debutZone, int finZone) {
+		int[] zone = intervalle(debutZone, finZone);
+		int[] desservis = Arrays.copyOf(lobbies, lobbies.length + zone.length);
+
+		System.arraycopy(zone, 0, desservis, lobbies.length, zone.length);
+
+		return new Zonage(premierNiveau, dernierNiveau, desservis, lobbies);
+	}
+
+	private static int[] intervalle(int debut, int fin) {
+		int[] niveaux = new int[fin - debut + 1];
+
+		for (int i = 0; i < niveaux.length; i++)
+			niveaux[i] = debut + i;
+
+		return niveaux;
+	}
+
+	public int getPremierNiveau() {
+		return PREMIER_NIVEAU;
+	}
+
+	public int getDernierNiveau() {
+		return DERNIER_NIVEAU;
+	}
+
+	public int getNombreNiveauxDesservis() {
+		return niveauxDesservis.length;
+	}
+
+	/** @return Une copie des niveaux desservis, triés par ordre croissant. */
+	public int[] getNiveauxDesservis() {
+		return niveauxDesservis.clone();
+	}
+
+	/** @return Une copie des sky lobbies, triés par ordre croissant. */
+	public int[] getSkyLobbies() {
+		return skyLobbies.clone();
+	}
+
+	/** @return Le niveau desservi de rang <code>rang</code>. */
+	public int getNiveau(int rang) {
+		return niveauxDesservis[rang];
+	}
+
+	/** @return Le rang de <code>niveau</code> parmi les niveaux desservis, ou -1 s'il n'est pas desservi. */
+	public int rang(int niveau) {
+		int rang = Arrays.binarySearch(niveauxDesservis, niveau);
+		return rang >= 0 ? rang : -1;
+	}
+
+	public boolean estDesservi(int niveau) {
+		return rang(niveau) >= 0;
+	}
+
+	public boolean estSkyLobby(int niveau) {
+		return Arrays.binarySearch(skyLobbies, niveau) >= 0;
+	}
+
+	/** @return Le rang du premier niveau desservi strictement au dessus de <code>niveau</code>. */
+	public int rangAuDessus(int niveau) {
+		int rang = Arrays.binarySearch(niveauxDesservis, niveau);
+		return rang >= 0 ? rang + 1 : -(rang + 1);
+	}
+
+	/** @return Le rang suivant celui du dernier niveau desservi strictement en dessous de <code>niveau</code>. */
+	public int rangEnDessous(int niveau) {
+		int rang = Arrays.binarySearch(niveauxDesservis, niveau);
+		return rang >= 0 ? rang : -(rang + 1);
+	}
+}
@@ -1,4 +1,4 @@
-package util;
+package vues;
 import javafx.scene.Node;
 import javafx.scene.control.Button;
 
@@ -0,0 +1,272 @@
+package vues;
+
+import java.beans.PropertyChangeEvent;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import javafx.animation.Animation;
+import javafx.animation.AnimationTimer;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import util.Histogramme;
+import util.NotificationDatee;
+
+/**
+ * 	<p>
+ * 		Mesure des latences de l'interface, du modèle jusqu'à l'image qui affiche le changement,
+ * 		activée par l'option <code>--latences</code>.
+ * 	</p>
+ * 	<p>
+ * 		Le trajet d'une notification du modèle est découpé en étapes, chacune avec son histogramme:
+ * 	</p>
+ * 	<ul>
+ * 		<li><b>file</b>: de l'émission par le modèle à la réception par la vue, dans la file de l'{@link util.EcouteurAsynchrone écouteur asynchrone};</li>
+ * 		<li><b>attente JavaFX</b>: de la réception au début du traitement sur le thread JavaFX;</li>
+ * 		<li><b>décodage</b>: traitement de la notification, hors styles et portes;</li>
+ * 		<li><b>styles</b>: changements de classes CSS des boutons ({@link VueClient#definirStyle(Button, String) definirStyle});</li>
+ * 		<li><b>portes</b>: création et lancement de l'animation des portes;</li>
+ * 		<li><b>attente image</b>: de la fin du traitement à l'impulsion JavaFX qui l'affiche, après sa passe CSS et sa mise en page.</li>
+ * 	</ul>
+ * 	<p>
+ * 		La latence totale, de l'émission à l'image, est classée par type de notification (état, niveau, signaux, autres).
+ * 		La latence d'un appui, du contrôleur du bouton jusqu'à l'image où le style du bouton a changé, est mesurée à part.
+ * 	</p>
+ * 	<p>
+ * 		Pour compter les images en retard et perdues, la mesure demande une impulsion à chaque image,
+ * 		même lorsque rien ne change à l'écran. Un rapport est affiché toutes les {@link #PERIODE_RAPPORT PERIODE_RAPPORT}
+ * 		nanosecondes, puis les compteurs repartent de zéro. Hormis l'activation, toutes les méthodes sont appelées
+ * 		sur le thread JavaFX.
+ * 	</p>
+ */
+public class MesureLatences {
+
+	/**
+	 * Période nominale des impulsions JavaFX, en nanosecondes.
+	 */
+	public static final long PERIODE_IMAGE = 1_000_000_000L / 60;
+	/**
+	 * Période d'affichage du rapport, en nanosecondes.
+	 */
+	public static final long PERIODE_RAPPORT = 10_000_000_000L;
+
+	private static final int ETAT = 0, NIVEAU = 1, SIGNAUX = 2, AUTRES = 3;
+	private static final String[] CATEGORIES = { "état", "niveau", "signaux", "autres" };
+
+	private static volatile MesureLatences instance;
+
+	private final Histogramme[] emissionImage = new Histogramme[CATEGORIES.length];
+	private final Histogramme file = new Histogramme(), attenteFx = new Histogramme(), decodage = new Histogramme(),
+			styles = new Histogramme(), portes = new Histogramme(), attenteImage = new Histogramme(),
+			passeCss = new Histogramme(), appuiImage = new Histogramme(), intervallesImages = new Histogramme();
+	private long imagesEnRetard, imagesPerdues, imagesPerduesPortes, appuisSansEffet;
+
+	/* Notification en cours de traitement */
+	private long debutTraitement, dureeStyles, dureePortes;
+
+	/**
+	 * Notifications traitées en attente d'affichage: date d'émission, fin du traitement et catégorie.
+	 */
+	private final List<long[]> notificationsEnAttente = new ArrayList<>();
+	/**
+	 * Appuis dont le style du bouton n'a pas encore changé, et appuis en attente d'affichage.
+	 */
+	private final Map<Button, Long> appuis = new HashMap<>();
+	private final List<Long> appuisEnAttente = new ArrayList<>();
+
+	private Animation animationPortes;
+	private long debutPasse, derniereImage, dernierRapport;
+	private final AnimationTimer minuterie;
+
+	private MesureLatences() {
+		for (int i = 0; i < emissionImage.length; i++)
+			emissionImage[i] = new Histogramme();
+
+		minuterie = new AnimationTimer() {
+			@Override
+			public void handle(long maintenant) {
+				nouvelleImage(maintenant);
+			}
+		};
+	}
+
+	/**
+	 * Active la mesure. Les vues et les contrôleurs créés ensuite l'alimentent.
+	 */
+	public static synchronized MesureLatences activer() {
+		if (instance == null)
+			instance = new MesureLatences();
+		return instance;
+	}
+
+	/**
+	 * @return La mesure, <code>null</code> si elle n'est pas activée.
+	 */
+	public static MesureLatences getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Suit les impulsions de la scène d'une vue.
+	 */
+	public void installer(Scene scene) {
+		scene.addPreLayoutPulseListener(() -> debutPasse = System.nanoTime());
+		scene.addPostLayoutPulseListener(this::imageAffichee);
+		dernierRapport = System.nanoTime();
+		minuterie.start();
+	}
+
+	/**
+	 * Appelée par un contrôleur avant de transmettre l'appui sur <code>bouton</code> au modèle.
+	 */
+	public void appui(Button bouton) {
+		appuis.put(bouton, System.nanoTime());
+	}
+
+	/**
+	 * Appelée au début du traitement d'une notification reçue à la date <code>reception</code>.
+	 */
+	public void debutTraitement(PropertyChangeEvent evenement, long reception) {
+		debutTraitement = System.nanoTime();
+		dureeStyles = 0;
+		dureePortes = 0;
+
+		attenteFx.enregistrer(debutTraitement - reception);
+		if (evenement instanceof NotificationDatee)
+			file.enregistrer(reception - ((NotificationDatee) evenement).getDateEmission());
+	}
+
+	/**
+	 * Appelée à la fin du traitement d'une notification.
+	 */
+	public void finTraitement(PropertyChangeEvent evenement) {
+		long fin = System.nanoTime();
+
+		decodage.enregistrer(fin - debutTraitement - dureeStyles - dureePortes);
+		if (dureeStyles > 0)
+			styles.enregistrer(dureeStyles);
+		if (dureePortes > 0)
+			portes.enregistrer(dureePortes);
+
+		long emission = evenement instanceof NotificationDatee ? ((NotificationDatee) evenement).getDateEmission() : debutTraitement;
+		notificationsEnAttente.add(new long[] { emission, fin, categorie(evenement.getPropertyName()) });
+	}
+
+	/**
+	 * Appelée après le changement de style de <code>bouton</code>, commencé à la date <code>debut</code>.
+	 */
+	public void style(Button bouton, long debut) {
+		dureeStyles += System.nanoTime() - debut;
+
+		Long appui = appuis.remove(bouton);
+		if (appui != null)
+			appuisEnAttente.add(appui);
+	}
+
+	/**
+	 * Appelée après le lancement de l'animation des portes, commencé à la date <code>debut</code>.
+	 */
+	public void portes(Animation animation, long debut) {
+		dureePortes += System.nanoTime() - debut;
+		animationPortes = animation;
+	}
+
+	private static int categorie(String nom) {
+		if (nom == null)
+			return AUTRES;
+		if (nom.equals("etatCourant"))
+			return ETAT;
+		if (nom.equals("niveauCourant"))
+			return NIVEAU;
+		if (nom.equals("signaux") || nom.contains("Niveau"))
+			return SIGNAUX;
+		return AUTRES;
+	}
+
+	/**
+	 * Impulsion JavaFX, après la passe CSS et la mise en page: les notifications traitées et les styles changés
+	 * depuis l'impulsion précédente seront sur l'image.
+	 */
+	private void imageAffichee() {
+		long maintenant = System.nanoTime();
+		passeCss.enregistrer(maintenant - debutPasse);
+
+		for (long[] notification : notificationsEnAttente) {
+			emissionImage[(int) notification[2]].enregistrer(maintenant - notification[0]);
+			attenteImage.enregistrer(maintenant - notification[1]);
+		}
+		notificationsEnAttente.clear();
+
+		for (long appui : appuisEnAttente)
+			appuiImage.enregistrer(maintenant - appui);
+		appuisEnAttente.clear();
+	}
+
+	private void nouvelleImage(long maintenant) {
+		if (derniereImage != 0) {
+			long intervalle = maintenant - derniereImage;
+			intervallesImages.enregistrer(intervalle);
+
+			if (intervalle > PERIODE_IMAGE * 3 / 2) {
+				long perdues = Math.round((double) intervalle / PERIODE_IMAGE) - 1;
+				imagesEnRetard++;
+				imagesPerdues += perdues;
+				if (animationPortes != null && animationPortes.getStatus() == Animation.Status.RUNNING)
+					imagesPerduesPortes += perdues;
+			}
+		}
+		derniereImage = maintenant;
+
+		if (maintenant - dernierRapport >= PERIODE_RAPPORT)
+			afficherRapport();
+	}
+
+	/**
+	 * Affiche le rapport depuis le précédent et remet les compteurs à zéro.
+	 */
+	public void afficherRapport() {
+		long maintenant = System.nanoTime();
+
+		// Un appui sans changement de style (signal déjà enregistré, bouton refusé) n'a pas de latence
+		for (Iterator<Long> it = appuis.values().iterator(); it.hasNext(); ) {
+			if (maintenant - it.next() >= PERIODE_RAPPORT) {
+				it.remove();
+				appuisSansEffet++;
+			}
+		}
+
+		StringBuilder texte = new StringBuilder();
+		texte.append(String.format("Latences de l'interface sur %.1f s :", (maintenant - dernierRapport) / 1e9));
+		for (int i = 0; i < CATEGORIES.length; i++)
+			ajouter(texte, CATEGORIES[i] + " -> image", emissionImage[i]);
+		ajouter(texte, "file", file);
+		ajouter(texte, "attente JavaFX", attenteFx);
+		ajouter(texte, "décodage", decodage);
+		ajouter(texte, "styles", styles);
+		ajouter(texte, "portes", portes);
+		ajouter(texte, "attente image", attenteImage);
+		ajouter(texte, "passe CSS et mise en page", passeCss);
+		ajouter(texte, "appui -> image", appuiImage);
+		ajouter(texte, "intervalle entre images", intervallesImages);
+		texte.append(String.format("%n images : %d en retard, %d perdues dont %d pendant l'animation des portes ; %d appui(s) sans effet",
+				imagesEnRetard, imagesPerdues, imagesPerduesPortes, appuisSansEffet));
+		System.out.println(texte);
+
+		for (Histogramme histogramme : emissionImage)
+			histogramme.reinitialiser();
+		for (Histogramme histogramme : new Histogramme[] { file, attenteFx, decodage, styles, portes, attenteImage, passeCss, appuiImage, intervallesImages })
+			histogramme.reinitialiser();
+		imagesEnRetard = 0;
+		imagesPerdues = 0;
+		imagesPerduesPortes = 0;
+		appuisSansEffet = 0;
+		dernierRapport = maintenant;
+	}
+
+	private static void ajouter(StringBuilder texte, String etape, Histogramme histogramme) {
+		if (histogramme.getNombre() > 0)
+			texte.append(String.format("%n %s : %s", etape, histogramme));
+	}
+}
@@ -3,11 +3,13 @@ package vues;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.io.File;
+import java.util.Arrays;
 
 import controleurs.*;
 import javafx.animation.KeyFrame;
 import javafx.animation.KeyValue;
 import javafx.animation.Timeline;
+import javafx.application.Platform;
 import javafx.geometry.HPos;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -32,9 +34,10 @@ import javafx.scene.text.TextAlignment;
 import javafx.stage.Stage;
 import javafx.util.Duration;
 import modele.IModele;
-import util.Bouton;
 import util.Etat;
+import util.PolitiqueDebordement;
 import util.Sens;
+import util.SignauxCompacts;
 
 /**
  * 
@@ -54,32 +57,37 @@ public class VueClient implements IVue, PropertyChangeListener {
 			viewsPath = "src/vues";
 	*/
 	private final int LARGEUR_SCENE = 1500, MARGE_BOUTONS = 7, LARGEUR_BOUTON_INTERNE = 90, LARGEUR_BOUTON_EXTERNE = 110;
+	private final int DUREE_MOUV_PORTES = 2000, CAPACITE_NOTIFICATIONS = 64;
 	
 	private Label niveau;
-	private Button arretUrgence, niveauAtteint;
+	private Button arretUrgence, niveauAtteint, fermerPortes;
 	private Bouton[] demandeNiveau, descendreNiveau, monterNiveau;
+	private int[] niveauxDesservis;
 	private ImageView interieurImg, porteGaucheImg, porteDroiteImg, cabineImg;
 	private Image fleche, cabineMontImg, cabineDescImg;
 	private AudioClip ding, boutonEnfonce, boutonRelache;
 	
 	private Timeline timeline;
+	private MesureLatences mesure;
 
 	public VueClient(IModele modele) {
 		this.modele = modele;
-		modele.ajouterEcouteur(this);
-
-		int premierNiveau = modele.getPremierNiveau(), dernierNiveau = modele.getDernierNiveau();
-		demandeNiveau = new Bouton[dernierNiveau - premierNiveau + 1];
-		descendreNiveau = new Bouton[dernierNiveau - premierNiveau];
-		monterNiveau = new Bouton[dernierNiveau - premierNiveau];
+		mesure = MesureLatences.getInstance();
+		/* Les notifications sont traitées hors du contrôle-commande, puis sur le thread JavaFX */
+		modele.ajouterEcouteurAsynchrone(this, CAPACITE_NOTIFICATIONS, PolitiqueDebordement.FUSIONNER);
+
+		/* Seuls les niveaux desservis par la cabine ont des boutons */
+		niveauxDesservis = modele.getNiveauxDesservis();
+		demandeNiveau = new Bouton[niveauxDesservis.length];
+		descendreNiveau = new Bouton[niveauxDesservis.length - 1];
+		monterNiveau = new Bouton[niveauxDesservis.length - 1];
 		
 		initialiserImages();
 		initialiserBoutons();
 		ajouterControleurs();
 		initialiserSons();
-		initialiserAnimation();
 		
-		niveau = new Label(Integer.toString(modele.getPremierNiveau()));
+		niveau = new Label(Integer.toString(modele.getNiveauCourant()));
 		niveau.setTextFill(Color.RED);
 		niveau.setFont(Font.font("verdana", FontWeight.BOLD, FontPosture.REGULAR, 19));
 		niveau.setTextAlignment(TextAlignment.RIGHT);
@@ -117,23 +125,22 @@ public class VueClient implements IVue, PropertyChangeListener {
 	public void initialiserBoutons() {
 		arretUrgence = new Button("Arrêt d'urgence");
 		niveauAtteint = new Button("Niveau atteint");
-
-		int premierNiveau = modele.getPremierNiveau();
+		fermerPortes = new Button("Fermer les portes");
 
 		for (int i = 0; i < demandeNiveau.length; i++) {
-			Integer niveau = i + premierNiveau;
+			Integer niveau = niveauxDesservis[i];
 			demandeNiveau[i] = new Bouton(niveau, niveau.toString());
 			demandeNiveau[i].setMinWidth(LARGEUR_BOUTON_INTERNE);
 		}
 
 		for (int i = 0; i < monterNiveau.length; i++) {
-			Integer niveau = i + premierNiveau;
+			Integer niveau = niveauxDesservis[i];
 			monterNiveau[i] = new Bouton(niveau, niveau.toString(), new ImageView(fleche));
 			monterNiveau[i].setMinWidth(LARGEUR_BOUTON_EXTERNE);
 		}
 
 		for (int i = 0; i < descendreNiveau.length; i++) {
-			Integer niveau = i + premierNiveau + 1;
+			Integer niveau = niveauxDesservis[i + 1];
 			ImageView temp = new ImageView(fleche);
 			temp.setRotate(180);
 			descendreNiveau[i] = new Bouton(niveau, niveau.toString(), temp);
@@ -148,10 +155,12 @@ public class VueClient implements IVue, PropertyChangeListener {
 		ControleurBoutonsExtMonter cbem = new ControleurBoutonsExtMonter(modele);
 		ControleurBoutonsInternes cbi = new ControleurBoutonsInternes(modele);
 		ControleurNiveauAtteint cna = new ControleurNiveauAtteint(modele);
+		ControleurFermerPortes cfp = new ControleurFermerPortes(modele);
 
 		/* Ajout des controleurs */
 		arretUrgence.setOnAction(cau);
 		niveauAtteint.setOnAction(cna);
+		fermerPortes.setOnAction(cfp);
 
 		for (Bouton bouton : demandeNiveau)
 			bouton.setOnAction(cbi);
@@ -165,6 +174,22 @@ public class VueClient implements IVue, PropertyChangeListener {
 
 	@Override
 	public void propertyChange(PropertyChangeEvent event) {
+		long reception = System.nanoTime();
+		Platform.runLater(() -> traiterNotification(event, reception));
+	}
+
+	private void traiterNotification(PropertyChangeEvent event, long reception) {
+		if (mesure == null) {
+			decoderNotification(event);
+			return;
+		}
+
+		mesure.debutTraitement(event, reception);
+		decoderNotification(event);
+		mesure.finTraitement(event);
+	}
+
+	private void decoderNotification(PropertyChangeEvent event) {
 		String nomProp = event.getPropertyName();
 		
 		if (nomProp.equals("etatCourant")) {
@@ -181,7 +206,6 @@ public class VueClient implements IVue, PropertyChangeListener {
 			}
 			else if (newValue == Etat.ARRET) {
 				ding.play();
-				timeline.play();
 			}
 			
 			System.out.println("transition : " + oldValue + " -> " + newValue);
@@ -191,9 +215,15 @@ public class VueClient implements IVue, PropertyChangeListener {
 			
 			cabineImg.setImage(newValue == Sens.MONTER ? cabineMontImg : cabineDescImg);
 		}
+		else if (nomProp.equals("dureePause")) {
+			animerPortes((int) event.getNewValue());
+		}
 		else if (nomProp.equals("niveauCourant")) {
 			niveau.setText(Integer.toString((int)event.getNewValue()));
 		}
+		else if (nomProp.equals("signaux")) {
+			afficherSignaux((SignauxCompacts) event.getNewValue());
+		}
 		else if (nomProp.contains("Niveau")) {
 			String[] signal = nomProp.split("Niveau");
 
@@ -205,13 +235,13 @@ public class VueClient implements IVue, PropertyChangeListener {
 
 			switch (signal[0]) {
 				case "demande":
-					bouton = demandeNiveau[niveau - modele.getPremierNiveau()];
+					bouton = demandeNiveau[rang(niveau)];
 					break;
 				case "monter":
-					bouton = monterNiveau[niveau - modele.getPremierNiveau()];
+					bouton = monterNiveau[rang(niveau)];
 					break;
 				case "descendre":
-					bouton = descendreNiveau[niveau - modele.getPremierNiveau() - 1];
+					bouton = descendreNiveau[rang(niveau) - 1];
 					break;
 				default:
 					System.err.println("Impossible d'identifier le signal observé.");
@@ -222,25 +252,34 @@ public class VueClient implements IVue, PropertyChangeListener {
 		}
 	}
 	
-	public void initialiserAnimation() {
-		int dureeAnimation = modele.getDureePause();
-		int dureeMouvPortes = 2000, dureeAttente = dureeAnimation - 2 * dureeMouvPortes;
+	/**
+	 * Anime les portes pour une pause de <code>dureeAnimation</code> millisecondes choisie par le modèle.
+	 * L'animation part de la position courante des portes, ce qui permet de prolonger, d'écourter
+	 * ou de rouvrir les portes pendant une pause.
+	 */
+	public void animerPortes(int dureeAnimation) {
+		long debut = System.nanoTime();
+		int dureeMouvPortes = Math.min(DUREE_MOUV_PORTES, dureeAnimation / 3);
+		
+		if (timeline != null)
+			timeline.stop();
 		
 		timeline = new Timeline();
 		timeline.getKeyFrames().addAll(
-			// Position initiale des portes
-            new KeyFrame(Duration.ZERO, new KeyValue(porteGaucheImg.translateXProperty(), 0),
-            		new KeyValue(porteDroiteImg.translateXProperty(), 0)),
-            // Position des portes après ouverture
+            // Position des portes après ouverture (depuis leur position courante)
             new KeyFrame(new Duration(dureeMouvPortes), new KeyValue(porteGaucheImg.translateXProperty(), -100),
             		new KeyValue(porteDroiteImg.translateXProperty(), 100)),
             // KeyFrame similaire à la précédente pour créer une attente
-            new KeyFrame(new Duration(dureeMouvPortes + dureeAttente), new KeyValue(porteGaucheImg.translateXProperty(), -100),
+            new KeyFrame(new Duration(dureeAnimation - dureeMouvPortes), new KeyValue(porteGaucheImg.translateXProperty(), -100),
             		new KeyValue(porteDroiteImg.translateXProperty(), 100)),
             // Retour à la position initiale des portes	
             new KeyFrame(new Duration(dureeAnimation), new KeyValue(porteGaucheImg.translateXProperty(), 0),
             		new KeyValue(porteDroiteImg.translateXProperty(), 0))
         );
+		timeline.play();
+
+		if (mesure != null)
+			mesure.portes(timeline, debut);
 	}
 
 	public void afficher(Stage primaryStage) {
@@ -264,6 +303,7 @@ public class VueClient implements IVue, PropertyChangeListener {
 		}
 		boutonsInternesUtil.getChildren().add(arretUrgence);
 		boutonsInternesUtil.getChildren().add(niveauAtteint);
+		boutonsInternesUtil.getChildren().add(fermerPortes);
 		
 		boutonsInternesVBox.getChildren().add(boutonsInternesGP);
 		boutonsInternesVBox.getChildren().add(boutonsInternesUtil);
@@ -302,15 +342,38 @@ public class VueClient implements IVue, PropertyChangeListener {
 		scene.getStylesheets().add(cheminFichierCSS);
 		
 		definirStyles("signalInactif");
+		if (mesure != null)
+			mesure.installer(scene);
 		
 		primaryStage.setTitle("Ascenseur - Developpement");
 		primaryStage.setScene(scene);
 		primaryStage.show();
 	}
 
+	/**
+	 * Met à jour d'un coup tous les boutons de signal, après l'enregistrement d'un lot de signaux par le modèle.
+	 */
+	private void afficherSignaux(SignauxCompacts signaux) {
+		for (int rang = 0; rang < demandeNiveau.length; rang++)
+			definirStyle(demandeNiveau[rang], signaux.get(SignauxCompacts.DEMANDE, rang) ? "signalActif" : "signalInactif");
+
+		for (int rang = 0; rang < monterNiveau.length; rang++) {
+			definirStyle(monterNiveau[rang], signaux.get(SignauxCompacts.MONTER, rang) ? "signalActif" : "signalInactif");
+			definirStyle(descendreNiveau[rang], signaux.get(SignauxCompacts.DESCENDRE, rang + 1) ? "signalActif" : "signalInactif");
+		}
+	}
+
+	/**
+	 * @return Le rang de <code>niveau</code> parmi les niveaux desservis, qui sert d'indice dans les tableaux de boutons.
+	 */
+	private int rang(int niveau) {
+		return Arrays.binarySearch(niveauxDesservis, niveau);
+	}
+
 	public void definirStyles(String style) {
 		definirStyle(arretUrgence, style);
 		definirStyle(niveauAtteint, style);
+		definirStyle(fermerPortes, style);
 
 		for (Bouton bouton : demandeNiveau)
 			definirStyle(bouton, style);
@@ -323,11 +386,15 @@ public class VueClient implements IVue, PropertyChangeListener {
 	}
 
 	public void definirStyle(Button bouton, String style) {
+		long debut = System.nanoTime();
 
 		bouton.getStyleClass().remove("signalInactif");
 		bouton.getStyleClass().remove("signalActif");
 		bouton.getStyleClass().remove("arretUrgence");
 
 		bouton.getStyleClass().add(style);
+
+		if (mesure != null)
+			mesure.style(bouton, debut);
 	}
 }
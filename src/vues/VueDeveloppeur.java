@@ -2,8 +2,10 @@ package vues;
 
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.util.Arrays;
 
 import controleurs.*;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
@@ -11,8 +13,9 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 import modele.IModele;
-import util.Bouton;
 import util.Etat;
+import util.PolitiqueDebordement;
+import util.SignauxCompacts;
 
 /**
  * 
@@ -22,17 +25,23 @@ import util.Etat;
 public class VueDeveloppeur implements IVue, PropertyChangeListener {
 	private IModele modele;
 
-	private Button arretUrgence, niveauAtteint;
+	private Button arretUrgence, niveauAtteint, fermerPortes, detectionPassage;
 	private Bouton[] demandeNiveau, descendreNiveau, monterNiveau;
+	private int[] niveauxDesservis;
+	private final int CAPACITE_NOTIFICATIONS = 64;
+	private MesureLatences mesure;
 
 	public VueDeveloppeur(IModele modele) {
 		this.modele = modele;
-		modele.ajouterEcouteur(this);
+		mesure = MesureLatences.getInstance();
+		/* Les notifications sont traitées hors du contrôle-commande, puis sur le thread JavaFX */
+		modele.ajouterEcouteurAsynchrone(this, CAPACITE_NOTIFICATIONS, PolitiqueDebordement.FUSIONNER);
 
-		int premierNiveau = modele.getPremierNiveau(), dernierNiveau = modele.getDernierNiveau();
-		demandeNiveau = new Bouton[dernierNiveau - premierNiveau + 1];
-		descendreNiveau = new Bouton[dernierNiveau - premierNiveau];
-		monterNiveau = new Bouton[dernierNiveau - premierNiveau];
+		/* Seuls les niveaux desservis par la cabine ont des boutons */
+		niveauxDesservis = modele.getNiveauxDesservis();
+		demandeNiveau = new Bouton[niveauxDesservis.length];
+		descendreNiveau = new Bouton[niveauxDesservis.length - 1];
+		monterNiveau = new Bouton[niveauxDesservis.length - 1];
 
 		initialiserBoutons();
 		ajouterControleurs();
@@ -41,21 +50,21 @@ public class VueDeveloppeur implements IVue, PropertyChangeListener {
 	public void initialiserBoutons() {
 		arretUrgence = new Button("Arrêt d'urgence");
 		niveauAtteint = new Button("Niveau atteint");
-
-		int premierNiveau = modele.getPremierNiveau();
+		fermerPortes = new Button("Fermer les portes");
+		detectionPassage = new Button("Passage détecté");
 
 		for (int i = 0; i < demandeNiveau.length; i++) {
-			Integer niveau = i + premierNiveau;
+			Integer niveau = niveauxDesservis[i];
 			demandeNiveau[i] = new Bouton(niveau, niveau.toString());
 		}
 
 		for (int i = 0; i < monterNiveau.length; i++) {
-			int niveau = i + premierNiveau;
+			int niveau = niveauxDesservis[i];
 			monterNiveau[i] = new Bouton(niveau, "monter " + niveau);
 		}
 
 		for (int i = 0; i < descendreNiveau.length; i++) {
-			int niveau = i + premierNiveau + 1;
+			int niveau = niveauxDesservis[i + 1];
 			descendreNiveau[i] = new Bouton(niveau, "desc " + niveau);
 		}
 	}
@@ -67,10 +76,14 @@ public class VueDeveloppeur implements IVue, PropertyChangeListener {
 		ControleurBoutonsExtMonter cbem = new ControleurBoutonsExtMonter(modele);
 		ControleurBoutonsInternes cbi = new ControleurBoutonsInternes(modele);
 		ControleurNiveauAtteint cna = new ControleurNiveauAtteint(modele);
+		ControleurFermerPortes cfp = new ControleurFermerPortes(modele);
+		ControleurDetectionPassage cdp = new ControleurDetectionPassage(modele);
 
 		/* Ajout des controleurs */
 		arretUrgence.setOnAction(cau);
 		niveauAtteint.setOnAction(cna);
+		fermerPortes.setOnAction(cfp);
+		detectionPassage.setOnAction(cdp);
 
 		for (Bouton bouton : demandeNiveau)
 			bouton.setOnAction(cbi);
@@ -84,6 +97,22 @@ public class VueDeveloppeur implements IVue, PropertyChangeListener {
 
 	@Override
 	public void propertyChange(PropertyChangeEvent event) {
+		long reception = System.nanoTime();
+		Platform.runLater(() -> traiterNotification(event, reception));
+	}
+
+	private void traiterNotification(PropertyChangeEvent event, long reception) {
+		if (mesure == null) {
+			decoderNotification(event);
+			return;
+		}
+
+		mesure.debutTraitement(event, reception);
+		decoderNotification(event);
+		mesure.finTraitement(event);
+	}
+
+	private void decoderNotification(PropertyChangeEvent event) {
 		String nomProp = event.getPropertyName();
 		
 		if (nomProp.equals("etatCourant")) {
@@ -97,6 +126,9 @@ public class VueDeveloppeur implements IVue, PropertyChangeListener {
 			
 			System.out.println("transition : " + oldValue + " -> " + newValue);
 		}
+		else if (nomProp.equals("signaux")) {
+			afficherSignaux((SignauxCompacts) event.getNewValue());
+		}
 		else if (nomProp.contains("Niveau")) {
 			String[] signal = nomProp.split("Niveau");
 
@@ -108,13 +140,13 @@ public class VueDeveloppeur implements IVue, PropertyChangeListener {
 
 			switch (signal[0]) {
 				case "demande":
-					bouton = demandeNiveau[niveau - modele.getPremierNiveau()];
+					bouton = demandeNiveau[rang(niveau)];
 					break;
 				case "monter":
-					bouton = monterNiveau[niveau - modele.getPremierNiveau()];
+					bouton = monterNiveau[rang(niveau)];
 					break;
 				case "descendre":
-					bouton = descendreNiveau[niveau - modele.getPremierNiveau() - 1];
+					bouton = descendreNiveau[rang(niveau) - 1];
 					break;
 				default:
 					System.err.println("Impossible d'identifier le signal observé.");
@@ -147,6 +179,8 @@ public class VueDeveloppeur implements IVue, PropertyChangeListener {
 			boite3.getChildren().add(bouton);
 
 		boite4.getChildren().add(niveauAtteint);
+		boite4.getChildren().add(fermerPortes);
+		boite4.getChildren().add(detectionPassage);
 
 		root.getChildren().add(boite1);
 		root.getChildren().add(boite2);
@@ -157,14 +191,38 @@ public class VueDeveloppeur implements IVue, PropertyChangeListener {
 		String cheminFichierCSS = this.getClass().getResource("style.css").toExternalForm();
 		scene.getStylesheets().add(cheminFichierCSS);
 		definirStyles("signalInactif");
+		if (mesure != null)
+			mesure.installer(scene);
 		primaryStage.setTitle("Ascenseur - Developpement");
 		primaryStage.setScene(scene);
 		primaryStage.show();
 	}
 
+	/**
+	 * Met à jour d'un coup tous les boutons de signal, après l'enregistrement d'un lot de signaux par le modèle.
+	 */
+	private void afficherSignaux(SignauxCompacts signaux) {
+		for (int rang = 0; rang < demandeNiveau.length; rang++)
+			definirStyle(demandeNiveau[rang], signaux.get(SignauxCompacts.DEMANDE, rang) ? "signalActif" : "signalInactif");
+
+		for (int rang = 0; rang < monterNiveau.length; rang++) {
+			definirStyle(monterNiveau[rang], signaux.get(SignauxCompacts.MONTER, rang) ? "signalActif" : "signalInactif");
+			definirStyle(descendreNiveau[rang], signaux.get(SignauxCompacts.DESCENDRE, rang + 1) ? "signalActif" : "signalInactif");
+		}
+	}
+
+	/**
+	 * @return Le rang de <code>niveau</code> parmi les niveaux desservis, qui sert d'indice dans les tableaux de boutons.
+	 */
+	private int rang(int niveau) {
+		return Arrays.binarySearch(niveauxDesservis, niveau);
+	}
+
 	public void definirStyles(String style) {
 		definirStyle(arretUrgence, style);
 		definirStyle(niveauAtteint, style);
+		definirStyle(fermerPortes, style);
+		definirStyle(detectionPassage, style);
 
 		for (Bouton bouton : demandeNiveau)
 			definirStyle(bouton, style);
@@ -177,11 +235,15 @@ public class VueDeveloppeur implements IVue, PropertyChangeListener {
 	}
 
 	public void definirStyle(Button bouton, String style) {
+		long debut = System.nanoTime();
 
 		bouton.getStyleClass().remove("signalInactif");
 		bouton.getStyleClass().remove("signalActif");
 		bouton.getStyleClass().remove("arretUrgence");
 
 		bouton.getStyleClass().add(style);
+
+		if (mesure != null)
+			mesure.style(bouton, debut);
 	}
 }